@@ -0,0 +1,92 @@
+package uk.ac.ebi.intact.tools.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ebi.intact.bridges.ncbiblast.model.BlastProtein;
+import uk.ac.ebi.intact.protein.mapping.alignment.AlignmentResults;
+import uk.ac.ebi.intact.protein.mapping.alignment.LocalAlignmentResults;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtering of large lists of BlastProtein the same way as the BlastResultFilter : the blast actions filter the results
+ * with the identity and the organism before looking at the matching entries
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlignmentResultsBenchmark {
+
+    private static final String[] TAX_IDS = {"9606", "10090", "10116", "559292", "7227"};
+
+    @Param({"1000", "100000"})
+    public int numberOfMatches;
+
+    private AlignmentResults results;
+
+    @Setup(Level.Trial)
+    public void createResults(){
+        Random random = new Random(SyntheticData.SEED);
+        List<BlastProtein> proteins = new ArrayList<BlastProtein>(numberOfMatches);
+        List<String> taxIds = new ArrayList<String>(numberOfMatches);
+
+        for (int i = 0; i < numberOfMatches; i++){
+            String sequence = SyntheticData.randomSequence(random, 100 + random.nextInt(400));
+            int start = 1 + random.nextInt(50);
+            int end = start + random.nextInt(sequence.length() - start);
+
+            BlastProtein protein = new BlastProtein();
+            protein.setAccession("Q" + (10000 + i));
+            protein.setDatabase(i % 10 == 0 ? "SP" : "TR");
+            protein.setDescription("Synthetic protein " + i);
+            protein.setSequence(sequence);
+            protein.setAlignment(sequence.substring(start - 1, end));
+            protein.setIdentity(50 + random.nextFloat() * 50);
+            protein.setStartQuery(start);
+            protein.setEndQuery(end);
+            protein.setStartMatch(start);
+            protein.setEndMatch(end);
+
+            proteins.add(protein);
+            taxIds.add(TAX_IDS[random.nextInt(TAX_IDS.length)]);
+        }
+
+        this.results = new LocalAlignmentResults(proteins, taxIds);
+    }
+
+    @Benchmark
+    public List<BlastProtein> filter_with_identity(){
+        this.results.filterResultsWithIdentity(95);
+        return this.results.getMatchingEntries();
+    }
+
+    @Benchmark
+    public List<BlastProtein> filter_with_identity_and_organism(){
+        this.results.filterResultsWithIdentityAndOrganism(95, "9606");
+        return this.results.getMatchingEntries();
+    }
+
+    @Benchmark
+    public List<BlastProtein> filter_mapping_entries(){
+        this.results.filterResultsWithIdentity(90);
+        return this.results.filterMappingEntriesWithIdentity(99);
+    }
+
+    /**
+     *
+     * @return a copy of the results, as made for each action waiting for the results of a blast
+     */
+    @Benchmark
+    public AlignmentResults copy(){
+        return this.results.copy();
+    }
+}
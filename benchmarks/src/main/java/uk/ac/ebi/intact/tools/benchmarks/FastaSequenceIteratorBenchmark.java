@@ -0,0 +1,80 @@
+package uk.ac.ebi.intact.tools.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ebi.intact.protein.mapping.curation.FastaSequence;
+import uk.ac.ebi.intact.protein.mapping.curation.FastaSequenceIterator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the FastaSequenceIterator on a synthetic Uniprot fasta file (about 20 MB for 20000 sequences)
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FastaSequenceIteratorBenchmark {
+
+    @Param({"20000"})
+    public int numberOfSequences;
+
+    @Param({"false", "true"})
+    public boolean compressed;
+
+    @Param({"4"})
+    public int numberOfShards;
+
+    private File fastaFile;
+
+    @Setup(Level.Trial)
+    public void createFastaFile() throws IOException {
+        this.fastaFile = File.createTempFile("benchmark", compressed ? ".fasta.gz" : ".fasta");
+        SyntheticData.writeFasta(this.fastaFile, numberOfSequences, compressed);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFastaFile(){
+        this.fastaFile.delete();
+    }
+
+    private static long read(FastaSequenceIterator iterator){
+        long length = 0;
+        while (iterator.hasNext()){
+            FastaSequence sequence = iterator.next();
+            length += sequence.getSequence().length();
+        }
+        return length;
+    }
+
+    /**
+     *
+     * @return the total length of the sequences read
+     * @throws IOException
+     */
+    @Benchmark
+    public long read_file() throws IOException {
+        return read(new FastaSequenceIterator(this.fastaFile));
+    }
+
+    /**
+     * Read the shards one after the other to measure the cost of the splitting. A compressed file is read as a single shard
+     * @return the total length of the sequences read
+     * @throws IOException
+     */
+    @Benchmark
+    public long read_shards() throws IOException {
+        long length = 0;
+        for (FastaSequenceIterator shard : FastaSequenceIterator.split(this.fastaFile, numberOfShards)){
+            length += read(shard);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,68 @@
+package uk.ac.ebi.intact.tools.benchmarks;
+
+import uk.ac.ebi.intact.jami.dao.CvTermDao;
+import uk.ac.ebi.intact.jami.dao.IntactDao;
+import uk.ac.ebi.intact.jami.model.extension.IntactCvTerm;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * In-process replacement of the IntactDao used by the ShortlabelGenerator benchmark so no database is needed.
+ * The CvTermDao returns a new cv term having the requested AC, the other DAO methods are not supported.
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+public class InProcessIntactDao implements InvocationHandler {
+
+    /**
+     * The DAO interface implemented by the proxy using this handler
+     */
+    private final Class<?> daoType;
+
+    private InProcessIntactDao(Class<?> daoType){
+        this.daoType = daoType;
+    }
+
+    /**
+     *
+     * @return a new IntactDao which doesn't need any database
+     */
+    public static IntactDao newInstance(){
+        return (IntactDao) newProxy(IntactDao.class);
+    }
+
+    private static Object newProxy(Class<?> daoType){
+        return Proxy.newProxyInstance(daoType.getClassLoader(), new Class<?>[]{daoType}, new InProcessIntactDao(daoType));
+    }
+
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+
+        if (name.equals("equals")){
+            return proxy == args[0];
+        }
+        else if (name.equals("hashCode")){
+            return System.identityHashCode(proxy);
+        }
+        else if (name.equals("toString")){
+            return "In-process " + this.daoType.getSimpleName();
+        }
+        // getCvTermDao, getFeatureEvidenceDao, ...
+        else if (this.daoType == IntactDao.class && name.endsWith("Dao") && method.getReturnType().isInterface()){
+            return newProxy(method.getReturnType());
+        }
+        else if (CvTermDao.class.isAssignableFrom(this.daoType) && name.equals("getByAc")){
+            String ac = (String) args[0];
+
+            IntactCvTerm cvTerm = new IntactCvTerm(ac);
+            cvTerm.setAc(ac);
+            return cvTerm;
+        }
+
+        throw new UnsupportedOperationException("The in-process " + this.daoType.getSimpleName() + " doesn't support " + name);
+    }
+}
@@ -0,0 +1,142 @@
+package uk.ac.ebi.intact.tools.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.model.PolyQDataFeed;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.utils.ShortlabelGeneratorHelper;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the polyQ and deletion/insertion classifiers of the ShortlabelGeneratorHelper with the former
+ * regular expression based implementation on long repeat expansions
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolyQClassifierBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int numberOfRepeats;
+
+    private final ShortlabelGeneratorHelper helper = new ShortlabelGeneratorHelper();
+
+    private String singleAAOriginalSequence;
+    private String singleAAPolyQSequence;
+    private String repeatUnit;
+    private String multipleAAPolyQSequence;
+    private String brokenMultipleAAPolyQSequence;
+    private String deletedSequence;
+
+    @Setup(Level.Trial)
+    public void createSequences(){
+        Random random = new Random(SyntheticData.SEED);
+
+        this.singleAAOriginalSequence = "QQ";
+        this.singleAAPolyQSequence = SyntheticData.repeat('Q', numberOfRepeats * 2);
+
+        this.repeatUnit = SyntheticData.randomSequence(random, 3);
+        StringBuilder expansion = new StringBuilder(numberOfRepeats * this.repeatUnit.length());
+        for (int i = 0; i < numberOfRepeats; i++) {
+            expansion.append(this.repeatUnit);
+        }
+        this.multipleAAPolyQSequence = expansion.toString();
+
+        // the last repeat differs, which is the worst case of the repeat check
+        expansion.setCharAt(expansion.length() - 1, SyntheticData.otherAminoAcid(expansion.charAt(expansion.length() - 1)));
+        this.brokenMultipleAAPolyQSequence = expansion.toString();
+
+        this.deletedSequence = SyntheticData.repeat('.', numberOfRepeats);
+    }
+
+    @Benchmark
+    public PolyQDataFeed single_aa_polyq_scanner(){
+        return helper.checkIfPoyQAndReturnPDF(this.singleAAOriginalSequence, this.singleAAPolyQSequence);
+    }
+
+    @Benchmark
+    public PolyQDataFeed single_aa_polyq_regex(){
+        return RegexClassifiers.checkIfPoyQAndReturnPDF(this.singleAAOriginalSequence, this.singleAAPolyQSequence);
+    }
+
+    @Benchmark
+    public PolyQDataFeed multiple_aa_polyq_scanner(){
+        return helper.checkIfPoyQAndReturnPDF(this.repeatUnit, this.multipleAAPolyQSequence);
+    }
+
+    @Benchmark
+    public PolyQDataFeed multiple_aa_polyq_regex(){
+        return RegexClassifiers.checkIfPoyQAndReturnPDF(this.repeatUnit, this.multipleAAPolyQSequence);
+    }
+
+    @Benchmark
+    public PolyQDataFeed broken_multiple_aa_polyq_scanner(){
+        return helper.checkIfPoyQAndReturnPDF(this.repeatUnit, this.brokenMultipleAAPolyQSequence);
+    }
+
+    @Benchmark
+    public PolyQDataFeed broken_multiple_aa_polyq_regex(){
+        return RegexClassifiers.checkIfPoyQAndReturnPDF(this.repeatUnit, this.brokenMultipleAAPolyQSequence);
+    }
+
+    @Benchmark
+    public boolean deletion_insertion_scanner(){
+        return helper.isItDelInsCase(this.deletedSequence, this.deletedSequence);
+    }
+
+    @Benchmark
+    public boolean deletion_insertion_regex(){
+        return RegexClassifiers.isItDelInsCase(this.deletedSequence, this.deletedSequence);
+    }
+
+    /**
+     * The regular expression based classifiers the ShortlabelGeneratorHelper used before, kept as baseline
+     */
+    static class RegexClassifiers {
+
+        static boolean isItDelInsCase(String oSequence, String rSequence) {
+            if (oSequence.length() == rSequence.length()) {
+                Pattern r1 = Pattern.compile("\\." + "{" + rSequence.length() + "}");
+                return !r1.matcher(rSequence).matches();
+            }
+            return rSequence.length() > 0;
+        }
+
+        static PolyQDataFeed checkIfPoyQAndReturnPDF(String oSequence, String rSequence) {
+            boolean isSingleAAPolycule = false;
+            boolean isMultipleAAPolycule = false;
+            int repeatUnit = 0;
+            String removedNewLinesRSeq = rSequence.replaceAll("\\n", "");
+            removedNewLinesRSeq = removedNewLinesRSeq.replaceAll("\\r", "");
+            if (removedNewLinesRSeq.length() > oSequence.length() && removedNewLinesRSeq.contains(oSequence)) {
+                Matcher m = Pattern.compile(oSequence.charAt(0) + "{" + oSequence.length() + "}").matcher(oSequence);
+                if (m.matches()) {
+                    Pattern r2 = Pattern.compile(oSequence.charAt(0) + "{" + removedNewLinesRSeq.length() + "}");
+                    isSingleAAPolycule = r2.matcher(removedNewLinesRSeq).matches();
+                    repeatUnit = removedNewLinesRSeq.length();
+                } else if (removedNewLinesRSeq.length() % oSequence.length() == 0) {
+                    int factor = removedNewLinesRSeq.length() / oSequence.length();
+                    Pattern r3 = Pattern.compile("(" + oSequence + ")" + "{" + factor + "}");
+                    isMultipleAAPolycule = r3.matcher(removedNewLinesRSeq).matches();
+                    repeatUnit = factor;
+                }
+            }
+
+            PolyQDataFeed polyQDataFeed = new PolyQDataFeed();
+            polyQDataFeed.setMultipleAAPolyQ(isMultipleAAPolycule);
+            polyQDataFeed.setSingleAAPolyQ(isSingleAAPolycule);
+            polyQDataFeed.setPolyQ(isSingleAAPolycule || isMultipleAAPolycule);
+            polyQDataFeed.setRepeatUnit(repeatUnit);
+            return polyQDataFeed;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package uk.ac.ebi.intact.tools.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ebi.intact.protein.mapping.curation.SheetContent;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading of a sheet of proteins to identify. The sheet has a single column of identifiers
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SheetContentBenchmark {
+
+    @Param({"1000", "100000"})
+    public int numberOfProteins;
+
+    private byte[] sheet;
+
+    @Setup(Level.Trial)
+    public void createSheet() throws UnsupportedEncodingException {
+        StringBuilder content = new StringBuilder("identifier\n");
+        for (int i = 0; i < numberOfProteins; i++){
+            content.append("P").append(10000 + i).append('\n');
+        }
+        this.sheet = content.toString().getBytes("UTF-8");
+    }
+
+    /**
+     *
+     * @return the number of proteins loaded
+     */
+    @Benchmark
+    public int load_sheet(){
+        SheetContent sheetContent = new SheetContent();
+        sheetContent.loadSheetContentOf(new ByteArrayInputStream(this.sheet));
+        return sheetContent.size();
+    }
+}
@@ -0,0 +1,198 @@
+package uk.ac.ebi.intact.tools.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import psidev.psi.mi.jami.model.CvTerm;
+import psidev.psi.mi.jami.model.impl.DefaultCvTerm;
+import psidev.psi.mi.jami.model.impl.DefaultParticipantEvidence;
+import psidev.psi.mi.jami.model.impl.DefaultPosition;
+import psidev.psi.mi.jami.model.impl.DefaultResultingSequence;
+import uk.ac.ebi.intact.jami.model.extension.ExperimentalRange;
+import uk.ac.ebi.intact.jami.model.extension.IntactFeatureEvidence;
+import uk.ac.ebi.intact.jami.model.extension.IntactProtein;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.ShortlabelGenerator;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.events.*;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.listener.ShortlabelGeneratorListener;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ShortlabelGenerator.generateNewShortLabel on synthetic mutation features : single amino acid changes, deletions,
+ * deletion-insertions, insertions, polyQ expansions and features with two ranges. The database is replaced by the InProcessIntactDao.
+ * The interactors have ACs so their summaries are read once and then found in the InteractorSummaryCache of the generator.
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShortlabelGeneratorBenchmark {
+
+    private static final int NUMBER_OF_FEATURES = 1200;
+    private static final int NUMBER_OF_INTERACTORS = 100;
+
+    private static final int SEQUENCE_LENGTH = 1000;
+
+    /**
+     * The position of the polyQ region of the synthetic sequences
+     */
+    private static final int POLYQ_START = 11;
+    private static final int POLYQ_END = 20;
+
+    private ShortlabelGenerator generator;
+    private CountingListener listener;
+
+    private IntactFeatureEvidence[] features;
+    private String[] shortlabels;
+
+    @Setup(Level.Trial)
+    public void createFeatures(){
+        this.generator = new ShortlabelGenerator();
+        this.generator.setIntactDao(InProcessIntactDao.newInstance());
+
+        this.listener = new CountingListener();
+        this.generator.addListener(this.listener);
+
+        Random random = new Random(SyntheticData.SEED);
+
+        IntactProtein[] interactors = new IntactProtein[NUMBER_OF_INTERACTORS];
+        for (int i = 0; i < interactors.length; i++){
+            String sequence = SyntheticData.randomSequence(random, SEQUENCE_LENGTH);
+            sequence = sequence.substring(0, POLYQ_START - 1) + SyntheticData.repeat('Q', POLYQ_END - POLYQ_START + 1) + sequence.substring(POLYQ_END);
+
+            IntactProtein interactor = new IntactProtein("protein" + i);
+            // the summaries of the interactors are cached by AC, as for the interactors read from the database
+            interactor.setAc("EBI-" + (100000 + i));
+            interactor.setInteractorType(new DefaultCvTerm("protein"));
+            interactor.setUniprotkb("P" + (10000 + i));
+            interactor.setSequence(sequence);
+            interactors[i] = interactor;
+        }
+
+        this.features = new IntactFeatureEvidence[NUMBER_OF_FEATURES];
+        this.shortlabels = new String[NUMBER_OF_FEATURES];
+
+        for (int i = 0; i < NUMBER_OF_FEATURES; i++){
+            IntactProtein interactor = interactors[random.nextInt(interactors.length)];
+            String sequence = interactor.getSequence();
+            int position = 30 + random.nextInt(SEQUENCE_LENGTH - 100);
+
+            CvTerm featureType = new DefaultCvTerm("mutation");
+            featureType.setMIIdentifier("MI:0118");
+
+            IntactFeatureEvidence feature = new IntactFeatureEvidence();
+            feature.setAc("EBI-" + (200000 + i));
+            feature.setShortName("mutation" + i);
+            feature.setType(featureType);
+            feature.setParticipant(new DefaultParticipantEvidence(interactor));
+
+            char first = sequence.charAt(position - 1);
+            char second = sequence.charAt(position);
+
+            switch (i % 6){
+                // single amino acid change
+                case 0:
+                    feature.getRanges().add(createRange(position, position, String.valueOf(first), String.valueOf(SyntheticData.otherAminoAcid(first))));
+                    break;
+                // deletion
+                case 1:
+                    feature.getRanges().add(createRange(position, position + 2, sequence.substring(position - 1, position + 2), "..."));
+                    break;
+                // deletion-insertion
+                case 2:
+                    feature.getRanges().add(createRange(position, position + 1, "" + first + second,
+                            "" + SyntheticData.otherAminoAcid(first) + SyntheticData.otherAminoAcid(second)));
+                    break;
+                // insertion between two amino acids
+                case 3:
+                    feature.getRanges().add(createRange(position, position + 1, "" + first + second, first + "GA" + second));
+                    break;
+                // polyQ expansion
+                case 4:
+                    feature.getRanges().add(createRange(POLYQ_START, POLYQ_END, sequence.substring(POLYQ_START - 1, POLYQ_END),
+                            SyntheticData.repeat('Q', 3 * (POLYQ_END - POLYQ_START + 1))));
+                    break;
+                // two single amino acid changes
+                default:
+                    char other = sequence.charAt(position + 49);
+                    feature.getRanges().add(createRange(position + 50, position + 50, String.valueOf(other), String.valueOf(SyntheticData.otherAminoAcid(other))));
+                    feature.getRanges().add(createRange(position, position, String.valueOf(first), String.valueOf(SyntheticData.otherAminoAcid(first))));
+                    break;
+            }
+
+            this.features[i] = feature;
+            this.shortlabels[i] = feature.getShortName();
+        }
+    }
+
+    private static ExperimentalRange createRange(long start, long end, String originalSequence, String resultingSequence){
+        return new ExperimentalRange(new DefaultPosition(start), new DefaultPosition(end), new DefaultResultingSequence(originalSequence, resultingSequence));
+    }
+
+    /**
+     * Generate the shortlabels of all the features. The original shortlabels are restored before so each invocation does the same work
+     * @param blackhole
+     */
+    @Benchmark
+    @OperationsPerInvocation(NUMBER_OF_FEATURES)
+    public void generate_shortlabels(Blackhole blackhole){
+        for (int i = 0; i < this.features.length; i++){
+            IntactFeatureEvidence feature = this.features[i];
+            feature.setShortName(this.shortlabels[i]);
+
+            this.generator.generateNewShortLabel(feature);
+            blackhole.consume(feature.getShortName());
+        }
+        blackhole.consume(this.listener.numberOfEvents);
+    }
+
+    /**
+     * Listener counting the events fired by the generator
+     */
+    private static class CountingListener implements ShortlabelGeneratorListener {
+
+        private long numberOfEvents;
+
+        public void onRangeError(RangeErrorEvent event) {
+            numberOfEvents++;
+        }
+
+        public void onModifiedMutationShortlabel(ModifiedMutationShortlabelEvent event) {
+            numberOfEvents++;
+        }
+
+        public void onUnmodifiedMutationShortlabel(UnmodifiedMutationShortlabelEvent event) {
+            numberOfEvents++;
+        }
+
+        public void onRetrieveObjectError(ObjRetrieveErrorEvent event) {
+            numberOfEvents++;
+        }
+
+        public void onAnnotationFound(AnnotationFoundEvent event) {
+            numberOfEvents++;
+        }
+
+        public void onSequenceError(SequenceErrorEvent event) {
+            numberOfEvents++;
+        }
+
+        public void onResultingSequenceChanged(ResultingSequenceChangedEvent event) {
+            numberOfEvents++;
+        }
+
+        public void onObjectTypeError(TypeErrorEvent event) {
+            numberOfEvents++;
+        }
+
+        public void onOtherErrorEvent(OtherErrorEvent event) {
+            numberOfEvents++;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package uk.ac.ebi.intact.tools.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.model.PolyQDataFeed;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.utils.ShortlabelGeneratorHelper;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * String routines of the ShortlabelGeneratorHelper for ranges of different lengths
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShortlabelGeneratorHelperBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int rangeLength;
+
+    private final ShortlabelGeneratorHelper helper = new ShortlabelGeneratorHelper();
+
+    private String interactorSequence;
+    private Long rangeStart;
+    private Long rangeEnd;
+
+    private String originalSequence;
+    private String resultingSequence;
+    private String deletedSequence;
+
+    private String singleAAOriginalSequence;
+    private String singleAAPolyQSequence;
+    private String multipleAAPolyQSequence;
+
+    @Setup(Level.Trial)
+    public void createSequences(){
+        Random random = new Random(SyntheticData.SEED);
+
+        this.interactorSequence = SyntheticData.randomSequence(random, 5000);
+        this.rangeStart = 100L;
+        this.rangeEnd = this.rangeStart + rangeLength - 1;
+
+        this.originalSequence = this.interactorSequence.substring(this.rangeStart.intValue() - 1, this.rangeEnd.intValue());
+        this.resultingSequence = SyntheticData.randomSequence(random, rangeLength);
+        this.deletedSequence = SyntheticData.repeat('.', rangeLength);
+
+        this.singleAAOriginalSequence = SyntheticData.repeat('Q', rangeLength);
+        this.singleAAPolyQSequence = SyntheticData.repeat('Q', rangeLength * 3);
+        this.multipleAAPolyQSequence = this.originalSequence + this.originalSequence + this.originalSequence;
+    }
+
+    @Benchmark
+    public String generate_original_sequence(){
+        return helper.generateOrgSeq(this.interactorSequence, this.rangeStart, this.rangeEnd);
+    }
+
+    @Benchmark
+    public String three_letter_code(){
+        return helper.seq2ThreeLetterCodeOnDefault(this.originalSequence);
+    }
+
+    @Benchmark
+    public String three_letter_code_resulting_sequence(){
+        return helper.seq2ThreeLetterCodeOnDefaultResSeq(this.resultingSequence);
+    }
+
+    @Benchmark
+    public String three_letter_code_original_sequence(){
+        return helper.seq2ThreeLetterCodeOnDefaultOrgSeq(this.originalSequence, this.rangeStart, this.rangeEnd);
+    }
+
+    @Benchmark
+    public PolyQDataFeed single_aa_polyq(){
+        return helper.checkIfPoyQAndReturnPDF(this.singleAAOriginalSequence, this.singleAAPolyQSequence);
+    }
+
+    @Benchmark
+    public PolyQDataFeed multiple_aa_polyq(){
+        return helper.checkIfPoyQAndReturnPDF(this.originalSequence, this.multipleAAPolyQSequence);
+    }
+
+    @Benchmark
+    public boolean deletion_insertion(){
+        return helper.isItDelInsCase(this.originalSequence, this.deletedSequence);
+    }
+
+    @Benchmark
+    public boolean deletion_on_wrong_place(){
+        return helper.deletionOnWrongPlace(this.deletedSequence);
+    }
+
+    @Benchmark
+    public boolean too_many_dots(){
+        return helper.containsToManyDots(this.deletedSequence);
+    }
+
+    @Benchmark
+    public boolean lower_case_letters(){
+        return helper.containsLowerCaseLetters(this.resultingSequence);
+    }
+}
@@ -0,0 +1,99 @@
+package uk.ac.ebi.intact.tools.benchmarks;
+
+import java.io.*;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Generates the synthetic data used by the benchmarks. The data only depends on the seed so two runs of a benchmark
+ * always process the same data.
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+public final class SyntheticData {
+
+    /**
+     * The seed of all the random generators of the benchmarks
+     */
+    public static final long SEED = 42L;
+
+    public static final String AMINO_ACIDS = "ACDEFGHIKLMNPQRSTVWY";
+
+    private static final int FASTA_LINE_LENGTH = 60;
+
+    private SyntheticData(){
+    }
+
+    /**
+     *
+     * @param random
+     * @param length
+     * @return a random protein sequence
+     */
+    public static String randomSequence(Random random, int length){
+        StringBuilder sequence = new StringBuilder(length);
+        for (int i = 0; i < length; i++){
+            sequence.append(AMINO_ACIDS.charAt(random.nextInt(AMINO_ACIDS.length())));
+        }
+        return sequence.toString();
+    }
+
+    /**
+     *
+     * @param aminoAcid
+     * @return an amino acid different from the given one
+     */
+    public static char otherAminoAcid(char aminoAcid){
+        int index = AMINO_ACIDS.indexOf(aminoAcid);
+        return AMINO_ACIDS.charAt((index + 1) % AMINO_ACIDS.length());
+    }
+
+    /**
+     *
+     * @param aminoAcid
+     * @param length
+     * @return a sequence repeating the amino acid
+     */
+    public static String repeat(char aminoAcid, int length){
+        StringBuilder sequence = new StringBuilder(length);
+        for (int i = 0; i < length; i++){
+            sequence.append(aminoAcid);
+        }
+        return sequence.toString();
+    }
+
+    /**
+     * Write a fasta file of Uniprot-like entries with sequences of 50 to 2000 amino acids
+     * @param file : the file to write
+     * @param numberOfSequences : the number of sequences
+     * @param compressed : true if the file is compressed with gzip
+     * @throws IOException
+     */
+    public static void writeFasta(File file, int numberOfSequences, boolean compressed) throws IOException {
+        Random random = new Random(SEED);
+
+        OutputStream out = new FileOutputStream(file);
+        if (compressed){
+            out = new GZIPOutputStream(out, 65536);
+        }
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"), 65536);
+
+        try {
+            for (int i = 0; i < numberOfSequences; i++){
+                String accession = "P" + (10000 + i);
+                writer.write(">sp|" + accession + "|TEST" + i + "_HUMAN Synthetic protein " + i + " OS=Homo sapiens OX=9606 PE=1 SV=1\n");
+
+                String sequence = randomSequence(random, 50 + random.nextInt(1950));
+                for (int start = 0; start < sequence.length(); start += FASTA_LINE_LENGTH){
+                    writer.write(sequence, start, Math.min(FASTA_LINE_LENGTH, sequence.length() - start));
+                    writer.write('\n');
+                }
+            }
+        }
+        finally {
+            writer.close();
+        }
+    }
+}
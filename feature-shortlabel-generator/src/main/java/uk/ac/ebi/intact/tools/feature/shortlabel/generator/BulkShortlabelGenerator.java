@@ -0,0 +1,122 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator;
+
+import org.springframework.beans.factory.annotation.Required;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.ac.ebi.intact.jami.dao.IntactDao;
+import uk.ac.ebi.intact.jami.model.extension.IntactFeatureEvidence;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.listener.ShortlabelGeneratorListener;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.metrics.ShortlabelGeneratorMetrics;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.reader.MutationFeatureReader;
+
+import java.util.List;
+
+/**
+ * Generates the shortlabels of all the mutation features of the database.
+ * <p>
+ * Instead of loading the features one by one by AC, the features having an allowed feature type are streamed page by page
+ * with their ranges, participants and interactors. Each page is processed in its own read-only transaction so the
+ * persistence context never holds more than one page.
+ */
+public class BulkShortlabelGenerator {
+    private final static int DEFAULT_PAGE_SIZE = 500;
+
+    private ShortlabelGenerator generator;
+    private IntactDao intactDao;
+    private PlatformTransactionManager transactionManager;
+    private int pageSize = DEFAULT_PAGE_SIZE;
+
+    public void addListener(ShortlabelGeneratorListener shortlabelGeneratorListener) {
+        generator.addListener(shortlabelGeneratorListener);
+    }
+
+    /**
+     * Generate the shortlabels of all the features having one of the allowed feature types.
+     * The results are reported to the listeners, the features are not updated in the database.
+     *
+     * @return the number of features read
+     */
+    public int generateNewShortLabels() {
+        generator.clearInteractorCache();
+
+        final MutationFeatureReader reader = new MutationFeatureReader(intactDao, ShortlabelGenerator.getAllowedFeatureTypes());
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        int numberOfFeatures = 0;
+        String lastAc = null;
+        List<String> pageAcs;
+
+        do {
+            final String previousAc = lastAc;
+            pageAcs = transactionTemplate.execute(new TransactionCallback<List<String>>() {
+                @Override
+                public List<String> doInTransaction(TransactionStatus status) {
+                    List<String> acs = reader.readNextAcs(previousAc, pageSize);
+                    long fetchStart = System.nanoTime();
+                    List<IntactFeatureEvidence> featureEvidences = reader.readFeatures(acs);
+                    generator.getMetrics().recordLatency(ShortlabelGeneratorMetrics.Phase.FEATURE_FETCH, System.nanoTime() - fetchStart);
+
+                    // the features deleted since their AC has been read are reported by the generator
+                    generator.generateNewShortLabels(acs, featureEvidences);
+                    return acs;
+                }
+            });
+
+            if (!pageAcs.isEmpty()) {
+                lastAc = pageAcs.get(pageAcs.size() - 1);
+                numberOfFeatures += pageAcs.size();
+            }
+        } while (pageAcs.size() == pageSize);
+
+        flushEvents();
+
+        return numberOfFeatures;
+    }
+
+    /**
+     * Wait until the listeners have received all the events, when they are delivered asynchronously
+     */
+    private void flushEvents() {
+        try {
+            generator.getManager().flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the listeners", e);
+        }
+    }
+
+    @Required
+    public void setGenerator(ShortlabelGenerator generator) {
+        this.generator = generator;
+    }
+
+    @Required
+    public void setIntactDao(IntactDao intactDao) {
+        this.intactDao = intactDao;
+    }
+
+    @Required
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * @param pageSize : the number of features read and processed in each transaction
+     */
+    public void setPageSize(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("The page size must be positive: " + pageSize);
+        }
+        this.pageSize = pageSize;
+    }
+}
@@ -0,0 +1,221 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator;
+
+import org.springframework.beans.factory.annotation.Required;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.ac.ebi.intact.jami.dao.IntactDao;
+import uk.ac.ebi.intact.jami.model.extension.IntactFeatureEvidence;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.listener.ShortlabelGeneratorListener;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.listener.SynchronizedShortlabelGeneratorListener;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.metrics.ShortlabelGeneratorMetrics;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.reader.MutationFeatureReader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates the shortlabels of many features using several threads.
+ * <p>
+ * The feature ACs are partitioned in batches processed by a pool of workers. Each batch is loaded and processed
+ * in its own read-only transaction, so each worker uses its own Hibernate session.
+ * The events fired by all the workers are delivered one at a time to the listeners added to this generator.
+ */
+public class ParallelShortlabelGenerator {
+    private final static int DEFAULT_BATCH_SIZE = 200;
+    private final static int READ_PAGE_SIZE = 10000;
+
+    private ShortlabelGenerator generator;
+    private IntactDao intactDao;
+    private PlatformTransactionManager transactionManager;
+    private int numberOfThreads = Runtime.getRuntime().availableProcessors();
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private final SynchronizedShortlabelGeneratorListener listeners = new SynchronizedShortlabelGeneratorListener();
+
+    public void addListener(ShortlabelGeneratorListener shortlabelGeneratorListener) {
+        listeners.addListener(shortlabelGeneratorListener);
+    }
+
+    /**
+     * Generate the shortlabels of all the features having one of the allowed feature types.
+     * The results are reported to the listeners, the features are not updated in the database.
+     *
+     * @return the number of features processed
+     */
+    public int generateNewShortLabels() {
+        generator.clearInteractorCache();
+
+        List<String> featureAcs = readFeatureAcs();
+        generateNewShortLabels(featureAcs);
+
+        flushEvents();
+        return featureAcs.size();
+    }
+
+    /**
+     * Generate the shortlabels of the features and wait until all of them have been processed.
+     *
+     * @param featureAcs : the ACs of the features
+     * @throws IllegalStateException if a batch of features could not be processed. The other batches are processed anyway
+     */
+    public void generateNewShortLabels(List<String> featureAcs) {
+        final MutationFeatureReader reader = new MutationFeatureReader(intactDao, ShortlabelGenerator.getAllowedFeatureTypes());
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(numberOfThreads, 1));
+        List<Future<?>> batches = new ArrayList<Future<?>>();
+
+        try {
+            for (int start = 0; start < featureAcs.size(); start += batchSize) {
+                final List<String> batch = new ArrayList<String>(featureAcs.subList(start, Math.min(start + batchSize, featureAcs.size())));
+                batches.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        processBatch(reader, batch);
+                    }
+                }));
+            }
+
+            IllegalStateException failure = null;
+            for (Future<?> batch : batches) {
+                try {
+                    batch.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = new IllegalStateException("A batch of features could not be processed", e.getCause());
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The shortlabel generation has been interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Load the features of the batch and generate their shortlabels in a read-only transaction bound to the current worker
+     */
+    private void processBatch(final MutationFeatureReader reader, final List<String> featureAcs) {
+        newReadOnlyTransactionTemplate().execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                long fetchStart = System.nanoTime();
+                List<IntactFeatureEvidence> featureEvidences = reader.readFeatures(featureAcs);
+                generator.getMetrics().recordLatency(ShortlabelGeneratorMetrics.Phase.FEATURE_FETCH, System.nanoTime() - fetchStart);
+
+                // the features deleted since their AC has been read are reported by the generator
+                generator.generateNewShortLabels(featureAcs, featureEvidences);
+            }
+        });
+    }
+
+    /**
+     * @return the ACs of all the features having one of the allowed feature types, read page by page
+     */
+    private List<String> readFeatureAcs() {
+        final MutationFeatureReader reader = new MutationFeatureReader(intactDao, ShortlabelGenerator.getAllowedFeatureTypes());
+        TransactionTemplate transactionTemplate = newReadOnlyTransactionTemplate();
+
+        List<String> featureAcs = new ArrayList<String>();
+        List<String> pageAcs;
+        do {
+            final String lastAc = featureAcs.isEmpty() ? null : featureAcs.get(featureAcs.size() - 1);
+            pageAcs = transactionTemplate.execute(new TransactionCallback<List<String>>() {
+                @Override
+                public List<String> doInTransaction(TransactionStatus status) {
+                    return reader.readNextAcs(lastAc, READ_PAGE_SIZE);
+                }
+            });
+            featureAcs.addAll(pageAcs);
+        } while (pageAcs.size() == READ_PAGE_SIZE);
+
+        return featureAcs;
+    }
+
+    private TransactionTemplate newReadOnlyTransactionTemplate() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return transactionTemplate;
+    }
+
+    /**
+     * Wait until the listeners have received all the events, when they are delivered asynchronously
+     */
+    private void flushEvents() {
+        try {
+            generator.getManager().flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the listeners", e);
+        }
+    }
+
+    /**
+     * @return the event counters and phase latencies of the generator used by the workers
+     */
+    public ShortlabelGeneratorMetrics getMetrics() {
+        return generator.getMetrics();
+    }
+
+    /**
+     * The events of the generator are forwarded to the listeners of this ParallelShortlabelGenerator.
+     * The generator must be dedicated to this ParallelShortlabelGenerator: the listeners of this ParallelShortlabelGenerator
+     * would otherwise receive the events of the other users of the generator, and the listeners added directly to the generator
+     * receive the events from all the workers concurrently.
+     */
+    @Required
+    public void setGenerator(ShortlabelGenerator generator) {
+        this.generator = generator;
+        this.generator.addListener(listeners);
+    }
+
+    @Required
+    public void setIntactDao(IntactDao intactDao) {
+        this.intactDao = intactDao;
+    }
+
+    @Required
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    /**
+     * @param numberOfThreads : the number of workers, one per core by default
+     */
+    public void setNumberOfThreads(int numberOfThreads) {
+        if (numberOfThreads <= 0) {
+            throw new IllegalArgumentException("The number of threads must be positive: " + numberOfThreads);
+        }
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @param batchSize : the number of features processed in each transaction
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+}
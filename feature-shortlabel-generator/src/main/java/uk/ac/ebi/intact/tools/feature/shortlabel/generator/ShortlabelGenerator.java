@@ -7,22 +7,30 @@ import psidev.psi.mi.jami.model.Annotation;
 import psidev.psi.mi.jami.model.CvTerm;
 import psidev.psi.mi.jami.model.Protein;
 import psidev.psi.mi.jami.model.Range;
+import psidev.psi.mi.jami.model.ResultingSequence;
 import uk.ac.ebi.intact.jami.dao.IntactDao;
 import uk.ac.ebi.intact.jami.model.extension.ExperimentalRange;
 import uk.ac.ebi.intact.jami.model.extension.IntactFeatureEvidence;
 import uk.ac.ebi.intact.jami.model.extension.IntactInteractor;
-import uk.ac.ebi.intact.jami.utils.IntactUtils;
 import uk.ac.ebi.intact.tools.feature.shortlabel.generator.events.*;
 import uk.ac.ebi.intact.tools.feature.shortlabel.generator.listener.ShortlabelGeneratorListener;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.kernel.MutationFeature;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.kernel.MutationRange;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.kernel.ShortlabelKernel;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.kernel.ShortlabelResult;
 import uk.ac.ebi.intact.tools.feature.shortlabel.generator.manager.ShortlabelGeneratorManager;
-import uk.ac.ebi.intact.tools.feature.shortlabel.generator.model.Constants;
-import uk.ac.ebi.intact.tools.feature.shortlabel.generator.model.InsertionDataFeed;
-import uk.ac.ebi.intact.tools.feature.shortlabel.generator.model.PolyQDataFeed;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.metrics.ShortlabelGeneratorMetrics;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.model.InteractorSummary;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.utils.InteractorSummaryCache;
 import uk.ac.ebi.intact.tools.feature.shortlabel.generator.utils.ShortlabelGeneratorHelper;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created by Maximilian Koch (mkoch@ebi.ac.uk).
@@ -48,19 +56,26 @@ public class ShortlabelGenerator {
     private final static String MUTATION_WITH_NO_EFFECT_MI_ID = "MI:2226";
     private final static String REQUIRED_TO_BIND_MI_ID = "MI:0429";
 
-    private static Set<String> allowedFeatureTypes = new HashSet<String>();
-    private static CvTerm noMutationUpdateTerm;
-    private static CvTerm noMutationExportTerm;
-    private static CvTerm noUniprotUpdateTerm;
+    private static volatile Set<String> allowedFeatureTypes = createAllowedFeatureTypes();
+
+    /*The cv terms are shared by all the generators and threads. They are resolved once, see initCvTerms*/
+    private static volatile CvTerm noMutationUpdateTerm;
+    private static volatile CvTerm noMutationExportTerm;
+    private static volatile CvTerm noUniprotUpdateTerm;
     private ShortlabelGeneratorManager manager = new ShortlabelGeneratorManager();
     private ShortlabelGeneratorHelper helper = new ShortlabelGeneratorHelper();
     private IntactDao intactDao;
+    private boolean dryRun;
+    private ShortlabelKernel kernel = new ShortlabelKernel();
+    private InteractorSummaryCache interactorSummaries = new InteractorSummaryCache();
+    private final ShortlabelGeneratorMetrics metrics = new ShortlabelGeneratorMetrics();
 
     public ShortlabelGenerator() {
-        initAllowedFeatureTypes();
+        manager.addSynchronousListener(metrics);
     }
 
-    private void initAllowedFeatureTypes() {
+    private static Set<String> createAllowedFeatureTypes() {
+        Set<String> allowedFeatureTypes = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
         allowedFeatureTypes.add(MUTATION_MI_ID);
         allowedFeatureTypes.add(MUTATION_ENABLING_INTERACTION_MI_ID);
         allowedFeatureTypes.add(MUTATION_DECREASING_MI_ID);
@@ -74,12 +89,27 @@ public class ShortlabelGenerator {
         allowedFeatureTypes.add(MUTATION_INCREASING_STRENGTH_MI_ID);
         allowedFeatureTypes.add(MUTATION_WITH_NO_EFFECT_MI_ID);
         allowedFeatureTypes.add(REQUIRED_TO_BIND_MI_ID);
+        return allowedFeatureTypes;
     }
 
     public void addListener(ShortlabelGeneratorListener shortlabelGeneratorListener) {
         manager.addListener(shortlabelGeneratorListener);
     }
 
+    /**
+     * @return the event counters and phase latencies of this generator, exported through JMX
+     */
+    public ShortlabelGeneratorMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return the manager delivering the events to the listeners, to switch to an asynchronous delivery
+     */
+    public ShortlabelGeneratorManager getManager() {
+        return manager;
+    }
+
     @Transactional(propagation = Propagation.REQUIRED, value = "jamiTransactionManager", readOnly = true)
     public IntactFeatureEvidence getFeatureEvidence(String ac, int tries) {
 
@@ -98,38 +128,66 @@ public class ShortlabelGenerator {
 
     @Transactional(propagation = Propagation.REQUIRED, value = "jamiTransactionManager", readOnly = true)
     public void generateNewShortLabel(String ac) {
+        long fetchStart = System.nanoTime();
         IntactFeatureEvidence featureEvidence = getFeatureEvidence(ac, TRIES);
+        metrics.recordLatency(ShortlabelGeneratorMetrics.Phase.FEATURE_FETCH, System.nanoTime() - fetchStart);
         generateNewShortLabel(featureEvidence);
     }
 
+    /**
+     * Generate the shortlabels of features loaded together, like a page or a batch of features.
+     * The features which were not loaded, for instance because they have been deleted in between, are retrieved again by AC
+     * and reported as UNABLE_TO_RETRIEVE_FEATURE if they still can't be retrieved.
+     *
+     * @param acs              : the ACs of the features to process
+     * @param featureEvidences : the features loaded for these ACs
+     */
+    @Transactional(propagation = Propagation.REQUIRED, value = "jamiTransactionManager", readOnly = true)
+    public void generateNewShortLabels(List<String> acs, List<IntactFeatureEvidence> featureEvidences) {
+        Set<String> missingAcs = new LinkedHashSet<String>(acs);
+        for (IntactFeatureEvidence featureEvidence : featureEvidences) {
+            missingAcs.remove(featureEvidence.getAc());
+            generateNewShortLabel(featureEvidence);
+        }
+
+        for (String ac : missingAcs) {
+            generateNewShortLabel(ac);
+        }
+    }
+
     @Transactional(propagation = Propagation.REQUIRED, value = "jamiTransactionManager", readOnly = true)
     public void generateNewShortLabel(IntactFeatureEvidence featureEvidence) {
 
         if (featureEvidence == null) {
             return;
         }
+        metrics.recordFeature();
+
+        if (!initCvTerms()) {
+            return;
+        }
 
+        long resolutionStart = System.nanoTime();
+        IntactInteractor interactor = helper.getInteractorByFeatureEvidence(featureEvidence);
+        InteractorSummary interactorSummary = interactor != null ? getInteractorSummary(interactor) : null;
+        metrics.recordLatency(ShortlabelGeneratorMetrics.Phase.INTERACTOR_RESOLUTION, System.nanoTime() - resolutionStart);
+
+        long computationStart = System.nanoTime();
+        try {
+            generateNewShortLabel(featureEvidence, interactor, interactorSummary);
+        } finally {
+            metrics.recordLatency(ShortlabelGeneratorMetrics.Phase.LABEL_COMPUTATION, System.nanoTime() - computationStart);
+        }
+    }
+
+    private void generateNewShortLabel(IntactFeatureEvidence featureEvidence, IntactInteractor interactor, InteractorSummary interactorSummary) {
         String orgShortlabel = featureEvidence.getShortName();
         String featureAc = featureEvidence.getAc();
         String interactorAc;
         String interactorSeq;
         String interactorType;
-        String interactorName = null;
+        String interactorName;
         boolean noMutationUpdate = false;
-        Collection<Range> ranges;
-        PolyQDataFeed polyQDataFeed = null;
-        InsertionDataFeed insertionDataFeed = null;
-
-        IntactInteractor interactor = helper.getInteractorByFeatureEvidence(featureEvidence);
-
-        if (noMutationUpdateTerm == null || noMutationExportTerm == null || noUniprotUpdateTerm == null) {
-            noMutationUpdateTerm = getIntActCVTermNoMutationUpdate(TRIES);
-            noMutationExportTerm = getIntActCVTermNoMutationExport(TRIES);
-            noUniprotUpdateTerm = getIntActCVTermUniProtUpdate(TRIES);
-            if (noMutationUpdateTerm == null || noMutationExportTerm == null || noUniprotUpdateTerm == null) {
-                return;
-            }
-        }
 
         if (interactor == null) {
             ObjRetrieveErrorEvent event = new ObjRetrieveErrorEvent(featureAc, null, ObjRetrieveErrorEvent.ErrorType.UNABLE_RETRIEVE_INTERACTOR);
@@ -138,14 +196,8 @@ public class ShortlabelGenerator {
         }
 
         interactorAc = interactor.getAc();
-        interactorType = interactor.getInteractorType().getShortName();
-        if (interactor instanceof Protein) {
-            interactorName = ((Protein) interactor).getUniprotkb();
-        }
-        if (interactorName == null) {
-            // instead use interactor shortlabel
-            interactorName = interactor.getShortName();
-        }
+        interactorType = interactorSummary.getInteractorType();
+        interactorName = interactorSummary.getInteractorName();
 
         if (!interactorType.equals("protein") && !interactorType.equals("peptide")) {
             TypeErrorEvent event = new TypeErrorEvent(featureAc, interactorAc, TypeErrorEvent.ObjTypeErrorType.WRONG_INTERACTOR_TYPE);
@@ -153,17 +205,15 @@ public class ShortlabelGenerator {
             return;
         }
 
-        for (Annotation annotation : interactor.getAnnotations()) {
-            if (annotation.getTopic().equals(noUniprotUpdateTerm)) {
-                AnnotationFoundEvent event = new AnnotationFoundEvent(featureAc, interactorAc, AnnotationFoundEvent.AnnotationType.NO_UNIPROT_UPDATE);
-                manager.fireOnAnnotationFoundEvent(event);
-                AnnotationFoundEvent event1 = new AnnotationFoundEvent(featureAc, interactorAc, AnnotationFoundEvent.AnnotationType.NO_MUTATION_EXPORT);
-                manager.fireOnAnnotationFoundEvent(event1);
-                return;
-            }
+        if (interactorSummary.isNoUniprotUpdate()) {
+            AnnotationFoundEvent event = new AnnotationFoundEvent(featureAc, interactorAc, AnnotationFoundEvent.AnnotationType.NO_UNIPROT_UPDATE);
+            manager.fireOnAnnotationFoundEvent(event);
+            AnnotationFoundEvent event1 = new AnnotationFoundEvent(featureAc, interactorAc, AnnotationFoundEvent.AnnotationType.NO_MUTATION_EXPORT);
+            manager.fireOnAnnotationFoundEvent(event1);
+            return;
         }
 
-        interactorSeq = helper.getInteractorSeqByInteractor(interactor);
+        interactorSeq = interactorSummary.getSequence();
 
         if (interactorSeq == null) {
             ObjRetrieveErrorEvent event = new ObjRetrieveErrorEvent(featureAc, interactorAc, ObjRetrieveErrorEvent.ErrorType.UNABLE_RETRIEVE_INTERACTOR_SEQUENCE);
@@ -190,192 +240,132 @@ public class ShortlabelGenerator {
                 noMutationUpdate = true;
             }
         }
-        if (!noMutationUpdate) {
-            if (interactorName != null) {
-                featureEvidence.setShortName(interactorName + Constants.PROTEIN_NAME_SEPARATOR + Constants.PROTEIN_PREFIX);
-            } else {
-                featureEvidence.setShortName(Constants.PROTEIN_PREFIX);
-                ObjRetrieveErrorEvent event = new ObjRetrieveErrorEvent(featureAc, interactorAc, ObjRetrieveErrorEvent.ErrorType.UNABLE_RETRIEVE_INTERACTOR_NAME);
-                manager.fireOnRetrieveObjErrorEvent(event);
-            }
-        }
-        if (featureEvidence.getRanges() == null || featureEvidence.getRanges().size() == 0) {
-            RangeErrorEvent event = new RangeErrorEvent(featureAc, interactorAc, null, RangeErrorEvent.ErrorType.RANGE_NULL);
-            manager.fireOnRangeErrorEvent(event);
+
+        ShortlabelResult result = kernel.computeShortlabel(new MutationFeature(featureAc, interactorAc, interactorName, interactorSeq,
+                orgShortlabel, noMutationUpdate, toMutationRanges(featureEvidence.getRanges())));
+        result.fireEvents(manager);
+        if (result.getOutcome() == ShortlabelResult.Outcome.INVALID) {
             return;
         }
 
-        ranges = featureEvidence.getRanges();
-        ExperimentalRange[] experimentalRanges = ranges.toArray(new ExperimentalRange[ranges.size()]);
-
-        if (experimentalRanges.length > 1) {
-            featureEvidence.setShortName(featureEvidence.getShortName() + "[");
+        // the feature is only updated once the whole shortlabel has been generated, never in dry run mode
+        String newShortName = result.getShortlabel();
+        if (!dryRun) {
+            featureEvidence.setShortName(newShortName);
         }
-        helper.sortRanges(experimentalRanges, 0, experimentalRanges.length - 1);
-        for (int index = 0; index <= experimentalRanges.length - 1; index++) {
-            String newShortlabel = "";
-            long rangeStart;
-            long rangeEnd;
-            String orgSeq;
-            String resSeq;
-            String calculatedOrgSeq;
-            boolean isDeletion = false;
-            boolean isDeletionInsertion = false;
-            boolean isInsertionCase = false;
-            boolean isSingleAAchange = false;
-            boolean isPolyq = false;
-            String rangeAc = experimentalRanges[index].getAc();
-
-            if (experimentalRanges[index].getStart().getStart() == 0) {
-                RangeErrorEvent event = new RangeErrorEvent(featureAc, interactorAc, rangeAc, RangeErrorEvent.ErrorType.START_POS_ZERO);
-                manager.fireOnRangeErrorEvent(event);
-                return;
-            }
-            if (experimentalRanges[index].getStart().isPositionUndetermined()) {
-                RangeErrorEvent event = new RangeErrorEvent(featureAc, interactorAc, rangeAc, RangeErrorEvent.ErrorType.START_POS_UNDETERMINED);
-                manager.fireOnRangeErrorEvent(event);
-                return;
-            }
-            if (experimentalRanges[index].getResultingSequence().getOriginalSequence() == null) {
-                RangeErrorEvent event = new RangeErrorEvent(featureAc, interactorAc, rangeAc, RangeErrorEvent.ErrorType.ORG_SEQ_NULL);
-                manager.fireOnRangeErrorEvent(event);
-                return;
-            }
-            if (experimentalRanges[index].getResultingSequence().getNewSequence() == null) {
-                RangeErrorEvent event = new RangeErrorEvent(featureAc, interactorAc, rangeAc, RangeErrorEvent.ErrorType.RES_SEQ_NULL);
-                manager.fireOnRangeErrorEvent(event);
-                return;
-            }
 
-            rangeStart = experimentalRanges[index].getStart().getStart();
-            rangeEnd = experimentalRanges[index].getEnd().getEnd();
-            orgSeq = experimentalRanges[index].getResultingSequence().getOriginalSequence();
-            resSeq = experimentalRanges[index].getResultingSequence().getNewSequence();
-            calculatedOrgSeq = helper.generateOrgSeq(interactorSeq, rangeStart, rangeEnd);
+        switch (result.getOutcome()) {
+            case UNMODIFIED:
+                UnmodifiedMutationShortlabelEvent unmodifiedEvent = new UnmodifiedMutationShortlabelEvent(featureAc, interactorAc, featureEvidence, noMutationUpdate, orgShortlabel);
+                manager.fireOnUnmodifiedMutationShortlabelEvent(unmodifiedEvent);
+                break;
+            case SHORT_LABEL_TOO_LONG:
+                OtherErrorEvent otherErrorEvent = new OtherErrorEvent(featureAc, OtherErrorEvent.ErrorType.SHORT_LABEL_TOO_LONG, newShortName);
+                manager.fireOnOtherErrorEvent(otherErrorEvent);
+                break;
+            default:
+                ModifiedMutationShortlabelEvent modifiedEvent = new ModifiedMutationShortlabelEvent(featureAc, interactorAc, featureEvidence, orgShortlabel, newShortName, false);
+                manager.fireOnModifiedMutationShortlabelEvent(modifiedEvent);
+        }
+    }
 
-            if (orgSeq.equals(resSeq)) {
-                TypeErrorEvent event = new TypeErrorEvent(featureAc, interactorAc, TypeErrorEvent.ObjTypeErrorType.SAME_OSEQUENCE_RSEQUENCE);
-                manager.fireOnObjectTypeErrorEvent(event);
-                return;
-            }
+    /**
+     * @return the values of the ranges, in the order of the feature. The kernel sorts them
+     */
+    private List<MutationRange> toMutationRanges(Collection<Range> ranges) {
+        if (ranges == null || ranges.isEmpty()) {
+            return Collections.emptyList();
+        }
 
-            if (calculatedOrgSeq == null) {
-                SequenceErrorEvent event = new SequenceErrorEvent(featureAc, interactorAc, rangeAc, SequenceErrorEvent.ErrorType.UNABLE_CALCULATE_ORG_SEQ);
-                manager.fireOnSeqErrorEvent(event);
-                return;
-            }
-            if (helper.orgSeqWrong(orgSeq, calculatedOrgSeq)) {
-                String message = "Original sequence does not match interactor sequence. Is " + orgSeq + " should be " + calculatedOrgSeq + " Range: (" + rangeStart + "-" + rangeEnd + ")";
-                SequenceErrorEvent event = new SequenceErrorEvent(featureAc, interactorAc, rangeAc, SequenceErrorEvent.ErrorType.ORG_SEQ_WRONG, message);
-                manager.fireOnSeqErrorEvent(event);
-                return;
-            }
-            if (helper.containsLowerCaseLetters(resSeq)) {
-                SequenceErrorEvent event = new SequenceErrorEvent(featureAc, interactorAc, rangeAc, SequenceErrorEvent.ErrorType.RES_SEQ_CONTAINS_LOWER_CASE);
-                manager.fireOnSeqErrorEvent(event);
-                return;
-            }
+        List<MutationRange> mutationRanges = new ArrayList<MutationRange>(ranges.size());
+        for (ExperimentalRange range : ranges.toArray(new ExperimentalRange[ranges.size()])) {
+            ResultingSequence resultingSequence = range.getResultingSequence();
+            mutationRanges.add(new MutationRange(range.getAc(), range.getStart().getStart(), range.getEnd().getEnd(), range.getStart().isPositionUndetermined(),
+                    resultingSequence != null ? resultingSequence.getOriginalSequence() : null,
+                    resultingSequence != null ? resultingSequence.getNewSequence() : null));
+        }
+        return mutationRanges;
+    }
 
-            if (helper.resultingSeqDescreased(orgSeq, resSeq)) {
-                SequenceErrorEvent event = new SequenceErrorEvent(featureAc, interactorAc, rangeAc, SequenceErrorEvent.ErrorType.RES_SEQ_SMALLER_ORG_SEQ);
-                manager.fireOnSeqErrorEvent(event);
-                return;
+    /**
+     * @return the summary of the interactor. The interactor is only read the first time, the summary is cached by interactor AC
+     */
+    private InteractorSummary getInteractorSummary(IntactInteractor interactor) {
+        String interactorAc = interactor.getAc();
+        InteractorSummary interactorSummary = interactorAc != null ? interactorSummaries.get(interactorAc) : null;
+        if (interactorSummary == null) {
+            interactorSummary = readInteractorSummary(interactor);
+            if (interactorAc != null) {
+                interactorSummaries.put(interactorAc, interactorSummary);
             }
+        }
+        return interactorSummary;
+    }
 
-            /*Dots will be removed in future - Currently the code handles both cases*/
-
-            polyQDataFeed = helper.checkIfPoyQAndReturnPDF(orgSeq, resSeq);
-            insertionDataFeed = helper.isInsertionCase(orgSeq, resSeq, rangeStart, rangeEnd);
-            if (polyQDataFeed.isPolyQ()) {
-                isPolyq = true;
-            } else if (helper.isSingleAAChange(orgSeq, resSeq, rangeStart, rangeEnd)) {
-                isSingleAAchange = true;
-            } else if (insertionDataFeed.isInsertion()) {
-                isInsertionCase = true;
-            } else if (helper.isItDelInsCase(orgSeq, resSeq)) {
-                isDeletionInsertion = true;
-            } else if (resSeq.length() == 0 || helper.containsDot(resSeq)) {
-
-                if (resSeq.length() != 0) {
-                    if (helper.deletionOnWrongPlace(resSeq)) {
-                        SequenceErrorEvent event = new SequenceErrorEvent(featureAc, interactorAc, rangeAc, SequenceErrorEvent.ErrorType.RES_SEQ_WITH_WRONG_DELETION);
-                        manager.fireOnSeqErrorEvent(event);
-                        return;
-                    }
-                    if (helper.containsToManyDots(resSeq)) {
-                        SequenceErrorEvent event = new SequenceErrorEvent(featureAc, interactorAc, rangeAc, SequenceErrorEvent.ErrorType.RES_SEQ_TO_MANY_DOTS);
-                        manager.fireOnSeqErrorEvent(event);
-                        return;
-                    }
-                }
+    private InteractorSummary readInteractorSummary(IntactInteractor interactor) {
+        String interactorType = interactor.getInteractorType().getShortName();
 
-                isDeletion = true;
+        String interactorName = null;
+        if (interactor instanceof Protein) {
+            interactorName = ((Protein) interactor).getUniprotkb();
+        }
+        if (interactorName == null) {
+            // instead use interactor shortlabel
+            interactorName = interactor.getShortName();
+        }
 
+        boolean noUniprotUpdate = false;
+        for (Annotation annotation : interactor.getAnnotations()) {
+            if (annotation.getTopic().equals(noUniprotUpdateTerm)) {
+                noUniprotUpdate = true;
+                break;
             }
+        }
 
+        return new InteractorSummary(interactorType, interactorName, helper.getInteractorSeqByInteractor(interactor), noUniprotUpdate);
+    }
 
-            if (polyQDataFeed.isSingleAAPolyQ()) {
-                newShortlabel += helper.seq2ThreeLetterCodeOnDefaultOrgSeq(orgSeq.charAt(0) + "", rangeStart, rangeEnd);
-            } else {
-                newShortlabel += helper.seq2ThreeLetterCodeOnDefaultOrgSeq(orgSeq, rangeStart, rangeEnd);
-            }
-
+    /**
+     * Forget the interactors read so far. To call before a new run, as the interactors may have been updated in between
+     */
+    public void clearInteractorCache() {
+        interactorSummaries.clear();
+    }
 
+    public InteractorSummaryCache getInteractorSummaries() {
+        return interactorSummaries;
+    }
 
-                /*if (helper.isSingleAminoAcidChange(rangeStart, rangeEnd)) {
-                    newShortlabel += helper.generateNonSequentialRange(rangeStart);
-                } else {
-                    newShortlabel += helper.generateSequentialRange(rangeStart, rangeEnd);
-                }*/
-            if (isDeletionInsertion) {
-                newShortlabel += Constants.DEL_INS;
-                ResultingSequenceChangedEvent event = new ResultingSequenceChangedEvent(featureAc, interactorAc, rangeAc, orgSeq, resSeq, rangeStart, rangeEnd, ResultingSequenceChangedEvent.ChangeType.DELETION_INSERTION);
-                manager.fireOnResSeqChangedEvent(event);
-            } else if (isDeletion) {
-                newShortlabel += Constants.DELETION;
-                ResultingSequenceChangedEvent event = new ResultingSequenceChangedEvent(featureAc, interactorAc, rangeAc, orgSeq, resSeq, rangeStart, rangeEnd, ResultingSequenceChangedEvent.ChangeType.DELETION);
-                manager.fireOnResSeqChangedEvent(event);
-            } else if (helper.resultingSeqIncreased(orgSeq, resSeq)) {
-                if (isInsertionCase) {
-                    newShortlabel += Constants.INSERTION;
-                }
-                ResultingSequenceChangedEvent event = new ResultingSequenceChangedEvent(featureAc, interactorAc, rangeAc, orgSeq, resSeq, rangeStart, rangeEnd, ResultingSequenceChangedEvent.ChangeType.INCREASE);
-                manager.fireOnResSeqChangedEvent(event);
-            }
+    /**
+     * @param maxCharacters : the memory bound of the interactor cache, as the number of characters of the cached sequences
+     *                      plus a fixed overhead per interactor. 0 disables the cache
+     */
+    public void setInteractorCacheMaxCharacters(long maxCharacters) {
+        interactorSummaries.setMaxCharacters(maxCharacters);
+    }
 
-            if (insertionDataFeed.isToBeCuratedManually()) {
-                ResultingSequenceChangedEvent event = new ResultingSequenceChangedEvent(featureAc, interactorAc, rangeAc, orgSeq, resSeq, rangeStart, rangeEnd, ResultingSequenceChangedEvent.ChangeType.WRONG_INSERTION);
-                manager.fireOnResSeqChangedEvent(event);
-            }
-            if (!isDeletion) {
-                if (!isPolyq) {
-                    if (isInsertionCase) {
-                        newShortlabel += helper.seq2ThreeLetterCodeOnDefaultResSeq(insertionDataFeed.getInsertionString());
-                    } else {
-                        newShortlabel += helper.seq2ThreeLetterCodeOnDefaultResSeq(resSeq);
+    /**
+     * Resolve the cv terms the first time they are needed. The generators running in parallel wait for the first one to resolve them.
+     *
+     * @return false if one of the cv terms can't be retrieved
+     */
+    private boolean initCvTerms() {
+        if (noMutationUpdateTerm == null || noMutationExportTerm == null || noUniprotUpdateTerm == null) {
+            synchronized (ShortlabelGenerator.class) {
+                if (noMutationUpdateTerm == null || noMutationExportTerm == null || noUniprotUpdateTerm == null) {
+                    CvTerm mutationUpdateTerm = getIntActCVTermNoMutationUpdate(TRIES);
+                    CvTerm mutationExportTerm = getIntActCVTermNoMutationExport(TRIES);
+                    CvTerm uniprotUpdateTerm = getIntActCVTermUniProtUpdate(TRIES);
+                    if (mutationUpdateTerm == null || mutationExportTerm == null || uniprotUpdateTerm == null) {
+                        return false;
                     }
-                } else {
-                    newShortlabel += "[" + polyQDataFeed.getRepeatUnit() + "]";
+                    noMutationExportTerm = mutationExportTerm;
+                    noUniprotUpdateTerm = uniprotUpdateTerm;
+                    noMutationUpdateTerm = mutationUpdateTerm;
                 }
             }
-            if (!noMutationUpdate) {
-                featureEvidence.setShortName(featureEvidence.getShortName() + newShortlabel + (index < experimentalRanges.length - 1 ? ";" : ""));
-            }
-        }
-        if (experimentalRanges.length > 1) {
-            featureEvidence.setShortName(featureEvidence.getShortName() + "]");
-        }
-
-        if (noMutationUpdate || orgShortlabel.equals(featureEvidence.getShortName())) {
-            UnmodifiedMutationShortlabelEvent event = new UnmodifiedMutationShortlabelEvent(featureAc, interactorAc, featureEvidence, noMutationUpdate);
-            manager.fireOnUnmodifiedMutationShortlabelEvent(event);
-        } else if (featureEvidence.getShortName().length() > IntactUtils.MAX_SHORT_LABEL_LEN) {
-            OtherErrorEvent event = new OtherErrorEvent(featureAc, OtherErrorEvent.ErrorType.SHORT_LABEL_TOO_LONG, featureEvidence.getShortName());
-            manager.fireOnOtherErrorEvent(event);
-        } else {
-            ModifiedMutationShortlabelEvent event = new ModifiedMutationShortlabelEvent(featureAc, interactorAc, featureEvidence, orgShortlabel, false);
-            manager.fireOnModifiedMutationShortlabelEvent(event);
         }
+        return true;
     }
 
     @Transactional(propagation = Propagation.REQUIRED, value = "jamiTransactionManager", readOnly = true)
@@ -397,7 +387,7 @@ public class ShortlabelGenerator {
         CvTerm intactCvTerm = intactDao.getCvTermDao().getByAc(CV_TERM_NO_MUTATION_EXPORT);
         if (intactCvTerm == null && tries > 0) {
             tries--;
-            intactCvTerm = getIntActCVTermNoMutationUpdate(tries);
+            intactCvTerm = getIntActCVTermNoMutationExport(tries);
         } else if (intactCvTerm == null && tries == 0) {
             ObjRetrieveErrorEvent event = new ObjRetrieveErrorEvent(null, null, ObjRetrieveErrorEvent.ErrorType.UNABLE_TO_RETRIEVE_CV_NO_MUTATION_EXPORT);
             manager.fireOnRetrieveObjErrorEvent(event);
@@ -425,11 +415,24 @@ public class ShortlabelGenerator {
         this.intactDao = intactDao;
     }
 
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    /**
+     * @param dryRun : true to never update the features. The new shortlabels are only reported in the events
+     */
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
     public static Set<String> getAllowedFeatureTypes() {
         return allowedFeatureTypes;
     }
 
     public static void setAllowedFeatureTypes(Set<String> allowedFeatureTypes) {
-        ShortlabelGenerator.allowedFeatureTypes = allowedFeatureTypes;
+        Set<String> featureTypes = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        featureTypes.addAll(allowedFeatureTypes);
+        ShortlabelGenerator.allowedFeatureTypes = featureTypes;
     }
 }
@@ -0,0 +1,235 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator.changeset;
+
+/**
+ * A shortlabel generated for a feature, as written in a changeset file.
+ * <p>
+ * A changeset file has one JSON object per line (NDJSON), for instance
+ * <pre>{"featureAc":"EBI-123","oldLabel":"P12345:p.Leu12Ala","newLabel":"P12345:p.Leu12Gly","eventType":"MODIFIED"}</pre>
+ * The old label is null when the feature had no shortlabel.
+ */
+public class ShortlabelChange {
+
+    public enum EventType {
+        /*The generated shortlabel differs from the shortlabel of the feature*/
+        MODIFIED,
+        /*The generated shortlabel is the shortlabel of the feature, or the feature must not be updated*/
+        UNMODIFIED,
+        /*The generated shortlabel is longer than the shortlabel column*/
+        SHORT_LABEL_TOO_LONG
+    }
+
+    private static final String[] FIELDS = {"featureAc", "oldLabel", "newLabel", "eventType"};
+
+    private final String featureAc;
+    private final String oldLabel;
+    private final String newLabel;
+    private final EventType eventType;
+
+    public ShortlabelChange(String featureAc, String oldLabel, String newLabel, EventType eventType) {
+        if (featureAc == null || eventType == null) {
+            throw new IllegalArgumentException("The feature AC and the event type of a shortlabel change are mandatory");
+        }
+        this.featureAc = featureAc;
+        this.oldLabel = oldLabel;
+        this.newLabel = newLabel;
+        this.eventType = eventType;
+    }
+
+    public String getFeatureAc() {
+        return featureAc;
+    }
+
+    public String getOldLabel() {
+        return oldLabel;
+    }
+
+    public String getNewLabel() {
+        return newLabel;
+    }
+
+    public EventType getEventType() {
+        return eventType;
+    }
+
+    /**
+     * @return the change as a single line JSON object
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder(64 + featureAc.length() + length(oldLabel) + length(newLabel));
+        String[] values = {featureAc, oldLabel, newLabel, eventType.name()};
+        json.append('{');
+        for (int i = 0; i < FIELDS.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append('"').append(FIELDS[i]).append("\":");
+            appendJsonString(json, values[i]);
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Parse a line written by toJson. The fields can be in any order but they must be strings or null.
+     *
+     * @throws IllegalArgumentException if the line is not a shortlabel change
+     */
+    public static ShortlabelChange fromJson(String line) {
+        String[] values = new String[FIELDS.length];
+        JsonScanner scanner = new JsonScanner(line);
+
+        scanner.expect('{');
+        if (!scanner.skipIf('}')) {
+            do {
+                String field = scanner.readString();
+                scanner.expect(':');
+                String value = scanner.readNullableString();
+                for (int i = 0; i < FIELDS.length; i++) {
+                    if (FIELDS[i].equals(field)) {
+                        values[i] = value;
+                    }
+                }
+            } while (scanner.skipIf(','));
+            scanner.expect('}');
+        }
+        scanner.expectEnd();
+
+        if (values[0] == null || values[3] == null) {
+            throw new IllegalArgumentException("The feature AC and the event type are mandatory: " + line);
+        }
+        try {
+            return new ShortlabelChange(values[0], values[1], values[2], EventType.valueOf(values[3]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown event type " + values[3] + ": " + line, e);
+        }
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 4;
+    }
+
+    private static void appendJsonString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * Minimal scanner for the flat JSON objects of the changeset files
+     */
+    private static class JsonScanner {
+        private final String json;
+        private int position;
+
+        private JsonScanner(String json) {
+            this.json = json;
+        }
+
+        private void skipWhitespaces() {
+            while (position < json.length() && Character.isWhitespace(json.charAt(position))) {
+                position++;
+            }
+        }
+
+        private boolean skipIf(char c) {
+            skipWhitespaces();
+            if (position < json.length() && json.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!skipIf(c)) {
+                throw new IllegalArgumentException("Expected '" + c + "' at position " + position + ": " + json);
+            }
+        }
+
+        private void expectEnd() {
+            skipWhitespaces();
+            if (position != json.length()) {
+                throw new IllegalArgumentException("Unexpected characters at position " + position + ": " + json);
+            }
+        }
+
+        private String readNullableString() {
+            skipWhitespaces();
+            if (json.startsWith("null", position)) {
+                position += 4;
+                return null;
+            }
+            return readString();
+        }
+
+        private String readString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (position < json.length()) {
+                char c = json.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                } else if (c == '\\' && position < json.length()) {
+                    char escaped = json.charAt(position++);
+                    switch (escaped) {
+                        case 'n':
+                            value.append('\n');
+                            break;
+                        case 'r':
+                            value.append('\r');
+                            break;
+                        case 't':
+                            value.append('\t');
+                            break;
+                        case 'b':
+                            value.append('\b');
+                            break;
+                        case 'f':
+                            value.append('\f');
+                            break;
+                        case 'u':
+                            if (position + 4 > json.length()) {
+                                throw new IllegalArgumentException("Truncated unicode escape: " + json);
+                            }
+                            value.append((char) Integer.parseInt(json.substring(position, position + 4), 16));
+                            position += 4;
+                            break;
+                        default:
+                            value.append(escaped);
+                    }
+                } else {
+                    value.append(c);
+                }
+            }
+            throw new IllegalArgumentException("Unterminated string: " + json);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator.changeset;
+
+import org.springframework.beans.factory.annotation.Required;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Applies the modified shortlabels of a changeset file to the database with JDBC batch updates.
+ * <p>
+ * Each batch is committed on its own, so the locks are only held for the time of a batch. A feature is only updated
+ * if its shortlabel is still the one read when the changeset was generated, the features changed in between are counted
+ * as skipped. A change without old label only updates a feature which still has no shortlabel.
+ * The other records of the changeset (unmodified shortlabels, too long shortlabels) are ignored.
+ */
+public class ShortlabelChangesetApplier {
+    private final static int DEFAULT_BATCH_SIZE = 1000;
+    private final static String DEFAULT_USERSTAMP = "FEATURE UPDATE";
+
+    private DataSource dataSource;
+    private String featureTable = "ia_feature";
+    private String userstamp = DEFAULT_USERSTAMP;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * @param changeset : the changeset file, gzipped if its name ends with .gz
+     * @return the counts of updated and skipped features
+     * @throws IOException  if the changeset can't be read or contains a line which is not a shortlabel change.
+     *                      The previous batches are committed
+     * @throws SQLException if a batch fails. The previous batches are committed
+     */
+    public Result apply(File changeset) throws IOException, SQLException {
+        InputStream inputStream = new FileInputStream(changeset);
+        if (changeset.getName().endsWith(".gz")) {
+            inputStream = new GZIPInputStream(inputStream);
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, "UTF-8"));
+        try {
+            return apply(reader);
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    public Result apply(BufferedReader changeset) throws IOException, SQLException {
+        Result result = new Result();
+        Connection connection = dataSource.getConnection();
+        try {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            PreparedStatement statement = connection.prepareStatement("update " + featureTable +
+                    " set shortlabel = ?, updated = current_timestamp, userstamp = ? where ac = ? and shortlabel = ?");
+            PreparedStatement withoutLabelStatement = connection.prepareStatement("update " + featureTable +
+                    " set shortlabel = ?, updated = current_timestamp, userstamp = ? where ac = ? and shortlabel is null");
+            try {
+                int lineNumber = 0;
+                int batch = 0;
+                String line;
+                while ((line = changeset.readLine()) != null) {
+                    lineNumber++;
+                    if (line.trim().length() == 0) {
+                        continue;
+                    }
+
+                    ShortlabelChange change;
+                    try {
+                        change = ShortlabelChange.fromJson(line);
+                    } catch (IllegalArgumentException e) {
+                        throw new IOException("The line " + lineNumber + " of the changeset is not a shortlabel change", e);
+                    }
+                    if (change.getEventType() != ShortlabelChange.EventType.MODIFIED || change.getNewLabel() == null) {
+                        result.ignored++;
+                        continue;
+                    }
+
+                    if (change.getOldLabel() != null) {
+                        statement.setString(1, change.getNewLabel());
+                        statement.setString(2, userstamp);
+                        statement.setString(3, change.getFeatureAc());
+                        statement.setString(4, change.getOldLabel());
+                        statement.addBatch();
+                    } else {
+                        withoutLabelStatement.setString(1, change.getNewLabel());
+                        withoutLabelStatement.setString(2, userstamp);
+                        withoutLabelStatement.setString(3, change.getFeatureAc());
+                        withoutLabelStatement.addBatch();
+                    }
+                    batch++;
+
+                    if (batch == batchSize) {
+                        executeBatch(connection, statement, withoutLabelStatement, result);
+                        batch = 0;
+                    }
+                }
+                if (batch > 0) {
+                    executeBatch(connection, statement, withoutLabelStatement, result);
+                }
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } catch (IOException e) {
+                connection.rollback();
+                throw e;
+            }
+            finally {
+                statement.close();
+                withoutLabelStatement.close();
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        finally {
+            connection.close();
+        }
+        return result;
+    }
+
+    private void executeBatch(Connection connection, PreparedStatement statement, PreparedStatement withoutLabelStatement, Result result) throws SQLException {
+        int[] updateCounts = statement.executeBatch();
+        int[] withoutLabelUpdateCounts = withoutLabelStatement.executeBatch();
+        connection.commit();
+
+        count(updateCounts, result);
+        count(withoutLabelUpdateCounts, result);
+        result.batches++;
+    }
+
+    private static void count(int[] updateCounts, Result result) {
+        for (int updateCount : updateCounts) {
+            if (updateCount > 0) {
+                result.updated++;
+            } else if (updateCount == 0) {
+                result.skipped++;
+            } else {
+                // the driver doesn't know how many rows have been updated (SUCCESS_NO_INFO)
+                result.updated++;
+            }
+        }
+    }
+
+    @Required
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public String getFeatureTable() {
+        return featureTable;
+    }
+
+    /**
+     * @param featureTable : the feature table, ia_feature by default. Can be prefixed by the schema
+     */
+    public void setFeatureTable(String featureTable) {
+        this.featureTable = featureTable;
+    }
+
+    public String getUserstamp() {
+        return userstamp;
+    }
+
+    public void setUserstamp(String userstamp) {
+        this.userstamp = userstamp;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @param batchSize : the number of features updated in each transaction
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Counts of an application of a changeset
+     */
+    public static class Result {
+        private long updated;
+        private long skipped;
+        private long ignored;
+        private long batches;
+
+        /**
+         * @return the number of features updated
+         */
+        public long getUpdated() {
+            return updated;
+        }
+
+        /**
+         * @return the number of features not updated because they don't exist anymore or their shortlabel has changed
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * @return the number of records of the changeset which are not modified shortlabels
+         */
+        public long getIgnored() {
+            return ignored;
+        }
+
+        /**
+         * @return the number of batches committed
+         */
+        public long getBatches() {
+            return batches;
+        }
+
+        @Override
+        public String toString() {
+            return "updated=" + updated + ", skipped=" + skipped + ", ignored=" + ignored + ", batches=" + batches;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator.changeset;
+
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.events.*;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.listener.ShortlabelGeneratorListener;
+
+import java.io.*;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Listener streaming the shortlabels generated for the features to a changeset file, one JSON object per line.
+ * <p>
+ * Used with a generator in dry run mode, the features are never modified and the changeset can be applied later
+ * with the ShortlabelChangesetApplier. Only the modified shortlabels are written by default.
+ * The file is gzipped if its name ends with .gz. The listener can be called by several threads.
+ */
+public class ShortlabelChangesetWriter implements ShortlabelGeneratorListener, Closeable, Flushable {
+    private final static int BUFFER_SIZE = 64 * 1024;
+
+    private final Writer writer;
+    private boolean writeUnmodified;
+    private long numberOfChanges;
+
+    public ShortlabelChangesetWriter(File changeset) throws IOException {
+        this(changeset, false);
+    }
+
+    /**
+     * @param changeset       : the file to write, overwritten if it exists
+     * @param writeUnmodified : true to also write the shortlabels which don't change, to review a whole run
+     */
+    public ShortlabelChangesetWriter(File changeset, boolean writeUnmodified) throws IOException {
+        OutputStream outputStream = new FileOutputStream(changeset);
+        try {
+            if (changeset.getName().endsWith(".gz")) {
+                outputStream = new GZIPOutputStream(outputStream, BUFFER_SIZE);
+            }
+            this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, "UTF-8"), BUFFER_SIZE);
+        } catch (IOException e) {
+            outputStream.close();
+            throw e;
+        }
+        this.writeUnmodified = writeUnmodified;
+    }
+
+    @Override
+    public void onModifiedMutationShortlabel(ModifiedMutationShortlabelEvent event) {
+        String oldLabel = event.isOriginalShortlabelDefined() ? event.getOriginalShortlabel() : null;
+        write(new ShortlabelChange(event.getFeatureAc(), oldLabel, event.getNewShortlabel(),
+                ShortlabelChange.EventType.MODIFIED));
+    }
+
+    @Override
+    public void onUnmodifiedMutationShortlabel(UnmodifiedMutationShortlabelEvent event) {
+        if (writeUnmodified) {
+            write(new ShortlabelChange(event.getFeatureAc(), event.getShortlabel(), event.getShortlabel(),
+                    ShortlabelChange.EventType.UNMODIFIED));
+        }
+    }
+
+    @Override
+    public void onOtherErrorEvent(OtherErrorEvent event) {
+        if (OtherErrorEvent.ErrorType.SHORT_LABEL_TOO_LONG.equals(event.getErrorType())) {
+            write(new ShortlabelChange(event.getFeatureAc(), null, event.getErrorDetails(),
+                    ShortlabelChange.EventType.SHORT_LABEL_TOO_LONG));
+        }
+    }
+
+    @Override
+    public void onRangeError(RangeErrorEvent event) {
+    }
+
+    @Override
+    public void onRetrieveObjectError(ObjRetrieveErrorEvent event) {
+    }
+
+    @Override
+    public void onAnnotationFound(AnnotationFoundEvent event) {
+    }
+
+    @Override
+    public void onSequenceError(SequenceErrorEvent event) {
+    }
+
+    @Override
+    public void onResultingSequenceChanged(ResultingSequenceChangedEvent event) {
+    }
+
+    @Override
+    public void onObjectTypeError(TypeErrorEvent event) {
+    }
+
+    private synchronized void write(ShortlabelChange change) {
+        try {
+            writer.write(change.toJson());
+            writer.write('\n');
+            numberOfChanges++;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write the shortlabel of the feature " + change.getFeatureAc() + " to the changeset", e);
+        }
+    }
+
+    /**
+     * @return the number of lines written so far
+     */
+    public synchronized long getNumberOfChanges() {
+        return numberOfChanges;
+    }
+
+    public boolean isWriteUnmodified() {
+        return writeUnmodified;
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
@@ -10,13 +10,21 @@ public class ModifiedMutationShortlabelEvent {
     private String interactorAc;
     private IntactFeatureEvidence featureEvidence;
     private String originalShortlabel;
+    private boolean originalShortlabelDefined;
+    private String newShortlabel;
     private boolean noMutationUpdate;
 
     public ModifiedMutationShortlabelEvent(String featureAc, String interactorAc, IntactFeatureEvidence featureEvidence, String originalShortlabel, boolean noMutationUpdate) {
+        this(featureAc, interactorAc, featureEvidence, originalShortlabel, featureEvidence != null ? featureEvidence.getShortName() : null, noMutationUpdate);
+    }
+
+    public ModifiedMutationShortlabelEvent(String featureAc, String interactorAc, IntactFeatureEvidence featureEvidence, String originalShortlabel, String newShortlabel, boolean noMutationUpdate) {
         this.featureAc = (featureAc == null) ? "undefined" : featureAc;
         this.interactorAc = (interactorAc == null) ? "undefined" : interactorAc;
         this.featureEvidence = featureEvidence;
         this.originalShortlabel =  (originalShortlabel == null) ? "undefined" : originalShortlabel;
+        this.originalShortlabelDefined = originalShortlabel != null;
+        this.newShortlabel = newShortlabel;
         this.noMutationUpdate = noMutationUpdate;
     }
 
@@ -36,6 +44,20 @@ public class ModifiedMutationShortlabelEvent {
         return originalShortlabel;
     }
 
+    /**
+     * @return false if the feature had no shortlabel, getOriginalShortlabel then returns "undefined"
+     */
+    public boolean isOriginalShortlabelDefined() {
+        return originalShortlabelDefined;
+    }
+
+    /**
+     * @return the generated shortlabel. In dry run mode, the feature evidence still has its original shortlabel
+     */
+    public String getNewShortlabel() {
+        return newShortlabel;
+    }
+
     public boolean isNoMutationUpdate() {
         return noMutationUpdate;
     }
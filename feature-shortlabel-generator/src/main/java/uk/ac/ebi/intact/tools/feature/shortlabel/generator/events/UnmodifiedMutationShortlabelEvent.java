@@ -10,12 +10,18 @@ public class UnmodifiedMutationShortlabelEvent {
     private String interactorAc;
     private IntactFeatureEvidence featureEvidence;
     private boolean noMutationUpdate;
+    private String shortlabel;
 
     public UnmodifiedMutationShortlabelEvent(String featureAc, String interactorAc, IntactFeatureEvidence featureEvidence, boolean noMutationUpdate) {
+        this(featureAc, interactorAc, featureEvidence, noMutationUpdate, featureEvidence != null ? featureEvidence.getShortName() : null);
+    }
+
+    public UnmodifiedMutationShortlabelEvent(String featureAc, String interactorAc, IntactFeatureEvidence featureEvidence, boolean noMutationUpdate, String shortlabel) {
         this.featureAc = (featureAc == null) ? "undefined" : featureAc;
         this.interactorAc = (interactorAc == null) ? "undefined" : interactorAc;
         this.featureEvidence = featureEvidence;
         this.noMutationUpdate = noMutationUpdate;
+        this.shortlabel = shortlabel;
     }
 
     public String getFeatureAc() {
@@ -30,6 +36,13 @@ public class UnmodifiedMutationShortlabelEvent {
         return featureEvidence;
     }
 
+    /**
+     * @return the shortlabel of the feature, which is kept
+     */
+    public String getShortlabel() {
+        return shortlabel;
+    }
+
     public boolean isNoMutationUpdate() {
         return noMutationUpdate;
     }
@@ -0,0 +1,73 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator.kernel;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Detached values of a mutation feature and of its interactor, as needed to compute its shortlabel.
+ * The interactor type, the feature type and the annotations are checked by the caller, see ShortlabelGenerator.
+ */
+public class MutationFeature implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String featureAc;
+    private final String interactorAc;
+    private final String interactorName;
+    private final String interactorSequence;
+    private final String originalShortlabel;
+    private final boolean noMutationUpdate;
+    private final List<MutationRange> ranges;
+
+    /**
+     * @param featureAc          : the AC of the feature, only used in the events
+     * @param interactorAc       : the AC of the interactor, only used in the events
+     * @param interactorName     : the uniprot AC or the shortlabel of the interactor, may be null
+     * @param interactorSequence : the sequence of the interactor, not null
+     * @param originalShortlabel : the current shortlabel of the feature, may be null
+     * @param noMutationUpdate   : true if the feature is annotated with no-mutation-update, the ranges are checked but the shortlabel is kept
+     * @param ranges             : the ranges of the feature, in any order
+     */
+    public MutationFeature(String featureAc, String interactorAc, String interactorName, String interactorSequence,
+                           String originalShortlabel, boolean noMutationUpdate, List<MutationRange> ranges) {
+        if (interactorSequence == null) {
+            throw new IllegalArgumentException("The interactor sequence is mandatory");
+        }
+        this.featureAc = featureAc;
+        this.interactorAc = interactorAc;
+        this.interactorName = interactorName;
+        this.interactorSequence = interactorSequence;
+        this.originalShortlabel = originalShortlabel;
+        this.noMutationUpdate = noMutationUpdate;
+        this.ranges = ranges != null ? Collections.unmodifiableList(new ArrayList<MutationRange>(ranges)) : Collections.<MutationRange>emptyList();
+    }
+
+    public String getFeatureAc() {
+        return featureAc;
+    }
+
+    public String getInteractorAc() {
+        return interactorAc;
+    }
+
+    public String getInteractorName() {
+        return interactorName;
+    }
+
+    public String getInteractorSequence() {
+        return interactorSequence;
+    }
+
+    public String getOriginalShortlabel() {
+        return originalShortlabel;
+    }
+
+    public boolean isNoMutationUpdate() {
+        return noMutationUpdate;
+    }
+
+    public List<MutationRange> getRanges() {
+        return ranges;
+    }
+}
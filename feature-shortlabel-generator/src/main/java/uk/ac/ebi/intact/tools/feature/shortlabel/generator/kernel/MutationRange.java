@@ -0,0 +1,58 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator.kernel;
+
+import java.io.Serializable;
+
+/**
+ * Detached values of a range of a mutation feature, as needed to compute its shortlabel.
+ */
+public class MutationRange implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String rangeAc;
+    private final long start;
+    private final long end;
+    private final boolean startUndetermined;
+    private final String originalSequence;
+    private final String resultingSequence;
+
+    /**
+     * @param rangeAc           : the AC of the range, only used in the events
+     * @param start             : the start position, 1 based
+     * @param end               : the end position, inclusive
+     * @param startUndetermined : true if the start position is undetermined
+     * @param originalSequence  : the original sequence of the resulting sequence of the range, may be null
+     * @param resultingSequence : the new sequence of the resulting sequence of the range, may be null
+     */
+    public MutationRange(String rangeAc, long start, long end, boolean startUndetermined, String originalSequence, String resultingSequence) {
+        this.rangeAc = rangeAc;
+        this.start = start;
+        this.end = end;
+        this.startUndetermined = startUndetermined;
+        this.originalSequence = originalSequence;
+        this.resultingSequence = resultingSequence;
+    }
+
+    public String getRangeAc() {
+        return rangeAc;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public boolean isStartUndetermined() {
+        return startUndetermined;
+    }
+
+    public String getOriginalSequence() {
+        return originalSequence;
+    }
+
+    public String getResultingSequence() {
+        return resultingSequence;
+    }
+}
@@ -0,0 +1,217 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator.kernel;
+
+import uk.ac.ebi.intact.jami.utils.IntactUtils;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.events.*;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.model.Constants;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.model.InsertionDataFeed;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.model.PolyQDataFeed;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.utils.ShortlabelGeneratorHelper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Computes the shortlabel of a mutation feature from plain values, without any DAO, entity or transaction.
+ * <p>
+ * Stateless and thread safe, so the same kernel can be used to relabel exported features in parallel, e.g. from a
+ * parallel stream or a Spark job. The ShortlabelGenerator uses it once it has checked the interactor and the annotations
+ * of the feature.
+ */
+public class ShortlabelKernel {
+
+    private static final Comparator<MutationRange> BY_START = new Comparator<MutationRange>() {
+        @Override
+        public int compare(MutationRange range1, MutationRange range2) {
+            return range1.getStart() < range2.getStart() ? -1 : (range1.getStart() == range2.getStart() ? 0 : 1);
+        }
+    };
+
+    private final ShortlabelGeneratorHelper helper = new ShortlabelGeneratorHelper();
+
+    public ShortlabelResult computeShortlabel(MutationFeature feature) {
+        List<Object> events = new ArrayList<Object>();
+        String featureAc = feature.getFeatureAc();
+        String interactorAc = feature.getInteractorAc();
+        String interactorSeq = feature.getInteractorSequence();
+        String orgShortlabel = feature.getOriginalShortlabel();
+        boolean noMutationUpdate = feature.isNoMutationUpdate();
+        StringBuilder shortName = new StringBuilder(orgShortlabel != null ? orgShortlabel : "");
+
+        if (!noMutationUpdate) {
+            shortName.setLength(0);
+            if (feature.getInteractorName() != null) {
+                shortName.append(feature.getInteractorName()).append(Constants.PROTEIN_NAME_SEPARATOR).append(Constants.PROTEIN_PREFIX);
+            } else {
+                shortName.append(Constants.PROTEIN_PREFIX);
+                events.add(new ObjRetrieveErrorEvent(featureAc, interactorAc, ObjRetrieveErrorEvent.ErrorType.UNABLE_RETRIEVE_INTERACTOR_NAME));
+            }
+        }
+        if (feature.getRanges().isEmpty()) {
+            events.add(new RangeErrorEvent(featureAc, interactorAc, null, RangeErrorEvent.ErrorType.RANGE_NULL));
+            return invalid(events);
+        }
+
+        // stable sort, the ranges starting at the same position keep the order of the feature. The quicksort of
+        // ShortlabelGeneratorHelper.sortRanges used before ordered them depending on its pivots
+        List<MutationRange> ranges = new ArrayList<MutationRange>(feature.getRanges());
+        Collections.sort(ranges, BY_START);
+
+        if (ranges.size() > 1) {
+            shortName.append("[");
+        }
+        for (int index = 0; index < ranges.size(); index++) {
+            MutationRange range = ranges.get(index);
+            String rangeAc = range.getRangeAc();
+            long rangeStart = range.getStart();
+            long rangeEnd = range.getEnd();
+            String orgSeq = range.getOriginalSequence();
+            String resSeq = range.getResultingSequence();
+
+            if (rangeStart == 0) {
+                events.add(new RangeErrorEvent(featureAc, interactorAc, rangeAc, RangeErrorEvent.ErrorType.START_POS_ZERO));
+                return invalid(events);
+            }
+            if (range.isStartUndetermined()) {
+                events.add(new RangeErrorEvent(featureAc, interactorAc, rangeAc, RangeErrorEvent.ErrorType.START_POS_UNDETERMINED));
+                return invalid(events);
+            }
+            if (orgSeq == null) {
+                events.add(new RangeErrorEvent(featureAc, interactorAc, rangeAc, RangeErrorEvent.ErrorType.ORG_SEQ_NULL));
+                return invalid(events);
+            }
+            if (resSeq == null) {
+                events.add(new RangeErrorEvent(featureAc, interactorAc, rangeAc, RangeErrorEvent.ErrorType.RES_SEQ_NULL));
+                return invalid(events);
+            }
+            if (orgSeq.equals(resSeq)) {
+                events.add(new TypeErrorEvent(featureAc, interactorAc, TypeErrorEvent.ObjTypeErrorType.SAME_OSEQUENCE_RSEQUENCE));
+                return invalid(events);
+            }
+            if (!helper.isRangeWithinSequence(interactorSeq, rangeStart, rangeEnd)) {
+                String message = "Range (" + rangeStart + "-" + rangeEnd + ") is out of the interactor sequence of length " + interactorSeq.length();
+                events.add(new SequenceErrorEvent(featureAc, interactorAc, rangeAc, SequenceErrorEvent.ErrorType.UNABLE_CALCULATE_ORG_SEQ, message));
+                return invalid(events);
+            }
+            if (helper.orgSeqWrong(orgSeq, interactorSeq, rangeStart, rangeEnd)) {
+                String calculatedOrgSeq = helper.generateOrgSeq(interactorSeq, rangeStart, rangeEnd);
+                String message = "Original sequence does not match interactor sequence. Is " + orgSeq + " should be " + calculatedOrgSeq + " Range: (" + rangeStart + "-" + rangeEnd + ")";
+                events.add(new SequenceErrorEvent(featureAc, interactorAc, rangeAc, SequenceErrorEvent.ErrorType.ORG_SEQ_WRONG, message));
+                return invalid(events);
+            }
+            if (helper.containsLowerCaseLetters(resSeq)) {
+                events.add(new SequenceErrorEvent(featureAc, interactorAc, rangeAc, SequenceErrorEvent.ErrorType.RES_SEQ_CONTAINS_LOWER_CASE));
+                return invalid(events);
+            }
+            if (helper.resultingSeqDescreased(orgSeq, resSeq)) {
+                events.add(new SequenceErrorEvent(featureAc, interactorAc, rangeAc, SequenceErrorEvent.ErrorType.RES_SEQ_SMALLER_ORG_SEQ));
+                return invalid(events);
+            }
+
+            String newShortlabel = computeRangeShortlabel(featureAc, interactorAc, range, events);
+            if (newShortlabel == null) {
+                return invalid(events);
+            }
+            if (!noMutationUpdate) {
+                shortName.append(newShortlabel).append(index < ranges.size() - 1 ? ";" : "");
+            }
+        }
+        if (ranges.size() > 1) {
+            shortName.append("]");
+        }
+
+        String newShortName = shortName.toString();
+        if (noMutationUpdate || newShortName.equals(orgShortlabel)) {
+            return new ShortlabelResult(ShortlabelResult.Outcome.UNMODIFIED, newShortName, events);
+        } else if (newShortName.length() > IntactUtils.MAX_SHORT_LABEL_LEN) {
+            return new ShortlabelResult(ShortlabelResult.Outcome.SHORT_LABEL_TOO_LONG, newShortName, events);
+        }
+        return new ShortlabelResult(ShortlabelResult.Outcome.MODIFIED, newShortName, events);
+    }
+
+    /**
+     * Classify the change of a valid range and describe it, e.g. Pro12_Leu14delins or Ile234Ala
+     *
+     * @return null if the deletion can't be described, see the events
+     */
+    private String computeRangeShortlabel(String featureAc, String interactorAc, MutationRange range, List<Object> events) {
+        String rangeAc = range.getRangeAc();
+        long rangeStart = range.getStart();
+        long rangeEnd = range.getEnd();
+        String orgSeq = range.getOriginalSequence();
+        String resSeq = range.getResultingSequence();
+        boolean isDeletion = false;
+        boolean isDeletionInsertion = false;
+        boolean isInsertionCase = false;
+        boolean isPolyq = false;
+        String newShortlabel = "";
+
+        /*Dots will be removed in future - Currently the code handles both cases*/
+
+        PolyQDataFeed polyQDataFeed = helper.checkIfPoyQAndReturnPDF(orgSeq, resSeq);
+        InsertionDataFeed insertionDataFeed = helper.isInsertionCase(orgSeq, resSeq, rangeStart, rangeEnd);
+        if (polyQDataFeed.isPolyQ()) {
+            isPolyq = true;
+        } else if (helper.isSingleAAChange(orgSeq, resSeq, rangeStart, rangeEnd)) {
+            // described as any other substitution
+        } else if (insertionDataFeed.isInsertion()) {
+            isInsertionCase = true;
+        } else if (helper.isItDelInsCase(orgSeq, resSeq)) {
+            isDeletionInsertion = true;
+        } else if (resSeq.length() == 0 || helper.containsDot(resSeq)) {
+
+            if (resSeq.length() != 0) {
+                if (helper.deletionOnWrongPlace(resSeq)) {
+                    events.add(new SequenceErrorEvent(featureAc, interactorAc, rangeAc, SequenceErrorEvent.ErrorType.RES_SEQ_WITH_WRONG_DELETION));
+                    return null;
+                }
+                if (helper.containsToManyDots(resSeq)) {
+                    events.add(new SequenceErrorEvent(featureAc, interactorAc, rangeAc, SequenceErrorEvent.ErrorType.RES_SEQ_TO_MANY_DOTS));
+                    return null;
+                }
+            }
+
+            isDeletion = true;
+        }
+
+        if (polyQDataFeed.isSingleAAPolyQ()) {
+            newShortlabel += helper.seq2ThreeLetterCodeOnDefaultOrgSeq(orgSeq.charAt(0) + "", rangeStart, rangeEnd);
+        } else {
+            newShortlabel += helper.seq2ThreeLetterCodeOnDefaultOrgSeq(orgSeq, rangeStart, rangeEnd);
+        }
+
+        if (isDeletionInsertion) {
+            newShortlabel += Constants.DEL_INS;
+            events.add(new ResultingSequenceChangedEvent(featureAc, interactorAc, rangeAc, orgSeq, resSeq, rangeStart, rangeEnd, ResultingSequenceChangedEvent.ChangeType.DELETION_INSERTION));
+        } else if (isDeletion) {
+            newShortlabel += Constants.DELETION;
+            events.add(new ResultingSequenceChangedEvent(featureAc, interactorAc, rangeAc, orgSeq, resSeq, rangeStart, rangeEnd, ResultingSequenceChangedEvent.ChangeType.DELETION));
+        } else if (helper.resultingSeqIncreased(orgSeq, resSeq)) {
+            if (isInsertionCase) {
+                newShortlabel += Constants.INSERTION;
+            }
+            events.add(new ResultingSequenceChangedEvent(featureAc, interactorAc, rangeAc, orgSeq, resSeq, rangeStart, rangeEnd, ResultingSequenceChangedEvent.ChangeType.INCREASE));
+        }
+
+        if (insertionDataFeed.isToBeCuratedManually()) {
+            events.add(new ResultingSequenceChangedEvent(featureAc, interactorAc, rangeAc, orgSeq, resSeq, rangeStart, rangeEnd, ResultingSequenceChangedEvent.ChangeType.WRONG_INSERTION));
+        }
+        if (!isDeletion) {
+            if (!isPolyq) {
+                if (isInsertionCase) {
+                    newShortlabel += helper.seq2ThreeLetterCodeOnDefaultResSeq(insertionDataFeed.getInsertionString());
+                } else {
+                    newShortlabel += helper.seq2ThreeLetterCodeOnDefaultResSeq(resSeq);
+                }
+            } else {
+                newShortlabel += "[" + polyQDataFeed.getRepeatUnit() + "]";
+            }
+        }
+        return newShortlabel;
+    }
+
+    private static ShortlabelResult invalid(List<Object> events) {
+        return new ShortlabelResult(ShortlabelResult.Outcome.INVALID, null, events);
+    }
+}
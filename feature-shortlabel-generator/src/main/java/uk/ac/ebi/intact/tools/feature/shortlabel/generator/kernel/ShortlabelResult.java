@@ -0,0 +1,73 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator.kernel;
+
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.events.*;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.manager.ShortlabelGeneratorManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The shortlabel computed by the ShortlabelKernel for a feature and the events raised while classifying its ranges.
+ */
+public class ShortlabelResult {
+
+    public enum Outcome {
+        /*The shortlabel differs from the original one*/
+        MODIFIED,
+        /*The shortlabel is the original one, or the feature is annotated with no-mutation-update*/
+        UNMODIFIED,
+        /*The shortlabel is longer than IntactUtils.MAX_SHORT_LABEL_LEN*/
+        SHORT_LABEL_TOO_LONG,
+        /*A range can't be described, see the events. There is no shortlabel*/
+        INVALID
+    }
+
+    private final Outcome outcome;
+    private final String shortlabel;
+    private final List<Object> events;
+
+    ShortlabelResult(Outcome outcome, String shortlabel, List<Object> events) {
+        this.outcome = outcome;
+        this.shortlabel = shortlabel;
+        this.events = Collections.unmodifiableList(new ArrayList<Object>(events));
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * @return the computed shortlabel, null if the outcome is INVALID
+     */
+    public String getShortlabel() {
+        return shortlabel;
+    }
+
+    /**
+     * @return the RangeErrorEvent, SequenceErrorEvent, TypeErrorEvent, ObjRetrieveErrorEvent and ResultingSequenceChangedEvent
+     * raised, in order. The outcome itself is not reported as an event
+     */
+    public List<Object> getEvents() {
+        return events;
+    }
+
+    /**
+     * Fire the events to the listeners of the manager, in order
+     */
+    public void fireEvents(ShortlabelGeneratorManager manager) {
+        for (Object event : events) {
+            if (event instanceof RangeErrorEvent) {
+                manager.fireOnRangeErrorEvent((RangeErrorEvent) event);
+            } else if (event instanceof SequenceErrorEvent) {
+                manager.fireOnSeqErrorEvent((SequenceErrorEvent) event);
+            } else if (event instanceof ResultingSequenceChangedEvent) {
+                manager.fireOnResSeqChangedEvent((ResultingSequenceChangedEvent) event);
+            } else if (event instanceof TypeErrorEvent) {
+                manager.fireOnObjectTypeErrorEvent((TypeErrorEvent) event);
+            } else if (event instanceof ObjRetrieveErrorEvent) {
+                manager.fireOnRetrieveObjErrorEvent((ObjRetrieveErrorEvent) event);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator.listener;
+
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.events.*;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.manager.ShortlabelGeneratorManager;
+
+/**
+ * Listener aggregating the events fired by several threads in a single stream.
+ * The events are forwarded to the registered listeners one at a time, so these listeners don't need to be thread safe.
+ */
+public class SynchronizedShortlabelGeneratorListener implements ShortlabelGeneratorListener {
+
+    private final ShortlabelGeneratorManager manager = new ShortlabelGeneratorManager();
+
+    public void addListener(ShortlabelGeneratorListener listener) {
+        manager.addListener(listener);
+    }
+
+    @Override
+    public synchronized void onRangeError(RangeErrorEvent event) {
+        manager.fireOnRangeErrorEvent(event);
+    }
+
+    @Override
+    public synchronized void onModifiedMutationShortlabel(ModifiedMutationShortlabelEvent event) {
+        manager.fireOnModifiedMutationShortlabelEvent(event);
+    }
+
+    @Override
+    public synchronized void onUnmodifiedMutationShortlabel(UnmodifiedMutationShortlabelEvent event) {
+        manager.fireOnUnmodifiedMutationShortlabelEvent(event);
+    }
+
+    @Override
+    public synchronized void onRetrieveObjectError(ObjRetrieveErrorEvent event) {
+        manager.fireOnRetrieveObjErrorEvent(event);
+    }
+
+    @Override
+    public synchronized void onAnnotationFound(AnnotationFoundEvent event) {
+        manager.fireOnAnnotationFoundEvent(event);
+    }
+
+    @Override
+    public synchronized void onSequenceError(SequenceErrorEvent event) {
+        manager.fireOnSeqErrorEvent(event);
+    }
+
+    @Override
+    public synchronized void onResultingSequenceChanged(ResultingSequenceChangedEvent event) {
+        manager.fireOnResSeqChangedEvent(event);
+    }
+
+    @Override
+    public synchronized void onObjectTypeError(TypeErrorEvent event) {
+        manager.fireOnObjectTypeErrorEvent(event);
+    }
+
+    @Override
+    public synchronized void onOtherErrorEvent(OtherErrorEvent event) {
+        manager.fireOnOtherErrorEvent(event);
+    }
+}
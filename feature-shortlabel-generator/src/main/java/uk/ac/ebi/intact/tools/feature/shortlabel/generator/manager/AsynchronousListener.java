@@ -0,0 +1,280 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator.manager;
+
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.events.*;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.listener.ShortlabelGeneratorListener;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Delivers the events to a listener from a dedicated thread.
+ * <p>
+ * The events wait in a bounded ring buffer (ArrayBlockingQueue) and are delivered in the order they were fired, so the
+ * listener sees the same sequence of events as with a synchronous delivery. When the buffer is full, the thread firing
+ * the event either waits for room or the event is dropped, depending on the overflow policy.
+ * <p>
+ * Once the delivery thread has been stopped, a thread still firing through this listener delivers the event itself,
+ * after the events already queued have been delivered.
+ */
+class AsynchronousListener implements ShortlabelGeneratorListener {
+
+    private enum EventKind {
+        RANGE_ERROR {
+            void deliver(ShortlabelGeneratorListener listener, Object event) {
+                listener.onRangeError((RangeErrorEvent) event);
+            }
+        },
+        MODIFIED_SHORTLABEL {
+            void deliver(ShortlabelGeneratorListener listener, Object event) {
+                listener.onModifiedMutationShortlabel((ModifiedMutationShortlabelEvent) event);
+            }
+        },
+        UNMODIFIED_SHORTLABEL {
+            void deliver(ShortlabelGeneratorListener listener, Object event) {
+                listener.onUnmodifiedMutationShortlabel((UnmodifiedMutationShortlabelEvent) event);
+            }
+        },
+        RETRIEVE_OBJECT_ERROR {
+            void deliver(ShortlabelGeneratorListener listener, Object event) {
+                listener.onRetrieveObjectError((ObjRetrieveErrorEvent) event);
+            }
+        },
+        ANNOTATION_FOUND {
+            void deliver(ShortlabelGeneratorListener listener, Object event) {
+                listener.onAnnotationFound((AnnotationFoundEvent) event);
+            }
+        },
+        SEQUENCE_ERROR {
+            void deliver(ShortlabelGeneratorListener listener, Object event) {
+                listener.onSequenceError((SequenceErrorEvent) event);
+            }
+        },
+        RESULTING_SEQUENCE_CHANGED {
+            void deliver(ShortlabelGeneratorListener listener, Object event) {
+                listener.onResultingSequenceChanged((ResultingSequenceChangedEvent) event);
+            }
+        },
+        OBJECT_TYPE_ERROR {
+            void deliver(ShortlabelGeneratorListener listener, Object event) {
+                listener.onObjectTypeError((TypeErrorEvent) event);
+            }
+        },
+        OTHER_ERROR {
+            void deliver(ShortlabelGeneratorListener listener, Object event) {
+                listener.onOtherErrorEvent((OtherErrorEvent) event);
+            }
+        };
+
+        abstract void deliver(ShortlabelGeneratorListener listener, Object event);
+    }
+
+    private static class Delivery {
+        private final EventKind kind;
+        private final Object event;
+        /*Set for the markers used to wait until the previous events have been delivered*/
+        private final CountDownLatch processed;
+        private final boolean last;
+
+        private Delivery(EventKind kind, Object event, CountDownLatch processed, boolean last) {
+            this.kind = kind;
+            this.event = event;
+            this.processed = processed;
+            this.last = last;
+        }
+    }
+
+    private final ShortlabelGeneratorListener listener;
+    private final ShortlabelGeneratorManager.OverflowPolicy overflowPolicy;
+    private final BlockingQueue<Delivery> queue;
+    private final int queueCapacity;
+    private final Thread worker;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong blocked = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile RuntimeException lastFailure;
+
+    /*Read-locked to queue an event, write-locked to post the stop marker so no event is queued after it*/
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private boolean closed;
+
+    AsynchronousListener(ShortlabelGeneratorListener listener, int queueCapacity, ShortlabelGeneratorManager.OverflowPolicy overflowPolicy) {
+        this.listener = listener;
+        this.overflowPolicy = overflowPolicy;
+        this.queueCapacity = queueCapacity;
+        this.queue = new ArrayBlockingQueue<Delivery>(queueCapacity);
+
+        this.worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                deliverEvents();
+            }
+        }, "shortlabel-events-" + listener.getClass().getSimpleName());
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    ShortlabelGeneratorListener getListener() {
+        return listener;
+    }
+
+    private void deliverEvents() {
+        while (true) {
+            Delivery delivery;
+            try {
+                delivery = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            if (delivery.processed != null) {
+                delivery.processed.countDown();
+                if (delivery.last) {
+                    return;
+                }
+                continue;
+            }
+
+            try {
+                delivery.kind.deliver(listener, delivery.event);
+            } catch (RuntimeException e) {
+                failures.incrementAndGet();
+                lastFailure = e;
+            }
+            delivered.incrementAndGet();
+        }
+    }
+
+    private void enqueue(EventKind kind, Object event) {
+        closeLock.readLock().lock();
+        try {
+            if (!closed) {
+                offer(new Delivery(kind, event, null, false));
+                return;
+            }
+        } finally {
+            closeLock.readLock().unlock();
+        }
+
+        awaitWorkerStopped();
+        kind.deliver(listener, event);
+    }
+
+    private void offer(Delivery delivery) {
+        if (queue.offer(delivery)) {
+            return;
+        }
+        if (overflowPolicy == ShortlabelGeneratorManager.OverflowPolicy.DROP) {
+            dropped.incrementAndGet();
+            return;
+        }
+
+        blocked.incrementAndGet();
+        try {
+            queue.put(delivery);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Wait until the events fired so far have been delivered
+     *
+     * @param stop : true to stop the worker thread once the events have been delivered
+     */
+    void await(boolean stop) throws InterruptedException {
+        CountDownLatch processed = new CountDownLatch(1);
+        Lock lock = stop ? closeLock.writeLock() : closeLock.readLock();
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            queue.put(new Delivery(null, null, processed, stop));
+            if (stop) {
+                closed = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        processed.await();
+        if (stop) {
+            worker.join();
+        }
+    }
+
+    private void awaitWorkerStopped() {
+        boolean interrupted = false;
+        while (worker.isAlive()) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    RuntimeException getLastFailure() {
+        return lastFailure;
+    }
+
+    EventDeliveryMetrics getMetrics() {
+        return new EventDeliveryMetrics(listener.getClass().getName(), queueCapacity, queue.size(),
+                delivered.get(), dropped.get(), blocked.get(), failures.get());
+    }
+
+    @Override
+    public void onRangeError(RangeErrorEvent event) {
+        enqueue(EventKind.RANGE_ERROR, event);
+    }
+
+    @Override
+    public void onModifiedMutationShortlabel(ModifiedMutationShortlabelEvent event) {
+        enqueue(EventKind.MODIFIED_SHORTLABEL, event);
+    }
+
+    @Override
+    public void onUnmodifiedMutationShortlabel(UnmodifiedMutationShortlabelEvent event) {
+        enqueue(EventKind.UNMODIFIED_SHORTLABEL, event);
+    }
+
+    @Override
+    public void onRetrieveObjectError(ObjRetrieveErrorEvent event) {
+        enqueue(EventKind.RETRIEVE_OBJECT_ERROR, event);
+    }
+
+    @Override
+    public void onAnnotationFound(AnnotationFoundEvent event) {
+        enqueue(EventKind.ANNOTATION_FOUND, event);
+    }
+
+    @Override
+    public void onSequenceError(SequenceErrorEvent event) {
+        enqueue(EventKind.SEQUENCE_ERROR, event);
+    }
+
+    @Override
+    public void onResultingSequenceChanged(ResultingSequenceChangedEvent event) {
+        enqueue(EventKind.RESULTING_SEQUENCE_CHANGED, event);
+    }
+
+    @Override
+    public void onObjectTypeError(TypeErrorEvent event) {
+        enqueue(EventKind.OBJECT_TYPE_ERROR, event);
+    }
+
+    @Override
+    public void onOtherErrorEvent(OtherErrorEvent event) {
+        enqueue(EventKind.OTHER_ERROR, event);
+    }
+}
@@ -0,0 +1,77 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator.manager;
+
+/**
+ * Snapshot of the asynchronous delivery of the events to one listener.
+ */
+public class EventDeliveryMetrics {
+
+    private final String listener;
+    private final int queueCapacity;
+    private final int queueDepth;
+    private final long delivered;
+    private final long dropped;
+    private final long blocked;
+    private final long failures;
+
+    public EventDeliveryMetrics(String listener, int queueCapacity, int queueDepth, long delivered, long dropped, long blocked, long failures) {
+        this.listener = listener;
+        this.queueCapacity = queueCapacity;
+        this.queueDepth = queueDepth;
+        this.delivered = delivered;
+        this.dropped = dropped;
+        this.blocked = blocked;
+        this.failures = failures;
+    }
+
+    /**
+     * @return the class name of the listener
+     */
+    public String getListener() {
+        return listener;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return the number of events waiting to be delivered
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * @return the number of events delivered to the listener, including the ones the listener failed to process
+     */
+    public long getDelivered() {
+        return delivered;
+    }
+
+    /**
+     * @return the number of events dropped because the queue was full
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * @return the number of events for which the generator had to wait for room in the queue (backpressure)
+     */
+    public long getBlocked() {
+        return blocked;
+    }
+
+    /**
+     * @return the number of events for which the listener threw an exception
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    @Override
+    public String toString() {
+        return listener + ": queue=" + queueDepth + "/" + queueCapacity + ", delivered=" + delivered + ", dropped=" + dropped
+                + ", blocked=" + blocked + ", failures=" + failures;
+    }
+}
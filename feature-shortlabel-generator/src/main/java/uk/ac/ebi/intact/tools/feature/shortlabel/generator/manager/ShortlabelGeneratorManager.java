@@ -3,87 +3,226 @@ package uk.ac.ebi.intact.tools.feature.shortlabel.generator.manager;
 import uk.ac.ebi.intact.tools.feature.shortlabel.generator.events.*;
 import uk.ac.ebi.intact.tools.feature.shortlabel.generator.listener.ShortlabelGeneratorListener;
 
-import javax.swing.event.EventListenerList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Created by Maximilian Koch (mkoch@ebi.ac.uk).
+ * <p>
+ * The listeners are kept in a copy-on-write array, so firing an event doesn't copy or lock anything.
+ * By default the events are delivered synchronously by the thread firing them. With enableAsynchronousDelivery,
+ * each listener receives its events in order from its own thread, see AsynchronousListener.
  */
 public class ShortlabelGeneratorManager {
 
-    protected EventListenerList listenerList = new EventListenerList();
+    /**
+     * What to do when an event is fired and the queue of a listener is full
+     */
+    public enum OverflowPolicy {
+        /*The thread firing the event waits for the listener (backpressure)*/
+        BLOCK,
+        /*The event is not delivered to the listener*/
+        DROP
+    }
+
+    private static final ShortlabelGeneratorListener[] NO_LISTENERS = new ShortlabelGeneratorListener[0];
+
+    /*The listeners as registered*/
+    private ShortlabelGeneratorListener[] registeredListeners = NO_LISTENERS;
+    /*The registered listeners never wrapped for an asynchronous delivery*/
+    private ShortlabelGeneratorListener[] synchronousListeners = NO_LISTENERS;
+    /*The listeners the events are fired to, the registered listeners themselves or their asynchronous wrappers*/
+    private volatile ShortlabelGeneratorListener[] listeners = NO_LISTENERS;
+
+    private int queueCapacity;
+    private OverflowPolicy overflowPolicy;
 
     public void fireOnRangeErrorEvent(RangeErrorEvent event) {
-        for (ShortlabelGeneratorListener eventListener : getListeners(ShortlabelGeneratorListener.class)){
+        for (ShortlabelGeneratorListener eventListener : listeners) {
             eventListener.onRangeError(event);
         }
     }
 
     public void fireOnUnmodifiedMutationShortlabelEvent (UnmodifiedMutationShortlabelEvent event){
-        for (ShortlabelGeneratorListener eventListener : getListeners(ShortlabelGeneratorListener.class)){
+        for (ShortlabelGeneratorListener eventListener : listeners) {
             eventListener.onUnmodifiedMutationShortlabel(event);
         }
     }
 
     public void fireOnModifiedMutationShortlabelEvent (ModifiedMutationShortlabelEvent event){
-        for (ShortlabelGeneratorListener eventListener : getListeners(ShortlabelGeneratorListener.class)){
+        for (ShortlabelGeneratorListener eventListener : listeners) {
             eventListener.onModifiedMutationShortlabel(event);
         }
     }
 
     public void fireOnRetrieveObjErrorEvent(ObjRetrieveErrorEvent event) {
-        for (ShortlabelGeneratorListener eventListener : getListeners(ShortlabelGeneratorListener.class)){
+        for (ShortlabelGeneratorListener eventListener : listeners) {
             eventListener.onRetrieveObjectError(event);
         }
     }
 
     public void fireOnAnnotationFoundEvent(AnnotationFoundEvent event) {
-        for (ShortlabelGeneratorListener eventListener : getListeners(ShortlabelGeneratorListener.class)){
+        for (ShortlabelGeneratorListener eventListener : listeners) {
             eventListener.onAnnotationFound(event);
         }
     }
 
     public void fireOnSeqErrorEvent(SequenceErrorEvent event) {
-        for (ShortlabelGeneratorListener eventListener : getListeners(ShortlabelGeneratorListener.class)){
+        for (ShortlabelGeneratorListener eventListener : listeners) {
             eventListener.onSequenceError(event);
         }
     }
 
     public void fireOnResSeqChangedEvent(ResultingSequenceChangedEvent event) {
-        for (ShortlabelGeneratorListener eventListener : getListeners(ShortlabelGeneratorListener.class)){
+        for (ShortlabelGeneratorListener eventListener : listeners) {
             eventListener.onResultingSequenceChanged(event);
         }
     }
 
     public void fireOnObjectTypeErrorEvent(TypeErrorEvent event) {
-        for (ShortlabelGeneratorListener eventListener : getListeners(ShortlabelGeneratorListener.class)){
+        for (ShortlabelGeneratorListener eventListener : listeners) {
             eventListener.onObjectTypeError(event);
         }
     }
 
     public void fireOnOtherErrorEvent(OtherErrorEvent event) {
-        for (ShortlabelGeneratorListener eventListener : getListeners(ShortlabelGeneratorListener.class)){
+        for (ShortlabelGeneratorListener eventListener : listeners) {
             eventListener.onOtherErrorEvent(event);
         }
     }
 
-    public void addListener(ShortlabelGeneratorListener listener) {
-        listenerList.add(ShortlabelGeneratorListener.class, listener);
+    public synchronized void addListener(ShortlabelGeneratorListener listener) {
+        registeredListeners = append(registeredListeners, listener);
+        listeners = append(listeners, isAsynchronous() ? new AsynchronousListener(listener, queueCapacity, overflowPolicy) : listener);
     }
 
-    protected <T> List<T> getListeners(Class<T> listenerClass) {
-        List list = new ArrayList();
+    /**
+     * Add a listener which always receives the events from the thread firing them, even when the delivery is asynchronous.
+     * For the cheap and thread safe listeners, e.g. metrics, which must see the events as they happen.
+     */
+    public synchronized void addSynchronousListener(ShortlabelGeneratorListener listener) {
+        registeredListeners = append(registeredListeners, listener);
+        synchronousListeners = append(synchronousListeners, listener);
+        listeners = append(listeners, listener);
+    }
+
+    /**
+     * Deliver the events to each listener from its own thread. The events wait in a bounded queue per listener
+     * and each listener receives them in the order they were fired.
+     * The events are delivered after the transaction of the feature may have ended, so the listeners should rely on the
+     * values of the events (ACs, shortlabels) rather than on the entities they carry.
+     *
+     * @param queueCapacity  : the maximum number of events waiting for a listener
+     * @param overflowPolicy : what to do when the queue of a listener is full
+     */
+    public synchronized void enableAsynchronousDelivery(int queueCapacity, OverflowPolicy overflowPolicy) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("The queue capacity must be positive: " + queueCapacity);
+        }
+        if (overflowPolicy == null) {
+            throw new IllegalArgumentException("The overflow policy is mandatory");
+        }
+        if (isAsynchronous()) {
+            throw new IllegalStateException("The events are already delivered asynchronously");
+        }
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+
+        ShortlabelGeneratorListener[] asynchronousListeners = new ShortlabelGeneratorListener[registeredListeners.length];
+        for (int i = 0; i < registeredListeners.length; i++) {
+            asynchronousListeners[i] = isSynchronous(registeredListeners[i]) ? registeredListeners[i]
+                    : new AsynchronousListener(registeredListeners[i], queueCapacity, overflowPolicy);
+        }
+        listeners = asynchronousListeners;
+    }
+
+    public synchronized boolean isAsynchronous() {
+        return overflowPolicy != null;
+    }
+
+    /**
+     * Wait until all the events fired so far have been delivered. Does nothing if the events are delivered synchronously.
+     *
+     * @throws IllegalStateException if a listener failed to process an event since the asynchronous delivery has been enabled
+     */
+    public void flush() throws InterruptedException {
+        ShortlabelGeneratorListener[] currentListeners = listeners;
+        for (ShortlabelGeneratorListener listener : currentListeners) {
+            if (listener instanceof AsynchronousListener) {
+                ((AsynchronousListener) listener).await(false);
+            }
+        }
+        checkFailures(currentListeners);
+    }
 
-        Object[] listeners = listenerList.getListenerList();
+    /**
+     * Wait until all the events fired so far have been delivered, stop the delivery threads and go back to a
+     * synchronous delivery. An event fired concurrently to a stopped delivery thread is delivered by the thread firing it.
+     *
+     * @throws IllegalStateException if a listener failed to process an event since the asynchronous delivery has been enabled
+     */
+    public void disableAsynchronousDelivery() throws InterruptedException {
+        ShortlabelGeneratorListener[] asynchronousListeners;
+        synchronized (this) {
+            asynchronousListeners = listeners;
+            listeners = registeredListeners;
+            overflowPolicy = null;
+            queueCapacity = 0;
+        }
+        for (ShortlabelGeneratorListener listener : asynchronousListeners) {
+            if (listener instanceof AsynchronousListener) {
+                ((AsynchronousListener) listener).await(true);
+            }
+        }
+        checkFailures(asynchronousListeners);
+    }
+
+    /**
+     * @return the delivery metrics of each listener, empty if the events are delivered synchronously
+     */
+    public List<EventDeliveryMetrics> getDeliveryMetrics() {
+        List<EventDeliveryMetrics> metrics = new ArrayList<EventDeliveryMetrics>();
+        for (ShortlabelGeneratorListener listener : listeners) {
+            if (listener instanceof AsynchronousListener) {
+                metrics.add(((AsynchronousListener) listener).getMetrics());
+            }
+        }
+        return metrics;
+    }
 
-        for (int i = 0; i < listeners.length; i += 2) {
-            if (listeners[i] == ShortlabelGeneratorListener.class) {
-                if (listenerClass.isAssignableFrom(listeners[i + 1].getClass())) {
-                    list.add(listeners[i + 1]);
-                }
+    protected <T> List<T> getListeners(Class<T> listenerClass) {
+        List<T> list = new ArrayList<T>();
+        for (ShortlabelGeneratorListener listener : registeredListeners) {
+            if (listenerClass.isInstance(listener)) {
+                list.add(listenerClass.cast(listener));
             }
         }
         return list;
     }
+
+    private void checkFailures(ShortlabelGeneratorListener[] asynchronousListeners) {
+        for (ShortlabelGeneratorListener listener : asynchronousListeners) {
+            if (listener instanceof AsynchronousListener && ((AsynchronousListener) listener).getLastFailure() != null) {
+                AsynchronousListener asynchronousListener = (AsynchronousListener) listener;
+                throw new IllegalStateException("The listener " + asynchronousListener.getListener().getClass().getName() + " failed to process "
+                        + asynchronousListener.getMetrics().getFailures() + " events", asynchronousListener.getLastFailure());
+            }
+        }
+    }
+
+    private boolean isSynchronous(ShortlabelGeneratorListener listener) {
+        for (ShortlabelGeneratorListener synchronousListener : synchronousListeners) {
+            if (synchronousListener == listener) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ShortlabelGeneratorListener[] append(ShortlabelGeneratorListener[] listeners, ShortlabelGeneratorListener listener) {
+        ShortlabelGeneratorListener[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+        newListeners[listeners.length] = listener;
+        return newListeners;
+    }
 }
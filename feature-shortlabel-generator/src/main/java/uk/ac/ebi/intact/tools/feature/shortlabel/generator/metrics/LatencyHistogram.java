@@ -0,0 +1,87 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations in nanoseconds.
+ * <p>
+ * The bucket i counts the durations between 2^(i-1) and 2^i - 1 nanoseconds, so the percentiles are known within a
+ * factor of two, which is enough to see where the time goes, for a fixed and small memory footprint.
+ */
+public class LatencyHistogram {
+    private final static int NUMBER_OF_BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NUMBER_OF_BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets.incrementAndGet(NUMBER_OF_BUCKETS - Long.numberOfLeadingZeros(nanos));
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @param percentile : between 0 and 100
+     * @return the upper bound of the bucket containing the percentile, in nanoseconds. 0 if nothing has been recorded
+     */
+    public long getPercentile(double percentile) {
+        long total = 0;
+        long[] counts = new long[NUMBER_OF_BUCKETS];
+        for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(total * percentile / 100d);
+        long seen = 0;
+        for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(rank, 1)) {
+                return Math.min(upperBound(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    public LatencySnapshot snapshot() {
+        long snapshotCount = count.get();
+        return new LatencySnapshot(snapshotCount,
+                toMicros(snapshotCount > 0 ? totalNanos.get() / snapshotCount : 0),
+                toMicros(getPercentile(50)), toMicros(getPercentile(95)), toMicros(getPercentile(99)), toMicros(maxNanos.get()));
+    }
+
+    public void reset() {
+        for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    private static long toMicros(long nanos) {
+        return nanos / 1000;
+    }
+
+    private static long upperBound(int bucket) {
+        return bucket >= NUMBER_OF_BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+}
@@ -0,0 +1,59 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Durations of a phase of the shortlabel generation, in microseconds. Exported through JMX as composite data.
+ */
+public class LatencySnapshot {
+
+    private final long count;
+    private final long meanMicros;
+    private final long p50Micros;
+    private final long p95Micros;
+    private final long p99Micros;
+    private final long maxMicros;
+
+    @ConstructorProperties({"count", "meanMicros", "p50Micros", "p95Micros", "p99Micros", "maxMicros"})
+    public LatencySnapshot(long count, long meanMicros, long p50Micros, long p95Micros, long p99Micros, long maxMicros) {
+        this.count = count;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p95Micros = p95Micros;
+        this.p99Micros = p99Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMeanMicros() {
+        return meanMicros;
+    }
+
+    /**
+     * @return the median, within a factor of two
+     */
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP95Micros() {
+        return p95Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count + ", mean=" + meanMicros + "us, p50=" + p50Micros + "us, p95=" + p95Micros
+                + "us, p99=" + p99Micros + "us, max=" + maxMicros + "us";
+    }
+}
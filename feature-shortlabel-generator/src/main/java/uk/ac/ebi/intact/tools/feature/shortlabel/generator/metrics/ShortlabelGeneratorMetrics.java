@@ -0,0 +1,167 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator.metrics;
+
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.events.*;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.listener.ShortlabelGeneratorListener;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the events fired by a ShortlabelGenerator by event and error type, and records how long the features take in
+ * each phase of the generation:
+ * <ul>
+ * <li>FEATURE_FETCH: reading the features from the database, one sample per feature read by AC or per page of features
+ * read by the bulk and parallel generators</li>
+ * <li>INTERACTOR_RESOLUTION: getting the interactor of the feature and its sequence, from the cache or the database</li>
+ * <li>LABEL_COMPUTATION: checking the ranges and building the shortlabel, including the listeners receiving the events synchronously</li>
+ * </ul>
+ * Thread safe, the generators running in parallel share the same metrics.
+ */
+public class ShortlabelGeneratorMetrics implements ShortlabelGeneratorListener, ShortlabelGeneratorMetricsMXBean {
+
+    public enum Phase {
+        FEATURE_FETCH,
+        INTERACTOR_RESOLUTION,
+        LABEL_COMPUTATION
+    }
+
+    private final ConcurrentMap<String, AtomicLong> eventCounts = new ConcurrentHashMap<String, AtomicLong>();
+    private final AtomicLong featureCount = new AtomicLong();
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Phase.values().length];
+
+    public ShortlabelGeneratorMetrics() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    public void recordFeature() {
+        featureCount.incrementAndGet();
+    }
+
+    /**
+     * @param phase : the phase of the generation
+     * @param nanos : the time spent in the phase, as measured with System.nanoTime
+     */
+    public void recordLatency(Phase phase, long nanos) {
+        latencies[phase.ordinal()].record(nanos);
+    }
+
+    public LatencyHistogram getLatency(Phase phase) {
+        return latencies[phase.ordinal()];
+    }
+
+    /**
+     * @return the number of events of this class and type fired so far
+     */
+    public long getEventCount(Class<?> eventClass, Enum<?> type) {
+        AtomicLong counter = eventCounts.get(key(eventClass, type));
+        return counter != null ? counter.get() : 0;
+    }
+
+    @Override
+    public long getFeatureCount() {
+        return featureCount.get();
+    }
+
+    @Override
+    public Map<String, Long> getEventCounts() {
+        Map<String, Long> counts = new TreeMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> entry : eventCounts.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().get());
+        }
+        return counts;
+    }
+
+    @Override
+    public LatencySnapshot getFeatureFetchLatency() {
+        return getLatency(Phase.FEATURE_FETCH).snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getInteractorResolutionLatency() {
+        return getLatency(Phase.INTERACTOR_RESOLUTION).snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getLabelComputationLatency() {
+        return getLatency(Phase.LABEL_COMPUTATION).snapshot();
+    }
+
+    /**
+     * Set all the counters and histograms back to zero, e.g. before a new run
+     */
+    @Override
+    public void reset() {
+        eventCounts.clear();
+        featureCount.set(0);
+        for (LatencyHistogram latency : latencies) {
+            latency.reset();
+        }
+    }
+
+    @Override
+    public void onRangeError(RangeErrorEvent event) {
+        count(RangeErrorEvent.class, event.getErrorType());
+    }
+
+    @Override
+    public void onModifiedMutationShortlabel(ModifiedMutationShortlabelEvent event) {
+        count(ModifiedMutationShortlabelEvent.class, null);
+    }
+
+    @Override
+    public void onUnmodifiedMutationShortlabel(UnmodifiedMutationShortlabelEvent event) {
+        count(UnmodifiedMutationShortlabelEvent.class, null);
+    }
+
+    @Override
+    public void onRetrieveObjectError(ObjRetrieveErrorEvent event) {
+        count(ObjRetrieveErrorEvent.class, event.getErrorType());
+    }
+
+    @Override
+    public void onAnnotationFound(AnnotationFoundEvent event) {
+        count(AnnotationFoundEvent.class, event.getType());
+    }
+
+    @Override
+    public void onSequenceError(SequenceErrorEvent event) {
+        count(SequenceErrorEvent.class, event.getErrorType());
+    }
+
+    @Override
+    public void onResultingSequenceChanged(ResultingSequenceChangedEvent event) {
+        count(ResultingSequenceChangedEvent.class, event.getChangeType());
+    }
+
+    @Override
+    public void onObjectTypeError(TypeErrorEvent event) {
+        count(TypeErrorEvent.class, event.getErrorType());
+    }
+
+    @Override
+    public void onOtherErrorEvent(OtherErrorEvent event) {
+        count(OtherErrorEvent.class, event.getErrorType());
+    }
+
+    private void count(Class<?> eventClass, Enum<?> type) {
+        String key = key(eventClass, type);
+        AtomicLong counter = eventCounts.get(key);
+        if (counter == null) {
+            AtomicLong newCounter = new AtomicLong();
+            counter = eventCounts.putIfAbsent(key, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        counter.incrementAndGet();
+    }
+
+    private static String key(Class<?> eventClass, Enum<?> type) {
+        return type != null ? eventClass.getSimpleName() + "." + type.name() : eventClass.getSimpleName();
+    }
+}
@@ -0,0 +1,24 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of the ShortlabelGeneratorMetrics. The durations are in microseconds.
+ */
+public interface ShortlabelGeneratorMetricsMXBean {
+
+    long getFeatureCount();
+
+    /**
+     * @return the number of events fired, by event class and type, e.g. RangeErrorEvent.ORG_SEQ_NULL
+     */
+    Map<String, Long> getEventCounts();
+
+    LatencySnapshot getFeatureFetchLatency();
+
+    LatencySnapshot getInteractorResolutionLatency();
+
+    LatencySnapshot getLabelComputationLatency();
+
+    void reset();
+}
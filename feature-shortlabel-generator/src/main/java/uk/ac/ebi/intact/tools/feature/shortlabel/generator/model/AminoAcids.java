@@ -33,6 +33,17 @@ public enum AminoAcids {
     STOP_CODON('*', "*"),
     DELETION('.', "del");
 
+    /**
+     * Three letter codes indexed by one letter code. The one letter codes are all ASCII characters
+     */
+    private static final String[] THREE_LETTER_CODES = new String[128];
+
+    static {
+        for (AminoAcids aminoAcids : values()) {
+            THREE_LETTER_CODES[aminoAcids.getOneLetterCode()] = aminoAcids.getThreeLetterCode();
+        }
+    }
+
     private Character oneLetterCode;
     private String threeLetterCode;
 
@@ -50,11 +61,64 @@ public enum AminoAcids {
     }
 
     public static String getThreeLetterCodeByOneLetterCode(Character oneLetterCode) {
-        for (AminoAcids aminoAcids : values()) {
-            if (aminoAcids.getOneLetterCode() == oneLetterCode) {
-                return aminoAcids.getThreeLetterCode();
+        if (oneLetterCode == null) {
+            return null;
+        }
+        return getThreeLetterCodeByOneLetterCode(oneLetterCode.charValue());
+    }
+
+    public static String getThreeLetterCodeByOneLetterCode(char oneLetterCode) {
+        if (oneLetterCode >= THREE_LETTER_CODES.length) {
+            return null;
+        }
+        return THREE_LETTER_CODES[oneLetterCode];
+    }
+
+    /**
+     * Convert a range of one letter codes in three letter codes in a single pass, the result being sized exactly.
+     * An unknown one letter code is converted to "null".
+     *
+     * @param sequence      : the one letter codes
+     * @param start         : index of the first one letter code, inclusive
+     * @param end           : index of the last one letter code, exclusive
+     * @param separator     : written between two three letter codes, can be empty
+     * @param skipDeletions : true to ignore the deletions ('.')
+     * @return the three letter codes of the range
+     */
+    public static String toThreeLetterCodes(CharSequence sequence, int start, int end, String separator, boolean skipDeletions) {
+        int length = 0;
+        int numberOfCodes = 0;
+        for (int i = start; i < end; i++) {
+            char oneLetterCode = sequence.charAt(i);
+            if (!skipDeletions || oneLetterCode != '.') {
+                length += threeLetterCodeOf(oneLetterCode).length();
+                numberOfCodes++;
             }
         }
-        return null;
+        if (numberOfCodes > 1) {
+            length += (numberOfCodes - 1) * separator.length();
+        }
+
+        char[] threeLetterCodes = new char[length];
+        int position = 0;
+        for (int i = start; i < end; i++) {
+            char oneLetterCode = sequence.charAt(i);
+            if (skipDeletions && oneLetterCode == '.') {
+                continue;
+            }
+            if (position > 0 && separator.length() > 0) {
+                separator.getChars(0, separator.length(), threeLetterCodes, position);
+                position += separator.length();
+            }
+            String threeLetterCode = threeLetterCodeOf(oneLetterCode);
+            threeLetterCode.getChars(0, threeLetterCode.length(), threeLetterCodes, position);
+            position += threeLetterCode.length();
+        }
+        return new String(threeLetterCodes);
+    }
+
+    private static String threeLetterCodeOf(char oneLetterCode) {
+        String threeLetterCode = getThreeLetterCodeByOneLetterCode(oneLetterCode);
+        return threeLetterCode != null ? threeLetterCode : "null";
     }
 }
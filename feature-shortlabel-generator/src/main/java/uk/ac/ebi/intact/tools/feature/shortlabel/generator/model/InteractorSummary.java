@@ -0,0 +1,44 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator.model;
+
+/**
+ * What the shortlabel generator needs to know about an interactor, read once for all the features of the interactor.
+ */
+public class InteractorSummary {
+
+    private final String interactorType;
+    private final String interactorName;
+    private final String sequence;
+    private final boolean noUniprotUpdate;
+
+    public InteractorSummary(String interactorType, String interactorName, String sequence, boolean noUniprotUpdate) {
+        this.interactorType = interactorType;
+        this.interactorName = interactorName;
+        this.sequence = sequence;
+        this.noUniprotUpdate = noUniprotUpdate;
+    }
+
+    /**
+     * @return the short name of the interactor type
+     */
+    public String getInteractorType() {
+        return interactorType;
+    }
+
+    /**
+     * @return the uniprot accession of a protein, the shortlabel of the interactor otherwise
+     */
+    public String getInteractorName() {
+        return interactorName;
+    }
+
+    /**
+     * @return the sequence of the interactor, null if it is not a polymer
+     */
+    public String getSequence() {
+        return sequence;
+    }
+
+    public boolean isNoUniprotUpdate() {
+        return noUniprotUpdate;
+    }
+}
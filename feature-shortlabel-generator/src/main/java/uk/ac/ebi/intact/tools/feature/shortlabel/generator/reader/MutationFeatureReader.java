@@ -0,0 +1,110 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator.reader;
+
+import uk.ac.ebi.intact.jami.dao.IntactDao;
+import uk.ac.ebi.intact.jami.model.extension.IntactCvTerm;
+import uk.ac.ebi.intact.jami.model.extension.IntactFeatureEvidence;
+import uk.ac.ebi.intact.jami.utils.IntactUtils;
+
+import javax.persistence.TypedQuery;
+import java.util.*;
+
+/**
+ * Reads the feature evidences having one of the allowed mutation feature types page by page.
+ * The pages are ordered by feature AC and each page starts after the last AC of the previous page (keyset pagination),
+ * so reading a page costs the same whatever its position in the table.
+ * <p>
+ * The methods must be called inside a transaction.
+ */
+public class MutationFeatureReader {
+
+    private final IntactDao intactDao;
+    private final Set<String> featureTypeMIs;
+    private List<String> featureTypeAcs;
+
+    public MutationFeatureReader(IntactDao intactDao, Set<String> featureTypeMIs) {
+        if (intactDao == null) {
+            throw new IllegalArgumentException("The IntactDao is mandatory to read the features");
+        }
+        this.intactDao = intactDao;
+        this.featureTypeMIs = new HashSet<String>(featureTypeMIs);
+    }
+
+    /**
+     * @return the ACs of the feature type cv terms matching the allowed MI identifiers. They are only retrieved the first time
+     */
+    public List<String> getFeatureTypeAcs() {
+        if (featureTypeAcs == null) {
+            List<String> acs = new ArrayList<String>(featureTypeMIs.size());
+            for (String mi : featureTypeMIs) {
+                IntactCvTerm featureType = intactDao.getCvTermDao().getByMIIdentifier(mi, IntactUtils.FEATURE_TYPE_OBJCLASS);
+                if (featureType != null) {
+                    acs.add(featureType.getAc());
+                }
+            }
+            featureTypeAcs = acs;
+        }
+        return featureTypeAcs;
+    }
+
+    /**
+     * @param lastAc   : the last feature AC of the previous page, null for the first page
+     * @param pageSize : the maximum number of ACs
+     * @return the ACs of the next features with an allowed type, ordered by AC. The list is empty when all the features have been read
+     */
+    public List<String> readNextAcs(String lastAc, int pageSize) {
+        List<String> typeAcs = getFeatureTypeAcs();
+        if (typeAcs.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        TypedQuery<String> query;
+        if (lastAc == null) {
+            query = intactDao.getEntityManager().createQuery("select f.ac from IntactFeatureEvidence f " +
+                    "where f.type.ac in (:typeAcs) " +
+                    "order by f.ac", String.class);
+        } else {
+            query = intactDao.getEntityManager().createQuery("select f.ac from IntactFeatureEvidence f " +
+                    "where f.type.ac in (:typeAcs) and f.ac > :lastAc " +
+                    "order by f.ac", String.class);
+            query.setParameter("lastAc", lastAc);
+        }
+        query.setParameter("typeAcs", typeAcs);
+        query.setMaxResults(pageSize);
+
+        return query.getResultList();
+    }
+
+    /**
+     * Load the features with their ranges, participant and interactor in a single query
+     *
+     * @param acs : the feature ACs
+     * @return the features in the order of the ACs. The features which don't exist anymore are ignored
+     */
+    public List<IntactFeatureEvidence> readFeatures(List<String> acs) {
+        if (acs.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // the ranges are fetched with the features so the page can't be limited in this query
+        TypedQuery<IntactFeatureEvidence> query = intactDao.getEntityManager().createQuery("select distinct f from IntactFeatureEvidence f " +
+                "left join fetch f.ranges " +
+                "left join fetch f.participant p " +
+                "left join fetch p.interactor " +
+                "where f.ac in (:acs)", IntactFeatureEvidence.class);
+        query.setParameter("acs", acs);
+
+        Map<String, IntactFeatureEvidence> featuresByAc = new HashMap<String, IntactFeatureEvidence>(acs.size() * 2);
+        for (IntactFeatureEvidence feature : query.getResultList()) {
+            featuresByAc.put(feature.getAc(), feature);
+        }
+
+        List<IntactFeatureEvidence> features = new ArrayList<IntactFeatureEvidence>(featuresByAc.size());
+        for (String ac : acs) {
+            IntactFeatureEvidence feature = featuresByAc.get(ac);
+            if (feature != null) {
+                features.add(feature);
+            }
+        }
+        return features;
+    }
+}
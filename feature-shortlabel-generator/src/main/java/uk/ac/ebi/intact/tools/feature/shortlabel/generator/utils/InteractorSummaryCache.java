@@ -0,0 +1,124 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator.utils;
+
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.model.InteractorSummary;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Interactor summaries by interactor AC, shared by all the features of a run.
+ * <p>
+ * The sequences take most of the memory, so the cache is bounded by an estimate of the number of characters it holds:
+ * the length of the sequence plus a fixed overhead per summary. The least recently used summaries are evicted first.
+ * The cache can be used by several threads.
+ */
+public class InteractorSummaryCache {
+    public final static long DEFAULT_MAX_CHARACTERS = 20000000L;
+    private final static int SUMMARY_OVERHEAD = 64;
+
+    private final Map<String, InteractorSummary> summaries = new LinkedHashMap<String, InteractorSummary>(1024, 0.75f, true);
+    private long maxCharacters;
+    private long characters;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public InteractorSummaryCache() {
+        this(DEFAULT_MAX_CHARACTERS);
+    }
+
+    public InteractorSummaryCache(long maxCharacters) {
+        setMaxCharacters(maxCharacters);
+    }
+
+    /**
+     * @return the summary of the interactor, null if it is not cached
+     */
+    public synchronized InteractorSummary get(String interactorAc) {
+        InteractorSummary summary = summaries.get(interactorAc);
+        if (summary != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return summary;
+    }
+
+    /**
+     * Cache the summary of an interactor. A summary bigger than the cache is not cached, so it doesn't evict all the others
+     */
+    public synchronized void put(String interactorAc, InteractorSummary summary) {
+        boolean fits = charactersOf(summary) <= maxCharacters;
+        InteractorSummary previous = fits ? summaries.put(interactorAc, summary) : summaries.remove(interactorAc);
+        if (previous != null) {
+            characters -= charactersOf(previous);
+        }
+        if (fits) {
+            characters += charactersOf(summary);
+            evict();
+        }
+    }
+
+    /**
+     * Forget all the summaries. To call before a new run, as the interactors may have been updated in between
+     */
+    public synchronized void clear() {
+        summaries.clear();
+        characters = 0;
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    public synchronized int size() {
+        return summaries.size();
+    }
+
+    public synchronized long getCharacters() {
+        return characters;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of summaries evicted to keep the cache under the maximum number of characters
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getMaxCharacters() {
+        return maxCharacters;
+    }
+
+    /**
+     * @param maxCharacters : the maximum number of characters held by the cache. 0 disables the cache
+     */
+    public synchronized void setMaxCharacters(long maxCharacters) {
+        if (maxCharacters < 0) {
+            throw new IllegalArgumentException("The maximum number of characters cannot be negative: " + maxCharacters);
+        }
+        this.maxCharacters = maxCharacters;
+        evict();
+    }
+
+    private void evict() {
+        Iterator<InteractorSummary> iterator = summaries.values().iterator();
+        while (characters > maxCharacters && iterator.hasNext()) {
+            characters -= charactersOf(iterator.next());
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    private long charactersOf(InteractorSummary summary) {
+        return SUMMARY_OVERHEAD + (summary.getSequence() != null ? summary.getSequence().length() : 0);
+    }
+}
@@ -13,9 +13,6 @@ import uk.ac.ebi.intact.tools.feature.shortlabel.generator.model.Constants;
 import uk.ac.ebi.intact.tools.feature.shortlabel.generator.model.InsertionDataFeed;
 import uk.ac.ebi.intact.tools.feature.shortlabel.generator.model.PolyQDataFeed;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * Created by Maximilian Koch (mkoch@ebi.ac.uk).
  */
@@ -55,13 +52,7 @@ public class ShortlabelGeneratorHelper {
         if (isStable(oSequence, rSequence)) {
 
             //check if it contains only dots
-            String pattern = "\\." + "{" + rSequence.length() + "}";
-            Pattern r1 = Pattern.compile(pattern);
-
-            Matcher m = r1.matcher(rSequence);
-            boolean matched = m.matches();
-
-            if (!matched) {
+            if (!consistsOf(rSequence, '.')) {
                 deletionInsertion = true;
             }
 
@@ -133,15 +124,34 @@ public class ShortlabelGeneratorHelper {
         return startingPosition + "-" + endPosition;
     }
 
-    @Transactional(readOnly = true, propagation = Propagation.REQUIRED, value = "jamiTransactionManager")
+    /**
+     * @return the original sequence of the range, or null if the range is out of the interactor sequence
+     */
     public String generateOrgSeq(String interactorSequence, Long startingPosition, Long endPosition) {
         //Check if the displayed original sequence of a feature, still matches with the whole sequence.
-        String originalSequence = "";
-        while (startingPosition.intValue() <= endPosition.intValue()) {
-            originalSequence += interactorSequence.charAt(startingPosition.intValue() - 1);
-            startingPosition++;
+        if (!isRangeWithinSequence(interactorSequence, startingPosition, endPosition)) {
+            return null;
+        }
+        if (startingPosition > endPosition) {
+            return "";
+        }
+        return interactorSequence.substring(startingPosition.intValue() - 1, endPosition.intValue());
+    }
+
+    public boolean isRangeWithinSequence(String interactorSequence, long startingPosition, long endPosition) {
+        return startingPosition >= 1 && endPosition <= interactorSequence.length();
+    }
+
+    /**
+     * Same as comparing the original sequence with the one generated by generateOrgSeq, without extracting the range
+     * from the interactor sequence. The range must be within the interactor sequence.
+     */
+    public boolean orgSeqWrong(String originalSequence, String interactorSequence, long startingPosition, long endPosition) {
+        if (startingPosition > endPosition) {
+            return originalSequence.length() != 0;
         }
-        return originalSequence;
+        return originalSequence.length() != endPosition - startingPosition + 1
+                || !interactorSequence.regionMatches((int) startingPosition - 1, originalSequence, 0, originalSequence.length());
     }
 
     @Transactional(readOnly = true, propagation = Propagation.REQUIRED, value = "jamiTransactionManager")
@@ -175,46 +185,33 @@ public class ShortlabelGeneratorHelper {
     }
 
     public String seq2ThreeLetterCodeOnDefault(String sequence) {
-        String sequenceAsThreeLetterCode = "";
-        for (int i = 0; i < sequence.length(); i++) {
-            sequenceAsThreeLetterCode += AminoAcids.getThreeLetterCodeByOneLetterCode(sequence.charAt(i));
-            if (i < sequence.length() - 1) {
-                sequenceAsThreeLetterCode += "_";
-            }
-        }
-        return sequenceAsThreeLetterCode;
+
+        //example Ala_Ala_Ala_Ala
+
+        return AminoAcids.toThreeLetterCodes(sequence, 0, sequence.length(), "_", false);
     }
 
     public String seq2ThreeLetterCodeOnDefaultResSeq(String sequence) {
 
         //example AlaAlaAlaAla
 
-        String sequenceAsThreeLetterCode = "";
-        for (int i = 0; i < sequence.length(); i++) {
-            char seqChar = sequence.charAt(i);
-            if (seqChar != '.') {
-                sequenceAsThreeLetterCode += AminoAcids.getThreeLetterCodeByOneLetterCode(sequence.charAt(i));
-            }
-        }
-        return sequenceAsThreeLetterCode;
+        return AminoAcids.toThreeLetterCodes(sequence, 0, sequence.length(), "", true);
     }
 
     public String seq2ThreeLetterCodeOnDefaultOrgSeq(String sequence, Long rangeStart, Long rangeEnd) {
 
         // example Pro12_Leu14 or Ile234
 
-        String sequenceAsThreeLetterCode = "";
-        Character startAA = sequence.charAt(0);
-        Character endAA = null;
-
-        sequenceAsThreeLetterCode += AminoAcids.getThreeLetterCodeByOneLetterCode(startAA);
-        sequenceAsThreeLetterCode += rangeStart;
+        StringBuilder sequenceAsThreeLetterCode = new StringBuilder(32);
+        sequenceAsThreeLetterCode.append(AminoAcids.getThreeLetterCodeByOneLetterCode(sequence.charAt(0)));
+        sequenceAsThreeLetterCode.append(rangeStart);
         if (sequence.length() > 1) {
-            endAA = sequence.charAt(sequence.length() - 1);
-            sequenceAsThreeLetterCode += Constants.ORG_SEQ_SEPERATOR + AminoAcids.getThreeLetterCodeByOneLetterCode(endAA) + rangeEnd;
+            sequenceAsThreeLetterCode.append(Constants.ORG_SEQ_SEPERATOR)
+                    .append(AminoAcids.getThreeLetterCodeByOneLetterCode(sequence.charAt(sequence.length() - 1)))
+                    .append(rangeEnd);
         }
 
-        return sequenceAsThreeLetterCode;
+        return sequenceAsThreeLetterCode.toString();
     }
 
     public boolean containsDot(String newSequence) {
@@ -281,36 +278,16 @@ public class ShortlabelGeneratorHelper {
         boolean isMultipleAAPolycule = false;
         int repeatUnit = 0;
         PolyQDataFeed polyQDataFeed = new PolyQDataFeed();
-        String removedNewLinesRSeq = rSequence.replaceAll("\\n", "");
-        removedNewLinesRSeq = removedNewLinesRSeq.replaceAll("\\r", "");
-        if (oSequence != null && removedNewLinesRSeq != null) {
+        String removedNewLinesRSeq = removeNewLines(rSequence);
+        if (oSequence != null && oSequence.length() > 0) {
             if (removedNewLinesRSeq.length() > oSequence.length()) {
                 if (removedNewLinesRSeq.contains(oSequence)) {
-                    String pattern = oSequence.charAt(0) + "{" + oSequence.length() + "}";
-                    Pattern r1 = Pattern.compile(pattern);
-
-                    Matcher m = r1.matcher(oSequence);
-                    boolean matched = m.matches();
-
-                    if (matched) {
-                        String resSeqPattern = oSequence.charAt(0) + "{" + removedNewLinesRSeq.length() + "}";
-                        Pattern r2 = Pattern.compile(resSeqPattern);
-                        Matcher matcher = r2.matcher(removedNewLinesRSeq);
-                        boolean isResSeqMatched = matcher.matches();
-                        isSingleAAPolycule = isResSeqMatched;
+                    if (consistsOf(oSequence, oSequence.charAt(0))) {
+                        isSingleAAPolycule = consistsOf(removedNewLinesRSeq, oSequence.charAt(0));
                         repeatUnit = removedNewLinesRSeq.length();
-                    } else {
-                        Double remainder = new Double(removedNewLinesRSeq.length() % oSequence.length());
-                        if (remainder == 0d) {
-                            int factor = removedNewLinesRSeq.length() / oSequence.length();
-                            String mAAPattern = "(" + oSequence + ")" + "{" + factor + "}";
-                            Pattern r3 = Pattern.compile(mAAPattern);
-
-                            Matcher matcher = r3.matcher(removedNewLinesRSeq);
-                            boolean isResSeqMatched = matcher.matches();
-                            isMultipleAAPolycule = isResSeqMatched;
-                            repeatUnit = factor;
-                        }
+                    } else if (removedNewLinesRSeq.length() % oSequence.length() == 0) {
+                        isMultipleAAPolycule = isRepeatOf(removedNewLinesRSeq, oSequence);
+                        repeatUnit = removedNewLinesRSeq.length() / oSequence.length();
                     }
                 }
             }
@@ -325,4 +302,60 @@ public class ShortlabelGeneratorHelper {
 
         return polyQDataFeed;
     }
+
+    /**
+     * @return true if all the characters of the sequence are the given character, or if the sequence is empty
+     */
+    private boolean consistsOf(String sequence, char character) {
+        for (int i = 0; i < sequence.length(); i++) {
+            if (sequence.charAt(i) != character) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the sequence is the repeat unit repeated n times, i.e. if the sequence has a period equal to
+     * the length of the unit and starts with the unit
+     */
+    private boolean isRepeatOf(String sequence, String unit) {
+        int unitLength = unit.length();
+        if (sequence.length() % unitLength != 0 || !sequence.startsWith(unit)) {
+            return false;
+        }
+        for (int i = unitLength; i < sequence.length(); i++) {
+            if (sequence.charAt(i) != sequence.charAt(i - unitLength)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the sequence without line feeds and carriage returns. The sequence itself is returned if it has none
+     */
+    private String removeNewLines(String sequence) {
+        int firstNewLine = 0;
+        while (firstNewLine < sequence.length() && !isNewLine(sequence.charAt(firstNewLine))) {
+            firstNewLine++;
+        }
+        if (firstNewLine == sequence.length()) {
+            return sequence;
+        }
+
+        StringBuilder builder = new StringBuilder(sequence.length());
+        builder.append(sequence, 0, firstNewLine);
+        for (int i = firstNewLine + 1; i < sequence.length(); i++) {
+            char character = sequence.charAt(i);
+            if (!isNewLine(character)) {
+                builder.append(character);
+            }
+        }
+        return builder.toString();
+    }
+
+    private boolean isNewLine(char character) {
+        return character == '\n' || character == '\r';
+    }
 }
@@ -0,0 +1,172 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.TransactionDefinition;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.events.ObjRetrieveErrorEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class BulkShortlabelGeneratorTest {
+    private static final int PAGE_SIZE = 3;
+
+    private InMemoryFeatureDatabase database;
+    private ShortlabelGenerator generator;
+    private BulkShortlabelGenerator bulkGenerator;
+    private RecordingListener listener;
+
+    @Before
+    public void create_generator() {
+        database = new InMemoryFeatureDatabase();
+
+        generator = new ShortlabelGenerator();
+        generator.setIntactDao(database.getIntactDao());
+        generator.setDryRun(true);
+
+        bulkGenerator = new BulkShortlabelGenerator();
+        bulkGenerator.setGenerator(generator);
+        bulkGenerator.setIntactDao(database.getIntactDao());
+        bulkGenerator.setTransactionManager(database.getTransactionManager());
+        bulkGenerator.setPageSize(PAGE_SIZE);
+
+        listener = new RecordingListener();
+        bulkGenerator.addListener(listener);
+    }
+
+    private List<String> addMutations(int numberOfMutations) {
+        List<String> acs = new ArrayList<String>();
+        for (int i = 0; i < numberOfMutations; i++) {
+            String ac = String.format("EBI-%04d", i);
+            database.addMutation(ac);
+            acs.add(ac);
+            // the other features are not read
+            database.addFeature(ac + "-binding", InMemoryFeatureDatabase.BINDING_SITE_MI);
+        }
+        return acs;
+    }
+
+    @Test
+    public void features_are_reported_in_the_order_of_their_acs() {
+        List<String> acs = addMutations(10);
+
+        Assert.assertEquals(10, bulkGenerator.generateNewShortLabels());
+
+        Assert.assertEquals(acs, listener.modifiedAcs);
+        Assert.assertTrue(listener.otherAcs.isEmpty());
+        Assert.assertEquals(10, generator.getMetrics().getFeatureCount());
+    }
+
+    @Test
+    public void each_page_has_its_own_read_only_transaction() {
+        addMutations(10);
+        bulkGenerator.generateNewShortLabels();
+
+        // pages of 3, 3, 3 and 1 features, the last page is not full so there is no more page to read
+        List<InMemoryFeatureDatabase.Transaction> transactions = database.getTransactions();
+        Assert.assertEquals(4, transactions.size());
+        for (InMemoryFeatureDatabase.Transaction transaction : transactions) {
+            Assert.assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW, transaction.getPropagation());
+            Assert.assertTrue(transaction.isReadOnly());
+            Assert.assertTrue(transaction.isCommitted());
+            // the ACs of the page, then the features of the page
+            Assert.assertEquals(2, transaction.getQueries().size());
+        }
+    }
+
+    @Test
+    public void pages_start_after_the_last_ac_of_the_previous_page() {
+        addMutations(10);
+        bulkGenerator.generateNewShortLabels();
+
+        List<InMemoryFeatureDatabase.Transaction> transactions = database.getTransactions();
+        String firstAcQuery = transactions.get(0).getQueries().get(0);
+        Assert.assertFalse(firstAcQuery.contains(":lastAc"));
+        Assert.assertTrue(firstAcQuery.endsWith("order by f.ac"));
+
+        for (InMemoryFeatureDatabase.Transaction transaction : transactions.subList(1, transactions.size())) {
+            String acQuery = transaction.getQueries().get(0);
+            Assert.assertTrue(acQuery, acQuery.contains("f.ac > :lastAc"));
+            Assert.assertTrue(acQuery, acQuery.endsWith("order by f.ac"));
+        }
+    }
+
+    @Test
+    public void features_are_loaded_with_a_fetch_join() {
+        addMutations(2);
+        bulkGenerator.generateNewShortLabels();
+
+        String featureQuery = database.getTransactions().get(0).getQueries().get(1);
+        Assert.assertTrue(featureQuery, featureQuery.startsWith("select distinct f "));
+        Assert.assertTrue(featureQuery, featureQuery.contains("left join fetch f.ranges"));
+        Assert.assertTrue(featureQuery, featureQuery.contains("left join fetch f.participant p"));
+        Assert.assertTrue(featureQuery, featureQuery.contains("left join fetch p.interactor"));
+    }
+
+    @Test
+    public void full_last_page_is_followed_by_an_empty_page() {
+        List<String> acs = addMutations(2 * PAGE_SIZE);
+
+        Assert.assertEquals(2 * PAGE_SIZE, bulkGenerator.generateNewShortLabels());
+        Assert.assertEquals(acs, listener.modifiedAcs);
+
+        List<InMemoryFeatureDatabase.Transaction> transactions = database.getTransactions();
+        Assert.assertEquals(3, transactions.size());
+        // no feature to load in the empty page
+        Assert.assertEquals(1, transactions.get(2).getQueries().size());
+        Assert.assertTrue(transactions.get(2).isCommitted());
+    }
+
+    @Test
+    public void empty_table() {
+        database.addFeature("EBI-0001", InMemoryFeatureDatabase.BINDING_SITE_MI);
+
+        Assert.assertEquals(0, bulkGenerator.generateNewShortLabels());
+
+        Assert.assertTrue(listener.modifiedAcs.isEmpty());
+        Assert.assertTrue(listener.otherAcs.isEmpty());
+        Assert.assertEquals(1, database.getTransactions().size());
+        Assert.assertEquals(1, database.getTransactions().get(0).getQueries().size());
+    }
+
+    @Test
+    public void feature_deleted_after_its_ac_is_read() {
+        addMutations(5);
+        database.deleteAfterReadingAc("EBI-0001");
+
+        // the AC has been read so the feature is counted
+        Assert.assertEquals(5, bulkGenerator.generateNewShortLabels());
+
+        Assert.assertEquals(Arrays.asList("EBI-0000", "EBI-0002", "EBI-0003", "EBI-0004"), listener.modifiedAcs);
+        Assert.assertEquals(Collections.singletonList("EBI-0001"), listener.otherAcs);
+        Assert.assertEquals(ObjRetrieveErrorEvent.ErrorType.UNABLE_TO_RETRIEVE_FEATURE, listener.retrieveErrors.get(0));
+    }
+
+    @Test
+    public void failing_page_is_rolled_back() {
+        addMutations(10);
+        database.failToLoad("EBI-0004");
+
+        try {
+            bulkGenerator.generateNewShortLabels();
+            Assert.fail("The failure of a page must be reported");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("The feature EBI-0004 can't be loaded", e.getMessage());
+        }
+
+        // the first page has been processed, the reading stops at the failing page
+        Assert.assertEquals(Arrays.asList("EBI-0000", "EBI-0001", "EBI-0002"), listener.modifiedAcs);
+        List<InMemoryFeatureDatabase.Transaction> transactions = database.getTransactions();
+        Assert.assertEquals(2, transactions.size());
+        Assert.assertTrue(transactions.get(0).isCommitted());
+        Assert.assertTrue(transactions.get(1).isRolledBack());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void page_size_must_be_positive() {
+        bulkGenerator.setPageSize(0);
+    }
+}
@@ -0,0 +1,328 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import psidev.psi.mi.jami.model.CvTerm;
+import psidev.psi.mi.jami.model.impl.DefaultCvTerm;
+import psidev.psi.mi.jami.model.impl.DefaultParticipantEvidence;
+import psidev.psi.mi.jami.model.impl.DefaultPosition;
+import psidev.psi.mi.jami.model.impl.DefaultResultingSequence;
+import uk.ac.ebi.intact.jami.dao.CvTermDao;
+import uk.ac.ebi.intact.jami.dao.FeatureEvidenceDao;
+import uk.ac.ebi.intact.jami.dao.IntactDao;
+import uk.ac.ebi.intact.jami.model.extension.ExperimentalRange;
+import uk.ac.ebi.intact.jami.model.extension.IntactCvTerm;
+import uk.ac.ebi.intact.jami.model.extension.IntactFeatureEvidence;
+import uk.ac.ebi.intact.jami.model.extension.IntactProtein;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The features of a database kept in memory, to run the generators without database.
+ * <p>
+ * The IntactDao is a proxy whose entity manager only answers the two queries of the MutationFeatureReader, and only inside
+ * a transaction of the transaction manager of this database. The transaction manager records the transactions and their queries.
+ * The AC of a feature type is its MI identifier.
+ */
+public class InMemoryFeatureDatabase {
+    public static final String MUTATION_MI = "MI:0118";
+    public static final String BINDING_SITE_MI = "MI:0117";
+    public static final String MUTATED_LABEL = "P12345:p.Thr3Ala";
+
+    private final Map<String, IntactFeatureEvidence> features = new ConcurrentSkipListMap<String, IntactFeatureEvidence>();
+    private final List<Transaction> transactions = Collections.synchronizedList(new ArrayList<Transaction>());
+    private final ThreadLocal<Deque<Transaction>> openTransactions = new ThreadLocal<Deque<Transaction>>() {
+        @Override
+        protected Deque<Transaction> initialValue() {
+            return new ArrayDeque<Transaction>();
+        }
+    };
+    private final Set<String> failingAcs = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final Set<String> acsDeletedAfterRead = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * Add a mutation of the third residue of a protein, whose shortlabel must be changed to MUTATED_LABEL
+     */
+    public IntactFeatureEvidence addMutation(String ac) {
+        return addFeature(ac, MUTATION_MI);
+    }
+
+    public IntactFeatureEvidence addFeature(String ac, String featureTypeMI) {
+        IntactFeatureEvidence feature = new IntactFeatureEvidence();
+        feature.setAc(ac);
+        feature.setShortName("wrong label");
+        CvTerm featureType = new DefaultCvTerm("feature type");
+        featureType.setMIIdentifier(featureTypeMI);
+        feature.setType(featureType);
+
+        IntactProtein interactor = new IntactProtein("protein");
+        interactor.setAc("EBI-P12345");
+        interactor.setInteractorType(new DefaultCvTerm("protein"));
+        interactor.setUniprotkb("P12345");
+        interactor.setSequence("MKTAYIAKQRQISFVKSHFSRQ");
+        feature.setParticipant(new DefaultParticipantEvidence(interactor));
+        feature.getRanges().add(new ExperimentalRange(new DefaultPosition(3), new DefaultPosition(3), new DefaultResultingSequence("T", "A")));
+
+        features.put(ac, feature);
+        return feature;
+    }
+
+    public void delete(String ac) {
+        features.remove(ac);
+    }
+
+    /**
+     * @param ac : a feature which can't be loaded, the query loading it fails
+     */
+    public void failToLoad(String ac) {
+        failingAcs.add(ac);
+    }
+
+    /**
+     * @param ac : a feature deleted just after its AC has been read, before it is loaded
+     */
+    public void deleteAfterReadingAc(String ac) {
+        acsDeletedAfterRead.add(ac);
+    }
+
+    /**
+     * @return the transactions in the order they have been started
+     */
+    public List<Transaction> getTransactions() {
+        synchronized (transactions) {
+            return new ArrayList<Transaction>(transactions);
+        }
+    }
+
+    public IntactDao getIntactDao() {
+        final CvTermDao cvTermDao = proxy(CvTermDao.class, new Handler() {
+            @Override
+            Object handle(String method, Object[] args) {
+                currentTransaction();
+                IntactCvTerm term = new IntactCvTerm((String) args[0]);
+                term.setAc((String) args[0]);
+                if (method.equals("getByMIIdentifier")) {
+                    term.setMIIdentifier((String) args[0]);
+                    return term;
+                } else if (method.equals("getByAc")) {
+                    return term;
+                }
+                return unsupported(method);
+            }
+        });
+        final FeatureEvidenceDao featureEvidenceDao = proxy(FeatureEvidenceDao.class, new Handler() {
+            @Override
+            Object handle(String method, Object[] args) {
+                currentTransaction();
+                return method.equals("getByAc") ? features.get((String) args[0]) : unsupported(method);
+            }
+        });
+        final EntityManager entityManager = proxy(EntityManager.class, new Handler() {
+            @Override
+            Object handle(String method, Object[] args) {
+                if (method.equals("createQuery") && args.length == 2) {
+                    return createQuery((String) args[0]);
+                }
+                return unsupported(method);
+            }
+        });
+
+        return proxy(IntactDao.class, new Handler() {
+            @Override
+            Object handle(String method, Object[] args) {
+                if (method.equals("getCvTermDao")) {
+                    return cvTermDao;
+                } else if (method.equals("getFeatureEvidenceDao")) {
+                    return featureEvidenceDao;
+                } else if (method.equals("getEntityManager")) {
+                    return entityManager;
+                }
+                return unsupported(method);
+            }
+        });
+    }
+
+    public PlatformTransactionManager getTransactionManager() {
+        return proxy(PlatformTransactionManager.class, new Handler() {
+            @Override
+            Object handle(String method, Object[] args) {
+                if (method.equals("getTransaction")) {
+                    TransactionDefinition definition = (TransactionDefinition) args[0];
+                    Transaction transaction = new Transaction(definition.getPropagationBehavior(), definition.isReadOnly());
+                    transactions.add(transaction);
+                    openTransactions.get().push(transaction);
+                    return proxy(TransactionStatus.class, transaction);
+                }
+
+                Transaction transaction = (Transaction) Proxy.getInvocationHandler(args[0]);
+                if (openTransactions.get().peek() != transaction) {
+                    throw new IllegalStateException("The transaction is not the current transaction of the thread");
+                }
+                openTransactions.get().pop();
+                if (method.equals("commit")) {
+                    transaction.committed = true;
+                } else if (method.equals("rollback")) {
+                    transaction.rolledBack = true;
+                } else {
+                    return unsupported(method);
+                }
+                return null;
+            }
+        });
+    }
+
+    private Transaction currentTransaction() {
+        Transaction transaction = openTransactions.get().peek();
+        if (transaction == null) {
+            throw new IllegalStateException("The database is only read inside a transaction");
+        }
+        return transaction;
+    }
+
+    private TypedQuery<?> createQuery(final String query) {
+        final Map<String, Object> parameters = new HashMap<String, Object>();
+        final int[] maxResults = {Integer.MAX_VALUE};
+
+        return proxy(TypedQuery.class, new Handler() {
+            @Override
+            Object handle(String method, Object[] args) {
+                if (method.equals("setParameter") && args.length == 2) {
+                    parameters.put((String) args[0], args[1]);
+                    return this.proxy;
+                } else if (method.equals("setMaxResults")) {
+                    maxResults[0] = (Integer) args[0];
+                    return this.proxy;
+                } else if (method.equals("getResultList")) {
+                    return execute(query, parameters, maxResults[0]);
+                }
+                return unsupported(method);
+            }
+        });
+    }
+
+    private List<?> execute(String query, Map<String, Object> parameters, int maxResults) {
+        currentTransaction().queries.add(query);
+
+        if (query.startsWith("select f.ac ")) {
+            Collection<?> typeAcs = (Collection<?>) parameters.get("typeAcs");
+            String lastAc = (String) parameters.get("lastAc");
+
+            List<String> acs = new ArrayList<String>();
+            for (IntactFeatureEvidence feature : features.values()) {
+                if (acs.size() == maxResults) {
+                    break;
+                }
+                if (typeAcs.contains(feature.getType().getMIIdentifier()) && (lastAc == null || feature.getAc().compareTo(lastAc) > 0)) {
+                    acs.add(feature.getAc());
+                }
+            }
+            for (String ac : acs) {
+                if (acsDeletedAfterRead.remove(ac)) {
+                    features.remove(ac);
+                }
+            }
+            return acs;
+        } else if (query.startsWith("select distinct f ")) {
+            List<IntactFeatureEvidence> result = new ArrayList<IntactFeatureEvidence>();
+            for (Object ac : (Collection<?>) parameters.get("acs")) {
+                if (failingAcs.contains(ac)) {
+                    throw new IllegalStateException("The feature " + ac + " can't be loaded");
+                }
+                IntactFeatureEvidence feature = features.get(ac);
+                if (feature != null) {
+                    result.add(feature);
+                }
+            }
+            // the database doesn't return the features in the order of the ACs
+            Collections.reverse(result);
+            return result;
+        }
+        throw new UnsupportedOperationException("Unexpected query: " + query);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        handler.proxy = Proxy.newProxyInstance(InMemoryFeatureDatabase.class.getClassLoader(), new Class<?>[]{type}, handler);
+        return (T) handler.proxy;
+    }
+
+    /**
+     * Answers the methods of a proxy by name. The methods of Object use the identity of the proxy
+     */
+    private abstract static class Handler implements InvocationHandler {
+        Object proxy;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getDeclaringClass() == Object.class) {
+                if (method.getName().equals("equals")) {
+                    return proxy == args[0];
+                } else if (method.getName().equals("hashCode")) {
+                    return System.identityHashCode(proxy);
+                }
+                return getClass().getName();
+            }
+            return handle(method.getName(), args != null ? args : new Object[0]);
+        }
+
+        abstract Object handle(String method, Object[] args);
+
+        Object unsupported(String method) {
+            throw new UnsupportedOperationException(method + " is not supported by the in-memory database");
+        }
+    }
+
+    /**
+     * A transaction and the queries run inside it. It is also the status of the transaction
+     */
+    public static class Transaction extends Handler {
+        private final int propagation;
+        private final boolean readOnly;
+        private final List<String> queries = Collections.synchronizedList(new ArrayList<String>());
+        private volatile boolean committed;
+        private volatile boolean rolledBack;
+
+        private Transaction(int propagation, boolean readOnly) {
+            this.propagation = propagation;
+            this.readOnly = readOnly;
+        }
+
+        @Override
+        Object handle(String method, Object[] args) {
+            if (method.equals("isNewTransaction")) {
+                return true;
+            } else if (method.startsWith("is") || method.startsWith("has")) {
+                return false;
+            }
+            return unsupported(method);
+        }
+
+        public int getPropagation() {
+            return propagation;
+        }
+
+        public boolean isReadOnly() {
+            return readOnly;
+        }
+
+        public List<String> getQueries() {
+            return queries;
+        }
+
+        public boolean isCommitted() {
+            return committed;
+        }
+
+        public boolean isRolledBack() {
+            return rolledBack;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.TransactionDefinition;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.events.ModifiedMutationShortlabelEvent;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.events.ObjRetrieveErrorEvent;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.manager.ShortlabelGeneratorManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ParallelShortlabelGeneratorTest {
+    private static final int NUMBER_OF_FEATURES = 50;
+    private static final int BATCH_SIZE = 3;
+
+    private InMemoryFeatureDatabase database;
+    private ShortlabelGenerator generator;
+    private ParallelShortlabelGenerator parallelGenerator;
+    private RecordingListener listener;
+    private List<String> mutationAcs;
+
+    @Before
+    public void create_generator() {
+        database = new InMemoryFeatureDatabase();
+        mutationAcs = new ArrayList<String>();
+        for (int i = 0; i < NUMBER_OF_FEATURES; i++) {
+            String ac = String.format("EBI-%04d", i);
+            database.addMutation(ac);
+            mutationAcs.add(ac);
+            // the other features are not read
+            database.addFeature(ac + "-binding", InMemoryFeatureDatabase.BINDING_SITE_MI);
+        }
+
+        generator = new ShortlabelGenerator();
+        generator.setIntactDao(database.getIntactDao());
+        generator.setDryRun(true);
+
+        parallelGenerator = new ParallelShortlabelGenerator();
+        parallelGenerator.setGenerator(generator);
+        parallelGenerator.setIntactDao(database.getIntactDao());
+        parallelGenerator.setTransactionManager(database.getTransactionManager());
+        parallelGenerator.setBatchSize(BATCH_SIZE);
+        parallelGenerator.setNumberOfThreads(4);
+
+        listener = new RecordingListener();
+        parallelGenerator.addListener(listener);
+    }
+
+    @Test
+    public void every_feature_is_reported_once() {
+        Assert.assertEquals(NUMBER_OF_FEATURES, parallelGenerator.generateNewShortLabels());
+
+        List<String> reportedAcs = new ArrayList<String>(listener.modifiedAcs);
+        Collections.sort(reportedAcs);
+        Assert.assertEquals(mutationAcs, reportedAcs);
+        Assert.assertEquals(Collections.singleton(InMemoryFeatureDatabase.MUTATED_LABEL), new HashSet<String>(listener.labels));
+        Assert.assertTrue(listener.otherAcs.isEmpty());
+        Assert.assertEquals(NUMBER_OF_FEATURES, generator.getMetrics().getFeatureCount());
+    }
+
+    @Test
+    public void batches_keep_the_order_of_their_features() {
+        parallelGenerator.generateNewShortLabels();
+
+        for (int start = 0; start < NUMBER_OF_FEATURES; start += BATCH_SIZE) {
+            int previousPosition = -1;
+            for (String ac : mutationAcs.subList(start, Math.min(start + BATCH_SIZE, NUMBER_OF_FEATURES))) {
+                int position = listener.modifiedAcs.indexOf(ac);
+                Assert.assertTrue(ac + " is reported before the previous feature of its batch", position > previousPosition);
+                previousPosition = position;
+            }
+        }
+    }
+
+    @Test
+    public void one_worker_keeps_the_order_of_the_features() {
+        parallelGenerator.setNumberOfThreads(1);
+        parallelGenerator.generateNewShortLabels();
+
+        Assert.assertEquals(mutationAcs, listener.modifiedAcs);
+    }
+
+    @Test
+    public void each_batch_has_its_own_read_only_transaction() {
+        parallelGenerator.generateNewShortLabels();
+
+        List<InMemoryFeatureDatabase.Transaction> transactions = database.getTransactions();
+        // one transaction to read the ACs, then one per batch
+        Assert.assertEquals(1 + (NUMBER_OF_FEATURES + BATCH_SIZE - 1) / BATCH_SIZE, transactions.size());
+        for (InMemoryFeatureDatabase.Transaction transaction : transactions) {
+            Assert.assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW, transaction.getPropagation());
+            Assert.assertTrue(transaction.isReadOnly());
+            Assert.assertTrue(transaction.isCommitted());
+            Assert.assertEquals(1, transaction.getQueries().size());
+        }
+    }
+
+    @Test
+    public void failure_in_one_worker() {
+        database.failToLoad("EBI-0010");
+
+        try {
+            parallelGenerator.generateNewShortLabels();
+            Assert.fail("The failure of a batch must be reported");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("The feature EBI-0010 can't be loaded", e.getCause().getMessage());
+        }
+
+        // the other batches are processed anyway
+        List<String> expectedAcs = new ArrayList<String>(mutationAcs);
+        expectedAcs.removeAll(Arrays.asList("EBI-0009", "EBI-0010", "EBI-0011"));
+        List<String> reportedAcs = new ArrayList<String>(listener.modifiedAcs);
+        Collections.sort(reportedAcs);
+        Assert.assertEquals(expectedAcs, reportedAcs);
+
+        int rolledBack = 0;
+        for (InMemoryFeatureDatabase.Transaction transaction : database.getTransactions()) {
+            if (transaction.isRolledBack()) {
+                rolledBack++;
+            }
+        }
+        Assert.assertEquals(1, rolledBack);
+    }
+
+    @Test
+    public void missing_features_are_reported() {
+        database.delete("EBI-0004");
+        parallelGenerator.generateNewShortLabels(Arrays.asList("EBI-0003", "EBI-0004", "EBI-0005"));
+
+        Assert.assertEquals(Arrays.asList("EBI-0003", "EBI-0005"), listener.modifiedAcs);
+        Assert.assertEquals(Collections.singletonList("EBI-0004"), listener.otherAcs);
+        Assert.assertEquals(ObjRetrieveErrorEvent.ErrorType.UNABLE_TO_RETRIEVE_FEATURE, listener.retrieveErrors.get(0));
+    }
+
+    @Test
+    public void listeners_receive_the_events_one_at_a_time() {
+        SlowListener slowListener = new SlowListener();
+        parallelGenerator.addListener(slowListener);
+        parallelGenerator.setNumberOfThreads(8);
+
+        parallelGenerator.generateNewShortLabels();
+
+        Assert.assertEquals(NUMBER_OF_FEATURES, slowListener.events.get());
+        Assert.assertEquals(1, slowListener.maxConcurrentEvents.get());
+    }
+
+    @Test
+    public void asynchronous_listeners_receive_all_the_events() {
+        generator.getManager().enableAsynchronousDelivery(4, ShortlabelGeneratorManager.OverflowPolicy.BLOCK);
+        SlowListener slowListener = new SlowListener();
+        parallelGenerator.addListener(slowListener);
+
+        // the events are flushed before the generation returns
+        parallelGenerator.generateNewShortLabels();
+
+        Assert.assertEquals(NUMBER_OF_FEATURES, slowListener.events.get());
+        Assert.assertEquals(NUMBER_OF_FEATURES, listener.modifiedAcs.size());
+    }
+
+    /**
+     * Counts the events received at the same time, each event taking a little while
+     */
+    private static class SlowListener extends RecordingListener {
+        private final AtomicInteger events = new AtomicInteger();
+        private final AtomicInteger concurrentEvents = new AtomicInteger();
+        private final AtomicInteger maxConcurrentEvents = new AtomicInteger();
+
+        @Override
+        public void onModifiedMutationShortlabel(ModifiedMutationShortlabelEvent event) {
+            int concurrent = concurrentEvents.incrementAndGet();
+            if (concurrent > maxConcurrentEvents.get()) {
+                maxConcurrentEvents.set(concurrent);
+            }
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrentEvents.decrementAndGet();
+            }
+            events.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator;
+
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.events.*;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.listener.ShortlabelGeneratorListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Records the ACs of the features whose shortlabel has been modified, in the order of the events, and the ACs of the other events
+ */
+public class RecordingListener implements ShortlabelGeneratorListener {
+    final List<String> modifiedAcs = Collections.synchronizedList(new ArrayList<String>());
+    final List<String> labels = Collections.synchronizedList(new ArrayList<String>());
+    final List<String> otherAcs = Collections.synchronizedList(new ArrayList<String>());
+    final List<ObjRetrieveErrorEvent.ErrorType> retrieveErrors = Collections.synchronizedList(new ArrayList<ObjRetrieveErrorEvent.ErrorType>());
+
+    @Override
+    public void onModifiedMutationShortlabel(ModifiedMutationShortlabelEvent event) {
+        modifiedAcs.add(event.getFeatureAc());
+        labels.add(event.getNewShortlabel());
+    }
+
+    @Override
+    public void onRetrieveObjectError(ObjRetrieveErrorEvent event) {
+        otherAcs.add(event.getFeatureAc());
+        retrieveErrors.add(event.getErrorType());
+    }
+
+    @Override
+    public void onRangeError(RangeErrorEvent event) {
+        otherAcs.add(event.getFeatureAc());
+    }
+
+    @Override
+    public void onUnmodifiedMutationShortlabel(UnmodifiedMutationShortlabelEvent event) {
+        otherAcs.add(event.getFeatureAc());
+    }
+
+    @Override
+    public void onAnnotationFound(AnnotationFoundEvent event) {
+        otherAcs.add(event.getFeatureAc());
+    }
+
+    @Override
+    public void onSequenceError(SequenceErrorEvent event) {
+        otherAcs.add(event.getFeatureAc());
+    }
+
+    @Override
+    public void onResultingSequenceChanged(ResultingSequenceChangedEvent event) {
+        otherAcs.add(event.getFeatureAc());
+    }
+
+    @Override
+    public void onObjectTypeError(TypeErrorEvent event) {
+        otherAcs.add(event.getFeatureAc());
+    }
+
+    @Override
+    public void onOtherErrorEvent(OtherErrorEvent event) {
+        otherAcs.add(event.getFeatureAc());
+    }
+}
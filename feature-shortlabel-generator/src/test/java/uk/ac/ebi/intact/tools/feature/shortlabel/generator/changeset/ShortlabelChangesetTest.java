@@ -0,0 +1,108 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator.changeset;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.events.ModifiedMutationShortlabelEvent;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.events.OtherErrorEvent;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.events.UnmodifiedMutationShortlabelEvent;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+public class ShortlabelChangesetTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void change_json_round_trip() {
+        ShortlabelChange change = new ShortlabelChange("EBI-1", "P12345:p.Leu12Ala", "label \"with\" \\ escapes\n\u0001", ShortlabelChange.EventType.MODIFIED);
+        String json = change.toJson();
+        Assert.assertEquals(-1, json.indexOf('\n'));
+
+        ShortlabelChange parsed = ShortlabelChange.fromJson(json);
+        Assert.assertEquals("EBI-1", parsed.getFeatureAc());
+        Assert.assertEquals("P12345:p.Leu12Ala", parsed.getOldLabel());
+        Assert.assertEquals("label \"with\" \\ escapes\n\u0001", parsed.getNewLabel());
+        Assert.assertEquals(ShortlabelChange.EventType.MODIFIED, parsed.getEventType());
+    }
+
+    @Test
+    public void change_json_with_null_and_other_field_order() {
+        ShortlabelChange parsed = ShortlabelChange.fromJson(" {\"eventType\" : \"SHORT_LABEL_TOO_LONG\", \"newLabel\":\"x\", \"oldLabel\":null, \"featureAc\":\"EBI-2\"} ");
+        Assert.assertEquals("EBI-2", parsed.getFeatureAc());
+        Assert.assertNull(parsed.getOldLabel());
+        Assert.assertEquals("x", parsed.getNewLabel());
+        Assert.assertEquals(ShortlabelChange.EventType.SHORT_LABEL_TOO_LONG, parsed.getEventType());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void change_json_without_feature_ac() {
+        ShortlabelChange.fromJson("{\"oldLabel\":\"a\",\"newLabel\":\"b\",\"eventType\":\"MODIFIED\"}");
+    }
+
+    @Test
+    public void write_compressed_changeset() throws IOException {
+        File changeset = new File(folder.getRoot(), "changeset.ndjson.gz");
+
+        ShortlabelChangesetWriter writer = new ShortlabelChangesetWriter(changeset);
+        try {
+            writer.onModifiedMutationShortlabel(new ModifiedMutationShortlabelEvent("EBI-1", "EBI-10", null, "P12345:p.Leu12Ala", "P12345:p.Leu12Gly", false));
+            writer.onUnmodifiedMutationShortlabel(new UnmodifiedMutationShortlabelEvent("EBI-2", "EBI-10", null, false, "P12345:p.Leu13Ala"));
+            writer.onOtherErrorEvent(new OtherErrorEvent("EBI-3", OtherErrorEvent.ErrorType.SHORT_LABEL_TOO_LONG, "P12345:p.[...]"));
+        }
+        finally {
+            writer.close();
+        }
+        Assert.assertEquals(2, writer.getNumberOfChanges());
+
+        List<ShortlabelChange> changes = new ArrayList<ShortlabelChange>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(changeset)), "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                changes.add(ShortlabelChange.fromJson(line));
+            }
+        }
+        finally {
+            reader.close();
+        }
+
+        Assert.assertEquals(2, changes.size());
+        Assert.assertEquals("EBI-1", changes.get(0).getFeatureAc());
+        Assert.assertEquals("P12345:p.Leu12Ala", changes.get(0).getOldLabel());
+        Assert.assertEquals("P12345:p.Leu12Gly", changes.get(0).getNewLabel());
+        Assert.assertEquals(ShortlabelChange.EventType.MODIFIED, changes.get(0).getEventType());
+        Assert.assertEquals("EBI-3", changes.get(1).getFeatureAc());
+        Assert.assertEquals(ShortlabelChange.EventType.SHORT_LABEL_TOO_LONG, changes.get(1).getEventType());
+    }
+
+    @Test
+    public void write_change_of_feature_without_shortlabel() throws IOException {
+        File changeset = new File(folder.getRoot(), "changeset.ndjson");
+
+        ShortlabelChangesetWriter writer = new ShortlabelChangesetWriter(changeset);
+        try {
+            writer.onModifiedMutationShortlabel(new ModifiedMutationShortlabelEvent("EBI-1", "EBI-10", null, null, "P12345:p.Leu12Gly", false));
+        }
+        finally {
+            writer.close();
+        }
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(changeset), "UTF-8"));
+        try {
+            ShortlabelChange change = ShortlabelChange.fromJson(reader.readLine());
+            Assert.assertEquals("EBI-1", change.getFeatureAc());
+            Assert.assertNull(change.getOldLabel());
+            Assert.assertEquals("P12345:p.Leu12Gly", change.getNewLabel());
+            Assert.assertNull(reader.readLine());
+        }
+        finally {
+            reader.close();
+        }
+    }
+}
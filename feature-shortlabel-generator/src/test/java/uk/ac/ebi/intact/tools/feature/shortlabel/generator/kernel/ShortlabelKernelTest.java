@@ -0,0 +1,488 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator.kernel;
+
+import org.junit.Assert;
+import org.junit.Test;
+import uk.ac.ebi.intact.jami.utils.IntactUtils;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.events.*;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.model.Constants;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.model.InsertionDataFeed;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.model.PolyQDataFeed;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.utils.ShortlabelGeneratorHelper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class ShortlabelKernelTest {
+
+    private static final String SEQUENCE = "MATLEKLMKAFESLKSFQQQQQQ";
+
+    private static final String RESIDUES = "ACDEFGHIKLMNPQRSTVWY";
+
+    private static final int RANDOM_FEATURES = 50000;
+
+    private final ShortlabelKernel kernel = new ShortlabelKernel();
+
+    private final ShortlabelGeneratorHelper helper = new ShortlabelGeneratorHelper();
+
+    @Test
+    public void substitution() {
+        MutationFeature feature = new MutationFeature("EBI-1", "EBI-2", "P12345", SEQUENCE, "old label", false,
+                Collections.singletonList(new MutationRange("EBI-3", 2, 2, false, "A", "G")));
+
+        ShortlabelResult result = kernel.computeShortlabel(feature);
+
+        Assert.assertEquals(ShortlabelResult.Outcome.MODIFIED, result.getOutcome());
+        Assert.assertEquals("P12345:p.Ala2Gly", result.getShortlabel());
+        Assert.assertTrue(result.getEvents().isEmpty());
+    }
+
+    @Test
+    public void ranges_sorted_by_start() {
+        MutationFeature feature = new MutationFeature("EBI-1", "EBI-2", "P12345", SEQUENCE, null, false, Arrays.asList(
+                new MutationRange("EBI-4", 4, 5, false, "LE", ".."),
+                new MutationRange("EBI-3", 2, 2, false, "A", "G")));
+
+        ShortlabelResult result = kernel.computeShortlabel(feature);
+
+        Assert.assertEquals("P12345:p.[Ala2Gly;Leu4_Glu5del]", result.getShortlabel());
+        Assert.assertEquals(1, result.getEvents().size());
+        ResultingSequenceChangedEvent event = (ResultingSequenceChangedEvent) result.getEvents().get(0);
+        Assert.assertEquals(ResultingSequenceChangedEvent.ChangeType.DELETION, event.getChangeType());
+        Assert.assertEquals("EBI-4", event.getRangeAc());
+    }
+
+    @Test
+    public void wrong_original_sequence() {
+        MutationFeature feature = new MutationFeature("EBI-1", "EBI-2", "P12345", SEQUENCE, "old label", false,
+                Collections.singletonList(new MutationRange("EBI-3", 2, 2, false, "K", "G")));
+
+        ShortlabelResult result = kernel.computeShortlabel(feature);
+
+        Assert.assertEquals(ShortlabelResult.Outcome.INVALID, result.getOutcome());
+        Assert.assertNull(result.getShortlabel());
+        SequenceErrorEvent event = (SequenceErrorEvent) result.getEvents().get(0);
+        Assert.assertEquals(SequenceErrorEvent.ErrorType.ORG_SEQ_WRONG, event.getErrorType());
+    }
+
+    @Test
+    public void no_mutation_update_keeps_the_shortlabel() {
+        MutationFeature feature = new MutationFeature("EBI-1", "EBI-2", "P12345", SEQUENCE, "old label", true,
+                Collections.singletonList(new MutationRange("EBI-3", 2, 2, false, "A", "G")));
+
+        ShortlabelResult result = kernel.computeShortlabel(feature);
+
+        Assert.assertEquals(ShortlabelResult.Outcome.UNMODIFIED, result.getOutcome());
+        Assert.assertEquals("old label", result.getShortlabel());
+    }
+
+    @Test
+    public void ranges_starting_at_the_same_position_keep_their_order() {
+        MutationRange deletion = new MutationRange("EBI-3", 2, 3, false, "AT", "..");
+        MutationRange substitution = new MutationRange("EBI-4", 2, 2, false, "A", "G");
+
+        Assert.assertEquals("P12345:p.[Ala2_Thr3del;Ala2Gly]", kernel.computeShortlabel(new MutationFeature("EBI-1", "EBI-2", "P12345", SEQUENCE,
+                null, false, Arrays.asList(deletion, substitution))).getShortlabel());
+        Assert.assertEquals("P12345:p.[Ala2Gly;Ala2_Thr3del]", kernel.computeShortlabel(new MutationFeature("EBI-1", "EBI-2", "P12345", SEQUENCE,
+                null, false, Arrays.asList(substitution, deletion))).getShortlabel());
+    }
+
+    @Test
+    public void same_labels_and_events_as_the_former_generator() {
+        Random random = new Random(20);
+
+        for (int i = 0; i < RANDOM_FEATURES; i++) {
+            MutationFeature feature = randomFeature(random, "EBI-" + i);
+            assertSameResult(feature);
+
+            // the same feature whose shortlabel is already up to date
+            List<Object> events = new ArrayList<Object>();
+            ShortlabelResult result = formerComputeShortlabel(feature, events);
+            if (result != null && result.getShortlabel() != null) {
+                assertSameResult(new MutationFeature(feature.getFeatureAc(), feature.getInteractorAc(), feature.getInteractorName(),
+                        feature.getInteractorSequence(), result.getShortlabel(), feature.isNoMutationUpdate(), feature.getRanges()));
+            }
+        }
+    }
+
+    private void assertSameResult(MutationFeature feature) {
+        List<Object> formerEvents = new ArrayList<Object>();
+        ShortlabelResult expected;
+        try {
+            expected = formerComputeShortlabel(feature, formerEvents);
+        } catch (RuntimeException formerException) {
+            // the former generator failed after firing the events of the previous ranges, the kernel fails before returning any event
+            try {
+                kernel.computeShortlabel(feature);
+                Assert.fail(feature.getFeatureAc() + " should throw " + formerException);
+            } catch (RuntimeException e) {
+                Assert.assertEquals(feature.getFeatureAc(), formerException.getClass(), e.getClass());
+            }
+            return;
+        }
+
+        ShortlabelResult actual = kernel.computeShortlabel(feature);
+        Assert.assertEquals(feature.getFeatureAc(), expected.getOutcome(), actual.getOutcome());
+        Assert.assertEquals(feature.getFeatureAc(), expected.getShortlabel(), actual.getShortlabel());
+        Assert.assertEquals(feature.getFeatureAc(), describe(formerEvents), describe(actual.getEvents()));
+    }
+
+    private static MutationFeature randomFeature(Random random, String featureAc) {
+        StringBuilder interactorSequence = new StringBuilder();
+        int length = 1 + random.nextInt(40);
+        while (interactorSequence.length() < length) {
+            char residue = RESIDUES.charAt(random.nextInt(RESIDUES.length()));
+            // repeats of a residue to get polyQ like changes
+            int repeats = random.nextInt(4) == 0 ? 1 + random.nextInt(4) : 1;
+            for (int i = 0; i < repeats; i++) {
+                interactorSequence.append(residue);
+            }
+        }
+
+        String interactorName;
+        switch (random.nextInt(10)) {
+            case 0:
+                interactorName = null;
+                break;
+            case 1:
+                // long enough to get a shortlabel too long
+                interactorName = randomSequence(random, IntactUtils.MAX_SHORT_LABEL_LEN - 10);
+                break;
+            default:
+                interactorName = "P" + random.nextInt(100000);
+        }
+
+        // distinct start positions, the order of the ranges starting at the same position differs on purpose, see ranges_starting_at_the_same_position_keep_their_order
+        List<MutationRange> ranges = new ArrayList<MutationRange>();
+        List<Long> starts = new ArrayList<Long>();
+        int numberOfRanges = random.nextInt(12) == 0 ? 0 : 1 + random.nextInt(3);
+        while (ranges.size() < numberOfRanges) {
+            long start = random.nextInt(20) == 0 ? 0 : 1 + random.nextInt(interactorSequence.length() + 2);
+            if (starts.contains(start)) {
+                continue;
+            }
+            starts.add(start);
+            ranges.add(randomRange(random, featureAc + "-" + ranges.size(), interactorSequence.toString(), start));
+        }
+
+        return new MutationFeature(featureAc, featureAc + "-interactor", interactorName, interactorSequence.toString(),
+                random.nextInt(5) == 0 ? null : "label", random.nextInt(10) == 0, ranges);
+    }
+
+    private static MutationRange randomRange(Random random, String rangeAc, String interactorSequence, long start) {
+        long end = start + random.nextInt(4);
+        String originalSequence = start >= 1 && end <= interactorSequence.length()
+                ? interactorSequence.substring((int) start - 1, (int) end) : randomSequence(random, (int) (end - start + 1));
+
+        switch (random.nextInt(25)) {
+            case 0:
+                originalSequence = null;
+                break;
+            case 1:
+                originalSequence = "";
+                break;
+            case 2:
+                originalSequence = randomSequence(random, originalSequence.length());
+                break;
+            default:
+        }
+
+        return new MutationRange(rangeAc, start, end, random.nextInt(30) == 0, originalSequence, randomResultingSequence(random, originalSequence));
+    }
+
+    private static String randomResultingSequence(Random random, String originalSequence) {
+        if (originalSequence == null || random.nextInt(30) == 0) {
+            return random.nextBoolean() ? null : randomSequence(random, 1 + random.nextInt(3));
+        }
+        int length = originalSequence.length();
+        switch (random.nextInt(12)) {
+            case 0:
+                // substitution
+                return randomSequence(random, length);
+            case 1:
+                // deletion
+                return "";
+            case 2:
+                StringBuilder dots = new StringBuilder();
+                for (int i = 0; i < length; i++) {
+                    dots.append('.');
+                }
+                return dots.toString();
+            case 3:
+                // deletion of some residues, at the right or the wrong place
+                StringBuilder partialDeletion = new StringBuilder(originalSequence);
+                for (int i = 0; i < partialDeletion.length(); i++) {
+                    if (random.nextBoolean()) {
+                        partialDeletion.setCharAt(i, '.');
+                    }
+                }
+                return partialDeletion.toString();
+            case 4:
+                // insertion
+                return length > 1 ? originalSequence.charAt(0) + randomSequence(random, 1 + random.nextInt(3)) + originalSequence.substring(1)
+                        : originalSequence + randomSequence(random, 1 + random.nextInt(3));
+            case 5:
+                // polyQ
+                StringBuilder repeats = new StringBuilder();
+                int numberOfRepeats = 2 + random.nextInt(3);
+                for (int i = 0; i < numberOfRepeats; i++) {
+                    repeats.append(originalSequence);
+                }
+                return repeats.toString();
+            case 6:
+                // deletion insertion
+                return randomSequence(random, 1 + random.nextInt(length + 3));
+            case 7:
+                return randomSequence(random, length).toLowerCase();
+            case 8:
+                return originalSequence;
+            case 9:
+                return length > 1 ? originalSequence.substring(1) : randomSequence(random, length + 1);
+            case 10:
+                return originalSequence + "\n" + randomSequence(random, 1);
+            default:
+                return length > 0 ? randomSequence(random, 1) + originalSequence.substring(1) : randomSequence(random, 1);
+        }
+    }
+
+    private static String randomSequence(Random random, int length) {
+        StringBuilder sequence = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sequence.append(RESIDUES.charAt(random.nextInt(RESIDUES.length())));
+        }
+        return sequence.toString();
+    }
+
+    private static List<String> describe(List<Object> events) {
+        List<String> descriptions = new ArrayList<String>(events.size());
+        for (Object event : events) {
+            if (event instanceof RangeErrorEvent) {
+                RangeErrorEvent rangeError = (RangeErrorEvent) event;
+                descriptions.add("range " + rangeError.getFeatureAc() + " " + rangeError.getInteractorAc() + " " + rangeError.getRangeAc() + " " + rangeError.getErrorType());
+            } else if (event instanceof SequenceErrorEvent) {
+                SequenceErrorEvent sequenceError = (SequenceErrorEvent) event;
+                descriptions.add("sequence " + sequenceError.getFeatureAc() + " " + sequenceError.getInteractorAc() + " " + sequenceError.getRangeAc() + " "
+                        + sequenceError.getErrorType() + " " + sequenceError.getMessage());
+            } else if (event instanceof TypeErrorEvent) {
+                TypeErrorEvent typeError = (TypeErrorEvent) event;
+                descriptions.add("type " + typeError.getFeatureAc() + " " + typeError.getInteractorAc() + " " + typeError.getErrorType());
+            } else if (event instanceof ObjRetrieveErrorEvent) {
+                ObjRetrieveErrorEvent retrieveError = (ObjRetrieveErrorEvent) event;
+                descriptions.add("retrieve " + retrieveError.getFeatureAc() + " " + retrieveError.getInteractorAc() + " " + retrieveError.getErrorType());
+            } else {
+                ResultingSequenceChangedEvent change = (ResultingSequenceChangedEvent) event;
+                descriptions.add("change " + change.getFeatureAc() + " " + change.getInteractorAc() + " " + change.getRangeAc() + " " + change.getChangeType() + " "
+                        + change.getoSeq() + " " + change.getrSeq() + " " + change.getRangeStart() + " " + change.getRangeEnd());
+            }
+        }
+        return descriptions;
+    }
+
+    /**
+     * The former ShortlabelGenerator.generateNewShortLabel once the interactor and the annotations have been checked, with the
+     * events fired to the manager added to the list and the ranges sorted by ShortlabelGeneratorHelper.sortRanges
+     */
+    private ShortlabelResult formerComputeShortlabel(MutationFeature feature, List<Object> events) {
+        String orgShortlabel = feature.getOriginalShortlabel();
+        String featureAc = feature.getFeatureAc();
+        String interactorAc = feature.getInteractorAc();
+        String interactorSeq = feature.getInteractorSequence();
+        String interactorName = feature.getInteractorName();
+        boolean noMutationUpdate = feature.isNoMutationUpdate();
+        PolyQDataFeed polyQDataFeed;
+        InsertionDataFeed insertionDataFeed;
+        StringBuilder shortName = new StringBuilder(orgShortlabel != null ? orgShortlabel : "");
+
+        if (!noMutationUpdate) {
+            shortName.setLength(0);
+            if (interactorName != null) {
+                shortName.append(interactorName).append(Constants.PROTEIN_NAME_SEPARATOR).append(Constants.PROTEIN_PREFIX);
+            } else {
+                shortName.append(Constants.PROTEIN_PREFIX);
+                events.add(new ObjRetrieveErrorEvent(featureAc, interactorAc, ObjRetrieveErrorEvent.ErrorType.UNABLE_RETRIEVE_INTERACTOR_NAME));
+            }
+        }
+        if (feature.getRanges().size() == 0) {
+            events.add(new RangeErrorEvent(featureAc, interactorAc, null, RangeErrorEvent.ErrorType.RANGE_NULL));
+            return invalid();
+        }
+
+        MutationRange[] experimentalRanges = feature.getRanges().toArray(new MutationRange[feature.getRanges().size()]);
+
+        if (experimentalRanges.length > 1) {
+            shortName.append("[");
+        }
+        sortRanges(experimentalRanges, 0, experimentalRanges.length - 1);
+        for (int index = 0; index <= experimentalRanges.length - 1; index++) {
+            String newShortlabel = "";
+            long rangeStart;
+            long rangeEnd;
+            String orgSeq;
+            String resSeq;
+            boolean isDeletion = false;
+            boolean isDeletionInsertion = false;
+            boolean isInsertionCase = false;
+            boolean isPolyq = false;
+            String rangeAc = experimentalRanges[index].getRangeAc();
+
+            if (experimentalRanges[index].getStart() == 0) {
+                events.add(new RangeErrorEvent(featureAc, interactorAc, rangeAc, RangeErrorEvent.ErrorType.START_POS_ZERO));
+                return invalid();
+            }
+            if (experimentalRanges[index].isStartUndetermined()) {
+                events.add(new RangeErrorEvent(featureAc, interactorAc, rangeAc, RangeErrorEvent.ErrorType.START_POS_UNDETERMINED));
+                return invalid();
+            }
+            if (experimentalRanges[index].getOriginalSequence() == null) {
+                events.add(new RangeErrorEvent(featureAc, interactorAc, rangeAc, RangeErrorEvent.ErrorType.ORG_SEQ_NULL));
+                return invalid();
+            }
+            if (experimentalRanges[index].getResultingSequence() == null) {
+                events.add(new RangeErrorEvent(featureAc, interactorAc, rangeAc, RangeErrorEvent.ErrorType.RES_SEQ_NULL));
+                return invalid();
+            }
+
+            rangeStart = experimentalRanges[index].getStart();
+            rangeEnd = experimentalRanges[index].getEnd();
+            orgSeq = experimentalRanges[index].getOriginalSequence();
+            resSeq = experimentalRanges[index].getResultingSequence();
+
+            if (orgSeq.equals(resSeq)) {
+                events.add(new TypeErrorEvent(featureAc, interactorAc, TypeErrorEvent.ObjTypeErrorType.SAME_OSEQUENCE_RSEQUENCE));
+                return invalid();
+            }
+
+            if (!helper.isRangeWithinSequence(interactorSeq, rangeStart, rangeEnd)) {
+                String message = "Range (" + rangeStart + "-" + rangeEnd + ") is out of the interactor sequence of length " + interactorSeq.length();
+                events.add(new SequenceErrorEvent(featureAc, interactorAc, rangeAc, SequenceErrorEvent.ErrorType.UNABLE_CALCULATE_ORG_SEQ, message));
+                return invalid();
+            }
+            if (helper.orgSeqWrong(orgSeq, interactorSeq, rangeStart, rangeEnd)) {
+                String calculatedOrgSeq = helper.generateOrgSeq(interactorSeq, rangeStart, rangeEnd);
+                String message = "Original sequence does not match interactor sequence. Is " + orgSeq + " should be " + calculatedOrgSeq + " Range: (" + rangeStart + "-" + rangeEnd + ")";
+                events.add(new SequenceErrorEvent(featureAc, interactorAc, rangeAc, SequenceErrorEvent.ErrorType.ORG_SEQ_WRONG, message));
+                return invalid();
+            }
+            if (helper.containsLowerCaseLetters(resSeq)) {
+                events.add(new SequenceErrorEvent(featureAc, interactorAc, rangeAc, SequenceErrorEvent.ErrorType.RES_SEQ_CONTAINS_LOWER_CASE));
+                return invalid();
+            }
+
+            if (helper.resultingSeqDescreased(orgSeq, resSeq)) {
+                events.add(new SequenceErrorEvent(featureAc, interactorAc, rangeAc, SequenceErrorEvent.ErrorType.RES_SEQ_SMALLER_ORG_SEQ));
+                return invalid();
+            }
+
+            polyQDataFeed = helper.checkIfPoyQAndReturnPDF(orgSeq, resSeq);
+            insertionDataFeed = helper.isInsertionCase(orgSeq, resSeq, rangeStart, rangeEnd);
+            if (polyQDataFeed.isPolyQ()) {
+                isPolyq = true;
+            } else if (helper.isSingleAAChange(orgSeq, resSeq, rangeStart, rangeEnd)) {
+                // single amino acid change
+            } else if (insertionDataFeed.isInsertion()) {
+                isInsertionCase = true;
+            } else if (helper.isItDelInsCase(orgSeq, resSeq)) {
+                isDeletionInsertion = true;
+            } else if (resSeq.length() == 0 || helper.containsDot(resSeq)) {
+
+                if (resSeq.length() != 0) {
+                    if (helper.deletionOnWrongPlace(resSeq)) {
+                        events.add(new SequenceErrorEvent(featureAc, interactorAc, rangeAc, SequenceErrorEvent.ErrorType.RES_SEQ_WITH_WRONG_DELETION));
+                        return invalid();
+                    }
+                    if (helper.containsToManyDots(resSeq)) {
+                        events.add(new SequenceErrorEvent(featureAc, interactorAc, rangeAc, SequenceErrorEvent.ErrorType.RES_SEQ_TO_MANY_DOTS));
+                        return invalid();
+                    }
+                }
+
+                isDeletion = true;
+            }
+
+            if (polyQDataFeed.isSingleAAPolyQ()) {
+                newShortlabel += helper.seq2ThreeLetterCodeOnDefaultOrgSeq(orgSeq.charAt(0) + "", rangeStart, rangeEnd);
+            } else {
+                newShortlabel += helper.seq2ThreeLetterCodeOnDefaultOrgSeq(orgSeq, rangeStart, rangeEnd);
+            }
+
+            if (isDeletionInsertion) {
+                newShortlabel += Constants.DEL_INS;
+                events.add(new ResultingSequenceChangedEvent(featureAc, interactorAc, rangeAc, orgSeq, resSeq, rangeStart, rangeEnd, ResultingSequenceChangedEvent.ChangeType.DELETION_INSERTION));
+            } else if (isDeletion) {
+                newShortlabel += Constants.DELETION;
+                events.add(new ResultingSequenceChangedEvent(featureAc, interactorAc, rangeAc, orgSeq, resSeq, rangeStart, rangeEnd, ResultingSequenceChangedEvent.ChangeType.DELETION));
+            } else if (helper.resultingSeqIncreased(orgSeq, resSeq)) {
+                if (isInsertionCase) {
+                    newShortlabel += Constants.INSERTION;
+                }
+                events.add(new ResultingSequenceChangedEvent(featureAc, interactorAc, rangeAc, orgSeq, resSeq, rangeStart, rangeEnd, ResultingSequenceChangedEvent.ChangeType.INCREASE));
+            }
+
+            if (insertionDataFeed.isToBeCuratedManually()) {
+                events.add(new ResultingSequenceChangedEvent(featureAc, interactorAc, rangeAc, orgSeq, resSeq, rangeStart, rangeEnd, ResultingSequenceChangedEvent.ChangeType.WRONG_INSERTION));
+            }
+            if (!isDeletion) {
+                if (!isPolyq) {
+                    if (isInsertionCase) {
+                        newShortlabel += helper.seq2ThreeLetterCodeOnDefaultResSeq(insertionDataFeed.getInsertionString());
+                    } else {
+                        newShortlabel += helper.seq2ThreeLetterCodeOnDefaultResSeq(resSeq);
+                    }
+                } else {
+                    newShortlabel += "[" + polyQDataFeed.getRepeatUnit() + "]";
+                }
+            }
+            if (!noMutationUpdate) {
+                shortName.append(newShortlabel).append(index < experimentalRanges.length - 1 ? ";" : "");
+            }
+        }
+        if (experimentalRanges.length > 1) {
+            shortName.append("]");
+        }
+
+        String newShortName = shortName.toString();
+        if (noMutationUpdate || newShortName.equals(orgShortlabel)) {
+            return new ShortlabelResult(ShortlabelResult.Outcome.UNMODIFIED, newShortName, Collections.emptyList());
+        } else if (newShortName.length() > IntactUtils.MAX_SHORT_LABEL_LEN) {
+            return new ShortlabelResult(ShortlabelResult.Outcome.SHORT_LABEL_TOO_LONG, newShortName, Collections.emptyList());
+        }
+        return new ShortlabelResult(ShortlabelResult.Outcome.MODIFIED, newShortName, Collections.emptyList());
+    }
+
+    private static ShortlabelResult invalid() {
+        return new ShortlabelResult(ShortlabelResult.Outcome.INVALID, null, Collections.emptyList());
+    }
+
+    /**
+     * The former ShortlabelGeneratorHelper.sortRanges
+     */
+    private static void sortRanges(MutationRange[] ranges, int startPos, int endPos) {
+        int startCourser = startPos;
+        int endCourser = endPos;
+
+        MutationRange pivotRange = ranges[endPos + (startPos - endPos) / 2];
+        while (startCourser <= endCourser) {
+            while (ranges[startCourser].getStart() < pivotRange.getStart()) {
+                startCourser++;
+            }
+            while (ranges[endCourser].getStart() > pivotRange.getStart()) {
+                endCourser--;
+            }
+            if (startCourser <= endCourser) {
+                MutationRange range = ranges[startCourser];
+                ranges[startCourser] = ranges[endCourser];
+                ranges[endCourser] = range;
+                startCourser++;
+                endCourser--;
+            }
+        }
+        if (startPos < endCourser) {
+            sortRanges(ranges, startPos, endCourser);
+        }
+        if (startCourser < endPos) {
+            sortRanges(ranges, startCourser, endPos);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator.manager;
+
+import org.junit.Assert;
+import org.junit.Test;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.events.*;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.listener.ShortlabelGeneratorListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class ShortlabelGeneratorManagerTest {
+
+    @Test
+    public void synchronous_delivery() {
+        ShortlabelGeneratorManager manager = new ShortlabelGeneratorManager();
+        RecordingListener listener = new RecordingListener(null);
+        manager.addListener(listener);
+
+        manager.fireOnOtherErrorEvent(new OtherErrorEvent("EBI-1", OtherErrorEvent.ErrorType.SHORT_LABEL_TOO_LONG, "label"));
+
+        Assert.assertEquals(Collections.singletonList("EBI-1"), listener.featureAcs);
+        Assert.assertTrue(manager.getDeliveryMetrics().isEmpty());
+    }
+
+    @Test
+    public void asynchronous_delivery_keeps_order() throws InterruptedException {
+        ShortlabelGeneratorManager manager = new ShortlabelGeneratorManager();
+        RecordingListener first = new RecordingListener(null);
+        manager.addListener(first);
+        manager.enableAsynchronousDelivery(4, ShortlabelGeneratorManager.OverflowPolicy.BLOCK);
+        RecordingListener second = new RecordingListener(null);
+        manager.addListener(second);
+
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 100; i++) {
+            manager.fireOnOtherErrorEvent(new OtherErrorEvent("EBI-" + i, OtherErrorEvent.ErrorType.SHORT_LABEL_TOO_LONG, "label"));
+            expected.add("EBI-" + i);
+        }
+        manager.flush();
+
+        Assert.assertEquals(expected, first.featureAcs);
+        Assert.assertEquals(expected, second.featureAcs);
+        for (EventDeliveryMetrics metrics : manager.getDeliveryMetrics()) {
+            Assert.assertEquals(100, metrics.getDelivered());
+            Assert.assertEquals(0, metrics.getDropped());
+            Assert.assertEquals(0, metrics.getQueueDepth());
+        }
+
+        manager.disableAsynchronousDelivery();
+        Assert.assertFalse(manager.isAsynchronous());
+    }
+
+    @Test
+    public void asynchronous_delivery_drops_events_when_full() throws InterruptedException {
+        ShortlabelGeneratorManager manager = new ShortlabelGeneratorManager();
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingListener listener = new RecordingListener(release);
+        manager.addListener(listener);
+        manager.enableAsynchronousDelivery(2, ShortlabelGeneratorManager.OverflowPolicy.DROP);
+
+        for (int i = 0; i < 10; i++) {
+            manager.fireOnOtherErrorEvent(new OtherErrorEvent("EBI-" + i, OtherErrorEvent.ErrorType.SHORT_LABEL_TOO_LONG, "label"));
+        }
+        EventDeliveryMetrics metrics = manager.getDeliveryMetrics().get(0);
+        release.countDown();
+        manager.disableAsynchronousDelivery();
+
+        // the listener blocks on the first event and the queue holds two more events at most
+        Assert.assertTrue(metrics.getDropped() >= 7);
+        Assert.assertEquals(10, metrics.getDropped() + listener.featureAcs.size());
+        Assert.assertEquals("EBI-0", listener.featureAcs.get(0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void asynchronous_listener_failure() throws InterruptedException {
+        ShortlabelGeneratorManager manager = new ShortlabelGeneratorManager();
+        manager.addListener(new RecordingListener(null) {
+            @Override
+            public void onOtherErrorEvent(OtherErrorEvent event) {
+                throw new IllegalArgumentException("failure");
+            }
+        });
+        manager.enableAsynchronousDelivery(10, ShortlabelGeneratorManager.OverflowPolicy.BLOCK);
+        manager.fireOnOtherErrorEvent(new OtherErrorEvent("EBI-1", OtherErrorEvent.ErrorType.SHORT_LABEL_TOO_LONG, "label"));
+        manager.disableAsynchronousDelivery();
+    }
+
+    @Test
+    public void events_fired_after_stop_are_delivered_synchronously() throws InterruptedException {
+        RecordingListener listener = new RecordingListener(null);
+        AsynchronousListener asynchronousListener = new AsynchronousListener(listener, 4, ShortlabelGeneratorManager.OverflowPolicy.BLOCK);
+
+        asynchronousListener.onOtherErrorEvent(new OtherErrorEvent("EBI-1", OtherErrorEvent.ErrorType.SHORT_LABEL_TOO_LONG, "label"));
+        asynchronousListener.await(true);
+        // a thread still holding the asynchronous listener after the delivery has been disabled
+        asynchronousListener.onOtherErrorEvent(new OtherErrorEvent("EBI-2", OtherErrorEvent.ErrorType.SHORT_LABEL_TOO_LONG, "label"));
+        asynchronousListener.await(false);
+        asynchronousListener.await(true);
+
+        Assert.assertEquals(Arrays.asList("EBI-1", "EBI-2"), listener.featureAcs);
+        Assert.assertEquals(0, asynchronousListener.getMetrics().getQueueDepth());
+    }
+
+    private static class RecordingListener implements ShortlabelGeneratorListener {
+        private final List<String> featureAcs = Collections.synchronizedList(new ArrayList<String>());
+        private final CountDownLatch release;
+
+        private RecordingListener(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void onOtherErrorEvent(OtherErrorEvent event) {
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            featureAcs.add(event.getFeatureAc());
+        }
+
+        @Override
+        public void onRangeError(RangeErrorEvent event) {
+        }
+
+        @Override
+        public void onModifiedMutationShortlabel(ModifiedMutationShortlabelEvent event) {
+        }
+
+        @Override
+        public void onUnmodifiedMutationShortlabel(UnmodifiedMutationShortlabelEvent event) {
+        }
+
+        @Override
+        public void onRetrieveObjectError(ObjRetrieveErrorEvent event) {
+        }
+
+        @Override
+        public void onAnnotationFound(AnnotationFoundEvent event) {
+        }
+
+        @Override
+        public void onSequenceError(SequenceErrorEvent event) {
+        }
+
+        @Override
+        public void onResultingSequenceChanged(ResultingSequenceChangedEvent event) {
+        }
+
+        @Override
+        public void onObjectTypeError(TypeErrorEvent event) {
+        }
+    }
+}
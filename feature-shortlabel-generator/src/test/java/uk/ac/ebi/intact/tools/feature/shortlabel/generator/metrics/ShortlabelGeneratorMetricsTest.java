@@ -0,0 +1,60 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.events.RangeErrorEvent;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.events.SequenceErrorEvent;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.events.UnmodifiedMutationShortlabelEvent;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.manager.ShortlabelGeneratorManager;
+
+import java.util.Map;
+
+public class ShortlabelGeneratorMetricsTest {
+
+    @Test
+    public void counts_events_by_type() throws InterruptedException {
+        ShortlabelGeneratorMetrics metrics = new ShortlabelGeneratorMetrics();
+        ShortlabelGeneratorManager manager = new ShortlabelGeneratorManager();
+        manager.addSynchronousListener(metrics);
+        manager.enableAsynchronousDelivery(1, ShortlabelGeneratorManager.OverflowPolicy.DROP);
+
+        manager.fireOnRangeErrorEvent(new RangeErrorEvent("EBI-1", "EBI-2", "EBI-3", RangeErrorEvent.ErrorType.ORG_SEQ_NULL));
+        manager.fireOnRangeErrorEvent(new RangeErrorEvent("EBI-4", "EBI-2", "EBI-5", RangeErrorEvent.ErrorType.ORG_SEQ_NULL));
+        manager.fireOnSeqErrorEvent(new SequenceErrorEvent("EBI-6", "EBI-2", "EBI-7", SequenceErrorEvent.ErrorType.ORG_SEQ_WRONG, "message"));
+        manager.fireOnUnmodifiedMutationShortlabelEvent(new UnmodifiedMutationShortlabelEvent("EBI-8", "EBI-2", null, false, "label"));
+
+        // the metrics are never delivered asynchronously
+        Assert.assertTrue(manager.getDeliveryMetrics().isEmpty());
+        Assert.assertEquals(2, metrics.getEventCount(RangeErrorEvent.class, RangeErrorEvent.ErrorType.ORG_SEQ_NULL));
+        Assert.assertEquals(1, metrics.getEventCount(SequenceErrorEvent.class, SequenceErrorEvent.ErrorType.ORG_SEQ_WRONG));
+        Assert.assertEquals(0, metrics.getEventCount(RangeErrorEvent.class, RangeErrorEvent.ErrorType.RANGE_NULL));
+
+        Map<String, Long> eventCounts = metrics.getEventCounts();
+        Assert.assertEquals(3, eventCounts.size());
+        Assert.assertEquals(Long.valueOf(1), eventCounts.get("UnmodifiedMutationShortlabelEvent"));
+
+        metrics.reset();
+        Assert.assertTrue(metrics.getEventCounts().isEmpty());
+        manager.disableAsynchronousDelivery();
+    }
+
+    @Test
+    public void latency_percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        LatencySnapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(100, snapshot.getCount());
+        Assert.assertEquals(50, snapshot.getMeanMicros());
+        Assert.assertEquals(100, snapshot.getMaxMicros());
+        // the percentiles are the upper bounds of power of two buckets, so within a factor of two of the exact values
+        Assert.assertTrue(snapshot.getP50Micros() >= 50 && snapshot.getP50Micros() < 100);
+        Assert.assertTrue(snapshot.getP99Micros() >= 99 && snapshot.getP99Micros() <= 100);
+
+        histogram.reset();
+        Assert.assertEquals(0, histogram.snapshot().getCount());
+        Assert.assertEquals(0, histogram.getPercentile(50));
+    }
+}
@@ -0,0 +1,109 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AminoAcidsTest {
+
+    private static final String[] SEQUENCES = {
+            "",
+            "A",
+            "MATLEKLMKAFESLKSFQQQQQQ",
+            "BZJXUO*.",
+            "A..G.",
+            "....",
+            // lowercase and unknown residues are converted to "null"
+            "mAtL",
+            "A1-G?",
+            "A\u00e9G",
+            "AC\nDE\r"
+    };
+
+    @Test
+    public void three_letter_code_of_each_character() {
+        for (char oneLetterCode = 0; oneLetterCode < 256; oneLetterCode++) {
+            Assert.assertEquals("code " + (int) oneLetterCode, scanThreeLetterCode(oneLetterCode),
+                    AminoAcids.getThreeLetterCodeByOneLetterCode(oneLetterCode));
+            Assert.assertEquals("code " + (int) oneLetterCode, scanThreeLetterCode(oneLetterCode),
+                    AminoAcids.getThreeLetterCodeByOneLetterCode(Character.valueOf(oneLetterCode)));
+        }
+        Assert.assertNull(AminoAcids.getThreeLetterCodeByOneLetterCode((Character) null));
+    }
+
+    @Test
+    public void whole_sequences_as_before() {
+        for (String sequence : SEQUENCES) {
+            Assert.assertEquals(sequence, concatenateWithSeparator(sequence),
+                    AminoAcids.toThreeLetterCodes(sequence, 0, sequence.length(), "_", false));
+            Assert.assertEquals(sequence, concatenateWithoutDeletions(sequence),
+                    AminoAcids.toThreeLetterCodes(sequence, 0, sequence.length(), "", true));
+        }
+    }
+
+    @Test
+    public void every_range_as_before() {
+        for (String sequence : SEQUENCES) {
+            for (int start = 0; start <= sequence.length(); start++) {
+                for (int end = start; end <= sequence.length(); end++) {
+                    String range = sequence.substring(start, end);
+                    Assert.assertEquals(range, concatenateWithSeparator(range),
+                            AminoAcids.toThreeLetterCodes(sequence, start, end, "_", false));
+                    Assert.assertEquals(range, concatenateWithoutDeletions(range),
+                            AminoAcids.toThreeLetterCodes(sequence, start, end, "", true));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void deletions_only() {
+        Assert.assertEquals("", AminoAcids.toThreeLetterCodes("...", 0, 3, "", true));
+        Assert.assertEquals("del_del_del", AminoAcids.toThreeLetterCodes("...", 0, 3, "_", false));
+        Assert.assertEquals("Ala_Gly", AminoAcids.toThreeLetterCodes("A.G", 0, 3, "_", true));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void null_sequence() {
+        AminoAcids.toThreeLetterCodes(null, 0, 1, "_", false);
+    }
+
+    /**
+     * The lookup used before the table : a scan of all the amino acids
+     */
+    private static String scanThreeLetterCode(Character oneLetterCode) {
+        for (AminoAcids aminoAcids : AminoAcids.values()) {
+            if (aminoAcids.getOneLetterCode().equals(oneLetterCode)) {
+                return aminoAcids.getThreeLetterCode();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The former ShortlabelGeneratorHelper.seq2ThreeLetterCodeOnDefault
+     */
+    private static String concatenateWithSeparator(String sequence) {
+        String sequenceAsThreeLetterCode = "";
+        for (int i = 0; i < sequence.length(); i++) {
+            sequenceAsThreeLetterCode += scanThreeLetterCode(sequence.charAt(i));
+            if (i < sequence.length() - 1) {
+                sequenceAsThreeLetterCode += "_";
+            }
+        }
+        return sequenceAsThreeLetterCode;
+    }
+
+    /**
+     * The former ShortlabelGeneratorHelper.seq2ThreeLetterCodeOnDefaultResSeq
+     */
+    private static String concatenateWithoutDeletions(String sequence) {
+        String sequenceAsThreeLetterCode = "";
+        for (int i = 0; i < sequence.length(); i++) {
+            char seqChar = sequence.charAt(i);
+            if (seqChar != '.') {
+                sequenceAsThreeLetterCode += scanThreeLetterCode(sequence.charAt(i));
+            }
+        }
+        return sequenceAsThreeLetterCode;
+    }
+}
@@ -0,0 +1,143 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator.reader;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.ac.ebi.intact.jami.model.extension.IntactFeatureEvidence;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.InMemoryFeatureDatabase;
+
+import java.util.*;
+
+public class MutationFeatureReaderTest {
+
+    private InMemoryFeatureDatabase database;
+    private MutationFeatureReader reader;
+    private TransactionTemplate transactionTemplate;
+
+    @Before
+    public void create_reader() {
+        database = new InMemoryFeatureDatabase();
+        // the features are not added in the order of their ACs
+        for (String ac : Arrays.asList("EBI-0005", "EBI-0001", "EBI-0004", "EBI-0002", "EBI-0003")) {
+            database.addMutation(ac);
+        }
+        database.addFeature("EBI-0000", InMemoryFeatureDatabase.BINDING_SITE_MI);
+        database.addFeature("EBI-0006", InMemoryFeatureDatabase.BINDING_SITE_MI);
+
+        reader = new MutationFeatureReader(database.getIntactDao(), Collections.singleton(InMemoryFeatureDatabase.MUTATION_MI));
+        transactionTemplate = new TransactionTemplate(database.getTransactionManager());
+    }
+
+    private List<String> readNextAcs(final String lastAc, final int pageSize) {
+        return transactionTemplate.execute(new TransactionCallback<List<String>>() {
+            @Override
+            public List<String> doInTransaction(TransactionStatus status) {
+                return reader.readNextAcs(lastAc, pageSize);
+            }
+        });
+    }
+
+    private List<IntactFeatureEvidence> readFeatures(final List<String> acs) {
+        return transactionTemplate.execute(new TransactionCallback<List<IntactFeatureEvidence>>() {
+            @Override
+            public List<IntactFeatureEvidence> doInTransaction(TransactionStatus status) {
+                return reader.readFeatures(acs);
+            }
+        });
+    }
+
+    private String lastQuery() {
+        List<InMemoryFeatureDatabase.Transaction> transactions = database.getTransactions();
+        List<String> queries = transactions.get(transactions.size() - 1).getQueries();
+        return queries.get(queries.size() - 1);
+    }
+
+    @Test
+    public void first_page_is_ordered_by_ac() {
+        Assert.assertEquals(Arrays.asList("EBI-0001", "EBI-0002"), readNextAcs(null, 2));
+
+        String query = lastQuery();
+        Assert.assertTrue(query, query.startsWith("select f.ac from IntactFeatureEvidence f "));
+        Assert.assertTrue(query, query.endsWith("order by f.ac"));
+        Assert.assertFalse(query, query.contains(":lastAc"));
+    }
+
+    @Test
+    public void next_pages_start_after_the_last_ac() {
+        Assert.assertEquals(Arrays.asList("EBI-0003", "EBI-0004"), readNextAcs("EBI-0002", 2));
+
+        String query = lastQuery();
+        Assert.assertTrue(query, query.contains("f.ac > :lastAc"));
+        Assert.assertTrue(query, query.endsWith("order by f.ac"));
+    }
+
+    @Test
+    public void page_boundaries() {
+        Assert.assertEquals(Collections.singletonList("EBI-0005"), readNextAcs("EBI-0004", 2));
+        Assert.assertTrue(readNextAcs("EBI-0005", 2).isEmpty());
+        // an AC between two features
+        Assert.assertEquals(Arrays.asList("EBI-0003", "EBI-0004"), readNextAcs("EBI-0002-", 2));
+    }
+
+    @Test
+    public void only_the_allowed_feature_types_are_read() {
+        Assert.assertEquals(Arrays.asList("EBI-0001", "EBI-0002", "EBI-0003", "EBI-0004", "EBI-0005"), readNextAcs(null, 10));
+    }
+
+    @Test
+    public void empty_table() {
+        InMemoryFeatureDatabase emptyDatabase = new InMemoryFeatureDatabase();
+        reader = new MutationFeatureReader(emptyDatabase.getIntactDao(), Collections.singleton(InMemoryFeatureDatabase.MUTATION_MI));
+        transactionTemplate = new TransactionTemplate(emptyDatabase.getTransactionManager());
+
+        Assert.assertTrue(readNextAcs(null, 10).isEmpty());
+    }
+
+    @Test
+    public void features_are_loaded_with_a_fetch_join_in_the_order_of_the_acs() {
+        List<String> acs = Arrays.asList("EBI-0001", "EBI-0002", "EBI-0003");
+        List<IntactFeatureEvidence> features = readFeatures(acs);
+
+        List<String> featureAcs = new ArrayList<String>();
+        for (IntactFeatureEvidence feature : features) {
+            featureAcs.add(feature.getAc());
+            Assert.assertEquals(1, feature.getRanges().size());
+            Assert.assertNotNull(feature.getParticipant().getInteractor());
+        }
+        Assert.assertEquals(acs, featureAcs);
+
+        // a single query loads the features with their ranges, participants and interactors
+        Assert.assertEquals(1, database.getTransactions().get(0).getQueries().size());
+        String query = lastQuery();
+        Assert.assertTrue(query, query.startsWith("select distinct f from IntactFeatureEvidence f "));
+        Assert.assertTrue(query, query.contains("left join fetch f.ranges"));
+        Assert.assertTrue(query, query.contains("left join fetch f.participant p"));
+        Assert.assertTrue(query, query.contains("left join fetch p.interactor"));
+    }
+
+    @Test
+    public void deleted_features_are_ignored() {
+        List<String> acs = readNextAcs(null, 3);
+        database.delete("EBI-0002");
+
+        List<IntactFeatureEvidence> features = readFeatures(acs);
+
+        Assert.assertEquals(2, features.size());
+        Assert.assertEquals("EBI-0001", features.get(0).getAc());
+        Assert.assertEquals("EBI-0003", features.get(1).getAc());
+    }
+
+    @Test
+    public void no_query_without_acs() {
+        Assert.assertTrue(readFeatures(Collections.<String>emptyList()).isEmpty());
+        Assert.assertTrue(database.getTransactions().get(0).getQueries().isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void features_are_read_in_a_transaction() {
+        reader.readNextAcs(null, 2);
+    }
+}
@@ -0,0 +1,127 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.model.InteractorSummary;
+
+public class InteractorSummaryCacheTest {
+
+    /*The characters of a summary with a sequence of 36 residues, the overhead of a summary being 64 characters*/
+    private static final long SUMMARY_CHARACTERS = 100;
+
+    @Test
+    public void hits_and_misses() {
+        InteractorSummaryCache cache = new InteractorSummaryCache();
+        InteractorSummary summary = summary("P12345");
+        cache.put("EBI-1", summary);
+
+        Assert.assertSame(summary, cache.get("EBI-1"));
+        Assert.assertNull(cache.get("EBI-2"));
+        Assert.assertSame(summary, cache.get("EBI-1"));
+
+        Assert.assertEquals(2, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(0, cache.getEvictions());
+        Assert.assertEquals(SUMMARY_CHARACTERS, cache.getCharacters());
+    }
+
+    @Test
+    public void least_recently_used_evicted_first() {
+        InteractorSummaryCache cache = new InteractorSummaryCache(3 * SUMMARY_CHARACTERS);
+        cache.put("EBI-1", summary("P00001"));
+        cache.put("EBI-2", summary("P00002"));
+        cache.put("EBI-3", summary("P00003"));
+        // EBI-2 becomes the least recently used
+        cache.get("EBI-1");
+
+        cache.put("EBI-4", summary("P00004"));
+        Assert.assertEquals(3, cache.size());
+        Assert.assertEquals(1, cache.getEvictions());
+        Assert.assertNull(cache.get("EBI-2"));
+
+        cache.put("EBI-5", summary("P00005"));
+        Assert.assertNull(cache.get("EBI-3"));
+        Assert.assertNotNull(cache.get("EBI-1"));
+        Assert.assertNotNull(cache.get("EBI-4"));
+        Assert.assertNotNull(cache.get("EBI-5"));
+        Assert.assertEquals(2, cache.getEvictions());
+    }
+
+    @Test
+    public void bounded_by_characters() {
+        InteractorSummaryCache cache = new InteractorSummaryCache(1000);
+        cache.put("EBI-1", new InteractorSummary("protein", "P00001", sequence(600), false));
+        cache.put("EBI-2", new InteractorSummary("protein", "P00002", sequence(200), false));
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(664 + 264, cache.getCharacters());
+
+        // the biggest summary is evicted as the least recently used, not the new one
+        cache.put("EBI-3", new InteractorSummary("protein", "P00003", sequence(10), false));
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(264 + 74, cache.getCharacters());
+        Assert.assertNull(cache.get("EBI-1"));
+
+        // a summary without sequence still counts its overhead
+        cache.put("EBI-4", new InteractorSummary("small molecule", "CHEBI:1", null, false));
+        Assert.assertEquals(264 + 74 + 64, cache.getCharacters());
+
+        // replacing a summary doesn't count it twice
+        cache.put("EBI-2", new InteractorSummary("protein", "P00002", sequence(100), false));
+        Assert.assertEquals(164 + 74 + 64, cache.getCharacters());
+        Assert.assertEquals(3, cache.size());
+
+        // a summary bigger than the cache is not kept and doesn't evict the others
+        cache.put("EBI-5", new InteractorSummary("protein", "P00005", sequence(1000), false));
+        Assert.assertNull(cache.get("EBI-5"));
+        Assert.assertEquals(3, cache.size());
+        Assert.assertEquals(164 + 74 + 64, cache.getCharacters());
+
+        cache.setMaxCharacters(200);
+        Assert.assertEquals(1, cache.size());
+        Assert.assertNotNull(cache.get("EBI-2"));
+    }
+
+    @Test
+    public void disabled() {
+        InteractorSummaryCache cache = new InteractorSummaryCache(0);
+        cache.put("EBI-1", summary("P00001"));
+
+        Assert.assertNull(cache.get("EBI-1"));
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0, cache.getCharacters());
+        Assert.assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void clear_resets_the_counters() {
+        InteractorSummaryCache cache = new InteractorSummaryCache(SUMMARY_CHARACTERS);
+        cache.put("EBI-1", summary("P00001"));
+        cache.put("EBI-2", summary("P00002"));
+        cache.get("EBI-1");
+        cache.get("EBI-2");
+
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0, cache.getCharacters());
+        Assert.assertEquals(0, cache.getHits());
+        Assert.assertEquals(0, cache.getMisses());
+        Assert.assertEquals(0, cache.getEvictions());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negative_maximum() {
+        new InteractorSummaryCache(-1);
+    }
+
+    private static InteractorSummary summary(String accession) {
+        return new InteractorSummary("protein", accession, sequence((int) SUMMARY_CHARACTERS - 64), false);
+    }
+
+    private static String sequence(int length) {
+        StringBuilder sequence = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sequence.append("ACDEFGHIKLMNPQRSTVWY".charAt(i % 20));
+        }
+        return sequence.toString();
+    }
+}
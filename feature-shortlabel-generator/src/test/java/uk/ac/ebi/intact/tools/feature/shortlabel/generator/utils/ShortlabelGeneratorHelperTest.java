@@ -0,0 +1,233 @@
+package uk.ac.ebi.intact.tools.feature.shortlabel.generator.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.model.AminoAcids;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.model.Constants;
+import uk.ac.ebi.intact.tools.feature.shortlabel.generator.model.PolyQDataFeed;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the helper with the regular expressions and the string concatenations it used before
+ */
+public class ShortlabelGeneratorHelperTest {
+
+    private static final String INTERACTOR_SEQUENCE = "MATLEKLMKAFESLKSFQQQQQQ";
+
+    private static final String[] REPEAT_UNITS = {"Q", "QQ", "QA", "QAQ", "ALG", "q", "Qq"};
+
+    private final ShortlabelGeneratorHelper helper = new ShortlabelGeneratorHelper();
+
+    @Test
+    public void three_letter_codes_as_before() {
+        String[] sequences = {"A", "MATLEK", "A..G.", "....", "mAtL", "A1-G?", "BZJXUO*"};
+        for (String sequence : sequences) {
+            Assert.assertEquals(concatenateWithSeparator(sequence), helper.seq2ThreeLetterCodeOnDefault(sequence));
+            Assert.assertEquals(concatenateWithoutDeletions(sequence), helper.seq2ThreeLetterCodeOnDefaultResSeq(sequence));
+            Assert.assertEquals(concatenateThreeLetterOrgSeq(sequence, 12L, 12L + sequence.length() - 1),
+                    helper.seq2ThreeLetterCodeOnDefaultOrgSeq(sequence, 12L, 12L + sequence.length() - 1));
+        }
+        Assert.assertEquals("", helper.seq2ThreeLetterCodeOnDefault(""));
+        Assert.assertEquals("", helper.seq2ThreeLetterCodeOnDefaultResSeq(""));
+    }
+
+    @Test
+    public void original_sequence_of_every_range_as_before() {
+        int length = INTERACTOR_SEQUENCE.length();
+        for (long start = 1; start <= length; start++) {
+            for (long end = start - 1; end <= length; end++) {
+                String expected = concatenateOrgSeq(INTERACTOR_SEQUENCE, start, end);
+                Assert.assertEquals(start + "-" + end, expected, helper.generateOrgSeq(INTERACTOR_SEQUENCE, start, end));
+
+                Assert.assertFalse(helper.orgSeqWrong(expected, INTERACTOR_SEQUENCE, start, end));
+                Assert.assertTrue(helper.orgSeqWrong(expected + "A", INTERACTOR_SEQUENCE, start, end));
+                if (expected.length() > 0) {
+                    Assert.assertTrue(helper.orgSeqWrong(expected.toLowerCase(), INTERACTOR_SEQUENCE, start, end));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void original_sequence_out_of_the_interactor_sequence() {
+        // the former code threw a StringIndexOutOfBoundsException
+        Assert.assertNull(helper.generateOrgSeq(INTERACTOR_SEQUENCE, 0L, 2L));
+        Assert.assertNull(helper.generateOrgSeq(INTERACTOR_SEQUENCE, 22L, 24L));
+        Assert.assertNull(helper.generateOrgSeq("", 1L, 1L));
+        Assert.assertEquals("", helper.generateOrgSeq("", 1L, 0L));
+    }
+
+    @Test
+    public void deletion_insertion_as_before() {
+        String[] sequences = {"", ".", "..", "...", "A", "A.", ".A", "AG", "Q\nQ", "a.", "*."};
+        for (String original : sequences) {
+            for (String resulting : sequences) {
+                Assert.assertEquals(original + " -> " + resulting, regexIsItDelInsCase(original, resulting),
+                        helper.isItDelInsCase(original, resulting));
+            }
+        }
+    }
+
+    @Test
+    public void polyq_as_before() {
+        for (String unit : REPEAT_UNITS) {
+            for (String resulting : resultingSequences(unit)) {
+                assertSamePolyQ(unit, resulting, regexCheckIfPoyQ(unit, resulting), helper.checkIfPoyQAndReturnPDF(unit, resulting));
+            }
+        }
+    }
+
+    @Test
+    public void polyq_with_null_or_empty_sequences() {
+        assertSamePolyQ(null, "QQQ", regexCheckIfPoyQ(null, "QQQ"), helper.checkIfPoyQAndReturnPDF(null, "QQQ"));
+        assertSamePolyQ("Q", "", regexCheckIfPoyQ("Q", ""), helper.checkIfPoyQAndReturnPDF("Q", ""));
+
+        // the former code threw a StringIndexOutOfBoundsException
+        Assert.assertFalse(helper.checkIfPoyQAndReturnPDF("", "QQQ").isPolyQ());
+    }
+
+    @Test
+    public void polyq_of_regex_characters() {
+        // the former code compiled the sequences as regular expressions: '*' threw a PatternSyntaxException and '.' matched any residue
+        PolyQDataFeed stopCodons = helper.checkIfPoyQAndReturnPDF("*", "***");
+        Assert.assertTrue(stopCodons.isSingleAAPolyQ());
+        Assert.assertEquals(3, stopCodons.getRepeatUnit());
+
+        PolyQDataFeed deletions = helper.checkIfPoyQAndReturnPDF("Q.", "Q.Q.QA");
+        Assert.assertFalse(deletions.isPolyQ());
+        Assert.assertEquals(3, deletions.getRepeatUnit());
+    }
+
+    /**
+     * @return repeats of the unit, broken repeats, repeats with line breaks and sequences which don't contain the unit
+     */
+    private static List<String> resultingSequences(String unit) {
+        List<String> sequences = new ArrayList<String>();
+        StringBuilder repeats = new StringBuilder();
+        for (int i = 0; i <= 5; i++) {
+            String sequence = repeats.toString();
+            sequences.add(sequence);
+            sequences.add(sequence + "Q");
+            sequences.add("A" + sequence);
+            sequences.add(sequence + "\n");
+            sequences.add(sequence.length() > 1 ? sequence.substring(0, 1) + "\r\n" + sequence.substring(1) : sequence + "\r");
+            if (sequence.length() > 0) {
+                char last = sequence.charAt(sequence.length() - 1);
+                sequences.add(sequence.substring(0, sequence.length() - 1) + (last == 'A' ? 'G' : 'A'));
+            }
+            repeats.append(unit);
+        }
+        sequences.add("QQQQQQ");
+        sequences.add("qqqq");
+        return sequences;
+    }
+
+    private static void assertSamePolyQ(String original, String resulting, PolyQDataFeed expected, PolyQDataFeed actual) {
+        String message = original + " -> " + resulting;
+        Assert.assertEquals(message, expected.isPolyQ(), actual.isPolyQ());
+        Assert.assertEquals(message, expected.isSingleAAPolyQ(), actual.isSingleAAPolyQ());
+        Assert.assertEquals(message, expected.isMultipleAAPolyQ(), actual.isMultipleAAPolyQ());
+        Assert.assertEquals(message, expected.getRepeatUnit(), actual.getRepeatUnit());
+    }
+
+    /**
+     * The former ShortlabelGeneratorHelper.isItDelInsCase
+     */
+    private static boolean regexIsItDelInsCase(String oSequence, String rSequence) {
+        if (oSequence.length() == rSequence.length()) {
+            Pattern r1 = Pattern.compile("\\." + "{" + rSequence.length() + "}");
+            return !r1.matcher(rSequence).matches();
+        } else if (oSequence.length() < rSequence.length()) {
+            return true;
+        }
+        return rSequence.length() > 0;
+    }
+
+    /**
+     * The former ShortlabelGeneratorHelper.checkIfPoyQAndReturnPDF
+     */
+    private static PolyQDataFeed regexCheckIfPoyQ(String oSequence, String rSequence) {
+        boolean isSingleAAPolycule = false;
+        boolean isMultipleAAPolycule = false;
+        int repeatUnit = 0;
+        String removedNewLinesRSeq = rSequence.replaceAll("\\n", "");
+        removedNewLinesRSeq = removedNewLinesRSeq.replaceAll("\\r", "");
+        if (oSequence != null && removedNewLinesRSeq.length() > oSequence.length() && removedNewLinesRSeq.contains(oSequence)) {
+            Matcher m = Pattern.compile(oSequence.charAt(0) + "{" + oSequence.length() + "}").matcher(oSequence);
+            if (m.matches()) {
+                Pattern r2 = Pattern.compile(oSequence.charAt(0) + "{" + removedNewLinesRSeq.length() + "}");
+                isSingleAAPolycule = r2.matcher(removedNewLinesRSeq).matches();
+                repeatUnit = removedNewLinesRSeq.length();
+            } else if (removedNewLinesRSeq.length() % oSequence.length() == 0) {
+                int factor = removedNewLinesRSeq.length() / oSequence.length();
+                Pattern r3 = Pattern.compile("(" + oSequence + ")" + "{" + factor + "}");
+                isMultipleAAPolycule = r3.matcher(removedNewLinesRSeq).matches();
+                repeatUnit = factor;
+            }
+        }
+
+        PolyQDataFeed polyQDataFeed = new PolyQDataFeed();
+        polyQDataFeed.setMultipleAAPolyQ(isMultipleAAPolycule);
+        polyQDataFeed.setSingleAAPolyQ(isSingleAAPolycule);
+        polyQDataFeed.setPolyQ(isSingleAAPolycule || isMultipleAAPolycule);
+        polyQDataFeed.setRepeatUnit(repeatUnit);
+        return polyQDataFeed;
+    }
+
+    /**
+     * The former ShortlabelGeneratorHelper.generateOrgSeq
+     */
+    private static String concatenateOrgSeq(String interactorSequence, Long startingPosition, Long endPosition) {
+        String originalSequence = "";
+        while (startingPosition.intValue() <= endPosition.intValue()) {
+            originalSequence += interactorSequence.charAt(startingPosition.intValue() - 1);
+            startingPosition++;
+        }
+        return originalSequence;
+    }
+
+    /**
+     * The former ShortlabelGeneratorHelper.seq2ThreeLetterCodeOnDefault
+     */
+    private static String concatenateWithSeparator(String sequence) {
+        String sequenceAsThreeLetterCode = "";
+        for (int i = 0; i < sequence.length(); i++) {
+            sequenceAsThreeLetterCode += AminoAcids.getThreeLetterCodeByOneLetterCode(sequence.charAt(i));
+            if (i < sequence.length() - 1) {
+                sequenceAsThreeLetterCode += "_";
+            }
+        }
+        return sequenceAsThreeLetterCode;
+    }
+
+    /**
+     * The former ShortlabelGeneratorHelper.seq2ThreeLetterCodeOnDefaultResSeq
+     */
+    private static String concatenateWithoutDeletions(String sequence) {
+        String sequenceAsThreeLetterCode = "";
+        for (int i = 0; i < sequence.length(); i++) {
+            char seqChar = sequence.charAt(i);
+            if (seqChar != '.') {
+                sequenceAsThreeLetterCode += AminoAcids.getThreeLetterCodeByOneLetterCode(sequence.charAt(i));
+            }
+        }
+        return sequenceAsThreeLetterCode;
+    }
+
+    /**
+     * The former ShortlabelGeneratorHelper.seq2ThreeLetterCodeOnDefaultOrgSeq
+     */
+    private static String concatenateThreeLetterOrgSeq(String sequence, Long rangeStart, Long rangeEnd) {
+        String sequenceAsThreeLetterCode = "";
+        sequenceAsThreeLetterCode += AminoAcids.getThreeLetterCodeByOneLetterCode(sequence.charAt(0));
+        sequenceAsThreeLetterCode += rangeStart;
+        if (sequence.length() > 1) {
+            sequenceAsThreeLetterCode += Constants.ORG_SEQ_SEPERATOR + AminoAcids.getThreeLetterCodeByOneLetterCode(sequence.charAt(sequence.length() - 1)) + rangeEnd;
+        }
+        return sequenceAsThreeLetterCode;
+    }
+}
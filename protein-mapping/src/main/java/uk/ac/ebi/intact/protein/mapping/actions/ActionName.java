@@ -12,5 +12,5 @@ public enum ActionName {
     UniprotProteinAPI_accession, UniprotProteinAPI_sequence_Swissprot, UniprotProteinAPI_sequence_Trembl, BLAST_swissprot, SEARCH_uniprot_name, SEARCH_intact_exact_shortLabel,
     SEARCH_intact_shortLabel, SEARCH_intact_fullName, wide_SEARCH_uniprot, BLAST_uniprot, SEARCH_intact_crc64, BLAST_Swissprot_Remapping,
     BLAST_Swissprot_Total_Identity, BLAST_Uniprot_Total_Identity, update_checking, feature_range_checking, SEARCH_Swissprot_CrossReference,
-    SEARCH_Uniprot_CrossReference, SEARCH_Uniparc_CrossReference
+    SEARCH_Uniprot_CrossReference, SEARCH_Uniparc_CrossReference, SEARCH_uniprot_sequence_index
 }
@@ -2,12 +2,17 @@ package uk.ac.ebi.intact.protein.mapping.actions;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import uk.ac.ebi.intact.bridges.ncbiblast.BlastResultFilter;
-import uk.ac.ebi.intact.bridges.ncbiblast.BlastServiceException;
-import uk.ac.ebi.intact.bridges.ncbiblast.ProteinNCBIBlastService;
 import uk.ac.ebi.intact.bridges.ncbiblast.model.BlastProtein;
+import uk.ac.ebi.intact.protein.mapping.actions.exception.ActionProcessingException;
+import uk.ac.ebi.intact.protein.mapping.alignment.AlignmentBackend;
+import uk.ac.ebi.intact.protein.mapping.alignment.AlignmentResults;
+import uk.ac.ebi.intact.protein.mapping.alignment.NCBIBlastBackend;
 import uk.ac.ebi.intact.protein.mapping.factories.ReportsFactory;
 import uk.ac.ebi.intact.protein.mapping.model.contexts.BlastContext;
+import uk.ac.ebi.intact.protein.mapping.model.contexts.IdentificationContext;
+
+import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * this class is the class to extend if the action needs a BlastService
@@ -25,14 +30,14 @@ public abstract class ActionNeedingBlastService extends IdentificationActionImpl
     public static final Log log = LogFactory.getLog( ActionNeedingBlastService.class );
 
     /**
-     * The NCBI blast service
+     * The backend running the alignments (the NCBI blast service by default)
      */
-    protected ProteinNCBIBlastService blastService;
+    protected AlignmentBackend alignmentBackend;
 
     /**
-     * The BLAST filter
+     * The backend given to the new actions, null if each action uses its own NCBI blast service
      */
-    protected BlastResultFilter blastFilter;
+    private static volatile AlignmentBackend defaultAlignmentBackend;
 
     /**
      * The maximum number of BlastProtein instances we allow to keep in memory
@@ -44,17 +49,195 @@ public abstract class ActionNeedingBlastService extends IdentificationActionImpl
      */
     protected static final float minimumIdentityThreshold = (float) 95;
 
+    /**
+     * The default maximum number of blast jobs submitted in batch waiting for their results at the same time
+     */
+    public static final int DEFAULT_MAX_PARALLEL_BLAST_JOBS = 10;
+
+    /**
+     * The maximum number of blast jobs submitted in batch waiting for a thread
+     */
+    public static final int BLAST_QUEUE_CAPACITY = 100;
+
+    /**
+     * The threads waiting for the results of the blast jobs submitted in batch. They are released when they are idle
+     */
+    private static final ThreadPoolExecutor blastExecutor = createBlastExecutor();
+
     /**
      * Create the process
      */
     public ActionNeedingBlastService(ReportsFactory factory){
         super(factory);
+        AlignmentBackend backend = defaultAlignmentBackend;
+        this.alignmentBackend = backend != null ? backend : new NCBIBlastBackend();
+    }
+
+    /**
+     *
+     * @return the backend given to the new actions, null if each action uses its own NCBI blast service
+     */
+    public static AlignmentBackend getDefaultAlignmentBackend() {
+        return defaultAlignmentBackend;
+    }
+
+    /**
+     * Set the backend given to the actions created after this call, for instance a LocalFastaAlignmentBackend
+     * @param backend : the backend, null to use the NCBI blast service
+     */
+    public static void setDefaultAlignmentBackend(AlignmentBackend backend) {
+        defaultAlignmentBackend = backend;
+    }
+
+    public AlignmentBackend getAlignmentBackend() {
+        return alignmentBackend;
+    }
+
+    public void setAlignmentBackend(AlignmentBackend alignmentBackend) {
+        if (alignmentBackend == null){
+            throw new IllegalArgumentException("The alignment backend must be non null");
+        }
+        this.alignmentBackend = alignmentBackend;
+    }
+
+    /**
+     * Run a blast on uniprot with the alignment backend
+     * @param sequence : the query sequence
+     * @return the results of the blast
+     */
+    protected AlignmentResults runBlastOnUniprot(String sequence){
+        return this.alignmentBackend.alignOnUniprot(sequence);
+    }
+
+    /**
+     * Run a blast on swissprot with the alignment backend
+     * @param sequence : the query sequence
+     * @return the results of the blast
+     */
+    protected AlignmentResults runBlastOnSwissprot(String sequence){
+        return this.alignmentBackend.alignOnSwissprot(sequence);
+    }
+
+    /**
+     *
+     * @return the executor running the blast jobs submitted in batch. A job is rejected when the queue is full
+     */
+    private static ThreadPoolExecutor createBlastExecutor(){
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(DEFAULT_MAX_PARALLEL_BLAST_JOBS, DEFAULT_MAX_PARALLEL_BLAST_JOBS, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(BLAST_QUEUE_CAPACITY), new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "blast-batch");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+
+    /**
+     *
+     * @return the maximum number of blast jobs submitted in batch waiting for their results at the same time
+     */
+    public static int getMaxParallelBlastJobs(){
+        return blastExecutor.getMaximumPoolSize();
+    }
+
+    /**
+     * Set the maximum number of blast jobs submitted in batch waiting for their results at the same time, for instance the number
+     * of threads identifying the proteins. The number of blast jobs running on the NCBI service is still limited by the RemoteServiceThrottle.
+     * @param maxParallelBlastJobs : the maximum number of blast jobs, at least one
+     */
+    public static synchronized void setMaxParallelBlastJobs(int maxParallelBlastJobs){
+        if (maxParallelBlastJobs < 1){
+            throw new IllegalArgumentException("The maximum number of parallel blast jobs must be at least one");
+        }
+
+        // the core size can't be bigger than the maximum size
+        if (maxParallelBlastJobs > blastExecutor.getMaximumPoolSize()){
+            blastExecutor.setMaximumPoolSize(maxParallelBlastJobs);
+            blastExecutor.setCorePoolSize(maxParallelBlastJobs);
+        }
+        else {
+            blastExecutor.setCorePoolSize(maxParallelBlastJobs);
+            blastExecutor.setMaximumPoolSize(maxParallelBlastJobs);
+        }
+    }
+
+    /**
+     * Submit a blast on uniprot for the sequence of each context at once so the time spent waiting in the NCBI queue is shared by all the sequences
+     * instead of being paid one sequence after the other. A sequence present in several contexts is blasted only once.
+     * The number of blast jobs running at the same time on the NCBI service is still limited by the RemoteServiceThrottle.
+     * When the queue of the blast jobs is full, the blast is run by the calling thread.
+     * @param contexts : the contexts of the proteins to blast
+     * @return the results of the blast of each context. Each context gets its own copy of the results using waitForBlastResults(results)
+     */
+    public Map<IdentificationContext, Future<AlignmentResults>> submitBlastsOnUniprot(Collection<? extends IdentificationContext> contexts){
+        Map<IdentificationContext, Future<AlignmentResults>> resultsByContext = new LinkedHashMap<IdentificationContext, Future<AlignmentResults>>();
+        Map<String, Future<AlignmentResults>> resultsBySequence = new HashMap<String, Future<AlignmentResults>>();
+
+        for (IdentificationContext context : contexts){
+            String sequence = context.getSequence();
+            Future<AlignmentResults> results = resultsBySequence.get(sequence);
+
+            if (results == null){
+                FutureTask<AlignmentResults> blast = createBlastOnUniprot(sequence);
+                try {
+                    blastExecutor.execute(blast);
+                } catch (RejectedExecutionException e) {
+                    blast.run();
+                }
+                results = blast;
+                resultsBySequence.put(sequence, results);
+            }
+            resultsByContext.put(context, results);
+        }
+
+        return resultsByContext;
+    }
+
+    /**
+     * Submit a blast on uniprot for the sequence of the context only if a thread or a place in the queue of the blast jobs is available.
+     * @param context : the context of the protein to blast
+     * @return the results of the blast, null if the queue of the blast jobs is full and the blast has not been submitted
+     */
+    public Future<AlignmentResults> trySubmitBlastOnUniprot(IdentificationContext context){
+        FutureTask<AlignmentResults> blast = createBlastOnUniprot(context.getSequence());
         try {
-            this.blastService = new ProteinNCBIBlastService("marine@ebi.ac.uk");
-            this.blastFilter = new BlastResultFilter();
+            blastExecutor.execute(blast);
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+        return blast;
+    }
 
-        } catch (BlastServiceException e) {
-            log.error("Problem instantiating the blast client.",e);
+    /**
+     *
+     * @param sequence : the query sequence
+     * @return the blast on uniprot of the sequence, not started
+     */
+    private FutureTask<AlignmentResults> createBlastOnUniprot(final String sequence){
+        return new FutureTask<AlignmentResults>(new Callable<AlignmentResults>() {
+            public AlignmentResults call() throws Exception {
+                return runBlastOnUniprot(sequence);
+            }
+        });
+    }
+
+    /**
+     * Wait for the results of a blast submitted in batch. The results can be shared by several contexts so a copy is returned
+     * @param blastResults : the results of a blast returned by submitBlastsOnUniprot
+     * @return a copy of the results of the blast which can be filtered
+     * @throws ActionProcessingException if the blast failed
+     */
+    protected AlignmentResults waitForBlastResults(Future<AlignmentResults> blastResults) throws ActionProcessingException {
+        try {
+            return blastResults.get().copy();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ActionProcessingException("Interrupted while waiting for the results of the blast", e);
+        } catch (ExecutionException e) {
+            throw new ActionProcessingException("The blast on uniprot failed", e.getCause());
         }
     }
 
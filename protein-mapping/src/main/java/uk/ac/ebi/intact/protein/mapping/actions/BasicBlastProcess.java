@@ -6,15 +6,16 @@ import uk.ac.ebi.intact.bridges.ncbiblast.model.BlastProtein;
 import uk.ac.ebi.intact.protein.mapping.actions.exception.ActionProcessingException;
 import uk.ac.ebi.intact.protein.mapping.actions.status.Status;
 import uk.ac.ebi.intact.protein.mapping.actions.status.StatusLabel;
+import uk.ac.ebi.intact.protein.mapping.alignment.AlignmentResults;
 import uk.ac.ebi.intact.protein.mapping.factories.ReportsFactory;
 import uk.ac.ebi.intact.protein.mapping.model.actionReport.BlastReport;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.MappingReport;
 import uk.ac.ebi.intact.protein.mapping.model.contexts.BlastContext;
 import uk.ac.ebi.intact.protein.mapping.model.contexts.IdentificationContext;
 import uk.ac.ebi.intact.protein.mapping.results.impl.DefaultBlastResults;
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.Future;
 
 /**
  * This class is doing a Blast on Uniprot to collect matching proteins with a minimum identity percent. It can filter the results on the identity
@@ -53,47 +54,68 @@ public class BasicBlastProcess extends ActionNeedingBlastService{
      * Run a Blast on uniprot and keep less than 'maxNumberOfBlastProteins' BlastProtein instances in memory with an identity percent superior or equal to 'minimumIdentityThreshold'
      * Generate several Blast reports where the Blast results are stored in.
      * @param context : the context of the protein
+     * @param reports : the list where the reports of this call are added
      * @return Always null as this action is not aimed at analyzing the BLAST results to identify the protein but is aimed at storing the BLAST results in an ActionReport added to its list of ActionReports
      * @throws uk.ac.ebi.intact.protein.mapping.actions.exception.ActionProcessingException
      */
-    public String runAction(IdentificationContext context) throws ActionProcessingException {
+    public String runAction(IdentificationContext context, List<MappingReport> reports) throws ActionProcessingException {
         BlastContext blastContext = (BlastContext) context;
 
-        // always clear the list of reports from previous actions
-        this.listOfReports.clear();
 
         // Create a DefaultBlastReport
         BlastReport report = getReportsFactory().getBlastReport(ActionName.BLAST_uniprot);
-        this.listOfReports.add(report);
+        reports.add(report);
 
-        // Run the blast on Uniprot and save the results in the BLAST filter
-        InputStream uniprotBlast = this.blastService.getResultsOfBlastOnUniprot(context.getSequence());
+        // Run the blast on Uniprot
+        AlignmentResults blastFilter = runBlastOnUniprot(context.getSequence());
 
-        if (uniprotBlast != null){
-            try{
-                this.blastFilter.setResults(uniprotBlast);
-            }
-            finally {
-                try {
-                    uniprotBlast.close();
-                } catch (IOException e) {
-                    log.error("Impossible to close BLAST results", e);
-                }
-            }
-        }
+        processBlastResults(blastContext, blastFilter, report);
+
+        return null;
+    }
 
+    /**
+     * Same as runAction(context, reports) but the blast on uniprot has already been submitted with submitBlastsOnUniprot
+     * @param context : the context of the protein
+     * @param reports : the list where the reports of this call are added
+     * @param blastResults : the results of the blast submitted for this context
+     * @return Always null as this action is not aimed at analyzing the BLAST results to identify the protein
+     * @throws uk.ac.ebi.intact.protein.mapping.actions.exception.ActionProcessingException if the blast failed
+     */
+    public String runAction(IdentificationContext context, List<MappingReport> reports, Future<AlignmentResults> blastResults) throws ActionProcessingException {
+        BlastContext blastContext = (BlastContext) context;
+
+        // Create a DefaultBlastReport
+        BlastReport report = getReportsFactory().getBlastReport(ActionName.BLAST_uniprot);
+        reports.add(report);
+
+        // Wait for the blast on Uniprot
+        AlignmentResults blastFilter = waitForBlastResults(blastResults);
+
+        processBlastResults(blastContext, blastFilter, report);
+
+        return null;
+    }
+
+    /**
+     * Filter the results of the blast and keep less than 'maxNumberOfBlastProteins' BlastProtein instances in the report
+     * @param context : the context of the protein
+     * @param blastFilter : the results of the blast
+     * @param report : the report of the blast
+     */
+    private void processBlastResults(BlastContext context, AlignmentResults blastFilter, BlastReport report){
         if (context.getOrganism() != null){
             // Filter the results on the organism and the minimum identity threshold
-            this.blastFilter.filterResultsWithIdentityAndOrganism(minimumIdentityThreshold, context.getOrganism().getTaxId());
+            blastFilter.filterResultsWithIdentityAndOrganism(minimumIdentityThreshold, context.getOrganism().getTaxId());
         }
         else{
             // Filter only on the minimum identity threshold
             report.addWarning("No organism has been given for the sequence " + context.getSequence() + ". We will process the blast on uniprot without filtering with the organism.");
-            this.blastFilter.filterResultsWithIdentity(minimumIdentityThreshold);
+            blastFilter.filterResultsWithIdentity(minimumIdentityThreshold);
         }
 
         // Get the results of the Blast filter after we have filtered the results
-        List<BlastProtein> blastProteins = this.blastFilter.getMatchingEntries();
+        List<BlastProtein> blastProteins = blastFilter.getMatchingEntries();
 
         if (blastProteins.isEmpty()){
             Status status2 = new Status(StatusLabel.FAILED, "A blast has been done on Uniprot and we didn't find any hits with more than "+minimumIdentityThreshold+"% identity.");
@@ -103,7 +125,7 @@ public class BasicBlastProcess extends ActionNeedingBlastService{
             // Add the results of the blast but not more than the maximum number of BlastProtein we want to keep in memory
             for (BlastProtein b : blastProteins){
 
-                float queryCoverage = getQuerySequenceCoveragePercentFor(b, blastContext);
+                float queryCoverage = getQuerySequenceCoveragePercentFor(b, context);
                 float matchCoverage = getMatchSequenceCoveragePercentFor(b);
 
                 if (report.getBlastMatchingProteins().size() > maxNumberOfBlastProteins){
@@ -117,8 +139,6 @@ public class BasicBlastProcess extends ActionNeedingBlastService{
             Status status2 = new Status(StatusLabel.TO_BE_REVIEWED, "A blast has been done on Uniprot and we found " + blastProteins.size() + " possible proteins with an identity superior or equal to " + minimumIdentityThreshold + "%.");
             report.setStatus(status2);
         }
-
-        return null;
     }
 
     public float getMinimumMatchSequenceCoverage() {
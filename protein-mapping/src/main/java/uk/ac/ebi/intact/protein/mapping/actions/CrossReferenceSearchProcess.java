@@ -9,7 +9,6 @@ import uk.ac.ebi.intact.protein.mapping.factories.ReportsFactory;
 import uk.ac.ebi.intact.protein.mapping.model.actionReport.MappingReport;
 import uk.ac.ebi.intact.protein.mapping.model.contexts.IdentificationContext;
 import uk.ac.ebi.intact.uniprot.model.UniprotProtein;
-import uk.ac.ebi.intact.uniprot.service.SimpleUniprotRemoteService;
 import uk.ac.ebi.intact.uniprot.service.UniprotService;
 import uk.ac.ebi.kraken.interfaces.uniparc.UniParcEntry;
 import uk.ac.ebi.kraken.interfaces.uniprot.DatabaseType;
@@ -47,9 +46,9 @@ public class CrossReferenceSearchProcess extends ActionNeedingUniprotService {
      */
     private static final String swissprot_sv = "uniprotkb/swiss-prot protein isoforms";
     /**
-     * The uniprot remote service
+     * The uniprot remote service of each thread
      */
-    private static UniprotService uniprotService;
+    private final ThreadLocalUniprotService uniprotService;
     /**
      * the uniparc service
      */
@@ -69,13 +68,27 @@ public class CrossReferenceSearchProcess extends ActionNeedingUniprotService {
     public CrossReferenceSearchProcess(ReportsFactory factory) {
         super(factory);
         initialisePsiMIDatabaseToUniprot();
-        uniprotService = new SimpleUniprotRemoteService();
+        this.uniprotService = new ThreadLocalUniprotService();
     }
 
+    /**
+     * Create a new CrossReferenceSearchProcess and initialises the list of databases in uniprot with a MI number
+     * @param factory : the factory of the reports
+     * @param service : the uniprot service, which can only be used by the thread creating the action
+     */
     public CrossReferenceSearchProcess(ReportsFactory factory, UniprotService service) {
+        this(factory, new ThreadLocalUniprotService(service));
+    }
+
+    /**
+     * Create a new CrossReferenceSearchProcess and initialises the list of databases in uniprot with a MI number
+     * @param factory : the factory of the reports
+     * @param uniprotService : the uniprot services of the threads using this action
+     */
+    public CrossReferenceSearchProcess(ReportsFactory factory, ThreadLocalUniprotService uniprotService) {
         super(factory);
         initialisePsiMIDatabaseToUniprot();
-        uniprotService = service != null ? service : new SimpleUniprotRemoteService();
+        this.uniprotService = uniprotService != null ? uniprotService : new ThreadLocalUniprotService();
     }
 
     /**
@@ -375,30 +388,42 @@ public class CrossReferenceSearchProcess extends ActionNeedingUniprotService {
     private boolean hasTheAppropriateOrganism(String uniprot, String taxId) throws ActionProcessingException {
 
         if (taxId != null) {
-            uniprotService.start();
+            UniprotProtein cachedProtein = uniprotService.getUniprotCache().get(uniprot);
+
+            if (cachedProtein != null) {
+                return hasTheAppropriateOrganism(cachedProtein, taxId);
+            }
+
             Collection<UniprotProtein> proteins = uniprotService.retrieve(uniprot);
 
             if (proteins.size() != 1) {
-                uniprotService.close();
                 throw new ActionProcessingException("The uniprot accession " + uniprot + " could match several uniprot entries.");
             } else if (proteins.isEmpty()) {
-                uniprotService.close();
                 throw new ActionProcessingException("The uniprot accession " + uniprot + " couldn't match any uniprot entries.");
             } else {
                 UniprotProtein prot = proteins.iterator().next();
+                uniprotService.getUniprotCache().put(uniprot, prot);
 
-                if (prot.getOrganism() != null) {
-                    String tax = Integer.toString(prot.getOrganism().getTaxid());
-                    if (taxId.equalsIgnoreCase(tax)) {
-                        return true;
-                    }
-                }
+                return hasTheAppropriateOrganism(prot, taxId);
             }
         } else {
-            uniprotService.close();
             return true;
         }
-        uniprotService.close();
+    }
+
+    /**
+     * @param prot  : the uniprot entry
+     * @param taxId : the taxId
+     * @return true if the uniprot entry matches the taxId
+     */
+    private boolean hasTheAppropriateOrganism(UniprotProtein prot, String taxId) {
+
+        if (prot.getOrganism() != null) {
+            String tax = Integer.toString(prot.getOrganism().getTaxid());
+            if (taxId.equalsIgnoreCase(tax)) {
+                return true;
+            }
+        }
         return false;
     }
 
@@ -467,12 +492,11 @@ public class CrossReferenceSearchProcess extends ActionNeedingUniprotService {
      * Query uniprot without a filter on Swissprot.
      *
      * @param context : the context of the protein
+     * @param reports : the list where the reports of this call are added
      * @return a unique uniprot accession if possible, null otherwise
      * @throws ActionProcessingException
      */
-    public String runAction(IdentificationContext context) throws ActionProcessingException {
-        // always clear the previous reports
-        this.listOfReports.clear();
+    public String runAction(IdentificationContext context, List<MappingReport> reports) throws ActionProcessingException {
 
         String identifier = context.getIdentifier();
         Set<DatabaseType> databaseTypes = convertMINumberInUniprot(context.getDatabaseForIdentifier(), context.getDatabaseName());
@@ -483,7 +507,7 @@ public class CrossReferenceSearchProcess extends ActionNeedingUniprotService {
         QueryResult<UniProtEntry> iteratorSwissprot = getReviewedUniprotDatabaseCrossReferenceIterator(databaseTypes, identifier);
         // Create a new report
         MappingReport report = getReportsFactory().getMappingReport(ActionName.SEARCH_Swissprot_CrossReference);
-        this.listOfReports.add(report);
+        reports.add(report);
 
         // if the organism is not null, we can add a filter on the organism
         if (context.getOrganism() != null) {
@@ -500,7 +524,7 @@ public class CrossReferenceSearchProcess extends ActionNeedingUniprotService {
 
             // new query, new report
             MappingReport report2 = getReportsFactory().getMappingReport(ActionName.SEARCH_Uniprot_CrossReference);
-            this.listOfReports.add(report2);
+            reports.add(report2);
 
             // get the results of the query on Trembl
             QueryResult<UniProtEntry> iteratorTrembl = getUnreviewedUniprotDatabaseCrossReferenceIterator(databaseTypes, identifier);
@@ -535,7 +559,7 @@ public class CrossReferenceSearchProcess extends ActionNeedingUniprotService {
 
             // create a new report
             MappingReport reportUniparc = getReportsFactory().getMappingReport(ActionName.SEARCH_Uniparc_CrossReference);
-            this.listOfReports.add(reportUniparc);
+            reports.add(reportUniparc);
 
             // build query for uniparc
             // get the results of the query on uniparc
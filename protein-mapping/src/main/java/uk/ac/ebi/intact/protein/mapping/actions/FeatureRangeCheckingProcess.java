@@ -2,6 +2,9 @@ package uk.ac.ebi.intact.protein.mapping.actions;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.transaction.TransactionStatus;
+import uk.ac.ebi.intact.core.IntactTransactionException;
+import uk.ac.ebi.intact.core.context.DataContext;
 import uk.ac.ebi.intact.core.context.IntactContext;
 import uk.ac.ebi.intact.core.persistence.dao.DaoFactory;
 import uk.ac.ebi.intact.model.Component;
@@ -12,6 +15,7 @@ import uk.ac.ebi.intact.protein.mapping.actions.status.Status;
 import uk.ac.ebi.intact.protein.mapping.actions.status.StatusLabel;
 import uk.ac.ebi.intact.protein.mapping.factories.ReportsFactory;
 import uk.ac.ebi.intact.protein.mapping.model.actionReport.BlastReport;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.MappingReport;
 import uk.ac.ebi.intact.protein.mapping.model.contexts.FeatureRangeCheckingContext;
 import uk.ac.ebi.intact.protein.mapping.model.contexts.IdentificationContext;
 import uk.ac.ebi.intact.protein.mapping.results.BlastResults;
@@ -111,13 +115,12 @@ public class FeatureRangeCheckingProcess extends IdentificationActionImpl {
      * Check that all the ranges of the features that the Intact entry can contain in Intact are not in conflict with the new sequence(s)
      * proposed by the blast on Swissprot to replace the Trembl entry. 
      * @param context : the context of the protein
+     * @param reports : the list where the reports of this call are added
      * @return the trembl accession in the context if the sequences of the Swissprot proteins have some conflicts with the ranges of some features,
      * the Swissprot accession if there is only one Swissprot protein with no conflicts and null if there are several Swissprot proteins with no conflict.
      * @throws uk.ac.ebi.intact.protein.mapping.actions.exception.ActionProcessingException
      */
-    public String runAction(IdentificationContext context) throws ActionProcessingException {
-        // always clear the list of reports from previous actions
-        this.listOfReports.clear();
+    public String runAction(IdentificationContext context, List<MappingReport> reports) throws ActionProcessingException {
         IntactContext intactContext = IntactContext.getCurrentInstance();
 
         // We need to have a specific context containing the previous Trembl accession which totally matched the Intact protein and the possible
@@ -132,7 +135,7 @@ public class FeatureRangeCheckingProcess extends IdentificationActionImpl {
 
             // Create a DefaultBlastReport
             BlastReport<BlastResults> report = getReportsFactory().getBlastReport(ActionName.feature_range_checking);
-            this.listOfReports.add(report);
+            reports.add(report);
 
             // If there were no Swissprot proteins which can replace the Trembl entry, it is an error and this action fails
             if (processContext.getResultsOfSwissprotRemapping().isEmpty()){
@@ -141,57 +144,22 @@ public class FeatureRangeCheckingProcess extends IdentificationActionImpl {
                 return processContext.getTremblAccession();
             }
 
-            DaoFactory factory = intactContext.getDaoFactory();
-            // get the components involving the Intact entry
-            List<Component> components = factory.getComponentDao().getByInteractorAc(processContext.getIntactAccession());
-
-            // If there is no component containing this protein, we don't have conflicts with feature ranges
-            if (components.isEmpty()){
-                report.getBlastMatchingProteins().addAll(processContext.getResultsOfSwissprotRemapping());
+            DataContext dataContext = intactContext.getDataContext();
+            // the components are read in a short transaction of their own so the identification doesn't need to hold one
+            // during the remote queries
+            TransactionStatus transactionStatus = dataContext.beginTransaction();
+            try {
+                checkFeatureRanges(intactContext.getDaoFactory(), processContext, report);
+                dataContext.commitTransaction(transactionStatus);
+            } catch (IntactTransactionException e) {
+                throw new ActionProcessingException("The feature ranges of the protein " + processContext.getIntactAccession() + " could not be read.", e);
             }
-            else {
-                // to check that at least one component has a feature
-                boolean hasAtLeastOneFeature = false;
-                // to check when a conflict has been detected
-                boolean hasRangeConflict = false;
-
-                for (Component component : components){
-                    Collection<Feature> features = component.getBindingDomains();
-
-                    if (!features.isEmpty()){
-                        hasAtLeastOneFeature = true;
-
-                        for (Feature feature : features){
-                            Collection<Range> ranges = feature.getRanges();
-
-                            for (Range range : ranges){
-                                // undetermined ranges are not affected by the new sequence
-                                if (!range.isUndetermined()) {
-                                    for (BlastResults protein : processContext.getResultsOfSwissprotRemapping()){
-
-                                        if (!checkRangeValidWithNewSequence(range, protein, report)){
-                                            hasRangeConflict = true;
-                                        }
-                                        else{
-                                            // The sequence of this Blast protein is not in conflict with the range, we can keep it among the Blast results in the report
-                                            report.addBlastMatchingProtein(protein);
-                                        }
-                                    }
-
-                                }
-                            }
-                        }
-                    }
-                }
-
-                // If all the components didn't contain any feature, there is no conflict, we can keep the previous blast results
-                if (!hasAtLeastOneFeature){
-                    report.getBlastMatchingProteins().addAll(processContext.getResultsOfSwissprotRemapping());
-                }
-                else {
-                    // there is no conflict, we can keep the previous blast results
-                    if (!hasRangeConflict){
-                        report.getBlastMatchingProteins().addAll(processContext.getResultsOfSwissprotRemapping());
+            finally {
+                if (!transactionStatus.isCompleted()){
+                    try {
+                        dataContext.rollbackTransaction(transactionStatus);
+                    } catch (IntactTransactionException e) {
+                        log.error("The transaction could not be rolled back", e);
                     }
                 }
             }
@@ -234,4 +202,66 @@ public class FeatureRangeCheckingProcess extends IdentificationActionImpl {
             }
         }
     }
+
+    /**
+     * Keep in the report the Swissprot proteins whose sequence is not in conflict with the feature ranges of the Intact protein
+     * @param factory : the dao factory
+     * @param processContext : the context with the results of the swissprot remapping
+     * @param report : the report where the proteins without conflicts are added
+     */
+    private void checkFeatureRanges(DaoFactory factory, FeatureRangeCheckingContext processContext, BlastReport<BlastResults> report){
+        // get the components involving the Intact entry
+        List<Component> components = factory.getComponentDao().getByInteractorAc(processContext.getIntactAccession());
+
+        // If there is no component containing this protein, we don't have conflicts with feature ranges
+        if (components.isEmpty()){
+            report.getBlastMatchingProteins().addAll(processContext.getResultsOfSwissprotRemapping());
+        }
+        else {
+            // to check that at least one component has a feature
+            boolean hasAtLeastOneFeature = false;
+            // to check when a conflict has been detected
+            boolean hasRangeConflict = false;
+
+            for (Component component : components){
+                Collection<Feature> features = component.getBindingDomains();
+
+                if (!features.isEmpty()){
+                    hasAtLeastOneFeature = true;
+
+                    for (Feature feature : features){
+                        Collection<Range> ranges = feature.getRanges();
+
+                        for (Range range : ranges){
+                            // undetermined ranges are not affected by the new sequence
+                            if (!range.isUndetermined()) {
+                                for (BlastResults protein : processContext.getResultsOfSwissprotRemapping()){
+
+                                    if (!checkRangeValidWithNewSequence(range, protein, report)){
+                                        hasRangeConflict = true;
+                                    }
+                                    else{
+                                        // The sequence of this Blast protein is not in conflict with the range, we can keep it among the Blast results in the report
+                                        report.addBlastMatchingProtein(protein);
+                                    }
+                                }
+
+                            }
+                        }
+                    }
+                }
+            }
+
+            // If all the components didn't contain any feature, there is no conflict, we can keep the previous blast results
+            if (!hasAtLeastOneFeature){
+                report.getBlastMatchingProteins().addAll(processContext.getResultsOfSwissprotRemapping());
+            }
+            else {
+                // there is no conflict, we can keep the previous blast results
+                if (!hasRangeConflict){
+                    report.getBlastMatchingProteins().addAll(processContext.getResultsOfSwissprotRemapping());
+                }
+            }
+        }
+    }
 }
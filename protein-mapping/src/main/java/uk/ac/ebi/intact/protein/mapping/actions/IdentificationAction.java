@@ -26,9 +26,19 @@ public interface IdentificationAction {
      */
     public String runAction(IdentificationContext context) throws ActionProcessingException;
 
+    /**
+     * Run the process that follows this action and add the ActionReports of this call to the given list. The action doesn't keep
+     * any state between two calls so the same action can be run for several contexts at the same time
+     * @param context  : the context of the protein
+     * @param reports : the list where the ActionReports of this call are added
+     * @return The unique uniprot AC identifying the protein that this action could find, null otherwise
+     * @throws uk.ac.ebi.intact.protein.mapping.actions.exception.ActionProcessingException
+     */
+    public String runAction(IdentificationContext context, List<MappingReport> reports) throws ActionProcessingException;
+
     /**
      *
-     * @return the list of ActionReports the action contains
+     * @return the list of ActionReports of the last call to runAction(context) made by the current thread
      */
     public List<MappingReport> getListOfActionReports();
 
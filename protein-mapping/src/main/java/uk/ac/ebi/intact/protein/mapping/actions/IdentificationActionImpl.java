@@ -1,8 +1,10 @@
 package uk.ac.ebi.intact.protein.mapping.actions;
 
 import uk.ac.ebi.intact.bridges.ncbiblast.model.BlastProtein;
+import uk.ac.ebi.intact.protein.mapping.actions.exception.ActionProcessingException;
 import uk.ac.ebi.intact.protein.mapping.factories.ReportsFactory;
 import uk.ac.ebi.intact.protein.mapping.model.actionReport.MappingReport;
+import uk.ac.ebi.intact.protein.mapping.model.contexts.IdentificationContext;
 import uk.ac.ebi.intact.protein.mapping.results.BlastResults;
 import uk.ac.ebi.intact.uniprot.service.IdentifierChecker;
 
@@ -22,9 +24,14 @@ import java.util.Set;
 public abstract class IdentificationActionImpl implements IdentificationAction {
 
     /**
-     * List of reports
+     * The reports of the last call to runAction(context) made by each thread
      */
-    protected List<MappingReport> listOfReports = new ArrayList<MappingReport>();
+    private final ThreadLocal<List<MappingReport>> lastReports = new ThreadLocal<List<MappingReport>>(){
+        @Override
+        protected List<MappingReport> initialValue() {
+            return new ArrayList<MappingReport>();
+        }
+    };
 
     private ReportsFactory reportsFactory;
 
@@ -32,12 +39,25 @@ public abstract class IdentificationActionImpl implements IdentificationAction {
         this.reportsFactory = factory;
     }
 
+    /**
+     * Run the process with a new list of reports which can be retrieved afterwards with getListOfActionReports()
+     * @param context  : the context of the protein
+     * @return The unique uniprot AC identifying the protein that this action could find, null otherwise
+     * @throws ActionProcessingException
+     */
+    public String runAction(IdentificationContext context) throws ActionProcessingException {
+        List<MappingReport> reports = new ArrayList<MappingReport>();
+        this.lastReports.set(reports);
+
+        return runAction(context, reports);
+    }
+
     /**
      *
-     * @return the list of reports of this object
+     * @return the list of reports of the last call to runAction(context) made by the current thread
      */
     public List<MappingReport> getListOfActionReports() {
-        return this.listOfReports;
+        return this.lastReports.get();
     }
 
     /**
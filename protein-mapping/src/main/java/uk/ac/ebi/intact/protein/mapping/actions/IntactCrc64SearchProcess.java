@@ -12,6 +12,7 @@ import uk.ac.ebi.intact.protein.mapping.actions.status.Status;
 import uk.ac.ebi.intact.protein.mapping.actions.status.StatusLabel;
 import uk.ac.ebi.intact.protein.mapping.factories.ReportsFactory;
 import uk.ac.ebi.intact.protein.mapping.model.actionReport.IntactCrc64Report;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.MappingReport;
 import uk.ac.ebi.intact.protein.mapping.model.contexts.IdentificationContext;
 
 import java.util.List;
@@ -42,19 +43,18 @@ public class IntactCrc64SearchProcess extends IdentificationActionImpl {
      * Look into the IntAct database if the CRC64 of the sequence to identify is matching an Intact entry. If the organism of the protein
      * to identify is given, add a filter on the organism to the search
      * @param context  : the context of the protein
+     * @param reports : the list where the reports of this call are added
      * @return Always null as the process doesn't aimed at finding an unique uniprot entry but aimed at finding an unique IntAct entry. It Will add the results of the process
      * (Intact accession, possible intact entries, etc.) on an DefaultIntactCrc64Report which will be added to the list of reports of this object.
      * @throws uk.ac.ebi.intact.protein.mapping.actions.exception.ActionProcessingException
      */
-    public String runAction(IdentificationContext context) throws ActionProcessingException {
-        // Always clear the previous action reports from the list
-        this.listOfReports.clear();
+    public String runAction(IdentificationContext context, List<MappingReport> reports) throws ActionProcessingException {
 
         IntactContext intactContext = IntactContext.getCurrentInstance();
 
         // Create an DefaultIntactCrc64Report
         IntactCrc64Report report = getReportsFactory().getIntactCrc64Report(ActionName.SEARCH_intact_crc64);
-        this.listOfReports.add(report);
+        reports.add(report);
 
         // Add the sequence to the report
         report.setQuerySequence(context.getSequence());
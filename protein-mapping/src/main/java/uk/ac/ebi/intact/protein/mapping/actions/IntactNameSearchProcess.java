@@ -12,12 +12,14 @@ import uk.ac.ebi.intact.protein.mapping.actions.status.Status;
 import uk.ac.ebi.intact.protein.mapping.actions.status.StatusLabel;
 import uk.ac.ebi.intact.protein.mapping.factories.ReportsFactory;
 import uk.ac.ebi.intact.protein.mapping.model.actionReport.IntactReport;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.MappingReport;
 import uk.ac.ebi.intact.protein.mapping.model.actionReport.impl.DefaultIntactReport;
 import uk.ac.ebi.intact.protein.mapping.model.contexts.IdentificationContext;
 
 import javax.persistence.Query;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 /**
  * This class is looking into the IntAct database for proteins with a shortlabel or fullname  which could match the name of the protein
@@ -92,9 +94,10 @@ public class IntactNameSearchProcess extends IdentificationActionImpl {
      * @param name : the name of the protein to identify
      * @param organism : the organism of the protein to identify
      * @param report : the report
+     * @param reports : the list of reports of the current call
      * @return The list of Intact accessions which are matching the name of the protein as well as the organism
      */
-    private Collection<String> processNameSearch(String name, String organism, IntactReport report){
+    private Collection<String> processNameSearch(String name, String organism, IntactReport report, List<MappingReport> reports){
         IntactContext intactContext = IntactContext.getCurrentInstance();
 
         // create the data context
@@ -114,7 +117,7 @@ public class IntactNameSearchProcess extends IdentificationActionImpl {
 
             // New search = new DefaultIntactReport
             IntactReport report2 = getReportsFactory().getIntactReport(ActionName.SEARCH_intact_shortLabel);
-            this.listOfReports.add(report2);
+            reports.add(report2);
 
             // the list of interactors with shortlabel like 'name%'
             interactors = daoFactory.getInteractorDao().getByShortLabelLike(name + '%');
@@ -128,7 +131,7 @@ public class IntactNameSearchProcess extends IdentificationActionImpl {
 
                 // New search = new DefaultIntactReport
                 DefaultIntactReport report3 = new DefaultIntactReport(ActionName.SEARCH_intact_fullName);
-                this.listOfReports.add(report3);
+                reports.add(report3);
 
                 // get the list of interactors with fullname like '%name%'
                 Query query = daoFactory.getEntityManager().createQuery("select p from InteractorImpl p "+
@@ -149,14 +152,13 @@ public class IntactNameSearchProcess extends IdentificationActionImpl {
     /**
      * It will look if the gene name, protein name and/or general name of the protein to identify is matching a shortlabel of fullname of an Intact entry
      * @param context : the context of the protein
+     * @param reports : the list where the reports of this call are added
      * @return Always null as the process doesn't aimed at finding an unique uniprot entry but aimed at finding an unique IntAct entry. It Will add the results of the process
      * (Intact accession, possible intact entries, etc.) on an DefaultIntactReport which will be added to the list of reports of this object.
      * @throws uk.ac.ebi.intact.protein.mapping.actions.exception.ActionProcessingException
      */
-    public String runAction(IdentificationContext context) throws ActionProcessingException {
+    public String runAction(IdentificationContext context, List<MappingReport> reports) throws ActionProcessingException {
 
-        // Always clear the previous report of this object
-        this.listOfReports.clear();
 
         String geneName = context.getGene_name();
         String protein_name = context.getProtein_name();
@@ -169,7 +171,7 @@ public class IntactNameSearchProcess extends IdentificationActionImpl {
 
         // create an DefaultIntactReport
         IntactReport report = getReportsFactory().getIntactReport(ActionName.SEARCH_intact_exact_shortLabel);
-        this.listOfReports.add(report);
+        reports.add(report);
 
         if (organism == null){
             report.addWarning("No organism was given for the protein with : name =  " + context.getGlobalName() != null ? context.getGlobalName() : (context.getGene_name()!= null ? context.getGene_name() : (context.getProtein_name() != null ? context.getProtein_name() : "")) + ". We will process the identification without looking at the organism and choose the entry with the longest sequence.");
@@ -180,19 +182,19 @@ public class IntactNameSearchProcess extends IdentificationActionImpl {
 
         // if the gene name is not null, query Intact with the gene name
         if (geneName != null){
-            intactAccessions.addAll(processNameSearch(geneName, organism, report));
+            intactAccessions.addAll(processNameSearch(geneName, organism, report, reports));
         }
         // if the protein name is not null, query Intact with the protein name
         if (protein_name != null){
-            intactAccessions.addAll(processNameSearch(protein_name, organism, report));
+            intactAccessions.addAll(processNameSearch(protein_name, organism, report, reports));
         }
         // if the general name is not null, query Intact with the general name
         if (globalName != null){
-            intactAccessions.addAll(processNameSearch(globalName, organism, report));
+            intactAccessions.addAll(processNameSearch(globalName, organism, report, reports));
         }
 
         // finish to write the status of the last report
-        IntactReport ir = (IntactReport) this.listOfReports.get(this.listOfReports.size() - 1);
+        IntactReport ir = (IntactReport) reports.get(reports.size() - 1);
 
         if (intactAccessions.isEmpty()){
             Status status = new Status(StatusLabel.FAILED, "There is no Intact entry matching the names : " + (geneName != null ? geneName : "no gene name") + (protein_name != null ? " and " + protein_name : " and no protein name") + (globalName != null ? " and " + globalName : "and no other name"));
@@ -0,0 +1,82 @@
+package uk.ac.ebi.intact.protein.mapping.actions;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * This class limits the number of concurrent calls made to each remote service used by the identification actions.
+ * By default, the number of concurrent calls is not limited.
+ *
+ * A caller must always release the permit it acquired :
+ *
+ * Semaphore permit = RemoteServiceThrottle.acquire(RemoteService.NCBI_BLAST);
+ * try {
+ *     ...
+ * }
+ * finally {
+ *     permit.release();
+ * }
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+public final class RemoteServiceThrottle {
+
+    /**
+     * The remote services which can be throttled
+     */
+    public enum RemoteService {
+        UNIPROT_PROTEIN_API, UNIPROT, NCBI_BLAST
+    }
+
+    /**
+     * The permits available for each remote service
+     */
+    private static final Map<RemoteService, Semaphore> permits = new ConcurrentHashMap<RemoteService, Semaphore>();
+
+    static {
+        for (RemoteService service : RemoteService.values()){
+            permits.put(service, new Semaphore(Integer.MAX_VALUE, true));
+        }
+    }
+
+    private RemoteServiceThrottle(){
+    }
+
+    /**
+     * Set the maximum number of concurrent calls to a remote service. The calls already running are not affected.
+     * @param service : the remote service
+     * @param maxConcurrentCalls : the maximum number of concurrent calls, 0 or less means unlimited
+     */
+    public static void setMaxConcurrentCalls(RemoteService service, int maxConcurrentCalls){
+        if (service == null){
+            throw new IllegalArgumentException("The remote service must be non null");
+        }
+        permits.put(service, new Semaphore(maxConcurrentCalls > 0 ? maxConcurrentCalls : Integer.MAX_VALUE, true));
+    }
+
+    /**
+     * Wait until a call to the remote service is allowed
+     * @param service : the remote service
+     * @return the semaphore which must be released when the call is finished
+     */
+    public static Semaphore acquire(RemoteService service){
+        Semaphore semaphore = permits.get(service);
+        semaphore.acquireUninterruptibly();
+        return semaphore;
+    }
+
+    /**
+     * Wait until a call to the remote service is allowed or the thread is interrupted, for instance because the call has been cancelled
+     * @param service : the remote service
+     * @return the semaphore which must be released when the call is finished
+     * @throws InterruptedException if the thread has been interrupted, no permit is held then
+     */
+    public static Semaphore acquireInterruptibly(RemoteService service) throws InterruptedException {
+        Semaphore semaphore = permits.get(service);
+        semaphore.acquire();
+        return semaphore;
+    }
+}
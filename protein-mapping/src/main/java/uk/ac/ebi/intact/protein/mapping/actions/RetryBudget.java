@@ -0,0 +1,90 @@
+package uk.ac.ebi.intact.protein.mapping.actions;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class limits the number of retries of the calls to a remote service, whatever the thread making them.
+ *
+ * Each call deposits a fraction of a retry in the budget and each retry withdraws a whole retry. The budget can't hold more
+ * than a maximum number of retries, so when the remote service fails for every call the retries are soon limited to the
+ * fraction of the calls instead of multiplying the load on the service.
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+public class RetryBudget {
+
+    /**
+     * the number of units of one retry
+     */
+    private static final long UNITS_PER_RETRY = 1000;
+
+    /**
+     * the units deposited by each call
+     */
+    private final long unitsPerCall;
+
+    /**
+     * the maximum number of units of the budget
+     */
+    private final long maxUnits;
+
+    /**
+     * the units available
+     */
+    private final AtomicLong units;
+
+    /**
+     * Create a new RetryBudget, full
+     * @param retryRatio : the number of retries allowed per call once the budget is empty, between 0 and 1
+     * @param maxRetries : the maximum number of retries the budget can hold
+     */
+    public RetryBudget(double retryRatio, int maxRetries){
+        if (retryRatio < 0 || retryRatio > 1){
+            throw new IllegalArgumentException("The retry ratio must be between 0 and 1 : " + retryRatio);
+        }
+        if (maxRetries < 0){
+            throw new IllegalArgumentException("The maximum number of retries can't be negative : " + maxRetries);
+        }
+        this.unitsPerCall = Math.round(retryRatio * UNITS_PER_RETRY);
+        this.maxUnits = maxRetries * UNITS_PER_RETRY;
+        this.units = new AtomicLong(this.maxUnits);
+    }
+
+    /**
+     * Deposit the share of a new call in the budget
+     */
+    public void recordCall(){
+        long current;
+        do {
+            current = this.units.get();
+            if (current >= this.maxUnits){
+                return;
+            }
+        } while (!this.units.compareAndSet(current, Math.min(this.maxUnits, current + this.unitsPerCall)));
+    }
+
+    /**
+     * Withdraw a retry from the budget
+     * @return true if the retry is allowed, false if the budget is exhausted
+     */
+    public boolean tryAcquireRetry(){
+        long current;
+        do {
+            current = this.units.get();
+            if (current < UNITS_PER_RETRY){
+                return false;
+            }
+        } while (!this.units.compareAndSet(current, current - UNITS_PER_RETRY));
+        return true;
+    }
+
+    /**
+     *
+     * @return the number of retries currently allowed
+     */
+    public long getAvailableRetries(){
+        return this.units.get() / UNITS_PER_RETRY;
+    }
+}
@@ -6,8 +6,10 @@ import uk.ac.ebi.intact.bridges.ncbiblast.model.BlastProtein;
 import uk.ac.ebi.intact.protein.mapping.actions.exception.ActionProcessingException;
 import uk.ac.ebi.intact.protein.mapping.actions.status.Status;
 import uk.ac.ebi.intact.protein.mapping.actions.status.StatusLabel;
+import uk.ac.ebi.intact.protein.mapping.alignment.AlignmentResults;
 import uk.ac.ebi.intact.protein.mapping.factories.ReportsFactory;
 import uk.ac.ebi.intact.protein.mapping.model.actionReport.BlastReport;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.MappingReport;
 import uk.ac.ebi.intact.protein.mapping.model.contexts.BlastContext;
 import uk.ac.ebi.intact.protein.mapping.model.contexts.IdentificationContext;
 import uk.ac.ebi.intact.protein.mapping.results.BlastResults;
@@ -15,8 +17,6 @@ import uk.ac.ebi.intact.protein.mapping.results.impl.DefaultBlastResults;
 import uk.ac.ebi.intact.protein.mapping.strategies.IdentificationStrategyImpl;
 import uk.ac.ebi.intact.protein.mapping.strategies.exceptions.StrategyException;
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -41,29 +41,36 @@ public class SwissprotRemappingProcess extends ActionNeedingBlastService {
     private final static int coverage_percent = 99;
 
     /**
-     * The blast context.
+     * Minimum identity threshold for what we can keep the matching Swissprot entry
      */
-    private BlastContext context;
+    private static final float maximumIdentityThreshold = (float) 99;
 
     /**
-     * Minimum identity threshold for what we can keep the matching Swissprot entry
+     * The uniprot services used to retrieve the ensembl genes of the swissprot entries
      */
-    private static final float maximumIdentityThreshold = (float) 99;
+    private final ThreadLocalUniprotService uniprotService;
 
     /**
      * Create a new SwissprotRemappingProcess
      */
     public SwissprotRemappingProcess(ReportsFactory factory){
         super(factory);
+        this.uniprotService = new ThreadLocalUniprotService();
+    }
+
+    public SwissprotRemappingProcess(ReportsFactory factory, ThreadLocalUniprotService uniprotService){
+        super(factory);
+        this.uniprotService = uniprotService != null ? uniprotService : new ThreadLocalUniprotService();
     }
 
     /**
      *
      * @param protein : the protein to check
+     * @param context : the blast context
      * @return true if the alignment covers at least the coverage_percent threshold  of the total query and match sequence
      */
-    private boolean checkSequenceCoverageOfAlignment(BlastProtein protein){
-        float queryCoveragePercent = getQuerySequenceCoveragePercentFor(protein, this.context);
+    private boolean checkSequenceCoverageOfAlignment(BlastProtein protein, BlastContext context){
+        float queryCoveragePercent = getQuerySequenceCoveragePercentFor(protein, context);
         float matchCoveragePercent = getMatchSequenceCoveragePercentFor(protein);
 
         if (queryCoveragePercent >= coverage_percent && matchCoveragePercent >= coverage_percent){
@@ -75,13 +82,14 @@ public class SwissprotRemappingProcess extends ActionNeedingBlastService {
     /**
      *
      * @param proteins : the list of blast proteins
+     * @param context : the blast context
      * @return true if at least one of the blast proteins representing an isoform of the same protein has a sequence coverage
      * superior or equal to coveragePercent
      */
-    private boolean checkAllSequenceCoverageForIsoformsFromBlastReport(Collection<BlastResults> proteins){
+    private boolean checkAllSequenceCoverageForIsoformsFromBlastReport(Collection<BlastResults> proteins, BlastContext context){
 
         for (BlastResults p : proteins){
-            float queryCoveragePercent = getQuerySequenceCoveragePercentFor(p);
+            float queryCoveragePercent = getQuerySequenceCoveragePercentFor(p, context);
             float matchCoveragePercent = getMatchSequenceCoveragePercentFor(p);
 
             if (queryCoveragePercent >= coverage_percent && matchCoveragePercent >= coverage_percent){
@@ -94,10 +102,11 @@ public class SwissprotRemappingProcess extends ActionNeedingBlastService {
         /**
      *
      * @param protein : the protein to check
+     * @param context : the blast context
      * @return true if the alignment covers at least the coverage_percent threshold  of the total query and match sequence
      */
-    private boolean checkSequenceCoverageOfAlignment(BlastResults protein){
-        float queryCoveragePercent = getQuerySequenceCoveragePercentFor(protein);
+    private boolean checkSequenceCoverageOfAlignment(BlastResults protein, BlastContext context){
+        float queryCoveragePercent = getQuerySequenceCoveragePercentFor(protein, context);
         float matchCoveragePercent = getMatchSequenceCoveragePercentFor(protein);
 
         if (queryCoveragePercent >= coverage_percent && matchCoveragePercent >= coverage_percent){
@@ -109,13 +118,14 @@ public class SwissprotRemappingProcess extends ActionNeedingBlastService {
     /**
      *
      * @param proteins : the list of blast proteins
+     * @param context : the blast context
      * @return true if at least one of the blast proteins representing an isoform of the same protein has a sequence coverage
      * superior or equal to coveragePercent
      */
-    private boolean checkAllSequenceCoverageForIsoforms(Collection<BlastProtein> proteins){
+    private boolean checkAllSequenceCoverageForIsoforms(Collection<BlastProtein> proteins, BlastContext context){
 
         for (BlastProtein p : proteins){
-            float queryCoveragePercent = getQuerySequenceCoveragePercentFor(p, this.context);
+            float queryCoveragePercent = getQuerySequenceCoveragePercentFor(p, context);
             float matchCoveragePercent = getMatchSequenceCoveragePercentFor(p);
 
             if (queryCoveragePercent >= coverage_percent && matchCoveragePercent >= coverage_percent){
@@ -128,13 +138,14 @@ public class SwissprotRemappingProcess extends ActionNeedingBlastService {
         /**
      *
      * @param protein : the blast protein
+     * @param context : the blast context
      * @return the sequence coverage of the alignment for the query sequence
      */
-    private float getQuerySequenceCoveragePercentFor(BlastResults protein){
+    private float getQuerySequenceCoveragePercentFor(BlastResults protein, BlastContext context){
         if (protein == null){
             return 0;
         }
-        return ((float) (protein.getEndQuery() - protein.getStartQuery() + 1)) / (float) this.context.getSequence().length() * 100;
+        return ((float) (protein.getEndQuery() - protein.getStartQuery() + 1)) / (float) context.getSequence().length() * 100;
     }
 
     /**
@@ -163,7 +174,7 @@ public class SwissprotRemappingProcess extends ActionNeedingBlastService {
             // Check first if we didn't store the UniprotProtein instance in the BlastProtein.
             if (protein.getUniprotProtein() == null){
                 // We have to first retrieve the UniprotProtein and then extract the Ensembl gene of the UniprotProtein
-                ensemblGene = IdentificationStrategyImpl.extractENSEMBLGeneAccessionFrom(protein.getAccession());
+                ensemblGene = IdentificationStrategyImpl.extractENSEMBLGeneAccessionFrom(protein.getAccession(), this.uniprotService);
             }
             else {
                 // We can directly extract the ensembl gene from the UniprotProtein instance stored in the BlastProtein
@@ -172,7 +183,7 @@ public class SwissprotRemappingProcess extends ActionNeedingBlastService {
 
             // If the Ensembl genes are not null
             if (ensemblGene != null && ensemblGeneFromContext != null){
-                if (this.context.getEnsemblGene().equals(ensemblGene)){
+                if (ensemblGeneFromContext.equals(ensemblGene)){
                     return true;
                 }
             }
@@ -195,10 +206,10 @@ public class SwissprotRemappingProcess extends ActionNeedingBlastService {
      */
     private boolean checkEnsemblGene(String protein, String ensemblGeneFromContext) throws ActionProcessingException {
         try{
-            String ensemblGene = ensemblGene = IdentificationStrategyImpl.extractENSEMBLGeneAccessionFrom(protein);
+            String ensemblGene = ensemblGene = IdentificationStrategyImpl.extractENSEMBLGeneAccessionFrom(protein, this.uniprotService);
             // If the Ensembl genes are not null
             if (ensemblGene != null && ensemblGeneFromContext != null){
-                if (this.context.getEnsemblGene().equals(ensemblGene)){
+                if (ensemblGeneFromContext.equals(ensemblGene)){
                     return true;
                 }
             }
@@ -219,10 +230,11 @@ public class SwissprotRemappingProcess extends ActionNeedingBlastService {
      * @param blastProteins : the results of the blast
      * @param report : the current report
      * @param keepBlastResult : boolean value to know if we want to replace the Trembl entry with the Swissprot entry
+     * @param context : the blast context
      * @return The unique Swissprot AC if we want to keep the swissprot entry which matches the ensembl gene of the Trembl entry
      * @throws ActionProcessingException
      */
-    private String processBlast(List<BlastProtein> blastProteins, BlastReport<BlastResults> report, boolean keepBlastResult) throws ActionProcessingException{
+    private String processBlast(List<BlastProtein> blastProteins, BlastReport<BlastResults> report, boolean keepBlastResult, BlastContext context) throws ActionProcessingException{
         try {
             // Only one Swissprot entry in the BLAST results
             if (blastProteins.size() == 1){
@@ -231,7 +243,7 @@ public class SwissprotRemappingProcess extends ActionNeedingBlastService {
                 // The Trembl entry has an ensembl gene so we can process the Swissprot remapping process
                 if (context.getEnsemblGene() != null){
                     if (checkEnsemblGene(blastProteins.get(0), context.getEnsemblGene())){
-                        if (checkSequenceCoverageOfAlignment(blastProteins.get(0))){
+                        if (checkSequenceCoverageOfAlignment(blastProteins.get(0), context)){
                             if (keepBlastResult){
                                 Status status = new Status(StatusLabel.COMPLETED, "We replaced the Trembl entry with the Swissprot entry " + ac + " : Trembl sequence matches the swissprot sequence with " + blastProteins.get(0).getIdentity() + " % identity and matches the Ensembl gene " + context.getEnsemblGene());
                                 report.setIsASwissprotEntry(true);
@@ -247,7 +259,7 @@ public class SwissprotRemappingProcess extends ActionNeedingBlastService {
                             }
                         }
                         else {
-                            Status status = new Status(StatusLabel.TO_BE_REVIEWED, "The Swissprot entry has been found with " + blastProteins.get(0).getIdentity() + " % identity and matches the Ensembl gene " + context.getEnsemblGene() + " but the sequence coverage of the alignment is " + getQuerySequenceCoveragePercentFor(blastProteins.get(0), this.context) + "% for the query sequence and "+ getMatchSequenceCoveragePercentFor(blastProteins.get(0))+"% for the match sequence.");
+                            Status status = new Status(StatusLabel.TO_BE_REVIEWED, "The Swissprot entry has been found with " + blastProteins.get(0).getIdentity() + " % identity and matches the Ensembl gene " + context.getEnsemblGene() + " but the sequence coverage of the alignment is " + getQuerySequenceCoveragePercentFor(blastProteins.get(0), context) + "% for the query sequence and "+ getMatchSequenceCoveragePercentFor(blastProteins.get(0))+"% for the match sequence.");
 
                             report.setStatus(status);
                             report.addBlastMatchingProtein(new DefaultBlastResults(blastProteins.get(0)));
@@ -293,7 +305,7 @@ public class SwissprotRemappingProcess extends ActionNeedingBlastService {
                     // If the Trembl entry has an ensembl gene, we can complete the Swissprot remapping process
                     if (context.getEnsemblGene() != null){
                         if (checkEnsemblGene(ac, context.getEnsemblGene())){
-                            if (checkAllSequenceCoverageForIsoforms(blastProteins)){
+                            if (checkAllSequenceCoverageForIsoforms(blastProteins, context)){
                                 if (keepBlastResult){
                                     Status status = new Status(StatusLabel.COMPLETED, "We replaced the Trembl entry with the Swissprot entry " + ac + " : the Trembl sequence matches several swissprot splice variant sequences of the same protein which matches the Ensembl gene " + context.getEnsemblGene());
                                     report.setIsASwissprotEntry(true);
@@ -329,7 +341,7 @@ public class SwissprotRemappingProcess extends ActionNeedingBlastService {
                 else if (accessions.size() > 1){
 
                     // Without any ensembl gene from the Trembl entry, we can't decide which Swissprot entry can replace the Trembl
-                    if (this.context.getEnsemblGene() == null){
+                    if (context.getEnsemblGene() == null){
                         Status status = new Status(StatusLabel.TO_BE_REVIEWED, "The Trembl entry doesn't have any ensembl gene accession and we can't decide which Swissprot entry can replace the Trembl entry : we found " + accessions.size() + " possible choices.");
 
                         report.setStatus(status);
@@ -342,7 +354,7 @@ public class SwissprotRemappingProcess extends ActionNeedingBlastService {
                         ArrayList<String> matchingAcs = new ArrayList<String>();
 
                         for (String s : accessions){
-                            if (checkEnsemblGene(s, this.context.getEnsemblGene())){
+                            if (checkEnsemblGene(s, context.getEnsemblGene())){
                                 matchingAcs.add(s);
                             }
                             else {
@@ -362,7 +374,7 @@ public class SwissprotRemappingProcess extends ActionNeedingBlastService {
 
                         // If the list of Swissprot entries with the matching ensembl gene is empty, the swissprot remapping is not possible
                         if (matchingAcs.isEmpty()){
-                            Status status = new Status(StatusLabel.FAILED, "The blast returned several Swissprot entries but no one has an ensembl gene accession which matches "+ this.context.getEnsemblGene() +".");
+                            Status status = new Status(StatusLabel.FAILED, "The blast returned several Swissprot entries but no one has an ensembl gene accession which matches "+ context.getEnsemblGene() +".");
 
                             report.setStatus(status);
                         }
@@ -370,15 +382,15 @@ public class SwissprotRemappingProcess extends ActionNeedingBlastService {
                         else if (matchingAcs.size() == 1){
                             newUniprotId = matchingAcs.get(0);
 
-                            if (checkAllSequenceCoverageForIsoformsFromBlastReport(report.getBlastMatchingProteins())){
+                            if (checkAllSequenceCoverageForIsoformsFromBlastReport(report.getBlastMatchingProteins(), context)){
                                 if (keepBlastResult){
-                                    Status status = new Status(StatusLabel.COMPLETED, "We replaced the Trembl entry with the Swissprot entry " + newUniprotId + " : the Trembl sequence matches several swissprot splice variant sequences of this protein and has the same ensembl gene accession : " + this.context.getEnsemblGene());
+                                    Status status = new Status(StatusLabel.COMPLETED, "We replaced the Trembl entry with the Swissprot entry " + newUniprotId + " : the Trembl sequence matches several swissprot splice variant sequences of this protein and has the same ensembl gene accession : " + context.getEnsemblGene());
                                     report.setIsASwissprotEntry(true);
                                     report.setStatus(status);
                                     return newUniprotId;
                                 }
                                 else {
-                                    Status status = new Status(StatusLabel.TO_BE_REVIEWED, "Could we replace the Trembl entry with the Swissprot entry " + newUniprotId + " : the blast returned several splice variants of this same protein with the same ensembl gene accession "+ this.context.getEnsemblGene() +".");
+                                    Status status = new Status(StatusLabel.TO_BE_REVIEWED, "Could we replace the Trembl entry with the Swissprot entry " + newUniprotId + " : the blast returned several splice variants of this same protein with the same ensembl gene accession "+ context.getEnsemblGene() +".");
 
                                     report.setStatus(status);
                                 }
@@ -391,14 +403,14 @@ public class SwissprotRemappingProcess extends ActionNeedingBlastService {
                         }
                         // Several swissprot entries are matching the ensembl gene, we need a curator to choose the good one
                         else {
-                            Status status = new Status(StatusLabel.TO_BE_REVIEWED, matchingAcs.size() + " Swissprot entries are matching the same ensembl gene accession "+ this.context.getEnsemblGene() +".");
+                            Status status = new Status(StatusLabel.TO_BE_REVIEWED, matchingAcs.size() + " Swissprot entries are matching the same ensembl gene accession "+ context.getEnsemblGene() +".");
 
                             report.setStatus(status);
                         }
                     }
                 }
                 else {
-                    log.error("The blast on Swissprot didn't return valid results for the protein with the identifier "+ this.context.getIdentifier() +". Check the sequence " + context.getSequence());
+                    log.error("The blast on Swissprot didn't return valid results for the protein with the identifier "+ context.getIdentifier() +". Check the sequence " + context.getSequence());
                 }
             }
         }catch (ActionProcessingException e) {
@@ -412,40 +424,29 @@ public class SwissprotRemappingProcess extends ActionNeedingBlastService {
      * identity percent superior or equal to the maximum identity threshold.
      * All the Blast results we want to keep are strored in different Blast reports added to the list of reports
      * @param context  : the context of the protein
+     * @param reports : the list where the reports of this call are added
      * @return an unique swissprot entry if the remapping was successful, null otherwise
      * @throws ActionProcessingException
      */
-    public String runAction(IdentificationContext context) throws ActionProcessingException {
-        // Always clear the previous reports
-        this.listOfReports.clear();
+    public String runAction(IdentificationContext context, List<MappingReport> reports) throws ActionProcessingException {
 
         // We need a BlastContext with the ensembl gene of the Trembl entry
         if (!(context instanceof BlastContext)){
             log.error("The SwissprotRemappingProcess needs a BlastContext instance and the current context is a " + context.getClass().getSimpleName());
         }
         else{
-            this.context = (BlastContext) context;
+            BlastContext blastContext = (BlastContext) context;
 
             // Run the blast on swissprot and keep the result in the Blast filter
-            InputStream blastResults = this.blastService.getResultsOfBlastOnSwissprot(this.context.getSequence());
-            try{
-                this.blastFilter.setResults(blastResults);
-            }
-            finally {
-                try {
-                    blastResults.close();
-                } catch (IOException e) {
-                    log.error("Impossible to close BLAST results", e);
-                }
-            }
+            AlignmentResults blastFilter = runBlastOnSwissprot(blastContext.getSequence());
 
-            if (this.context.getOrganism() != null){
+            if (blastContext.getOrganism() != null){
                 // Filter the Blast results on the minimum threshold identity and the organism
-                this.blastFilter.filterResultsWithIdentityAndOrganism(minimumIdentityThreshold, this.context.getOrganism().getTaxId());
+                blastFilter.filterResultsWithIdentityAndOrganism(minimumIdentityThreshold, blastContext.getOrganism().getTaxId());
             }
             else{
                 // Filter the Blast results on the minimum threshold identity
-                this.blastFilter.filterResultsWithIdentity(minimumIdentityThreshold);
+                blastFilter.filterResultsWithIdentity(minimumIdentityThreshold);
             }
 
             // Starts with identity = 100%
@@ -458,11 +459,11 @@ public class SwissprotRemappingProcess extends ActionNeedingBlastService {
 
                 // Create a blast report each time we decrease the identity percent
                 BlastReport report = getReportsFactory().getBlastReport(ActionName.BLAST_Swissprot_Remapping);
-                this.listOfReports.add(report);
-                report.setQuerySequence(this.context.getSequence());
+                reports.add(report);
+                report.setQuerySequence(blastContext.getSequence());
 
                 // Filter the Blast proteins stored on the filter on the identity i
-                blastProteins = this.blastFilter.filterMappingEntriesWithIdentity(i);
+                blastProteins = blastFilter.filterMappingEntriesWithIdentity(i);
 
                 // If we don't have any results, we decrease the identity percent
                 if (blastProteins.isEmpty()){
@@ -473,7 +474,7 @@ public class SwissprotRemappingProcess extends ActionNeedingBlastService {
                 else {
 
                     // we process the blast results
-                    String accession = processBlast(blastProteins, report, true);
+                    String accession = processBlast(blastProteins, report, true, blastContext);
 
                     if (accession != null){
                         return accession;
@@ -482,7 +483,7 @@ public class SwissprotRemappingProcess extends ActionNeedingBlastService {
             }
 
             // We get the last DefaultBlastReport in case the status has not been added yet
-            BlastReport lastReport = (BlastReport) this.listOfReports.get(this.listOfReports.size() - 1);
+            BlastReport lastReport = (BlastReport) reports.get(reports.size() - 1);
 
             // if we don't have any results with the filter on the maximum identity threshold
             if (lastReport.getBlastMatchingProteins().size() == 0){
@@ -495,13 +496,13 @@ public class SwissprotRemappingProcess extends ActionNeedingBlastService {
 
                 // Create a new Blast report where we can stores the Blast results not filtered with the maximum identity threshold
                 BlastReport report = getReportsFactory().getBlastReport(ActionName.BLAST_Swissprot_Remapping);
-                this.listOfReports.add(report);
-                report.setQuerySequence(this.context.getSequence());
+                reports.add(report);
+                report.setQuerySequence(blastContext.getSequence());
 
-                blastProteins = this.blastFilter.getMatchingEntries();
+                blastProteins = blastFilter.getMatchingEntries();
 
                 // We process the results but this time don't allow the Swissprot entry(ies) to replace the Trembl entry as we need a curator to decide
-                processBlast(blastProteins, report, false);
+                processBlast(blastProteins, report, false, blastContext);
 
                 // If the results not filtered are empty, we had a status FAILED to the report
                 if (report.getBlastMatchingProteins().isEmpty() && report.getStatus() == null){
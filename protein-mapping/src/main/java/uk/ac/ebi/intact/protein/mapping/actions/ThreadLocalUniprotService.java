@@ -0,0 +1,150 @@
+package uk.ac.ebi.intact.protein.mapping.actions;
+
+import uk.ac.ebi.intact.protein.mapping.cache.UniprotProteinCache;
+import uk.ac.ebi.intact.protein.mapping.factories.UniprotServiceFactory;
+import uk.ac.ebi.intact.uniprot.model.UniprotProtein;
+import uk.ac.ebi.intact.uniprot.service.SimpleUniprotRemoteService;
+import uk.ac.ebi.intact.uniprot.service.UniprotService;
+
+import java.util.Collection;
+import java.util.concurrent.Semaphore;
+
+/**
+ * This class gives each thread its own uniprot service. A uniprot service is started and closed around each query so
+ * it can't be shared by the threads identifying proteins in parallel, and locking it would run the queries one at a time.
+ *
+ * The services of the threads are created by the UniprotServiceFactory given to the constructor, a new SimpleUniprotRemoteService by default.
+ * A single uniprot service given to the constructor can only be used by the thread creating this object, the other threads
+ * throw an IllegalStateException instead of silently using another service.
+ *
+ * The uniprot entries retrieved by the strategies and actions sharing this object are cached in its UniprotProteinCache,
+ * the shared UniprotProteinCache by default.
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+public class ThreadLocalUniprotService {
+
+    /**
+     * the factory creating the uniprot service of each thread, null to create a SimpleUniprotRemoteService
+     */
+    private final UniprotServiceFactory serviceFactory;
+
+    /**
+     * the thread which can use the uniprot service given to the constructor, null if the services are created for each thread
+     */
+    private final Thread serviceOwner;
+
+    /**
+     * the cache of the uniprot entries retrieved by the threads
+     */
+    private volatile UniprotProteinCache uniprotCache = UniprotProteinCache.getSharedInstance();
+
+    /**
+     * the uniprot service of each thread
+     */
+    private final ThreadLocal<UniprotService> uniprotServices = new ThreadLocal<UniprotService>(){
+        @Override
+        protected UniprotService initialValue() {
+            if (serviceOwner != null){
+                throw new IllegalStateException("The uniprot service of this ThreadLocalUniprotService can only be used by the thread " + serviceOwner.getName()
+                        + ". Give a UniprotServiceFactory to use it from several threads.");
+            }
+            return createUniprotService();
+        }
+    };
+
+    /**
+     * Create a new ThreadLocalUniprotService. Each thread uses a new SimpleUniprotRemoteService
+     */
+    public ThreadLocalUniprotService(){
+        this((UniprotServiceFactory) null);
+    }
+
+    /**
+     * Create a new ThreadLocalUniprotService
+     * @param serviceFactory : the factory creating the uniprot service of each thread, null to use a new SimpleUniprotRemoteService
+     */
+    public ThreadLocalUniprotService(UniprotServiceFactory serviceFactory){
+        this.serviceFactory = serviceFactory;
+        this.serviceOwner = null;
+    }
+
+    /**
+     * Create a new ThreadLocalUniprotService
+     * @param uniprotService : the uniprot service, which can only be used by the current thread. Null to give each thread a new SimpleUniprotRemoteService
+     */
+    public ThreadLocalUniprotService(UniprotService uniprotService){
+        this.serviceFactory = null;
+        if (uniprotService != null){
+            this.serviceOwner = Thread.currentThread();
+            this.uniprotServices.set(uniprotService);
+        }
+        else {
+            this.serviceOwner = null;
+        }
+    }
+
+    /**
+     *
+     * @return a new uniprot service for a thread which doesn't have one yet
+     */
+    protected UniprotService createUniprotService(){
+        if (this.serviceFactory != null){
+            return this.serviceFactory.createUniprotService();
+        }
+        return new SimpleUniprotRemoteService();
+    }
+
+    /**
+     *
+     * @return the uniprot service of the current thread
+     * @throws IllegalStateException if the single uniprot service given to the constructor is used by another thread
+     */
+    public UniprotService getUniprotService(){
+        return this.uniprotServices.get();
+    }
+
+    /**
+     *
+     * @return the cache of the uniprot entries retrieved by the threads
+     */
+    public UniprotProteinCache getUniprotCache() {
+        return uniprotCache;
+    }
+
+    /**
+     * Set the cache of the uniprot entries retrieved by the threads
+     * @param uniprotCache : the cache
+     */
+    public void setUniprotCache(UniprotProteinCache uniprotCache) {
+        if (uniprotCache == null){
+            throw new IllegalArgumentException("The uniprot cache must be non null");
+        }
+        this.uniprotCache = uniprotCache;
+    }
+
+    /**
+     * Retrieve the uniprot entries matching this accession with the uniprot service of the current thread
+     * @param accession : the uniprot accession
+     * @return the uniprot entries matching this accession
+     */
+    public Collection<UniprotProtein> retrieve(String accession){
+        UniprotService uniprotService = getUniprotService();
+
+        Semaphore permit = RemoteServiceThrottle.acquire(RemoteServiceThrottle.RemoteService.UNIPROT);
+        try {
+            uniprotService.start();
+            try {
+                return uniprotService.retrieve(accession);
+            }
+            finally {
+                uniprotService.close();
+            }
+        }
+        finally {
+            permit.release();
+        }
+    }
+}
@@ -7,13 +7,13 @@ import uk.ac.ebi.intact.bridges.ncbiblast.model.BlastProtein;
 import uk.ac.ebi.intact.protein.mapping.actions.exception.ActionProcessingException;
 import uk.ac.ebi.intact.protein.mapping.actions.status.Status;
 import uk.ac.ebi.intact.protein.mapping.actions.status.StatusLabel;
+import uk.ac.ebi.intact.protein.mapping.alignment.AlignmentResults;
 import uk.ac.ebi.intact.protein.mapping.factories.ReportsFactory;
 import uk.ac.ebi.intact.protein.mapping.model.actionReport.BlastReport;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.MappingReport;
 import uk.ac.ebi.intact.protein.mapping.model.contexts.IdentificationContext;
 import uk.ac.ebi.intact.protein.mapping.results.impl.DefaultBlastResults;
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -79,42 +79,31 @@ public class UniprotIdentityBlastProcess extends ActionNeedingBlastService {
      * - look if trembl entry(ies) with 100% on the all sequence
      * - look at the blast results without filtering
      * @param context  : the context of the protein
+     * @param reports : the list where the reports of this call are added
      * @return an unique Uniprto accession if we can have an unique Swissprot/Trembl match, null otherwise
      * @throws uk.ac.ebi.intact.protein.mapping.actions.exception.ActionProcessingException
      */
-    public String runAction(IdentificationContext context) throws ActionProcessingException {
-        // Always clean the previous reports
-        this.listOfReports.clear();
+    public String runAction(IdentificationContext context, List<MappingReport> reports) throws ActionProcessingException {
 
         // Create a new Blast report
         BlastReport report = getReportsFactory().getBlastReport(ActionName.BLAST_Uniprot_Total_Identity);
-        this.listOfReports.add(report);
+        reports.add(report);
 
         // Run a blast on uniprot and store the results in the Blast filter
-        InputStream uniprotBlast = this.blastService.getResultsOfBlastOnUniprot(context.getSequence());
-        try{
-            this.blastFilter.setResults(uniprotBlast);
-        }
-        finally {
-            try {
-                uniprotBlast.close();
-            } catch (IOException e) {
-                log.error("Impossible to close BLAST results", e);
-            }
-        }
+        AlignmentResults blastFilter = runBlastOnUniprot(context.getSequence());
 
         if (context.getOrganism() != null){
             // Filter the results on the 'minimumIdentityThreshold' and the organism
-            this.blastFilter.filterResultsWithIdentityAndOrganism(minimumIdentityThreshold, context.getOrganism().getTaxId());
+            blastFilter.filterResultsWithIdentityAndOrganism(minimumIdentityThreshold, context.getOrganism().getTaxId());
         }
         else{
             // Filter the results on the 'minimumIdentityThreshold'
             report.addWarning("No organism has been given for the sequence " + context.getSequence() + ". We will process the blast on uniprot without filtering with the organism.");
-            this.blastFilter.filterMappingEntriesWithIdentity(minimumIdentityThreshold);
+            blastFilter.filterMappingEntriesWithIdentity(minimumIdentityThreshold);
         }
 
         // Filter the results stored in the BlastFilter on 100% identity
-        List<BlastProtein> blastProteinsWith100Identity = this.blastFilter.filterMappingEntriesWithIdentity((float) 100);
+        List<BlastProtein> blastProteinsWith100Identity = blastFilter.filterMappingEntriesWithIdentity((float) 100);
 
         // Filter the results stored in the BlastFilter on 100% identity on the all sequence
         List<BlastProtein> blastProteinsGlobalAlignment = BlastResultFilter.collectMappingEntriesWithTotalAlignment(blastProteinsWith100Identity, context.getSequence().length());
@@ -127,9 +116,9 @@ public class UniprotIdentityBlastProcess extends ActionNeedingBlastService {
 
             // New Report to store the results without filtering on 100% identity on the all sequence
             BlastReport report2 = getReportsFactory().getBlastReport(ActionName.BLAST_uniprot);
-            this.listOfReports.add(report2);
+            reports.add(report2);
 
-            List<BlastProtein> globalResults = this.blastFilter.getMatchingEntries();
+            List<BlastProtein> globalResults = blastFilter.getMatchingEntries();
 
             // We don't have any results
             if (globalResults.isEmpty()){
@@ -180,7 +169,7 @@ public class UniprotIdentityBlastProcess extends ActionNeedingBlastService {
 
             // we will look filter on the database so a new Blast report is necessary
             BlastReport report2 = getReportsFactory().getBlastReport(ActionName.BLAST_Swissprot_Total_Identity);
-            this.listOfReports.add(report2);
+            reports.add(report2);
 
             // Get the results from Swissprot
             List<BlastProtein> swissprotProteins = getEntriesWithDatabase(blastProteinsGlobalAlignment, swissprot);
@@ -23,6 +23,8 @@ import uk.ac.ebi.uniprot.dataservice.client.exception.ServiceException;
 import uk.ac.ebi.uniprot.dataservice.client.uniprot.UniProtQueryBuilder;
 import uk.ac.ebi.uniprot.dataservice.query.Query;
 
+import java.util.List;
+
 /**
  * This class is querying Uniprot for a gene name and/or protein name which is matching the name of the protein to identify
  *
@@ -463,9 +465,10 @@ public class UniprotNameSearchProcess extends ActionNeedingUniprotService {
      * @param organism     : the organism name of the protein
      * @param report       : the current report
      * @param context      : the current context
+     * @param reports      : the list of reports of the current call
      * @return an unique uniprot AC if possible, null otherwise
      */
-    private String processNameSearch(String geneName, String protein_name, String organism, String globalName, MappingReport report, IdentificationContext context) {
+    private String processNameSearch(String geneName, String protein_name, String organism, String globalName, MappingReport report, IdentificationContext context, List<MappingReport> reports) {
         // If the gene name or the protein name is not null, we can do a specific search on Uniprot
         if (geneName != null || protein_name != null) {
 
@@ -481,7 +484,7 @@ public class UniprotNameSearchProcess extends ActionNeedingUniprotService {
                 // get the results on Trembl
                 iterator = queryUniprotWith(geneName, protein_name, organism);
                 MappingReport report2 = getReportsFactory().getMappingReport(ActionName.SEARCH_uniprot_name);
-                this.listOfReports.add(report2);
+                reports.add(report2);
 
                 // if we don't have any result, the search fails
                 if (iterator == null || iterator.getNumberOfHits() == 0) {
@@ -516,7 +519,7 @@ public class UniprotNameSearchProcess extends ActionNeedingUniprotService {
                 iterator = queryUniprotWithGeneNameOrProteinName(null, null, globalName, organism);
 
                 MappingReport report2 = getReportsFactory().getMappingReport(ActionName.SEARCH_uniprot_name);
-                this.listOfReports.add(report2);
+                reports.add(report2);
 
                 // if we don't have any result, the search fails
                 if (iterator == null || iterator.getNumberOfHits() == 0) {
@@ -584,16 +587,15 @@ public class UniprotNameSearchProcess extends ActionNeedingUniprotService {
      * Query uniprot for a gene name and/or protein name first with possible filter on the organism, widen the search if no results but always keep the filter on the organism
      *
      * @param context : the context of the protein
+     * @param reports : the list where the reports of this call are added
      * @return an unique uniprot id or null if no result or several possible proteins
      * @throws uk.ac.ebi.intact.protein.mapping.actions.exception.ActionProcessingException
      */
-    public String runAction(IdentificationContext context) throws ActionProcessingException {
-        // always clear the previous reports
-        this.listOfReports.clear();
+    public String runAction(IdentificationContext context, List<MappingReport> reports) throws ActionProcessingException {
 
         // Create a new report
         MappingReport report = getReportsFactory().getMappingReport(ActionName.SEARCH_uniprot_name);
-        this.listOfReports.add(report);
+        reports.add(report);
 
         String geneName = context.getGene_name();
         String protein_name = context.getProtein_name();
@@ -609,7 +611,7 @@ public class UniprotNameSearchProcess extends ActionNeedingUniprotService {
         report.setIsASwissprotEntry(true);
 
         // process a name search using gene name, protein name and/or glocal name
-        String accession = processNameSearch(geneName, protein_name, organism, globalName, report, context);
+        String accession = processNameSearch(geneName, protein_name, organism, globalName, report, context, reports);
 
         // the specific search is successful
         if (accession != null) {
@@ -620,7 +622,7 @@ public class UniprotNameSearchProcess extends ActionNeedingUniprotService {
 
             // Create a new report
             MappingReport report2 = getReportsFactory().getBlastReport(ActionName.wide_SEARCH_uniprot);
-            this.listOfReports.add(report2);
+            reports.add(report2);
 
             // get non specific results with gene name or protein name or global name
             if (geneName != null) {
@@ -3,7 +3,6 @@ package uk.ac.ebi.intact.protein.mapping.actions;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import psidev.psi.mi.jami.bridges.uniprot.rest.SearchDatabase;
-import psidev.psi.mi.jami.bridges.uniprot.rest.UniprotProteinAPIClient;
 import psidev.psi.mi.jami.bridges.uniprot.rest.UniprotProteinAPIClientException;
 import psidev.psi.mi.jami.bridges.uniprot.rest.response.model.DbReferenceType;
 import psidev.psi.mi.jami.bridges.uniprot.rest.response.model.Entry;
@@ -12,6 +11,7 @@ import uk.ac.ebi.intact.protein.mapping.actions.status.Status;
 import uk.ac.ebi.intact.protein.mapping.actions.status.StatusLabel;
 import uk.ac.ebi.intact.protein.mapping.factories.ReportsFactory;
 import uk.ac.ebi.intact.protein.mapping.model.actionReport.UniprotProteinAPIReport;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.MappingReport;
 import uk.ac.ebi.intact.protein.mapping.model.contexts.IdentificationContext;
 
 import java.util.List;
@@ -29,7 +29,7 @@ public class UniprotProteinAPISearchProcessWithAccession extends IdentificationA
     /**
      * the Uniprot Protein API client
      */
-    private UniprotProteinAPIClient uniprotRestClient;
+    private UniprotProteinAPIService uniprotRestClient;
 
     /**
      * Sets up a logger for that class.
@@ -40,19 +40,27 @@ public class UniprotProteinAPISearchProcessWithAccession extends IdentificationA
      * Create a new UniprotProteinAPISearchProcessWithAccession
      */
     public UniprotProteinAPISearchProcessWithAccession(ReportsFactory factory){
+        this(factory, UniprotProteinAPIService.getInstance());
+    }
+
+    /**
+     * Create a new UniprotProteinAPISearchProcessWithAccession
+     * @param factory : the factory of the reports
+     * @param uniprotRestClient : the Uniprot Protein API client
+     */
+    public UniprotProteinAPISearchProcessWithAccession(ReportsFactory factory, UniprotProteinAPIService uniprotRestClient){
         super(factory);
-        this.uniprotRestClient = new UniprotProteinAPIClient();
+        this.uniprotRestClient = uniprotRestClient;
     }
 
     /**
      * Call the getUniprotBestGuess method of the Uniprot Protein API web service.
      * @param context  : the context of the protein
+     * @param reports : the list where the reports of this call are added
      * @return an unique uniprot AC or null if it didn't find any matching uniprot entry
      * @throws uk.ac.ebi.intact.protein.mapping.actions.exception.ActionProcessingException
      */
-    public String runAction(IdentificationContext context) throws ActionProcessingException {
-        // always clear the previous reports
-        this.listOfReports.clear();
+    public String runAction(IdentificationContext context, List<MappingReport> reports) throws ActionProcessingException {
 
         String identifier = context.getIdentifier();
         String taxId = null;
@@ -63,7 +71,7 @@ public class UniprotProteinAPISearchProcessWithAccession extends IdentificationA
         // create a new DefaultUniprotProteinAPIReport
         //TODO Review UniprotProteinAPIReport
         UniprotProteinAPIReport report = getReportsFactory().getUniprotProteinAPIReport(ActionName.UniprotProteinAPI_accession);
-        this.listOfReports.add(report);
+        reports.add(report);
 
         if (taxId == null){
             report.addWarning("No organism was given for the identifier " + identifier + ". We will process the identification without looking at the organism and choose the entry with the longest sequence.");
@@ -2,23 +2,27 @@ package uk.ac.ebi.intact.protein.mapping.actions;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import psidev.psi.mi.jami.bridges.uniprot.rest.UniprotProteinAPIClient;
 import psidev.psi.mi.jami.bridges.uniprot.rest.UniprotProteinAPIClientException;
 import psidev.psi.mi.jami.bridges.uniprot.rest.response.model.DbReferenceType;
 import psidev.psi.mi.jami.bridges.uniprot.rest.response.model.Entry;
 import uk.ac.ebi.intact.protein.mapping.actions.exception.ActionProcessingException;
+import uk.ac.ebi.intact.protein.mapping.actions.exception.RemoteServiceException;
 import uk.ac.ebi.intact.protein.mapping.actions.status.Status;
 import uk.ac.ebi.intact.protein.mapping.actions.status.StatusLabel;
 import uk.ac.ebi.intact.protein.mapping.factories.ReportsFactory;
 import uk.ac.ebi.intact.protein.mapping.model.actionReport.UniprotProteinAPIReport;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.MappingReport;
 import uk.ac.ebi.intact.protein.mapping.model.contexts.IdentificationContext;
 
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Future;
 
 /**
  * This class is doing a query using the sequence of the protein to identify. It will first query Uniprot REST web service
- * for swissprot cross references and if not, query Uniprot REST web service for Trembl cross references
+ * for swissprot cross references and if not, query Uniprot REST web service for Trembl cross references.
+ * When no organism is given, the Trembl query is sent at the same time as the Swissprot query and its results are only used
+ * if there is no matching Swissprot entry.
  *
  * @author Marine Dumousseau (marine@ebi.ac.uk)
  * @version $Id$
@@ -30,7 +34,7 @@ public class UniprotProteinAPISearchProcessWithSequence extends IdentificationAc
     /**
      * the Uniprot Protein API client
      */
-    private UniprotProteinAPIClient uniprotRestClient;
+    private UniprotProteinAPIService uniprotRestClient;
 
     /**
      * Sets up a logger for that class.
@@ -41,20 +45,28 @@ public class UniprotProteinAPISearchProcessWithSequence extends IdentificationAc
      * Create a new UniprotProteinAPISearchProcessWithSequence
      */
     public UniprotProteinAPISearchProcessWithSequence(ReportsFactory factory){
+        this(factory, UniprotProteinAPIService.getInstance());
+    }
+
+    /**
+     * Create a new UniprotProteinAPISearchProcessWithSequence
+     * @param factory : the factory of the reports
+     * @param uniprotRestClient : the Uniprot Protein API client
+     */
+    public UniprotProteinAPISearchProcessWithSequence(ReportsFactory factory, UniprotProteinAPIService uniprotRestClient){
         super(factory);
-        this.uniprotRestClient = new UniprotProteinAPIClient();
+        this.uniprotRestClient = uniprotRestClient;
     }
 
     /**
      * Query with the sequence of the protein to identify. Query Uniprot Protein API on swissprot database first, if no results, query the Trembl database.
      * If several proteins are matching, they are added to the list of possible proteins in the DefaultUniprotProteinAPIReport
      * @param context  : the context of the protein
+     * @param reports : the list where the reports of this call are added
      * @return an unique uniprot AC if only one uniprot entry is matching the sequence, null otherwise
      * @throws uk.ac.ebi.intact.protein.mapping.actions.exception.ActionProcessingException
      */
-    public String runAction(IdentificationContext context) throws ActionProcessingException {
-        // always clear the previous report
-        this.listOfReports.clear();
+    public String runAction(IdentificationContext context, List<MappingReport> reports) throws ActionProcessingException {
 
         String sequence = context.getSequence();
         String taxId = null;
@@ -65,13 +77,16 @@ public class UniprotProteinAPISearchProcessWithSequence extends IdentificationAc
         // create a DefaultUniprotProteinAPIReport
         //TODO Review UniprotProteinAPIReport
         UniprotProteinAPIReport report = getReportsFactory().getUniprotProteinAPIReport(ActionName.UniprotProteinAPI_sequence_Swissprot);
-        this.listOfReports.add(report);
+        reports.add(report);
 
         if (taxId == null){
 
             report.addWarning("No organism was given for the sequence " + sequence + ". We will process the identification without looking at the organism. We will keep only the swissprot results if there are both Swissprot and Trembl results.");
         }
 
+        // without organism, the trembl entries are looked up while waiting for the swissprot entries
+        Future<List<String>> tremblQuery = taxId == null ? this.uniprotRestClient.submitTremblIdsForSequence(sequence, taxId) : null;
+
         try {
             // Get the matching swissprot entries
             List<String> swissprotIds = this.uniprotRestClient.getSwissprotIdsForSequence(sequence, taxId);
@@ -126,11 +141,11 @@ public class UniprotProteinAPISearchProcessWithSequence extends IdentificationAc
 
                 // new Uniprot Protein API query so new report
                 UniprotProteinAPIReport report2 = getReportsFactory().getUniprotProteinAPIReport(ActionName.UniprotProteinAPI_sequence_Trembl);
-                this.listOfReports.add(report2);
+                reports.add(report2);
                 report2.getWarnings().addAll(report.getWarnings());
 
                 // Get the matching trembl entries
-                List<String> tremblIds = this.uniprotRestClient.getTremblIdsForSequence(sequence, taxId);
+                List<String> tremblIds = tremblQuery != null ? this.uniprotRestClient.getResult(tremblQuery) : this.uniprotRestClient.getTremblIdsForSequence(sequence, taxId);
 
                 // Only one matching Trembl entry
                 if (tremblIds.size() == 1){
@@ -167,6 +182,14 @@ public class UniprotProteinAPISearchProcessWithSequence extends IdentificationAc
 
         } catch (UniprotProteinAPIClientException e) {
             throw  new ActionProcessingException("Uniprot Protein API couldn't match the sequence " + sequence + " to any Uniprot accession. Check your identifier and/or organism.", e);
+        } catch (RemoteServiceException e) {
+            throw  new ActionProcessingException("Uniprot Protein API couldn't be queried for the sequence " + sequence + ". Check this sequence later.", e);
+        }
+        finally {
+            // the trembl entries are not needed if a swissprot entry matched
+            if (tremblQuery != null){
+                tremblQuery.cancel(true);
+            }
         }
         return null;
     }
@@ -0,0 +1,464 @@
+package uk.ac.ebi.intact.protein.mapping.actions;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import psidev.psi.mi.jami.bridges.uniprot.rest.UniprotProteinAPIClient;
+import psidev.psi.mi.jami.bridges.uniprot.rest.UniprotProteinAPIClientException;
+import psidev.psi.mi.jami.bridges.uniprot.rest.response.model.Entry;
+import uk.ac.ebi.intact.protein.mapping.actions.exception.RemoteServiceException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class is the Uniprot Protein API client shared by all the identification actions.
+ *
+ * A single UniprotProteinAPIClient is used by all the threads so its HTTP connections are kept alive and reused from one
+ * query to the next instead of each action opening its own. Each call :
+ * - waits for a permit of RemoteServiceThrottle, so the number of concurrent calls is bounded
+ * - is given up after the timeout of its endpoint. The client doesn't let us set its connect and read timeouts so the request
+ * runs in a bounded pool of threads and the caller stops waiting for it. The HTTP call can't be interrupted : the request keeps
+ * its thread and its permit until it really finishes, so a hung backend never gets more concurrent calls than the throttle allows
+ * - is retried with an exponential backoff when the service fails (unchecked exception or timeout), as long as the global
+ * retry budget allows it. A UniprotProteinAPIClientException is an answer of the service and is never retried.
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+public class UniprotProteinAPIService {
+
+    /**
+     * Sets up a logger for that class.
+     */
+    public static final Log log = LogFactory.getLog( UniprotProteinAPIService.class );
+
+    /**
+     * The endpoints of the Uniprot Protein API
+     */
+    public enum Endpoint {
+        SWISSPROT_SEQUENCE, TREMBL_SEQUENCE, UNIPARC_SEQUENCE, BEST_GUESS, ACCESSION_ENTRIES
+    }
+
+    /**
+     * the default timeout of the endpoints, in milliseconds
+     */
+    public static final long DEFAULT_TIMEOUT = 60000;
+
+    /**
+     * the default number of attempts of a call
+     */
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    /**
+     * the default backoff before the first retry, in milliseconds
+     */
+    public static final long DEFAULT_INITIAL_BACKOFF = 500;
+
+    /**
+     * the default maximum number of requests running at the same time
+     */
+    public static final int DEFAULT_MAX_THREADS = 20;
+
+    /**
+     * the maximum backoff before a retry, in milliseconds
+     */
+    private static final long MAX_BACKOFF = 30000;
+
+    /**
+     * the instance shared by the actions
+     */
+    private static UniprotProteinAPIService sharedInstance;
+
+    /**
+     * the Uniprot Protein API client, used by all the threads
+     */
+    private final UniprotProteinAPIClient client;
+
+    /**
+     * the threads running the requests with a timeout
+     */
+    private final ExecutorService requestExecutor;
+
+    /**
+     * the threads running the lookups submitted without waiting for them. A lookup waits for its requests so it must not
+     * run in the threads of the requests
+     */
+    private final ExecutorService lookupExecutor;
+
+    /**
+     * the timeout of each endpoint in milliseconds, 0 or less means no timeout
+     */
+    private final Map<Endpoint, Long> timeouts = new ConcurrentHashMap<Endpoint, Long>();
+
+    private volatile int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private volatile long initialBackoff = DEFAULT_INITIAL_BACKOFF;
+
+    /**
+     * the retries allowed for all the calls, by default 10% of the calls with bursts of 20 retries
+     */
+    private volatile RetryBudget retryBudget = new RetryBudget(0.1, 20);
+
+    private final Random random = new Random();
+
+    /**
+     * Create a new UniprotProteinAPIService running at most DEFAULT_MAX_THREADS requests at the same time
+     * @param client : the client, it must be thread safe
+     */
+    public UniprotProteinAPIService(UniprotProteinAPIClient client){
+        this(client, DEFAULT_MAX_THREADS);
+    }
+
+    /**
+     * Create a new UniprotProteinAPIService
+     * @param client : the client, it must be thread safe
+     * @param maxThreads : the maximum number of requests running at the same time, including the requests which timed out and are still running
+     */
+    public UniprotProteinAPIService(UniprotProteinAPIClient client, int maxThreads){
+        if (client == null){
+            throw new IllegalArgumentException("The Uniprot Protein API client must be non null");
+        }
+        if (maxThreads < 1){
+            throw new IllegalArgumentException("The number of threads must be at least 1 : " + maxThreads);
+        }
+        this.client = client;
+        this.requestExecutor = createExecutor("uniprot-protein-api-", maxThreads);
+        this.lookupExecutor = createExecutor("uniprot-protein-api-lookup-", maxThreads);
+        for (Endpoint endpoint : Endpoint.values()){
+            this.timeouts.put(endpoint, DEFAULT_TIMEOUT);
+        }
+    }
+
+    /**
+     *
+     * @param name : the prefix of the names of the threads
+     * @param maxThreads : the number of threads
+     * @return a pool of daemon threads, the idle threads are stopped after a minute
+     */
+    private static ExecutorService createExecutor(final String name, int maxThreads){
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     *
+     * @return the instance shared by the actions
+     */
+    public static synchronized UniprotProteinAPIService getInstance(){
+        if (sharedInstance == null){
+            sharedInstance = new UniprotProteinAPIService(new UniprotProteinAPIClient());
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * @param endpoint : the endpoint
+     * @param timeout : the time to wait for an answer of the endpoint in milliseconds, 0 or less means no timeout
+     */
+    public void setTimeout(Endpoint endpoint, long timeout){
+        this.timeouts.put(endpoint, timeout);
+    }
+
+    public long getTimeout(Endpoint endpoint){
+        return this.timeouts.get(endpoint);
+    }
+
+    /**
+     * @param maxAttempts : the maximum number of attempts of a call, 1 means the calls are never retried
+     */
+    public void setMaxAttempts(int maxAttempts) {
+        if (maxAttempts < 1){
+            throw new IllegalArgumentException("The number of attempts must be at least 1 : " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * @param initialBackoff : the time to wait before the first retry in milliseconds, doubled for each following retry
+     */
+    public void setInitialBackoff(long initialBackoff) {
+        if (initialBackoff < 0){
+            throw new IllegalArgumentException("The backoff can't be negative : " + initialBackoff);
+        }
+        this.initialBackoff = initialBackoff;
+    }
+
+    /**
+     * @param retryBudget : the retries allowed for all the calls
+     */
+    public void setRetryBudget(RetryBudget retryBudget) {
+        if (retryBudget == null){
+            throw new IllegalArgumentException("The retry budget must be non null");
+        }
+        this.retryBudget = retryBudget;
+    }
+
+    public RetryBudget getRetryBudget() {
+        return retryBudget;
+    }
+
+    public List<String> getSwissprotIdsForSequence(final String sequence, final String taxId) throws UniprotProteinAPIClientException {
+        return call(Endpoint.SWISSPROT_SEQUENCE, new Callable<List<String>>() {
+            public List<String> call() throws Exception {
+                return client.getSwissprotIdsForSequence(sequence, taxId);
+            }
+        });
+    }
+
+    public List<String> getTremblIdsForSequence(final String sequence, final String taxId) throws UniprotProteinAPIClientException {
+        return call(Endpoint.TREMBL_SEQUENCE, new Callable<List<String>>() {
+            public List<String> call() throws Exception {
+                return client.getTremblIdsForSequence(sequence, taxId);
+            }
+        });
+    }
+
+    /**
+     * Start the query of the trembl entries matching the sequence without waiting for the answer
+     * @param sequence : the sequence
+     * @param taxId : the taxId, can be null
+     * @return the query, its results are read with getResult and it should be cancelled if they are not needed
+     */
+    public Future<List<String>> submitTremblIdsForSequence(final String sequence, final String taxId){
+        return this.lookupExecutor.submit(new Callable<List<String>>() {
+            public List<String> call() throws Exception {
+                return getTremblIdsForSequence(sequence, taxId);
+            }
+        });
+    }
+
+    public Entry getUPEntriesForSequence(final String sequence, final String taxId) throws UniprotProteinAPIClientException {
+        return call(Endpoint.UNIPARC_SEQUENCE, new Callable<Entry>() {
+            public Entry call() throws Exception {
+                return client.getUPEntriesForSequence(sequence, taxId);
+            }
+        });
+    }
+
+    public String[] getUniprotBestGuessFor(final String identifier, final String taxId) throws UniprotProteinAPIClientException {
+        return call(Endpoint.BEST_GUESS, new Callable<String[]>() {
+            public String[] call() throws Exception {
+                return client.getUniprotBestGuessFor(identifier, taxId);
+            }
+        });
+    }
+
+    public List<Entry> getUPEntriesForAccession(final String identifier, final String taxId) throws UniprotProteinAPIClientException {
+        return call(Endpoint.ACCESSION_ENTRIES, new Callable<List<Entry>>() {
+            public List<Entry> call() throws Exception {
+                return client.getUPEntriesForAccession(identifier, taxId);
+            }
+        });
+    }
+
+    /**
+     * Wait for the results of a query submitted to this service
+     * @param query : the query
+     * @return the results of the query
+     * @throws UniprotProteinAPIClientException
+     */
+    public <T> T getResult(Future<T> query) throws UniprotProteinAPIClientException {
+        try {
+            return query.get();
+        } catch (InterruptedException e) {
+            query.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RemoteServiceException("The query to Uniprot Protein API has been interrupted", e);
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    /**
+     * Call an endpoint and retry it while the service fails, the attempts are left and the retry budget allows it
+     * @param endpoint : the endpoint
+     * @param request : the request
+     * @return the answer of the endpoint
+     * @throws UniprotProteinAPIClientException if the endpoint answered with an error
+     */
+    private <T> T call(Endpoint endpoint, Callable<T> request) throws UniprotProteinAPIClientException {
+        this.retryBudget.recordCall();
+
+        for (int attempt = 1; ; attempt++){
+            try {
+                return callOnce(endpoint, request);
+            } catch (UniprotProteinAPIClientException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                if (attempt >= this.maxAttempts || Thread.currentThread().isInterrupted() || !this.retryBudget.tryAcquireRetry()){
+                    throw e;
+                }
+                long backoff = getBackoff(attempt);
+                log.warn("The call to the Uniprot Protein API " + endpoint + " failed (attempt " + attempt + "), retry in " + backoff + " ms : " + e.getMessage());
+
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new RemoteServiceException("The call to the Uniprot Protein API " + endpoint + " has been interrupted", ie);
+                }
+            }
+        }
+    }
+
+    /**
+     * Call an endpoint once, with a permit of the RemoteServiceThrottle and within the timeout of the endpoint
+     * @param endpoint : the endpoint
+     * @param request : the request
+     * @return the answer of the endpoint
+     * @throws UniprotProteinAPIClientException if the endpoint answered with an error
+     * @throws RemoteServiceException if the endpoint didn't answer in time or the call has been interrupted
+     */
+    private <T> T callOnce(Endpoint endpoint, Callable<T> request) throws UniprotProteinAPIClientException {
+        long timeout = getTimeout(endpoint);
+
+        Semaphore permit = RemoteServiceThrottle.acquire(RemoteServiceThrottle.RemoteService.UNIPROT_PROTEIN_API);
+        if (timeout <= 0){
+            try {
+                return request.call();
+            } catch (Exception e) {
+                throw rethrow(e);
+            }
+            finally {
+                permit.release();
+            }
+        }
+
+        // the request runs in another thread so the caller can give up when the timeout is reached. The request releases the permit
+        // when it finishes
+        PermitHoldingRequest<T> task = new PermitHoldingRequest<T>(request, permit);
+        Future<T> future;
+        try {
+            future = this.requestExecutor.submit(task);
+        } catch (RuntimeException e) {
+            task.cancel();
+            throw e;
+        }
+
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            cancel(future, task);
+            throw new RemoteServiceException("The Uniprot Protein API " + endpoint + " didn't answer within " + timeout + " ms", e);
+        } catch (InterruptedException e) {
+            cancel(future, task);
+            Thread.currentThread().interrupt();
+            throw new RemoteServiceException("The call to the Uniprot Protein API " + endpoint + " has been interrupted", e);
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    /**
+     * Cancel a request. A request which didn't start will never run so its permit is released now, a running request
+     * keeps its permit until it finishes
+     * @param future : the future of the request
+     * @param task : the request
+     */
+    private static void cancel(Future<?> future, PermitHoldingRequest<?> task){
+        task.cancel();
+        future.cancel(true);
+    }
+
+    /**
+     * A request holding a permit of the RemoteServiceThrottle until it finishes.
+     * The request runs or is cancelled, whichever happens first, and the winner releases the permit exactly once
+     */
+    static class PermitHoldingRequest<T> implements Callable<T> {
+        private final Callable<T> request;
+        private final Semaphore permit;
+
+        /**
+         * Set by the first of call() and cancel(), which then owns the permit
+         */
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        PermitHoldingRequest(Callable<T> request, Semaphore permit){
+            this.request = request;
+            this.permit = permit;
+        }
+
+        /**
+         * Run the request and release the permit when it finishes
+         * @return the answer of the request, null if the request has been cancelled before
+         * @throws Exception
+         */
+        public T call() throws Exception {
+            if (!this.claimed.compareAndSet(false, true)){
+                return null;
+            }
+            try {
+                return this.request.call();
+            }
+            finally {
+                this.permit.release();
+            }
+        }
+
+        /**
+         * Cancel the request if it didn't start and release its permit
+         * @return true if the request will never run, false if it is already running or finished
+         */
+        boolean cancel(){
+            if (this.claimed.compareAndSet(false, true)){
+                this.permit.release();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     *
+     * @param attempt : the attempt which failed
+     * @return the time to wait before the next attempt : the initial backoff doubled for each attempt, with a random jitter
+     */
+    private long getBackoff(int attempt){
+        long backoff = Math.min(MAX_BACKOFF, this.initialBackoff << Math.min(attempt - 1, 16));
+        synchronized (this.random){
+            return backoff / 2 + (long) (this.random.nextDouble() * (backoff / 2 + 1));
+        }
+    }
+
+    /**
+     * Throw the error of a request
+     * @param error : the error
+     * @return never returns, declared so the callers can throw it
+     * @throws UniprotProteinAPIClientException if the error is a UniprotProteinAPIClientException
+     */
+    private static RuntimeException rethrow(Throwable error) throws UniprotProteinAPIClientException {
+        if (error instanceof UniprotProteinAPIClientException){
+            throw (UniprotProteinAPIClientException) error;
+        }
+        else if (error instanceof RuntimeException){
+            throw (RuntimeException) error;
+        }
+        else if (error instanceof Error){
+            throw (Error) error;
+        }
+        throw new RemoteServiceException("The call to the Uniprot Protein API failed", error);
+    }
+}
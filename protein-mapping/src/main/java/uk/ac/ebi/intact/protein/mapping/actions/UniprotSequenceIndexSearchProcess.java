@@ -0,0 +1,150 @@
+package uk.ac.ebi.intact.protein.mapping.actions;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import uk.ac.ebi.intact.protein.mapping.actions.exception.ActionProcessingException;
+import uk.ac.ebi.intact.protein.mapping.actions.status.Status;
+import uk.ac.ebi.intact.protein.mapping.actions.status.StatusLabel;
+import uk.ac.ebi.intact.protein.mapping.factories.ReportsFactory;
+import uk.ac.ebi.intact.protein.mapping.index.SequenceChecksumIndex;
+import uk.ac.ebi.intact.protein.mapping.index.SequenceIndexEntry;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.MappingReport;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.UniprotProteinAPIReport;
+import uk.ac.ebi.intact.protein.mapping.model.contexts.IdentificationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class is looking for the sequence of the protein to identify in a local SequenceChecksumIndex. It takes the same decisions as
+ * UniprotProteinAPISearchProcessWithSequence (swissprot entries first, then trembl entries) without querying any remote service.
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+public class UniprotSequenceIndexSearchProcess extends IdentificationActionImpl {
+
+    /**
+     * Sets up a logger for that class.
+     */
+    public static final Log log = LogFactory.getLog( UniprotSequenceIndexSearchProcess.class );
+
+    /**
+     * The index of the Uniprot sequences, null if there is no index
+     */
+    private SequenceChecksumIndex sequenceIndex;
+
+    /**
+     * Create a new UniprotSequenceIndexSearchProcess
+     */
+    public UniprotSequenceIndexSearchProcess(ReportsFactory factory){
+        super(factory);
+    }
+
+    /**
+     * Look for the Uniprot entries having exactly the sequence of the protein and the same organism. If several swissprot entries are matching,
+     * they are added to the list of possible proteins of the report. The trembl entries are only considered if no swissprot entry is matching.
+     * @param context  : the context of the protein
+     * @param reports : the list where the reports of this call are added
+     * @return an unique uniprot AC if only one uniprot entry is matching the sequence, null otherwise. The status of the report is FAILED
+     * if the index doesn't contain the sequence
+     * @throws ActionProcessingException if there is no index
+     */
+    public String runAction(IdentificationContext context, List<MappingReport> reports) throws ActionProcessingException {
+        if (this.sequenceIndex == null){
+            throw new ActionProcessingException("No sequence index has been given to look for the sequence " + context.getSequence());
+        }
+
+        String sequence = context.getSequence();
+        String taxId = null;
+        if (context.getOrganism() != null){
+            taxId = context.getOrganism().getTaxId();
+        }
+
+        UniprotProteinAPIReport report = getReportsFactory().getUniprotProteinAPIReport(ActionName.SEARCH_uniprot_sequence_index);
+        reports.add(report);
+
+        if (taxId == null){
+            report.addWarning("No organism was given for the sequence " + sequence + ". We will process the identification without looking at the organism. We will keep only the swissprot results if there are both Swissprot and Trembl results.");
+        }
+
+        List<String> swissprotIds = new ArrayList<String>();
+        List<String> tremblIds = new ArrayList<String>();
+
+        for (SequenceIndexEntry entry : this.sequenceIndex.getEntries(sequence)){
+            if (taxId == null || taxId.equals(entry.getTaxId())){
+                if (entry.isSwissprotEntry()){
+                    swissprotIds.add(entry.getAccession());
+                }
+                else {
+                    tremblIds.add(entry.getAccession());
+                }
+            }
+        }
+
+        // We have an unique matching swissprot entry
+        if (swissprotIds.size() == 1){
+            Status status = new Status(StatusLabel.COMPLETED, "The sequence index returned an unique Swissprot accession " + swissprotIds.get(0));
+            report.setStatus(status);
+
+            report.setIsASwissprotEntry(true);
+            return swissprotIds.get(0);
+        }
+        // we have several matching swissprot entries
+        else if (swissprotIds.size() > 1){
+            for (String ac : swissprotIds){
+                report.addPossibleAccession(ac);
+            }
+
+            // We merge all the swissprot entries which are an isoform of the same protein
+            Set<String> accessions = mergeIsoforms(swissprotIds);
+
+            // The different matching swissprot entries were in fact several isoforms of the same protein so we keep the canonical sequence
+            if (accessions.size() == 1){
+                String ac = accessions.iterator().next();
+                report.setIsASwissprotEntry(true);
+                Status status = new Status(StatusLabel.COMPLETED, "We found a Unique Swissprot entry " + ac + " : the sequence matches several swissprot splice variant sequences of the same protein and we kept the canonical sequence.");
+
+                report.setStatus(status);
+                return ac;
+            }
+
+            Status status = new Status(StatusLabel.TO_BE_REVIEWED, "The sequence index returned " + swissprotIds.size() + " Swissprot accessions which are matching the sequence.");
+            report.setStatus(status);
+            report.addWarning("Several SwissprotIds have been returned. We will not process the sequence mapping in Trembl.");
+        }
+        // Only one matching Trembl entry
+        else if (tremblIds.size() == 1){
+            Status status = new Status(StatusLabel.COMPLETED, "The sequence index returned an unique Trembl accession " + tremblIds.get(0));
+            report.setStatus(status);
+
+            report.setIsASwissprotEntry(false);
+            return tremblIds.get(0);
+        }
+        // Several trembl entries, we can't choose
+        else if (tremblIds.size() > 1){
+            Status status = new Status(StatusLabel.TO_BE_REVIEWED, "The sequence index returned " + tremblIds.size() + " Trembl accessions which are matching the sequence.");
+            report.setStatus(status);
+
+            for (String ac : tremblIds){
+                report.addPossibleAccession(ac);
+            }
+        }
+        else {
+            Status status = new Status(StatusLabel.FAILED, "The sequence index doesn't contain any Uniprot entry matching the sequence.");
+            report.setStatus(status);
+        }
+
+        return null;
+    }
+
+    public SequenceChecksumIndex getSequenceIndex() {
+        return sequenceIndex;
+    }
+
+    public void setSequenceIndex(SequenceChecksumIndex sequenceIndex) {
+        this.sequenceIndex = sequenceIndex;
+    }
+}
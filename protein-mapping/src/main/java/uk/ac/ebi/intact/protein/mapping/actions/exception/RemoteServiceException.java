@@ -0,0 +1,19 @@
+package uk.ac.ebi.intact.protein.mapping.actions.exception;
+
+/**
+ * The exception thrown when a remote service didn't answer in time or the call has been interrupted
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+public class RemoteServiceException extends RuntimeException {
+
+    public RemoteServiceException(String message) {
+        super(message);
+    }
+
+    public RemoteServiceException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
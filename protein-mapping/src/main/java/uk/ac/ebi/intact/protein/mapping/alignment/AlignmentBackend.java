@@ -0,0 +1,35 @@
+package uk.ac.ebi.intact.protein.mapping.alignment;
+
+/**
+ * An alignment backend aligns a protein sequence against Uniprot or Swissprot and returns the matching entries
+ * as BlastProtein instances.
+ *
+ * The implementations must be thread safe : the same backend is used by all the actions and strategies.
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+public interface AlignmentBackend {
+
+    /**
+     * Align a sequence against all the Uniprot entries
+     * @param sequence : the query sequence
+     * @return the results of the alignment, never null
+     */
+    public AlignmentResults alignOnUniprot(String sequence);
+
+    /**
+     * Align a sequence against the Swissprot entries
+     * @param sequence : the query sequence
+     * @return the results of the alignment, never null
+     */
+    public AlignmentResults alignOnSwissprot(String sequence);
+
+    /**
+     *
+     * @return a short description of this backend and of the options which change its results. Two backends returning
+     * different results for the same sequence must have different descriptions
+     */
+    public String getDescription();
+}
@@ -0,0 +1,50 @@
+package uk.ac.ebi.intact.protein.mapping.alignment;
+
+import uk.ac.ebi.intact.bridges.ncbiblast.model.BlastProtein;
+
+import java.util.List;
+
+/**
+ * The results of an alignment. The results are filtered the same way as the BlastResultFilter of the NCBI blast bridge :
+ * the filterResults methods replace the matching entries, the filterMappingEntries method only selects some of the matching entries.
+ *
+ * An instance is not thread safe and is used by one action at a time.
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+public interface AlignmentResults {
+
+    /**
+     * Keep as matching entries the results with an identity superior or equal to the threshold
+     * @param identity : the minimum identity percent
+     */
+    public void filterResultsWithIdentity(float identity);
+
+    /**
+     * Keep as matching entries the results with an identity superior or equal to the threshold and from the organism
+     * @param identity : the minimum identity percent
+     * @param taxId : the taxId of the organism
+     */
+    public void filterResultsWithIdentityAndOrganism(float identity, String taxId);
+
+    /**
+     *
+     * @param identity : the minimum identity percent
+     * @return the matching entries with an identity superior or equal to the threshold. The matching entries are not modified
+     */
+    public List<BlastProtein> filterMappingEntriesWithIdentity(float identity);
+
+    /**
+     *
+     * @return the matching entries
+     */
+    public List<BlastProtein> getMatchingEntries();
+
+    /**
+     *
+     * @return a copy of these results which can be filtered independently
+     */
+    public AlignmentResults copy();
+}
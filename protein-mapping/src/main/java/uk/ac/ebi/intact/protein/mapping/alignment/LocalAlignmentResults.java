@@ -0,0 +1,102 @@
+package uk.ac.ebi.intact.protein.mapping.alignment;
+
+import uk.ac.ebi.intact.bridges.ncbiblast.model.BlastProtein;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The results of an alignment computed by the LocalFastaAlignmentBackend. The taxId of each match is kept
+ * with the match so the results can be filtered with the organism.
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+public class LocalAlignmentResults implements AlignmentResults {
+
+    /**
+     * All the matches of the alignment
+     */
+    private final List<BlastProtein> allEntries;
+
+    /**
+     * The taxId of each match, in the same order as the matches
+     */
+    private final List<String> taxIds;
+
+    /**
+     * The matches kept after the last filter
+     */
+    private List<BlastProtein> matchingEntries;
+
+    /**
+     * Create new LocalAlignmentResults
+     * @param allEntries : the matches sorted by decreasing score
+     * @param taxIds : the taxId of each match, an element can be null if the organism is unknown
+     */
+    public LocalAlignmentResults(List<BlastProtein> allEntries, List<String> taxIds){
+        if (allEntries.size() != taxIds.size()){
+            throw new IllegalArgumentException("Each match must have a taxId");
+        }
+        this.allEntries = allEntries;
+        this.taxIds = taxIds;
+        this.matchingEntries = new ArrayList<BlastProtein>(allEntries);
+    }
+
+    public void filterResultsWithIdentity(float identity) {
+        this.matchingEntries = filterMappingEntriesWithIdentity(this.allEntries, identity);
+    }
+
+    public void filterResultsWithIdentityAndOrganism(float identity, String taxId) {
+        List<BlastProtein> entries = new ArrayList<BlastProtein>();
+
+        for (int i = 0; i < this.allEntries.size(); i++){
+            BlastProtein protein = this.allEntries.get(i);
+
+            if (protein.getIdentity() >= identity && taxId != null && taxId.equals(this.taxIds.get(i))){
+                entries.add(protein);
+            }
+        }
+        this.matchingEntries = entries;
+    }
+
+    public List<BlastProtein> filterMappingEntriesWithIdentity(float identity) {
+        return filterMappingEntriesWithIdentity(this.matchingEntries, identity);
+    }
+
+    private static List<BlastProtein> filterMappingEntriesWithIdentity(List<BlastProtein> proteins, float identity){
+        List<BlastProtein> entries = new ArrayList<BlastProtein>();
+
+        for (BlastProtein protein : proteins){
+            if (protein.getIdentity() >= identity){
+                entries.add(protein);
+            }
+        }
+        return entries;
+    }
+
+    public List<BlastProtein> getMatchingEntries() {
+        return this.matchingEntries;
+    }
+
+    public AlignmentResults copy() {
+        List<BlastProtein> entries = new ArrayList<BlastProtein>(this.allEntries.size());
+
+        for (BlastProtein protein : this.allEntries){
+            BlastProtein copy = new BlastProtein();
+            copy.setAccession(protein.getAccession());
+            copy.setDatabase(protein.getDatabase());
+            copy.setDescription(protein.getDescription());
+            copy.setSequence(protein.getSequence());
+            copy.setAlignment(protein.getAlignment());
+            copy.setIdentity(protein.getIdentity());
+            copy.setStartQuery(protein.getStartQuery());
+            copy.setEndQuery(protein.getEndQuery());
+            copy.setStartMatch(protein.getStartMatch());
+            copy.setEndMatch(protein.getEndMatch());
+            entries.add(copy);
+        }
+        return new LocalAlignmentResults(entries, this.taxIds);
+    }
+}
@@ -0,0 +1,512 @@
+package uk.ac.ebi.intact.protein.mapping.alignment;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import uk.ac.ebi.intact.bridges.ncbiblast.model.BlastProtein;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * This backend aligns the sequences with a Uniprot FASTA file loaded in memory (for instance uniprot_sprot.fasta.gz or
+ * a FASTA file restricted to the organisms of interest) instead of submitting blast jobs to the NCBI service.
+ *
+ * The search is done in two steps :
+ * - all the entries sharing enough words of 4 residues with the query are collected (scanned in parallel)
+ * - the best candidates are aligned with the query using a Smith-Waterman alignment (BLOSUM62, gap existence 11, gap extension 1).
+ * An entry containing the complete query sequence is a 100% identity match and is not aligned.
+ *
+ * The matches are reported as BlastProtein instances so the actions process them exactly as the NCBI blast results.
+ * The identifiers of the FASTA headers are read as in Uniprot : >sp|P12345|NAME_HUMAN description OS=organism OX=9606
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+public class LocalFastaAlignmentBackend implements AlignmentBackend {
+
+    /**
+     * Sets up a logger for that class.
+     */
+    public static final Log log = LogFactory.getLog( LocalFastaAlignmentBackend.class );
+
+    /**
+     * The length of the words used to select the candidates
+     */
+    private static final int WORD_LENGTH = 4;
+
+    /**
+     * The number of different residues
+     */
+    private static final int ALPHABET_SIZE = 24;
+
+    private static final int NUMBER_OF_WORDS = ALPHABET_SIZE * ALPHABET_SIZE * ALPHABET_SIZE * ALPHABET_SIZE;
+
+    /**
+     * The default maximum number of matches reported for a sequence
+     */
+    public static final int DEFAULT_MAX_MATCHES = 50;
+
+    /**
+     * The default minimum fraction of the words of the shortest sequence which must be shared by the query and a candidate
+     */
+    public static final float DEFAULT_MINIMUM_SHARED_WORDS = 0.3f;
+
+    /**
+     * The default maximum size of an alignment matrix
+     */
+    public static final long DEFAULT_MAX_ALIGNMENT_CELLS = 64L * 1024L * 1024L;
+
+    /**
+     * The database of the swissprot and trembl entries, as reported by the NCBI blast service
+     */
+    private static final String SWISSPROT = "SP";
+    private static final String TREMBL = "TR";
+
+    /**
+     * The name of the FASTA file
+     */
+    private final String fastaName;
+
+    /**
+     * The entries of the FASTA file
+     */
+    private final String[] accessions;
+    private final String[] databases;
+    private final String[] descriptions;
+    private final String[] taxIds;
+    private final byte[][] sequences;
+
+    /**
+     * The aligner
+     */
+    private final ProteinAligner aligner;
+
+    /**
+     * The threads scanning the entries and aligning the candidates
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The number of threads
+     */
+    private final int numberOfThreads;
+
+    private int maxMatches = DEFAULT_MAX_MATCHES;
+
+    private float minimumSharedWords = DEFAULT_MINIMUM_SHARED_WORDS;
+
+    /**
+     * Create a new LocalFastaAlignmentBackend using all the available processors
+     * @param fastaFile : the Uniprot FASTA file, can be compressed with gzip if the name ends with .gz
+     * @throws IOException if the file can't be read
+     */
+    public LocalFastaAlignmentBackend(File fastaFile) throws IOException {
+        this(fastaFile, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a new LocalFastaAlignmentBackend
+     * @param fastaFile : the Uniprot FASTA file, can be compressed with gzip if the name ends with .gz
+     * @param numberOfThreads : the number of threads used to search a sequence
+     * @throws IOException if the file can't be read
+     */
+    public LocalFastaAlignmentBackend(File fastaFile, int numberOfThreads) throws IOException {
+        if (fastaFile == null){
+            throw new IllegalArgumentException("The FASTA file must be non null");
+        }
+
+        List<String> accessionList = new ArrayList<String>();
+        List<String> databaseList = new ArrayList<String>();
+        List<String> descriptionList = new ArrayList<String>();
+        List<String> taxIdList = new ArrayList<String>();
+        List<byte[]> sequenceList = new ArrayList<byte[]>();
+
+        InputStream in = new FileInputStream(fastaFile);
+        if (fastaFile.getName().endsWith(".gz")){
+            in = new GZIPInputStream(in, 65536);
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, "US-ASCII"), 65536);
+
+        try {
+            String header = null;
+            ByteArrayOutputStream sequence = new ByteArrayOutputStream();
+            String line;
+
+            while ((line = reader.readLine()) != null){
+                if (line.startsWith(">")){
+                    if (header != null){
+                        addEntry(header, sequence.toByteArray(), accessionList, databaseList, descriptionList, taxIdList, sequenceList);
+                    }
+                    header = line.substring(1).trim();
+                    sequence.reset();
+                }
+                else {
+                    for (int i = 0; i < line.length(); i++){
+                        char residue = line.charAt(i);
+                        if (!Character.isWhitespace(residue)){
+                            sequence.write(Character.toUpperCase(residue));
+                        }
+                    }
+                }
+            }
+            if (header != null){
+                addEntry(header, sequence.toByteArray(), accessionList, databaseList, descriptionList, taxIdList, sequenceList);
+            }
+        }
+        finally {
+            reader.close();
+        }
+
+        this.fastaName = fastaFile.getName();
+        this.accessions = accessionList.toArray(new String[accessionList.size()]);
+        this.databases = databaseList.toArray(new String[databaseList.size()]);
+        this.descriptions = descriptionList.toArray(new String[descriptionList.size()]);
+        this.taxIds = taxIdList.toArray(new String[taxIdList.size()]);
+        this.sequences = sequenceList.toArray(new byte[sequenceList.size()][]);
+
+        log.info(this.accessions.length + " entries loaded from " + fastaFile.getAbsolutePath());
+
+        this.aligner = new ProteinAligner(DEFAULT_MAX_ALIGNMENT_CELLS);
+        this.numberOfThreads = Math.max(numberOfThreads, 1);
+        this.executor = Executors.newFixedThreadPool(this.numberOfThreads, new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "local-alignment");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Read the header of an entry and add the entry to the lists
+     */
+    private static void addEntry(String header, byte[] sequence, List<String> accessionList, List<String> databaseList, List<String> descriptionList, List<String> taxIdList, List<byte[]> sequenceList){
+        if (sequence.length == 0){
+            return;
+        }
+
+        int endOfIdentifier = header.indexOf(' ');
+        String identifier = endOfIdentifier > 0 ? header.substring(0, endOfIdentifier) : header;
+        String description = endOfIdentifier > 0 ? header.substring(endOfIdentifier + 1) : null;
+
+        String accession = identifier;
+        String database = null;
+        String[] identifiers = identifier.split("\\|");
+
+        if (identifiers.length >= 2){
+            accession = identifiers[1];
+
+            if ("sp".equals(identifiers[0])){
+                database = SWISSPROT;
+            }
+            else if ("tr".equals(identifiers[0])){
+                database = TREMBL;
+            }
+        }
+
+        String taxId = null;
+        int startOfTaxId = header.indexOf(" OX=");
+        if (startOfTaxId > 0){
+            int endOfTaxId = header.indexOf(' ', startOfTaxId + 4);
+            taxId = endOfTaxId > 0 ? header.substring(startOfTaxId + 4, endOfTaxId) : header.substring(startOfTaxId + 4);
+        }
+
+        accessionList.add(accession);
+        databaseList.add(database);
+        descriptionList.add(description);
+        taxIdList.add(taxId);
+        sequenceList.add(sequence);
+    }
+
+    public AlignmentResults alignOnUniprot(String sequence) {
+        return align(sequence, false);
+    }
+
+    public AlignmentResults alignOnSwissprot(String sequence) {
+        return align(sequence, true);
+    }
+
+    /**
+     * Align the sequence with the entries of the FASTA file
+     * @param sequence : the query sequence
+     * @param swissprotOnly : true if only the swissprot entries must be aligned
+     * @return the matches sorted by decreasing score
+     */
+    private AlignmentResults align(String sequence, final boolean swissprotOnly){
+        List<BlastProtein> matches = new ArrayList<BlastProtein>();
+        List<String> matchTaxIds = new ArrayList<String>();
+
+        if (sequence == null || sequence.length() < WORD_LENGTH){
+            return new LocalAlignmentResults(matches, matchTaxIds);
+        }
+
+        final byte[] query = sequence.toUpperCase().getBytes();
+        final long[] queryWords = collectWords(query);
+
+        // select the candidates sharing enough words with the query
+        List<Future<List<Candidate>>> scans = new ArrayList<Future<List<Candidate>>>();
+        int chunkSize = Math.max(1, (this.sequences.length + this.numberOfThreads - 1) / this.numberOfThreads);
+
+        for (int start = 0; start < this.sequences.length; start += chunkSize){
+            final int from = start;
+            final int to = Math.min(start + chunkSize, this.sequences.length);
+
+            scans.add(this.executor.submit(new Callable<List<Candidate>>() {
+                public List<Candidate> call() throws Exception {
+                    return selectCandidates(query, queryWords, from, to, swissprotOnly);
+                }
+            }));
+        }
+
+        List<Candidate> candidates = new ArrayList<Candidate>();
+        for (Future<List<Candidate>> scan : scans){
+            candidates.addAll(waitFor(scan));
+        }
+        Collections.sort(candidates);
+        if (candidates.size() > this.maxMatches){
+            candidates = candidates.subList(0, this.maxMatches);
+        }
+
+        // align the candidates with the query
+        List<Future<ProteinAligner.LocalAlignment>> alignments = new ArrayList<Future<ProteinAligner.LocalAlignment>>(candidates.size());
+        for (final Candidate candidate : candidates){
+            alignments.add(this.executor.submit(new Callable<ProteinAligner.LocalAlignment>() {
+                public ProteinAligner.LocalAlignment call() throws Exception {
+                    return alignCandidate(query, sequences[candidate.index]);
+                }
+            }));
+        }
+
+        List<Match> alignedCandidates = new ArrayList<Match>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++){
+            ProteinAligner.LocalAlignment alignment = waitFor(alignments.get(i));
+
+            if (alignment != null){
+                alignedCandidates.add(new Match(candidates.get(i).index, alignment));
+            }
+        }
+        Collections.sort(alignedCandidates);
+
+        for (Match match : alignedCandidates){
+            matches.add(createBlastProtein(match.index, match.alignment));
+            matchTaxIds.add(this.taxIds[match.index]);
+        }
+
+        return new LocalAlignmentResults(matches, matchTaxIds);
+    }
+
+    /**
+     *
+     * @param future : a task submitted to the executor
+     * @return the result of the task
+     */
+    private static <T> T waitFor(Future<T> future){
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while aligning the sequence", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("The local alignment failed", e.getCause());
+        }
+    }
+
+    /**
+     *
+     * @param sequence
+     * @return the index of the word ending at each position of the sequence, as a bit set
+     */
+    private static long[] collectWords(byte[] sequence){
+        long[] words = new long[(NUMBER_OF_WORDS + 63) / 64];
+        int word = 0;
+
+        for (int i = 0; i < sequence.length; i++){
+            word = (word % (NUMBER_OF_WORDS / ALPHABET_SIZE)) * ALPHABET_SIZE + ProteinAligner.getResidueIndex(sequence[i]);
+
+            if (i >= WORD_LENGTH - 1){
+                words[word >>> 6] |= 1L << (word & 63);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Count the words of each entry between from and to which are present in the query
+     * @return the entries sharing enough words with the query
+     */
+    private List<Candidate> selectCandidates(byte[] query, long[] queryWords, int from, int to, boolean swissprotOnly){
+        List<Candidate> candidates = new ArrayList<Candidate>();
+        int numberOfQueryWords = query.length - WORD_LENGTH + 1;
+
+        for (int index = from; index < to; index++){
+            if (swissprotOnly && !SWISSPROT.equals(this.databases[index])){
+                continue;
+            }
+
+            byte[] entry = this.sequences[index];
+            if (entry.length < WORD_LENGTH){
+                continue;
+            }
+
+            int sharedWords = 0;
+            int word = 0;
+            for (int i = 0; i < entry.length; i++){
+                word = (word % (NUMBER_OF_WORDS / ALPHABET_SIZE)) * ALPHABET_SIZE + ProteinAligner.getResidueIndex(entry[i]);
+
+                if (i >= WORD_LENGTH - 1 && (queryWords[word >>> 6] & (1L << (word & 63))) != 0){
+                    sharedWords++;
+                }
+            }
+
+            int minimumSharedWords = Math.max(1, (int) (Math.min(numberOfQueryWords, entry.length - WORD_LENGTH + 1) * this.minimumSharedWords));
+            if (sharedWords >= minimumSharedWords){
+                candidates.add(new Candidate(index, sharedWords));
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Align the query with a candidate. A candidate containing the query is a complete match with 100% identity
+     * @return the alignment, null if the query and the candidate don't align
+     */
+    private ProteinAligner.LocalAlignment alignCandidate(byte[] query, byte[] candidate){
+        int start = indexOf(candidate, query);
+
+        if (start >= 0){
+            int score = 0;
+            for (byte residue : query){
+                score += ProteinAligner.getScore(residue, residue);
+            }
+            return new ProteinAligner.LocalAlignment(score, 100, 1, query.length, start + 1, start + query.length, new String(query));
+        }
+        return this.aligner.align(query, candidate);
+    }
+
+    /**
+     *
+     * @return the position of the first occurrence of query in sequence, -1 if the sequence doesn't contain the query
+     */
+    private static int indexOf(byte[] sequence, byte[] query){
+        int last = sequence.length - query.length;
+
+        for (int i = 0; i <= last; i++){
+            int j = 0;
+            while (j < query.length && sequence[i + j] == query[j]){
+                j++;
+            }
+            if (j == query.length){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     *
+     * @return the BlastProtein describing the alignment of the query with the entry at this index
+     */
+    private BlastProtein createBlastProtein(int index, ProteinAligner.LocalAlignment alignment){
+        BlastProtein protein = new BlastProtein();
+
+        protein.setAccession(this.accessions[index]);
+        protein.setDatabase(this.databases[index]);
+        protein.setDescription(this.descriptions[index]);
+        protein.setSequence(new String(this.sequences[index]));
+        protein.setAlignment(alignment.getPattern());
+        protein.setIdentity(alignment.getIdentity());
+        protein.setStartQuery(alignment.getStartQuery());
+        protein.setEndQuery(alignment.getEndQuery());
+        protein.setStartMatch(alignment.getStartMatch());
+        protein.setEndMatch(alignment.getEndMatch());
+
+        return protein;
+    }
+
+    /**
+     *
+     * @return the number of entries loaded from the FASTA file
+     */
+    public int size(){
+        return this.accessions.length;
+    }
+
+    public String getDescription() {
+        return "fasta-" + this.fastaName + "-" + this.accessions.length + "-" + this.maxMatches + "-" + this.minimumSharedWords;
+    }
+
+    public int getMaxMatches() {
+        return maxMatches;
+    }
+
+    /**
+     * Set the maximum number of matches reported for a sequence
+     * @param maxMatches
+     */
+    public void setMaxMatches(int maxMatches) {
+        this.maxMatches = Math.max(maxMatches, 1);
+    }
+
+    public float getMinimumSharedWords() {
+        return minimumSharedWords;
+    }
+
+    /**
+     * Set the minimum fraction of the words of the shortest sequence which must be shared by the query and an entry to align them.
+     * A lower fraction finds more distant matches but aligns more entries
+     * @param minimumSharedWords : between 0 and 1
+     */
+    public void setMinimumSharedWords(float minimumSharedWords) {
+        this.minimumSharedWords = minimumSharedWords;
+    }
+
+    /**
+     * Stop the threads of this backend
+     */
+    public void shutdown(){
+        this.executor.shutdown();
+    }
+
+    /**
+     * An entry sharing words with the query
+     */
+    private static class Candidate implements Comparable<Candidate> {
+        private final int index;
+        private final int sharedWords;
+
+        private Candidate(int index, int sharedWords){
+            this.index = index;
+            this.sharedWords = sharedWords;
+        }
+
+        public int compareTo(Candidate o) {
+            if (sharedWords != o.sharedWords){
+                return sharedWords > o.sharedWords ? -1 : 1;
+            }
+            return index < o.index ? -1 : (index == o.index ? 0 : 1);
+        }
+    }
+
+    /**
+     * An entry aligned with the query
+     */
+    private static class Match implements Comparable<Match> {
+        private final int index;
+        private final ProteinAligner.LocalAlignment alignment;
+
+        private Match(int index, ProteinAligner.LocalAlignment alignment){
+            this.index = index;
+            this.alignment = alignment;
+        }
+
+        public int compareTo(Match o) {
+            if (alignment.getScore() != o.alignment.getScore()){
+                return alignment.getScore() > o.alignment.getScore() ? -1 : 1;
+            }
+            return index < o.index ? -1 : (index == o.index ? 0 : 1);
+        }
+    }
+}
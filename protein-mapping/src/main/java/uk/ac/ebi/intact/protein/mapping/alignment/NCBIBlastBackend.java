@@ -0,0 +1,231 @@
+package uk.ac.ebi.intact.protein.mapping.alignment;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import uk.ac.ebi.intact.bridges.ncbiblast.BlastResultFilter;
+import uk.ac.ebi.intact.bridges.ncbiblast.BlastServiceException;
+import uk.ac.ebi.intact.bridges.ncbiblast.ProteinNCBIBlastService;
+import uk.ac.ebi.intact.bridges.ncbiblast.model.BlastProtein;
+import uk.ac.ebi.intact.protein.mapping.actions.RemoteServiceThrottle;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * This backend runs the alignments with the remote NCBI blast service.
+ *
+ * A blast whose thread is interrupted while it waits for a permit of the RemoteServiceThrottle, like a cancelled speculative blast,
+ * is not submitted to NCBI and throws a CancellationException.
+ *
+ * The email sent with the blast jobs is read from the system property 'blast.email' when the backend is created with the default constructor,
+ * the email used before the backends existed is sent if the property is not set.
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+public class NCBIBlastBackend implements AlignmentBackend {
+
+    /**
+     * Sets up a logger for that class.
+     */
+    public static final Log log = LogFactory.getLog( NCBIBlastBackend.class );
+
+    /**
+     * The system property containing the email sent with the blast jobs
+     */
+    public static final String EMAIL_PROPERTY = "blast.email";
+
+    /**
+     * The email sent with the blast jobs when the system property 'blast.email' is not set
+     */
+    public static final String DEFAULT_EMAIL = "marine@ebi.ac.uk";
+
+    /**
+     * The NCBI blast service
+     */
+    private ProteinNCBIBlastService blastService;
+
+    /**
+     * Create a new NCBIBlastBackend using the email of the system property 'blast.email', DEFAULT_EMAIL if it is not set
+     */
+    public NCBIBlastBackend(){
+        this(getEmail());
+    }
+
+    /**
+     * Create a new NCBIBlastBackend
+     * @param email : the email sent with the blast jobs, required by NCBI
+     */
+    public NCBIBlastBackend(String email){
+        if (email == null || email.trim().length() == 0){
+            throw new IllegalArgumentException("The email sent with the blast jobs must be non null and non empty");
+        }
+
+        try {
+            this.blastService = new ProteinNCBIBlastService(email);
+
+        } catch (BlastServiceException e) {
+            log.error("Problem instantiating the blast client.",e);
+        }
+    }
+
+    /**
+     * Create a new NCBIBlastBackend
+     * @param blastService : the NCBI blast service
+     */
+    public NCBIBlastBackend(ProteinNCBIBlastService blastService){
+        if (blastService == null){
+            throw new IllegalArgumentException("The blast service must be non null");
+        }
+        this.blastService = blastService;
+    }
+
+    /**
+     *
+     * @return the email of the system property 'blast.email', DEFAULT_EMAIL if it is not set
+     */
+    private static String getEmail(){
+        String email = System.getProperty(EMAIL_PROPERTY);
+        return email != null && email.trim().length() > 0 ? email : DEFAULT_EMAIL;
+    }
+
+    /**
+     * Run a blast on uniprot, waiting if too many blast jobs are already running
+     * @param sequence : the query sequence
+     * @return the results of the blast
+     * @throws CancellationException if the thread has been interrupted before the blast is submitted
+     */
+    public AlignmentResults alignOnUniprot(String sequence) {
+        Semaphore permit = acquirePermit();
+        try {
+            return new NCBIBlastResults(readBlastResults(this.blastService.getResultsOfBlastOnUniprot(sequence)));
+        }
+        finally {
+            permit.release();
+        }
+    }
+
+    /**
+     * Run a blast on swissprot, waiting if too many blast jobs are already running
+     * @param sequence : the query sequence
+     * @return the results of the blast
+     * @throws CancellationException if the thread has been interrupted before the blast is submitted
+     */
+    public AlignmentResults alignOnSwissprot(String sequence) {
+        Semaphore permit = acquirePermit();
+        try {
+            return new NCBIBlastResults(readBlastResults(this.blastService.getResultsOfBlastOnSwissprot(sequence)));
+        }
+        finally {
+            permit.release();
+        }
+    }
+
+    /**
+     * Wait for a permit to submit a blast job
+     * @return the permit, which must be released when the blast is finished
+     * @throws CancellationException if the thread has been interrupted, no permit is held then
+     */
+    private static Semaphore acquirePermit() {
+        Semaphore permit;
+        try {
+            permit = RemoteServiceThrottle.acquireInterruptibly(RemoteServiceThrottle.RemoteService.NCBI_BLAST);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("The blast has been cancelled while waiting to be submitted");
+        }
+
+        // the blast can be cancelled just after it got the permit
+        if (Thread.currentThread().isInterrupted()){
+            permit.release();
+            throw new CancellationException("The blast has been cancelled before being submitted");
+        }
+        return permit;
+    }
+
+    public String getDescription() {
+        return "ncbi";
+    }
+
+    /**
+     * Read the results of a blast so they can be loaded in several BLAST filters
+     * @param blastResults : the results of the blast, can be null
+     * @return the content of the results, null if there are no results
+     */
+    private static byte[] readBlastResults(InputStream blastResults) {
+        if (blastResults == null){
+            return null;
+        }
+
+        try {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int length;
+
+            while ((length = blastResults.read(buffer)) != -1){
+                content.write(buffer, 0, length);
+            }
+            return content.toByteArray();
+        } catch (IOException e) {
+            log.error("Impossible to read BLAST results", e);
+            return null;
+        }
+        finally {
+            try {
+                blastResults.close();
+            } catch (IOException e) {
+                log.error("Impossible to close BLAST results", e);
+            }
+        }
+    }
+
+    /**
+     * The results of a blast loaded in a BlastResultFilter
+     */
+    private static class NCBIBlastResults implements AlignmentResults {
+
+        /**
+         * The results returned by the blast service, null if there are no results
+         */
+        private final byte[] content;
+
+        /**
+         * The BLAST filter containing the results of the blast
+         */
+        private final BlastResultFilter blastFilter = new BlastResultFilter();
+
+        private NCBIBlastResults(byte[] content){
+            this.content = content;
+
+            if (content != null){
+                this.blastFilter.setResults(new ByteArrayInputStream(content));
+            }
+        }
+
+        public void filterResultsWithIdentity(float identity) {
+            this.blastFilter.filterResultsWithIdentity(identity);
+        }
+
+        public void filterResultsWithIdentityAndOrganism(float identity, String taxId) {
+            this.blastFilter.filterResultsWithIdentityAndOrganism(identity, taxId);
+        }
+
+        public List<BlastProtein> filterMappingEntriesWithIdentity(float identity) {
+            return this.blastFilter.filterMappingEntriesWithIdentity(identity);
+        }
+
+        public List<BlastProtein> getMatchingEntries() {
+            return this.blastFilter.getMatchingEntries();
+        }
+
+        public AlignmentResults copy() {
+            return new NCBIBlastResults(this.content);
+        }
+    }
+}
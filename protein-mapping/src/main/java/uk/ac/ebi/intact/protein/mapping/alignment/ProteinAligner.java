@@ -0,0 +1,330 @@
+package uk.ac.ebi.intact.protein.mapping.alignment;
+
+/**
+ * This class computes the best local alignment (Smith-Waterman with affine gaps) of two protein sequences
+ * with the BLOSUM62 matrix and the default gap penalties of protein blast (existence 11, extension 1).
+ *
+ * An instance has no state and can be used by several threads.
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+public class ProteinAligner {
+
+    /**
+     * The residues in the order of the BLOSUM62 matrix
+     */
+    private static final String RESIDUES = "ARNDCQEGHILKMFPSTWYVBZX*";
+
+    /**
+     * The index of the unknown residue X
+     */
+    private static final int UNKNOWN_RESIDUE = 22;
+
+    private static final int[][] BLOSUM62 = {
+            { 4, -1, -2, -2,  0, -1, -1,  0, -2, -1, -1, -1, -1, -2, -1,  1,  0, -3, -2,  0, -2, -1,  0, -4},
+            {-1,  5,  0, -2, -3,  1,  0, -2,  0, -3, -2,  2, -1, -3, -2, -1, -1, -3, -2, -3, -1,  0, -1, -4},
+            {-2,  0,  6,  1, -3,  0,  0,  0,  1, -3, -3,  0, -2, -3, -2,  1,  0, -4, -2, -3,  3,  0, -1, -4},
+            {-2, -2,  1,  6, -3,  0,  2, -1, -1, -3, -4, -1, -3, -3, -1,  0, -1, -4, -3, -3,  4,  1, -1, -4},
+            { 0, -3, -3, -3,  9, -3, -4, -3, -3, -1, -1, -3, -1, -2, -3, -1, -1, -2, -2, -1, -3, -3, -2, -4},
+            {-1,  1,  0,  0, -3,  5,  2, -2,  0, -3, -2,  1,  0, -3, -1,  0, -1, -2, -1, -2,  0,  3, -1, -4},
+            {-1,  0,  0,  2, -4,  2,  5, -2,  0, -3, -3,  1, -2, -3, -1,  0, -1, -3, -2, -2,  1,  4, -1, -4},
+            { 0, -2,  0, -1, -3, -2, -2,  6, -2, -4, -4, -2, -3, -3, -2,  0, -2, -2, -3, -3, -1, -2, -1, -4},
+            {-2,  0,  1, -1, -3,  0,  0, -2,  8, -3, -3, -1, -2, -1, -2, -1, -2, -2,  2, -3,  0,  0, -1, -4},
+            {-1, -3, -3, -3, -1, -3, -3, -4, -3,  4,  2, -3,  1,  0, -3, -2, -1, -3, -1,  3, -3, -3, -1, -4},
+            {-1, -2, -3, -4, -1, -2, -3, -4, -3,  2,  4, -2,  2,  0, -3, -2, -1, -2, -1,  1, -4, -3, -1, -4},
+            {-1,  2,  0, -1, -3,  1,  1, -2, -1, -3, -2,  5, -1, -3, -1,  0, -1, -3, -2, -2,  0,  1, -1, -4},
+            {-1, -1, -2, -3, -1,  0, -2, -3, -2,  1,  2, -1,  5,  0, -2, -1, -1, -1, -1,  1, -3, -1, -1, -4},
+            {-2, -3, -3, -3, -2, -3, -3, -3, -1,  0,  0, -3,  0,  6, -4, -2, -2,  1,  3, -1, -3, -3, -1, -4},
+            {-1, -2, -2, -1, -3, -1, -1, -2, -2, -3, -3, -1, -2, -4,  7, -1, -1, -4, -3, -2, -2, -1, -2, -4},
+            { 1, -1,  1,  0, -1,  0,  0,  0, -1, -2, -2,  0, -1, -2, -1,  4,  1, -3, -2, -2,  0,  0,  0, -4},
+            { 0, -1,  0, -1, -1, -1, -1, -2, -2, -1, -1, -1, -1, -2, -1,  1,  5, -2, -2,  0, -1, -1,  0, -4},
+            {-3, -3, -4, -4, -2, -2, -3, -2, -2, -3, -2, -3, -1,  1, -4, -3, -2, 11,  2, -3, -4, -3, -2, -4},
+            {-2, -2, -2, -3, -2, -1, -2, -3,  2, -1, -1, -2, -1,  3, -3, -2, -2,  2,  7, -1, -3, -2, -1, -4},
+            { 0, -3, -3, -3, -1, -2, -2, -3, -3,  3,  1, -2,  1, -1, -2, -2,  0, -3, -1,  4, -3, -2, -1, -4},
+            {-2, -1,  3,  4, -3,  0,  1, -1,  0, -3, -4,  0, -3, -3, -2,  0, -1, -4, -3, -3,  4,  1, -1, -4},
+            {-1,  0,  0,  1, -3,  3,  4, -2,  0, -3, -3,  1, -1, -3, -1,  0, -1, -3, -2, -2,  1,  4, -1, -4},
+            { 0, -1, -1, -1, -2, -1, -1, -1, -1, -1, -1, -1, -1, -1, -2,  0,  0, -2, -1, -1, -1, -1, -1, -4},
+            {-4, -4, -4, -4, -4, -4, -4, -4, -4, -4, -4, -4, -4, -4, -4, -4, -4, -4, -4, -4, -4, -4, -4,  1}
+    };
+
+    /**
+     * The index of each residue in the BLOSUM62 matrix
+     */
+    private static final byte[] RESIDUE_INDEX = new byte[128];
+
+    static {
+        for (int i = 0; i < RESIDUE_INDEX.length; i++){
+            RESIDUE_INDEX[i] = UNKNOWN_RESIDUE;
+        }
+        for (int i = 0; i < RESIDUES.length(); i++){
+            char residue = RESIDUES.charAt(i);
+            RESIDUE_INDEX[residue] = (byte) i;
+            RESIDUE_INDEX[Character.toLowerCase(residue)] = (byte) i;
+        }
+    }
+
+    /**
+     * The penalty to open a gap of length 1 (existence + extension) and to extend it
+     */
+    private static final int GAP_OPEN = 12;
+    private static final int GAP_EXTENSION = 1;
+
+    /**
+     * The traceback directions
+     */
+    private static final byte STOP = 0;
+    private static final byte DIAGONAL = 1;
+    private static final byte FROM_E = 2;
+    private static final byte FROM_F = 3;
+    private static final byte E_EXTENDED = 4;
+    private static final byte F_EXTENDED = 8;
+
+    /**
+     * The maximum size of the traceback matrix (query length x match length)
+     */
+    private final long maxCells;
+
+    /**
+     * Create a new ProteinAligner
+     * @param maxCells : the maximum size of the alignment matrix, longer sequences are not aligned
+     */
+    public ProteinAligner(long maxCells){
+        this.maxCells = maxCells;
+    }
+
+    /**
+     *
+     * @param residue : an amino acid
+     * @return the index of this residue in the BLOSUM62 matrix
+     */
+    public static int getResidueIndex(byte residue){
+        return residue >= 0 ? RESIDUE_INDEX[residue] : UNKNOWN_RESIDUE;
+    }
+
+    /**
+     *
+     * @param residue1
+     * @param residue2
+     * @return the score of the substitution of residue1 with residue2 in the BLOSUM62 matrix
+     */
+    public static int getScore(byte residue1, byte residue2){
+        return BLOSUM62[getResidueIndex(residue1)][getResidueIndex(residue2)];
+    }
+
+    /**
+     * Align the query with the match
+     * @param query : the query sequence
+     * @param match : the match sequence
+     * @return the best local alignment, null if the sequences are too long or don't align
+     */
+    public LocalAlignment align(byte[] query, byte[] match){
+        int n = query.length;
+        int m = match.length;
+
+        if ((long) (n + 1) * (long) (m + 1) > maxCells){
+            return null;
+        }
+
+        int[] matchIndexes = new int[m];
+        for (int j = 0; j < m; j++){
+            matchIndexes[j] = getResidueIndex(match[j]);
+        }
+
+        int width = m + 1;
+        byte[] traceback = new byte[(n + 1) * width];
+
+        // the scores of the previous row and of the current row
+        int[] previousH = new int[width];
+        int[] currentH = new int[width];
+        int[] f = new int[width];
+        for (int j = 0; j < width; j++){
+            f[j] = Integer.MIN_VALUE / 2;
+        }
+
+        int bestScore = 0;
+        int bestI = 0;
+        int bestJ = 0;
+
+        for (int i = 1; i <= n; i++){
+            int[] scores = BLOSUM62[getResidueIndex(query[i - 1])];
+            int e = Integer.MIN_VALUE / 2;
+            currentH[0] = 0;
+            int row = i * width;
+
+            for (int j = 1; j <= m; j++){
+                byte direction = 0;
+
+                // gap in the query
+                int openE = currentH[j - 1] - GAP_OPEN;
+                int extendE = e - GAP_EXTENSION;
+                if (extendE > openE){
+                    e = extendE;
+                    direction |= E_EXTENDED;
+                }
+                else {
+                    e = openE;
+                }
+
+                // gap in the match
+                int openF = previousH[j] - GAP_OPEN;
+                int extendF = f[j] - GAP_EXTENSION;
+                if (extendF > openF){
+                    f[j] = extendF;
+                    direction |= F_EXTENDED;
+                }
+                else {
+                    f[j] = openF;
+                }
+
+                int h = previousH[j - 1] + scores[matchIndexes[j - 1]];
+                byte origin = DIAGONAL;
+                if (e > h){
+                    h = e;
+                    origin = FROM_E;
+                }
+                if (f[j] > h){
+                    h = f[j];
+                    origin = FROM_F;
+                }
+                if (h <= 0){
+                    h = 0;
+                    origin = STOP;
+                }
+
+                currentH[j] = h;
+                traceback[row + j] = (byte) (direction | origin);
+
+                if (h > bestScore){
+                    bestScore = h;
+                    bestI = i;
+                    bestJ = j;
+                }
+            }
+
+            int[] swap = previousH;
+            previousH = currentH;
+            currentH = swap;
+        }
+
+        if (bestScore == 0){
+            return null;
+        }
+
+        return traceback(query, match, traceback, width, bestI, bestJ, bestScore);
+    }
+
+    /**
+     * Build the alignment ending at (endI, endJ)
+     */
+    private LocalAlignment traceback(byte[] query, byte[] match, byte[] traceback, int width, int endI, int endJ, int score){
+        StringBuilder pattern = new StringBuilder();
+        int i = endI;
+        int j = endJ;
+        int identities = 0;
+        byte state = DIAGONAL;
+
+        while (i > 0 && j > 0){
+            byte cell = traceback[i * width + j];
+
+            if (state == DIAGONAL){
+                byte origin = (byte) (cell & 3);
+
+                if (origin == STOP){
+                    break;
+                }
+                else if (origin == DIAGONAL){
+                    byte q = query[i - 1];
+                    byte mt = match[j - 1];
+
+                    if (Character.toUpperCase((char) q) == Character.toUpperCase((char) mt)){
+                        pattern.append(Character.toUpperCase((char) q));
+                        identities++;
+                    }
+                    else if (getScore(q, mt) > 0){
+                        pattern.append('+');
+                    }
+                    else {
+                        pattern.append(' ');
+                    }
+                    i--;
+                    j--;
+                }
+                else {
+                    state = origin;
+                }
+            }
+            else if (state == FROM_E){
+                pattern.append(' ');
+                state = (cell & E_EXTENDED) != 0 ? FROM_E : DIAGONAL;
+                j--;
+            }
+            else {
+                pattern.append(' ');
+                state = (cell & F_EXTENDED) != 0 ? FROM_F : DIAGONAL;
+                i--;
+            }
+        }
+
+        pattern.reverse();
+        float identity = (float) identities * 100 / (float) pattern.length();
+
+        return new LocalAlignment(score, identity, i + 1, endI, j + 1, endJ, pattern.toString());
+    }
+
+    /**
+     * The best local alignment of two sequences. The positions start at 1
+     */
+    public static class LocalAlignment {
+        private final int score;
+        private final float identity;
+        private final int startQuery;
+        private final int endQuery;
+        private final int startMatch;
+        private final int endMatch;
+        private final String pattern;
+
+        public LocalAlignment(int score, float identity, int startQuery, int endQuery, int startMatch, int endMatch, String pattern){
+            this.score = score;
+            this.identity = identity;
+            this.startQuery = startQuery;
+            this.endQuery = endQuery;
+            this.startMatch = startMatch;
+            this.endMatch = endMatch;
+            this.pattern = pattern;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public float getIdentity() {
+            return identity;
+        }
+
+        public int getStartQuery() {
+            return startQuery;
+        }
+
+        public int getEndQuery() {
+            return endQuery;
+        }
+
+        public int getStartMatch() {
+            return startMatch;
+        }
+
+        public int getEndMatch() {
+            return endMatch;
+        }
+
+        /**
+         *
+         * @return the middle line of the alignment : the residue for an identity, '+' for a positive score and ' ' otherwise
+         */
+        public String getPattern() {
+            return pattern;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package uk.ac.ebi.intact.protein.mapping.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.MappingReport;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.impl.DefaultMappingReport;
+import uk.ac.ebi.intact.protein.mapping.results.IdentificationResults;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is a persistent cache of identification results stored in a local directory.
+ *
+ * An entry is identified by the sequence, the taxId of the organism and the options of the strategy which produced the results.
+ * Its file is named after the SHA-1 digest of this key so the file names have a fixed length whatever the options. The complete key
+ * is stored with the results and checked when the entry is read so a digest collision is never returned as a hit.
+ *
+ * An entry is ignored (and deleted) when it is older than the time to live or when it has been written with another data version
+ * (for instance a different Uniprot release). Entries are written in a temporary file and then renamed so several threads or
+ * processes can share the same directory.
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+public class IdentificationResultsCache {
+
+    /**
+     * Sets up a logger for that class.
+     */
+    public static final Log log = LogFactory.getLog( IdentificationResultsCache.class );
+
+    /**
+     * The version of the format of the entries. Must be incremented each time the codec changes
+     */
+    private static final int FORMAT_VERSION = 2;
+
+    private static final String ENTRY_EXTENSION = ".bin";
+
+    /**
+     * The directory containing the entries
+     */
+    private final File directory;
+
+    /**
+     * The time to live of an entry in milliseconds, 0 or less means the entries never expire
+     */
+    private final long timeToLive;
+
+    /**
+     * The version of the data used to identify the proteins, entries written with another version are ignored
+     */
+    private final String dataVersion;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+
+    /**
+     * Create a new IdentificationResultsCache
+     * @param directory : the directory containing the entries. It is created if it doesn't exist
+     * @param timeToLive : the time to live of an entry in milliseconds, 0 or less means the entries never expire
+     * @param dataVersion : the version of the data used to identify the proteins, can be null
+     * @throws IOException if the directory can't be created
+     */
+    public IdentificationResultsCache(File directory, long timeToLive, String dataVersion) throws IOException {
+        if (directory == null){
+            throw new IllegalArgumentException("The directory of the cache must be non null");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()){
+            throw new IOException("Impossible to create the directory of the cache " + directory.getAbsolutePath());
+        }
+
+        this.directory = directory;
+        this.timeToLive = timeToLive;
+        this.dataVersion = dataVersion;
+    }
+
+    /**
+     *
+     * @param sequence : the sequence of the protein
+     * @param taxId : the taxId of the organism, can be null
+     * @param strategyOptions : the options of the strategy which can change the results
+     * @return the results previously stored for this sequence, null if there is no valid entry
+     */
+    public IdentificationResults<DefaultMappingReport> get(String sequence, String taxId, String strategyOptions){
+        File entry = getEntryFile(sequence, taxId, strategyOptions);
+
+        if (!entry.isFile()){
+            misses.incrementAndGet();
+            return null;
+        }
+
+        IdentificationResults<DefaultMappingReport> results = null;
+
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(entry)));
+            try {
+                results = readEntry(in, sequence, taxId, strategyOptions);
+            }
+            finally {
+                in.close();
+            }
+
+            // the entry is expired or belongs to another key with the same digest, it will be replaced
+            if (results == null){
+                entry.delete();
+            }
+        } catch (FileNotFoundException e) {
+            // the entry has been deleted by another thread
+        } catch (IOException e) {
+            log.warn("The cached results " + entry.getName() + " can't be read and will be deleted.", e);
+            entry.delete();
+        } catch (IllegalArgumentException e) {
+            log.warn("The cached results " + entry.getName() + " are not valid and will be deleted.", e);
+            entry.delete();
+        }
+
+        if (results == null){
+            misses.incrementAndGet();
+        }
+        else {
+            hits.incrementAndGet();
+        }
+        return results;
+    }
+
+    /**
+     * Read an entry and check it is still valid
+     * @param in : the content of the entry
+     * @param sequence : the sequence we are looking for
+     * @param taxId : the taxId we are looking for
+     * @param strategyOptions : the options of the strategy we are looking for
+     * @return the results if the entry is valid, null if it is expired or belongs to another key
+     * @throws IOException
+     */
+    private IdentificationResults<DefaultMappingReport> readEntry(DataInputStream in, String sequence, String taxId, String strategyOptions) throws IOException {
+        int formatVersion = in.readInt();
+        String entryDataVersion = IdentificationResultsCodec.readString(in);
+        long creationTime = in.readLong();
+
+        if (formatVersion != FORMAT_VERSION){
+            return null;
+        }
+        if (!equals(dataVersion, entryDataVersion)){
+            return null;
+        }
+        if (timeToLive > 0 && System.currentTimeMillis() - creationTime > timeToLive){
+            return null;
+        }
+
+        String entrySequence = IdentificationResultsCodec.readString(in);
+        String entryTaxId = IdentificationResultsCodec.readString(in);
+        String entryStrategyOptions = IdentificationResultsCodec.readString(in);
+        if (!sequence.equals(entrySequence) || !equals(taxId, entryTaxId) || !equals(strategyOptions, entryStrategyOptions)){
+            return null;
+        }
+
+        return IdentificationResultsCodec.read(in);
+    }
+
+    /**
+     * Store the results of a sequence. An existing entry for the same sequence is replaced.
+     * A failure to write the entry is logged and doesn't affect the caller.
+     * @param sequence : the sequence of the protein
+     * @param taxId : the taxId of the organism, can be null
+     * @param strategyOptions : the options of the strategy which can change the results
+     * @param results : the results of the identification
+     */
+    public void put(String sequence, String taxId, String strategyOptions, IdentificationResults<? extends MappingReport> results){
+        File entry = getEntryFile(sequence, taxId, strategyOptions);
+        File temporaryFile = null;
+
+        try {
+            File parent = entry.getParentFile();
+            if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()){
+                throw new IOException("Impossible to create the directory " + parent.getAbsolutePath());
+            }
+
+            temporaryFile = File.createTempFile(entry.getName(), ".tmp", parent);
+
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)));
+            try {
+                out.writeInt(FORMAT_VERSION);
+                IdentificationResultsCodec.writeString(dataVersion, out);
+                out.writeLong(System.currentTimeMillis());
+                writeKey(sequence, taxId, strategyOptions, out);
+                IdentificationResultsCodec.write(results, out);
+            }
+            finally {
+                out.close();
+            }
+
+            try {
+                Files.move(temporaryFile.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            writes.incrementAndGet();
+
+        } catch (IOException e) {
+            log.warn("Impossible to cache the results of the sequence " + sequence, e);
+
+            if (temporaryFile != null){
+                temporaryFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Write the key of an entry. Each part is written with its length so different keys never have the same content
+     * @param sequence
+     * @param taxId
+     * @param strategyOptions
+     * @param out : the output stream
+     * @throws IOException
+     */
+    private static void writeKey(String sequence, String taxId, String strategyOptions, DataOutputStream out) throws IOException {
+        IdentificationResultsCodec.writeString(sequence, out);
+        IdentificationResultsCodec.writeString(taxId, out);
+        IdentificationResultsCodec.writeString(strategyOptions, out);
+    }
+
+    private static boolean equals(String s1, String s2){
+        return s1 != null ? s1.equals(s2) : s2 == null;
+    }
+
+    /**
+     *
+     * @param sequence
+     * @param taxId
+     * @param strategyOptions
+     * @return the file of the entry, named after the SHA-1 digest of its key. The entries are spread in sub directories named after
+     * the first characters of the digest
+     */
+    private File getEntryFile(String sequence, String taxId, String strategyOptions){
+        if (sequence == null){
+            throw new IllegalArgumentException("The sequence must be non null");
+        }
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not supported by this JVM", e);
+        }
+
+        try {
+            DataOutputStream out = new DataOutputStream(new DigestOutputStream(new NullOutputStream(), digest));
+            writeKey(sequence, taxId, strategyOptions, out);
+            out.close();
+        } catch (IOException e) {
+            // the key is not written anywhere
+            throw new IllegalStateException("Impossible to compute the digest of the key", e);
+        }
+
+        StringBuilder name = new StringBuilder();
+        for (byte b : digest.digest()){
+            name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+
+        return new File(new File(this.directory, name.substring(0, 2)), name.append(ENTRY_EXTENSION).toString());
+    }
+
+    /**
+     * An output stream ignoring what is written, only the digest of the key is needed
+     */
+    private static class NullOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    public String getDataVersion() {
+        return dataVersion;
+    }
+
+    /**
+     *
+     * @return the number of results found in the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     *
+     * @return the number of sequences without valid entry in the cache
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     *
+     * @return the number of entries written
+     */
+    public long getWrites() {
+        return writes.get();
+    }
+}
@@ -0,0 +1,318 @@
+package uk.ac.ebi.intact.protein.mapping.cache;
+
+import uk.ac.ebi.intact.protein.mapping.actions.ActionName;
+import uk.ac.ebi.intact.protein.mapping.actions.status.Status;
+import uk.ac.ebi.intact.protein.mapping.actions.status.StatusLabel;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.BlastReport;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.IntactCrc64Report;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.IntactReport;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.MappingReport;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.UniprotProteinAPIReport;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.impl.DefaultBlastReport;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.impl.DefaultIntactCrc64Report;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.impl.DefaultIntactReport;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.impl.DefaultMappingReport;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.impl.DefaultUniprotProteinAPIReport;
+import uk.ac.ebi.intact.protein.mapping.results.BlastResults;
+import uk.ac.ebi.intact.protein.mapping.results.IdentificationResults;
+import uk.ac.ebi.intact.protein.mapping.results.UniprotProteinAPICrossReferences;
+import uk.ac.ebi.intact.protein.mapping.results.impl.DefaultBlastResults;
+import uk.ac.ebi.intact.protein.mapping.results.impl.DefaultIdentificationResults;
+import uk.ac.ebi.intact.protein.mapping.results.impl.DefaultUniprotProteinAPICrossReferences;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * This class writes and reads the complete tree of an IdentificationResults (reports, status, warnings, possible accessions,
+ * blast results and cross references) in a compact binary format.
+ *
+ * The results are read back as Default* instances. The UniprotProtein attached to a blast result is only needed while
+ * the actions are running and is not written.
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+public final class IdentificationResultsCodec {
+
+    /**
+     * The type of each report written in the stream
+     */
+    private static final byte MAPPING_REPORT = 0;
+    private static final byte BLAST_REPORT = 1;
+    private static final byte INTACT_REPORT = 2;
+    private static final byte INTACT_CRC64_REPORT = 3;
+    private static final byte UNIPROT_PROTEIN_API_REPORT = 4;
+
+    private IdentificationResultsCodec(){
+    }
+
+    /**
+     * Write the results in the output stream
+     * @param results : the results to write
+     * @param out : the output stream
+     * @throws IOException
+     */
+    public static void write(IdentificationResults<? extends MappingReport> results, DataOutputStream out) throws IOException {
+        if (results == null){
+            throw new IllegalArgumentException("The results to write must be non null");
+        }
+
+        writeString(results.getFinalUniprotId(), out);
+
+        out.writeInt(results.getListOfActions().size());
+        for (MappingReport report : results.getListOfActions()){
+            writeReport(report, out);
+        }
+    }
+
+    /**
+     * Read results previously written with write(results, out)
+     * @param in : the input stream
+     * @return the results
+     * @throws IOException
+     */
+    public static IdentificationResults<DefaultMappingReport> read(DataInputStream in) throws IOException {
+        DefaultIdentificationResults results = new DefaultIdentificationResults();
+
+        results.setFinalUniprotId(readString(in));
+
+        int numberOfReports = in.readInt();
+        for (int i = 0; i < numberOfReports; i++){
+            results.addActionReport(readReport(in));
+        }
+
+        return results;
+    }
+
+    private static void writeReport(MappingReport report, DataOutputStream out) throws IOException {
+        // the most specific report types must be tested first
+        if (report instanceof BlastReport){
+            out.writeByte(BLAST_REPORT);
+        }
+        else if (report instanceof IntactCrc64Report){
+            out.writeByte(INTACT_CRC64_REPORT);
+        }
+        else if (report instanceof IntactReport){
+            out.writeByte(INTACT_REPORT);
+        }
+        else if (report instanceof UniprotProteinAPIReport){
+            out.writeByte(UNIPROT_PROTEIN_API_REPORT);
+        }
+        else {
+            out.writeByte(MAPPING_REPORT);
+        }
+
+        writeString(report.getName() != null ? report.getName().name() : null, out);
+
+        Status status = report.getStatus();
+        out.writeBoolean(status != null);
+        if (status != null){
+            writeString(status.getLabel() != null ? status.getLabel().name() : null, out);
+            writeString(status.getDescription(), out);
+        }
+
+        out.writeBoolean(report.isASwissprotEntry());
+        writeStrings(report.getWarnings(), out);
+        writeStrings(report.getPossibleAccessions(), out);
+
+        if (report instanceof BlastReport){
+            BlastReport<? extends BlastResults> blastReport = (BlastReport<? extends BlastResults>) report;
+
+            writeString(blastReport.getQuerySequence(), out);
+
+            out.writeInt(blastReport.getBlastMatchingProteins().size());
+            for (BlastResults blastResults : blastReport.getBlastMatchingProteins()){
+                writeBlastResults(blastResults, out);
+            }
+        }
+        else if (report instanceof IntactReport){
+            IntactReport intactReport = (IntactReport) report;
+
+            writeString(intactReport.getIntactAc(), out);
+            writeStrings(intactReport.getPossibleIntactIds(), out);
+
+            if (report instanceof IntactCrc64Report){
+                writeString(((IntactCrc64Report) report).getQuerySequence(), out);
+            }
+        }
+        else if (report instanceof UniprotProteinAPIReport){
+            UniprotProteinAPIReport<? extends UniprotProteinAPICrossReferences> uniprotReport = (UniprotProteinAPIReport<? extends UniprotProteinAPICrossReferences>) report;
+
+            out.writeInt(uniprotReport.getCrossReferences().size());
+            for (UniprotProteinAPICrossReferences refs : uniprotReport.getCrossReferences()){
+                writeString(refs.getDatabase(), out);
+                writeStrings(refs.getAccessions(), out);
+            }
+        }
+    }
+
+    private static DefaultMappingReport readReport(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        String name = readString(in);
+        ActionName actionName = name != null ? ActionName.valueOf(name) : null;
+
+        DefaultMappingReport report;
+
+        switch (type){
+            case BLAST_REPORT:
+                report = new DefaultBlastReport(actionName);
+                break;
+            case INTACT_CRC64_REPORT:
+                report = new DefaultIntactCrc64Report(actionName);
+                break;
+            case INTACT_REPORT:
+                report = new DefaultIntactReport(actionName);
+                break;
+            case UNIPROT_PROTEIN_API_REPORT:
+                report = new DefaultUniprotProteinAPIReport(actionName);
+                break;
+            case MAPPING_REPORT:
+                report = new DefaultMappingReport(actionName);
+                break;
+            default:
+                throw new IOException("Unknown report type " + type);
+        }
+
+        if (in.readBoolean()){
+            String label = readString(in);
+            report.setStatus(new Status(label != null ? StatusLabel.valueOf(label) : null, readString(in)));
+        }
+
+        report.setIsASwissprotEntry(in.readBoolean());
+
+        int numberOfWarnings = in.readInt();
+        for (int i = 0; i < numberOfWarnings; i++){
+            report.addWarning(readString(in));
+        }
+
+        int numberOfAccessions = in.readInt();
+        for (int i = 0; i < numberOfAccessions; i++){
+            report.addPossibleAccession(readString(in));
+        }
+
+        if (report instanceof DefaultBlastReport){
+            DefaultBlastReport blastReport = (DefaultBlastReport) report;
+
+            blastReport.setQuerySequence(readString(in));
+
+            int numberOfProteins = in.readInt();
+            for (int i = 0; i < numberOfProteins; i++){
+                blastReport.addBlastMatchingProtein(readBlastResults(in));
+            }
+        }
+        else if (report instanceof DefaultIntactReport){
+            DefaultIntactReport intactReport = (DefaultIntactReport) report;
+
+            intactReport.setIntactAc(readString(in));
+
+            int numberOfIntactIds = in.readInt();
+            for (int i = 0; i < numberOfIntactIds; i++){
+                intactReport.addPossibleIntactAc(readString(in));
+            }
+
+            if (report instanceof DefaultIntactCrc64Report){
+                ((DefaultIntactCrc64Report) report).setQuerySequence(readString(in));
+            }
+        }
+        else if (report instanceof DefaultUniprotProteinAPIReport){
+            DefaultUniprotProteinAPIReport uniprotReport = (DefaultUniprotProteinAPIReport) report;
+
+            int numberOfCrossReferences = in.readInt();
+            for (int i = 0; i < numberOfCrossReferences; i++){
+                DefaultUniprotProteinAPICrossReferences refs = new DefaultUniprotProteinAPICrossReferences();
+                refs.setDatabase(readString(in));
+
+                int numberOfAccessions2 = in.readInt();
+                for (int j = 0; j < numberOfAccessions2; j++){
+                    refs.addAccession(readString(in));
+                }
+
+                uniprotReport.addUniprotProteinAPICrossReference(refs);
+            }
+        }
+
+        return report;
+    }
+
+    private static void writeBlastResults(BlastResults blastResults, DataOutputStream out) throws IOException {
+        writeString(blastResults.getTremblAccession(), out);
+        out.writeInt(blastResults.getTaxId());
+        writeString(blastResults.getAccession(), out);
+        out.writeInt(blastResults.getStartQuery());
+        out.writeInt(blastResults.getEndQuery());
+        writeString(blastResults.getSequence(), out);
+        writeString(blastResults.getDatabase(), out);
+        out.writeFloat(blastResults.getIdentity());
+        out.writeInt(blastResults.getStartMatch());
+        out.writeInt(blastResults.getEndMatch());
+        writeString(blastResults.getDescription(), out);
+        writeString(blastResults.getAlignment(), out);
+    }
+
+    private static DefaultBlastResults readBlastResults(DataInputStream in) throws IOException {
+        DefaultBlastResults blastResults = new DefaultBlastResults();
+
+        blastResults.setTremblAccession(readString(in));
+        blastResults.setTaxId(in.readInt());
+        blastResults.setAccession(readString(in));
+        blastResults.setStartQuery(in.readInt());
+        blastResults.setEndQuery(in.readInt());
+        blastResults.setSequence(readString(in));
+        blastResults.setDatabase(readString(in));
+        blastResults.setIdentity(in.readFloat());
+        blastResults.setStartMatch(in.readInt());
+        blastResults.setEndMatch(in.readInt());
+        blastResults.setDescription(readString(in));
+        blastResults.setAlignment(readString(in));
+
+        return blastResults;
+    }
+
+    private static void writeStrings(Collection<String> strings, DataOutputStream out) throws IOException {
+        out.writeInt(strings.size());
+        for (String s : strings){
+            writeString(s, out);
+        }
+    }
+
+    /**
+     * Write a string which can be null or longer than the 64K allowed by writeUTF (sequences, alignments)
+     * @param s : the string to write
+     * @param out : the output stream
+     * @throws IOException
+     */
+    static void writeString(String s, DataOutputStream out) throws IOException {
+        if (s == null){
+            out.writeInt(-1);
+        }
+        else {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Read a string written with writeString(s, out)
+     * @param in : the input stream
+     * @return the string, null if a null string was written
+     * @throws IOException
+     */
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+
+        if (length < 0){
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
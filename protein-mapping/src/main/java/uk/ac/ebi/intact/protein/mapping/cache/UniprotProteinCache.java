@@ -0,0 +1,255 @@
+package uk.ac.ebi.intact.protein.mapping.cache;
+
+import uk.ac.ebi.intact.uniprot.model.UniprotProtein;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is an in-memory cache of the Uniprot entries retrieved by the strategies and actions. The least recently used
+ * entries are evicted when the cache is full and an entry expires after the time to live.
+ *
+ * The shared instance is used by default by the ThreadLocalUniprotService of the strategies and actions, so the same accession
+ * is retrieved only once per run whatever the strategy or action which needs it. Another cache can be given to the strategies.
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+public class UniprotProteinCache {
+
+    /**
+     * The default maximum number of entries
+     */
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    /**
+     * The default time to live of an entry : 24 hours
+     */
+    public static final long DEFAULT_TIME_TO_LIVE = 24L * 60L * 60L * 1000L;
+
+    /**
+     * The source of the current time of a cache, to expire the entries
+     */
+    public interface Clock {
+
+        /**
+         *
+         * @return the current time in milliseconds
+         */
+        public long currentTimeMillis();
+    }
+
+    /**
+     * The clock of the system
+     */
+    public static final Clock SYSTEM_CLOCK = new Clock() {
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    /**
+     * The cache shared by all the strategies and actions
+     */
+    private static final UniprotProteinCache sharedInstance = new UniprotProteinCache(DEFAULT_MAX_SIZE, DEFAULT_TIME_TO_LIVE);
+
+    /**
+     * The entries in access order, the least recently used entry is the first one
+     */
+    private final LinkedHashMap<String, CachedProtein> entries = new LinkedHashMap<String, CachedProtein>(16, 0.75f, true){
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedProtein> eldest) {
+            if (size() > maxSize){
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * The maximum number of entries, 0 or less means the entries are not cached
+     */
+    private volatile int maxSize;
+
+    /**
+     * The time to live of an entry in milliseconds, 0 or less means the entries never expire
+     */
+    private volatile long timeToLive;
+
+    /**
+     * The clock used to expire the entries
+     */
+    private final Clock clock;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Create a new UniprotProteinCache
+     * @param maxSize : the maximum number of entries, 0 or less means the entries are not cached
+     * @param timeToLive : the time to live of an entry in milliseconds, 0 or less means the entries never expire
+     */
+    public UniprotProteinCache(int maxSize, long timeToLive){
+        this(maxSize, timeToLive, SYSTEM_CLOCK);
+    }
+
+    /**
+     * Create a new UniprotProteinCache
+     * @param maxSize : the maximum number of entries, 0 or less means the entries are not cached
+     * @param timeToLive : the time to live of an entry in milliseconds, 0 or less means the entries never expire
+     * @param clock : the clock used to expire the entries
+     */
+    public UniprotProteinCache(int maxSize, long timeToLive, Clock clock){
+        if (clock == null){
+            throw new IllegalArgumentException("The clock of the cache must be non null");
+        }
+        this.maxSize = maxSize;
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+    }
+
+    /**
+     *
+     * @return the cache shared by all the strategies and actions
+     */
+    public static UniprotProteinCache getSharedInstance(){
+        return sharedInstance;
+    }
+
+    /**
+     *
+     * @param accession : the uniprot accession
+     * @return the cached uniprot entry with this accession, null if it is not cached or expired
+     */
+    public UniprotProtein get(String accession){
+        if (accession == null){
+            return null;
+        }
+
+        synchronized (entries){
+            CachedProtein cachedProtein = entries.get(accession);
+
+            if (cachedProtein != null && isExpired(cachedProtein)){
+                entries.remove(accession);
+                cachedProtein = null;
+            }
+
+            if (cachedProtein == null){
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return cachedProtein.protein;
+        }
+    }
+
+    /**
+     * Cache the uniprot entry retrieved for this accession
+     * @param accession : the uniprot accession used to retrieve the entry
+     * @param protein : the uniprot entry
+     */
+    public void put(String accession, UniprotProtein protein){
+        if (accession == null || protein == null || maxSize <= 0){
+            return;
+        }
+
+        synchronized (entries){
+            entries.put(accession, new CachedProtein(protein, clock.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Remove all the entries. The metrics are not reset
+     */
+    public void clear(){
+        synchronized (entries){
+            entries.clear();
+        }
+    }
+
+    private boolean isExpired(CachedProtein cachedProtein){
+        return timeToLive > 0 && clock.currentTimeMillis() - cachedProtein.creationTime > timeToLive;
+    }
+
+    /**
+     *
+     * @return the number of entries currently cached
+     */
+    public int size(){
+        synchronized (entries){
+            return entries.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Set the maximum number of entries. The least recently used entries are evicted if the cache is bigger
+     * @param maxSize : 0 or less means the entries are not cached
+     */
+    public void setMaxSize(int maxSize) {
+        synchronized (entries){
+            this.maxSize = maxSize;
+
+            while (entries.size() > Math.max(maxSize, 0)){
+                entries.remove(entries.keySet().iterator().next());
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * Set the time to live of the entries
+     * @param timeToLive : the time to live in milliseconds, 0 or less means the entries never expire
+     */
+    public void setTimeToLive(long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     *
+     * @return the number of entries found in the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     *
+     * @return the number of accessions which were not cached
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     *
+     * @return the number of entries evicted because the cache was full
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * A cached uniprot entry and the time it has been retrieved
+     */
+    private static class CachedProtein {
+        private final UniprotProtein protein;
+        private final long creationTime;
+
+        private CachedProtein(UniprotProtein protein, long creationTime){
+            this.protein = protein;
+            this.creationTime = creationTime;
+        }
+    }
+}
@@ -1,23 +1,97 @@
 package uk.ac.ebi.intact.protein.mapping.curation;
 
 import com.google.common.collect.UnmodifiableIterator;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.zip.GZIPInputStream;
 
 /**
- * Iterator of fasta sequences in a file
+ * Iterator of fasta sequences in a file.
+ *
+ * The file is memory mapped and scanned byte per byte (or decompressed if the file name ends with .gz) so reading a record only allocates
+ * the identifier and the sequence. A file which is not compressed can be split in shards (byte ranges) read by different threads : a shard
+ * contains the fasta sequences whose identifier line starts in its byte range.
  *
  * @author Marine Dumousseau (marine@ebi.ac.uk)
  * @version $Id$
  * @since <pre>16/08/12</pre>
  */
 
-public class FastaSequenceIterator extends UnmodifiableIterator<FastaSequence> {
+public class FastaSequenceIterator extends UnmodifiableIterator<FastaSequence> implements Closeable {
+
+    /**
+     * Sets up a logger for that class.
+     */
+    public static final Log log = LogFactory.getLog( FastaSequenceIterator.class );
+
+    private static final byte identifierDelimiter = '>';
+
+    /**
+     * The size of the buffer where the bytes of the file are copied
+     */
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * The size of the regions of the file which are memory mapped
+     */
+    private static final long MAPPING_SIZE = 64L * 1024L * 1024L;
+
+    private static final Charset IDENTIFIER_CHARSET = Charset.forName("UTF-8");
+    private static final Charset SEQUENCE_CHARSET = Charset.forName("ISO-8859-1");
+
+    /**
+     * The file channel if the file is not compressed
+     */
+    private FileChannel fastaChannel;
+
+    /**
+     * The decompressed content if the file is compressed
+     */
+    private InputStream fastaStream;
+
+    /**
+     * The region of the file currently mapped and the position of the region in the file
+     */
+    private MappedByteBuffer mappedRegion;
+    private long mappedRegionStart;
+
+    /**
+     * The position in the file of the next byte to map
+     */
+    private long filePosition;
+
+    /**
+     * The position in the file where the shard ends : the fasta sequences starting after this position belong to the next shard
+     */
+    private final long shardEnd;
+
+    /**
+     * The bytes being scanned and the position of the first byte in the file
+     */
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private long bufferStart;
+    private int bufferPosition;
+    private int bufferLimit;
+
+    /**
+     * true if the next byte is the first byte of a line
+     */
+    private boolean isAtLineStart = true;
+
+    /**
+     * The bytes of the identifier and of the sequence of the record being read. They are reused for each record
+     */
+    private byte[] identifierBytes = new byte[256];
+    private byte[] sequenceBytes = new byte[4096];
 
-    private final String identifierDelimiter=">";
-    private BufferedReader fastaReader;
-    private String lastLine;
     private FastaSequence lastFastaSequence;
 
     public FastaSequenceIterator(String fileName) throws IOException {
@@ -26,10 +100,8 @@ public class FastaSequenceIterator extends UnmodifiableIterator<FastaSequence> {
             throw new IllegalArgumentException("The fast file should not be empty");
         }
 
-        this.fastaReader = new BufferedReader(new FileReader(fileName));
-
-        // read first fasta sequence
-        readNextFastaSequence();
+        this.shardEnd = Long.MAX_VALUE;
+        open(new File(fileName), 0);
     }
 
     public FastaSequenceIterator(File file) throws IOException {
@@ -38,59 +110,284 @@ public class FastaSequenceIterator extends UnmodifiableIterator<FastaSequence> {
             throw new IllegalArgumentException("The fast file should not be null");
         }
 
-        this.fastaReader = new BufferedReader(new FileReader(file));
+        this.shardEnd = Long.MAX_VALUE;
+        open(file, 0);
+    }
+
+    /**
+     * Create an iterator of the fasta sequences of a shard
+     * @param file : the fasta file, must not be compressed
+     * @param start : the position in the file where the shard starts
+     * @param end : the position in the file where the shard ends (exclusive). The last sequence of the shard is read until its end even if it goes beyond this position
+     * @throws IOException
+     */
+    public FastaSequenceIterator(File file, long start, long end) throws IOException {
+
+        if (file == null){
+            throw new IllegalArgumentException("The fast file should not be null");
+        }
+        if (isCompressed(file)){
+            throw new IllegalArgumentException("A compressed fasta file can't be split in shards");
+        }
+        if (start < 0 || end < start){
+            throw new IllegalArgumentException("The shard [" + start + ", " + end + "[ is not valid");
+        }
+
+        this.shardEnd = end;
+        open(file, start);
+    }
+
+    /**
+     * Split a fasta file in shards of the same size which can be read in parallel
+     * @param file : the fasta file
+     * @param numberOfShards : the number of shards
+     * @return the iterators of the shards. A compressed file can't be split and a single iterator is returned
+     * @throws IOException
+     */
+    public static List<FastaSequenceIterator> split(File file, int numberOfShards) throws IOException {
+        List<FastaSequenceIterator> shards = new ArrayList<FastaSequenceIterator>();
+
+        if (numberOfShards <= 1 || isCompressed(file)){
+            shards.add(new FastaSequenceIterator(file));
+            return shards;
+        }
+
+        long fileSize = file.length();
+        long shardSize = Math.max(1, (fileSize + numberOfShards - 1) / numberOfShards);
+
+        for (long start = 0; start < fileSize; start += shardSize){
+            shards.add(new FastaSequenceIterator(file, start, Math.min(start + shardSize, fileSize)));
+        }
+        if (shards.isEmpty()){
+            shards.add(new FastaSequenceIterator(file));
+        }
+        return shards;
+    }
+
+    private static boolean isCompressed(File file){
+        return file.getName().endsWith(".gz");
+    }
+
+    /**
+     * Open the file and read the first fasta sequence of the shard
+     * @param file
+     * @param start : the position where the shard starts
+     * @throws IOException
+     */
+    private void open(File file, long start) throws IOException {
+        if (isCompressed(file)){
+            this.fastaStream = new GZIPInputStream(new FileInputStream(file), 65536);
+        }
+        else {
+            this.fastaChannel = new FileInputStream(file).getChannel();
+
+            // the byte before the shard tells if the shard starts at the beginning of a line
+            if (start > 0){
+                this.filePosition = start - 1;
+                this.bufferStart = start - 1;
+                this.isAtLineStart = false;
+            }
+            else {
+                this.filePosition = 0;
+            }
+        }
 
         // read first fasta sequence
         readNextFastaSequence();
     }
 
+    /**
+     * Copy the next bytes of the file in the buffer
+     * @return false if the end of the file has been reached
+     * @throws IOException
+     */
+    private boolean fillBuffer() throws IOException {
+        this.bufferStart += this.bufferLimit;
+        this.bufferPosition = 0;
+        this.bufferLimit = 0;
+
+        if (this.fastaStream != null){
+            int length = this.fastaStream.read(this.buffer);
+            if (length <= 0){
+                return false;
+            }
+            this.bufferLimit = length;
+            return true;
+        }
+
+        if (this.fastaChannel == null){
+            return false;
+        }
+
+        if (this.mappedRegion == null || !this.mappedRegion.hasRemaining()){
+            long size = this.fastaChannel.size();
+            if (this.filePosition >= size){
+                return false;
+            }
+            this.mappedRegionStart = this.filePosition;
+            this.mappedRegion = this.fastaChannel.map(FileChannel.MapMode.READ_ONLY, this.filePosition, Math.min(MAPPING_SIZE, size - this.filePosition));
+        }
+
+        int length = Math.min(this.buffer.length, this.mappedRegion.remaining());
+        this.mappedRegion.get(this.buffer, 0, length);
+        this.filePosition = this.mappedRegionStart + this.mappedRegion.position();
+        this.bufferLimit = length;
+
+        return true;
+    }
+
     private void readNextFastaSequence() throws IOException {
+        this.lastFastaSequence = null;
+
+        while (this.lastFastaSequence == null){
+
+            // go to the next identifier line
+            if (!skipToIdentifier()){
+                return;
+            }
 
-        // read next identifier
-        lastLine = fastaReader.readLine();
+            int identifierLength = readIdentifier();
+            int sequenceLength = readSequence();
 
-        if (lastLine != null && !lastLine.startsWith(identifierDelimiter)){
-            while (lastLine != null && !lastLine.startsWith(identifierDelimiter)){
-                lastLine = fastaReader.readLine();
+            // the records without sequence are ignored
+            if (sequenceLength > 0){
+                this.lastFastaSequence = new FastaSequence(new String(this.identifierBytes, 0, identifierLength, IDENTIFIER_CHARSET),
+                        new String(this.sequenceBytes, 0, sequenceLength, SEQUENCE_CHARSET));
             }
         }
+    }
 
-        if (lastLine == null){
-            this.lastFastaSequence = null;
-            return;
+    /**
+     * Skip the bytes until the start of the next identifier line of the shard. The identifier delimiter is consumed
+     * @return false if there are no more identifier lines in the shard
+     * @throws IOException
+     */
+    private boolean skipToIdentifier() throws IOException {
+        while (true){
+            if (this.bufferPosition == this.bufferLimit && !fillBuffer()){
+                return false;
+            }
+
+            byte b = this.buffer[this.bufferPosition];
+
+            if (this.isAtLineStart && b == identifierDelimiter){
+                if (this.bufferStart + this.bufferPosition >= this.shardEnd){
+                    return false;
+                }
+                this.bufferPosition++;
+                this.isAtLineStart = false;
+                return true;
+            }
+
+            this.isAtLineStart = b == '\n';
+            this.bufferPosition++;
         }
+    }
 
-        String identifier = lastLine.substring(Math.min(lastLine.length()-1,lastLine.indexOf(identifierDelimiter)+1));
-        StringBuffer sequenceBuffer = new StringBuffer();
+    /**
+     * Read the identifier until the end of the line
+     * @return the length of the identifier
+     * @throws IOException
+     */
+    private int readIdentifier() throws IOException {
+        int length = 0;
 
-        // read sequence
-        lastLine = fastaReader.readLine();
-        while (lastLine != null && !lastLine.startsWith(identifierDelimiter)){
+        while (true){
+            if (this.bufferPosition == this.bufferLimit && !fillBuffer()){
+                break;
+            }
+
+            byte b = this.buffer[this.bufferPosition++];
+
+            if (b == '\n'){
+                this.isAtLineStart = true;
+                break;
+            }
 
-            sequenceBuffer.append(lastLine.replaceAll("\n",""));
-            lastLine = fastaReader.readLine();
+            if (length == this.identifierBytes.length){
+                this.identifierBytes = grow(this.identifierBytes);
+            }
+            this.identifierBytes[length++] = b;
         }
 
-        if (sequenceBuffer.length() == 0){
-            this.lastFastaSequence = null;
-            return;
+        // windows line end
+        if (length > 0 && this.identifierBytes[length - 1] == '\r'){
+            length--;
         }
+        return length;
+    }
 
-        this.lastFastaSequence = new FastaSequence(identifier, sequenceBuffer.toString());
+    /**
+     * Read the sequence until the next identifier line. The line ends and the spaces are ignored
+     * @return the length of the sequence
+     * @throws IOException
+     */
+    private int readSequence() throws IOException {
+        int length = 0;
+
+        while (true){
+            if (this.bufferPosition == this.bufferLimit && !fillBuffer()){
+                break;
+            }
+
+            byte b = this.buffer[this.bufferPosition];
+
+            // start of the next record
+            if (this.isAtLineStart && b == identifierDelimiter){
+                break;
+            }
+            this.bufferPosition++;
+
+            if (b == '\n'){
+                this.isAtLineStart = true;
+            }
+            else {
+                this.isAtLineStart = false;
+
+                if (b > ' '){
+                    if (length == this.sequenceBytes.length){
+                        this.sequenceBytes = grow(this.sequenceBytes);
+                    }
+                    this.sequenceBytes[length++] = b;
+                }
+            }
+        }
+
+        return length;
+    }
+
+    private static byte[] grow(byte[] bytes){
+        byte[] newBytes = new byte[bytes.length * 2];
+        System.arraycopy(bytes, 0, newBytes, 0, bytes.length);
+        return newBytes;
+    }
+
+    /**
+     * Close the file. It is closed automatically when all the fasta sequences have been read
+     */
+    public void close() {
+        try {
+            if (this.fastaChannel != null){
+                this.fastaChannel.close();
+            }
+            if (this.fastaStream != null){
+                this.fastaStream.close();
+            }
+        } catch (IOException e) {
+            log.error("Impossible to close the fasta file", e);
+        }
+
+        this.fastaChannel = null;
+        this.fastaStream = null;
+        this.mappedRegion = null;
+        this.lastFastaSequence = null;
     }
 
     @Override
     public boolean hasNext() {
         if(lastFastaSequence == null){
-            if (this.fastaReader != null){
-                try {
-                    this.fastaReader.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-
-                this.lastLine = null;
-                this.fastaReader = null;
+            if (this.fastaChannel != null || this.fastaStream != null){
+                close();
             }
 
             return false;
@@ -1,6 +1,13 @@
 package uk.ac.ebi.intact.protein.mapping.curation;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import uk.ac.ebi.intact.model.BioSource;
+import uk.ac.ebi.intact.protein.mapping.actions.RemoteServiceThrottle;
+import uk.ac.ebi.intact.protein.mapping.alignment.LocalFastaAlignmentBackend;
+import uk.ac.ebi.intact.protein.mapping.cache.IdentificationResultsCache;
+import uk.ac.ebi.intact.protein.mapping.cache.UniprotProteinCache;
+import uk.ac.ebi.intact.protein.mapping.index.SequenceChecksumIndex;
 import uk.ac.ebi.intact.protein.mapping.model.actionReport.MappingReport;
 import uk.ac.ebi.intact.protein.mapping.model.contexts.IdentificationContext;
 import uk.ac.ebi.intact.protein.mapping.results.IdentificationResults;
@@ -9,6 +16,10 @@ import uk.ac.ebi.intact.protein.mapping.strategies.StrategyWithSequence;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.*;
 
 /**
  * This class allows to identify protein sequences using Uniprot Protein API or blast
@@ -20,15 +31,40 @@ import java.io.IOException;
 
 public class ProteinSequenceIdentificationManager {
 
+    /**
+     * Sets up a logger for that class.
+     */
+    public static final Log log = LogFactory.getLog( ProteinSequenceIdentificationManager.class );
+
     private FastaSequenceIterator fastaSequenceIterator;
     private File inputFile;
     private File outputFile;
     private String taxId;
     private ProteinSequenceResultsWriter resultsWriter;
-    private final static int maxNumberOfLinesPerFile = 5000;
+
+    /**
+     * The default maximum size of the results files : 10 MB
+     */
+    public final static long DEFAULT_MAX_OUTPUT_FILE_SIZE = 10L * 1024L * 1024L;
+
+    /**
+     * The default time to live of the cached results : 30 days
+     */
+    public final static long DEFAULT_CACHE_TIME_TO_LIVE = 30L * 24L * 60L * 60L * 1000L;
 
     private StrategyWithSequence identificationStrategy;
 
+    /**
+     * The number of sequences identified in parallel. 1 means the sequences are identified one after the other
+     */
+    private int numberOfThreads = 1;
+
+    /**
+     * The number of sequences identified together when the sequences are identified one after the other.
+     * The blasts needed by the sequences of a batch are submitted at once
+     */
+    private int blastBatchSize = 20;
+
     public ProteinSequenceIdentificationManager(String inputFile, String outputFile, String taxId) throws IOException {
         if (inputFile == null){
             throw new IllegalArgumentException("The input file containing the sequences is mandatory");
@@ -46,11 +82,9 @@ public class ProteinSequenceIdentificationManager {
 
         this.fastaSequenceIterator = new FastaSequenceIterator(inputFile);
         this.resultsWriter = new ProteinSequenceResultsWriter(outputFile);
+        this.resultsWriter.setMaxFileSize(DEFAULT_MAX_OUTPUT_FILE_SIZE);
 
-        this.identificationStrategy = new StrategyWithSequence();
-        this.identificationStrategy.setBasicBlastRequired(true);
-        this.identificationStrategy.setEnableIntactSearch(false);
-        this.identificationStrategy.enableIsoforms(true);
+        this.identificationStrategy = createIdentificationStrategy();
     }
 
     public ProteinSequenceIdentificationManager(File inputFile, File outputFile, String taxId) throws IOException {
@@ -70,72 +104,314 @@ public class ProteinSequenceIdentificationManager {
 
         this.fastaSequenceIterator = new FastaSequenceIterator(inputFile);
         this.resultsWriter = new ProteinSequenceResultsWriter(outputFile);
+        this.resultsWriter.setMaxFileSize(DEFAULT_MAX_OUTPUT_FILE_SIZE);
+
+        this.identificationStrategy = createIdentificationStrategy();
+    }
+
+    /**
+     *
+     * @return a new strategy configured to identify the protein sequences
+     */
+    private StrategyWithSequence createIdentificationStrategy(){
+        StrategyWithSequence strategy = new StrategyWithSequence();
+        strategy.setBasicBlastRequired(true);
+        strategy.setEnableIntactSearch(false);
+        strategy.enableIsoforms(true);
+
+        return strategy;
+    }
+
+    public StrategyWithSequence getIdentificationStrategy() {
+        return identificationStrategy;
+    }
+
+    /**
+     * Replace the strategy identifying the sequences. The caches, index and alignment database are set on the current strategy
+     * so they must be configured after this strategy is set
+     * @param identificationStrategy : the strategy, shared by the worker threads when the sequences are identified in parallel
+     */
+    public void setIdentificationStrategy(StrategyWithSequence identificationStrategy) {
+        if (identificationStrategy == null){
+            throw new IllegalArgumentException("The identification strategy must be non null");
+        }
+        this.identificationStrategy = identificationStrategy;
+    }
+
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    /**
+     * Set the number of sequences identified in parallel. The results are always written in the order of the input file.
+     * @param numberOfThreads : the number of worker threads, 1 or less means the sequences are identified one after the other
+     */
+    public void setNumberOfThreads(int numberOfThreads) {
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    public int getBlastBatchSize() {
+        return blastBatchSize;
+    }
+
+    /**
+     * Set the number of sequences identified together when the sequences are identified one after the other
+     * @param blastBatchSize : the number of sequences of each batch, 1 or less means each sequence is identified alone
+     */
+    public void setBlastBatchSize(int blastBatchSize) {
+        this.blastBatchSize = blastBatchSize;
+    }
+
+    /**
+     * Limit the number of concurrent calls to the Uniprot Protein API
+     * @param maxConcurrentCalls : 0 or less means unlimited
+     */
+    public void setMaxConcurrentProteinAPICalls(int maxConcurrentCalls) {
+        RemoteServiceThrottle.setMaxConcurrentCalls(RemoteServiceThrottle.RemoteService.UNIPROT_PROTEIN_API, maxConcurrentCalls);
+    }
+
+    /**
+     * Limit the number of concurrent calls to the uniprot remote service
+     * @param maxConcurrentCalls : 0 or less means unlimited
+     */
+    public void setMaxConcurrentUniprotCalls(int maxConcurrentCalls) {
+        RemoteServiceThrottle.setMaxConcurrentCalls(RemoteServiceThrottle.RemoteService.UNIPROT, maxConcurrentCalls);
+    }
+
+    /**
+     * Limit the number of concurrent blast jobs submitted to NCBI
+     * @param maxConcurrentCalls : 0 or less means unlimited
+     */
+    public void setMaxConcurrentBlastCalls(int maxConcurrentCalls) {
+        RemoteServiceThrottle.setMaxConcurrentCalls(RemoteServiceThrottle.RemoteService.NCBI_BLAST, maxConcurrentCalls);
+    }
+
+    /**
+     * Cache the results of the identification in a local directory so the sequences already identified are not sent again
+     * to the remote services when the job is run again
+     * @param directory : the directory of the cache
+     * @param timeToLive : the time to live of the cached results in milliseconds, 0 or less means the results never expire
+     * @param dataVersion : the version of the data (for instance the Uniprot release), the results cached with another version are ignored. Can be null
+     * @throws IOException if the directory can't be created
+     */
+    public void enableResultsCache(File directory, long timeToLive, String dataVersion) throws IOException {
+        this.identificationStrategy.setResultsCache(new IdentificationResultsCache(directory, timeToLive, dataVersion));
+    }
+
+    /**
+     * Set the maximum number of Uniprot entries kept in memory and shared by all the identifications
+     * @param maxSize : 0 or less means the Uniprot entries are not cached
+     */
+    public void setUniprotCacheSize(int maxSize) {
+        this.identificationStrategy.getUniprotCache().setMaxSize(maxSize);
+    }
 
-        this.identificationStrategy = new StrategyWithSequence();
-        this.identificationStrategy.setBasicBlastRequired(true);
-        this.identificationStrategy.setEnableIntactSearch(false);
-        this.identificationStrategy.enableIsoforms(true);
+    /**
+     * Run the blasts with a local Uniprot FASTA file instead of the NCBI blast service
+     * @param fastaFile : the Uniprot FASTA file (for instance the Swissprot release or the Uniprot entries of the organism), can be compressed with gzip
+     * @throws IOException if the file can't be read
+     */
+    public void setLocalAlignmentDatabase(File fastaFile) throws IOException {
+        this.identificationStrategy.setAlignmentBackend(new LocalFastaAlignmentBackend(fastaFile));
+    }
+
+    /**
+     * Look for the sequences in a local index of the Uniprot sequences before querying Uniprot Protein API
+     * @param indexFile : the index built with SequenceChecksumIndex
+     * @throws IOException if the index can't be opened
+     */
+    public void setSequenceIndex(File indexFile) throws IOException {
+        this.identificationStrategy.setSequenceIndex(SequenceChecksumIndex.open(indexFile));
+    }
+
+    /**
+     * Set the size of the results files. When a file reaches this size, the next results are written in a new file (name_2.ext, name_3.ext, ...)
+     * @param maxFileSize : the maximum size in bytes, 0 or less means all the results are written in a single file
+     */
+    public void setMaxOutputFileSize(long maxFileSize) {
+        this.resultsWriter.setMaxFileSize(maxFileSize);
+    }
 
+    /**
+     * Compress the results files with gzip
+     * @param compressed : true if the results are compressed. The extension .gz is added to the names of the files
+     */
+    public void setCompressOutput(boolean compressed) {
+        this.resultsWriter.setCompressed(compressed);
     }
 
     public void runIdentificationJob() throws IOException {
 
-        this.resultsWriter.writeHeader();
+        try {
+            this.resultsWriter.writeHeader();
 
-        int chunkIndex = 1;
-        int numberOfLines = 1;
+            if (this.numberOfThreads <= 1){
+                runSequentialIdentification();
+            }
+            else {
+                runParallelIdentification();
+            }
+        }
+        finally {
+            this.resultsWriter.close();
+        }
 
-        while (this.fastaSequenceIterator.hasNext()){
-            FastaSequence fastaSequence = this.fastaSequenceIterator.next();
+        IdentificationResultsCache resultsCache = this.identificationStrategy.getResultsCache();
+        if (resultsCache != null){
+            log.info("Cached results used for " + resultsCache.getHits() + " sequences, " + resultsCache.getMisses() + " sequences identified");
+        }
 
-            // set context
-            IdentificationContext context = new IdentificationContext();
-            context.setSequence(fastaSequence.getSequence());
-            context.setOrganism(new BioSource(taxId, taxId));
+        UniprotProteinCache uniprotCache = this.identificationStrategy.getUniprotCache();
+        log.info("Uniprot entries : " + uniprotCache.getHits() + " read from the cache, " + uniprotCache.getMisses() + " retrieved, " + uniprotCache.getEvictions() + " evicted");
+    }
 
-            // create a new file with results if current one is too big;
-            if (numberOfLines >= this.maxNumberOfLinesPerFile){
-                chunkIndex++;
-                numberOfLines = 0;
+    /**
+     * Identify the sequences one batch after the other. The blasts needed by the sequences of a batch are submitted together
+     * @throws IOException
+     */
+    private void runSequentialIdentification() throws IOException {
+        int batchSize = Math.max(this.blastBatchSize, 1);
+        List<FastaSequence> batch = new ArrayList<FastaSequence>(batchSize);
+        List<IdentificationContext> contexts = new ArrayList<IdentificationContext>(batchSize);
 
-                String parentDirectory = this.outputFile.getParent();
-                String currentName = this.outputFile.getName();
-                String extension = currentName.contains(".") ? currentName.substring(currentName.indexOf(".")) : "";
-                File newFile = new File(parentDirectory, currentName.replaceAll(extension, "")+"_"+chunkIndex+extension);
+        while (this.fastaSequenceIterator.hasNext()){
+            batch.clear();
+            contexts.clear();
 
-                this.outputFile = newFile;
-                this.resultsWriter = new ProteinSequenceResultsWriter(outputFile);
+            while (this.fastaSequenceIterator.hasNext() && batch.size() < batchSize){
+                FastaSequence fastaSequence = this.fastaSequenceIterator.next();
 
-                this.resultsWriter.writeHeader();
+                batch.add(fastaSequence);
+                contexts.add(createContext(fastaSequence));
             }
 
+            List<IdentificationResults> results;
             try {
-                IdentificationResults<? extends MappingReport> results = identificationStrategy.identifyProtein(context);
-
-                this.resultsWriter.writeResults(fastaSequence, results);
+                results = identificationStrategy.identifyProteins(contexts);
             } catch (Exception e) {
-                e.printStackTrace();
-                this.resultsWriter.writeEmptyResults(fastaSequence);
+                log.error("The sequences of the batch can't be identified together, they are identified one by one", e);
+
+                // identify the sequences of the batch one by one so only the faulty sequence is lost
+                results = new ArrayList<IdentificationResults>(contexts.size());
+                for (IdentificationContext context : contexts){
+                    try {
+                        results.add(identificationStrategy.identifyProtein(context));
+                    } catch (Exception e2) {
+                        log.error("The sequence " + context.getSequence() + " can't be identified", e2);
+                        results.add(null);
+                    }
+                }
+            }
+
+            for (int i = 0; i < batch.size(); i++){
+                writeResults(batch.get(i), results.get(i));
+            }
+        }
+    }
+
+    /**
+     * Identify the sequences using a pool of worker threads sharing the identification strategy.
+     * At most twice as many sequences as workers are in flight so the whole input file is never loaded in memory.
+     * The results are written by the current thread in the order of the input file.
+     * @throws IOException
+     */
+    private void runParallelIdentification() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(this.numberOfThreads);
+        LinkedList<FastaSequence> pendingSequences = new LinkedList<FastaSequence>();
+        LinkedList<Future<IdentificationResults<? extends MappingReport>>> pendingResults = new LinkedList<Future<IdentificationResults<? extends MappingReport>>>();
+        int maxPendingSequences = this.numberOfThreads * 2;
+
+        try {
+            while (this.fastaSequenceIterator.hasNext() || !pendingResults.isEmpty()){
+
+                // submit sequences until the window is full
+                while (this.fastaSequenceIterator.hasNext() && pendingResults.size() < maxPendingSequences){
+                    FastaSequence fastaSequence = this.fastaSequenceIterator.next();
+                    final IdentificationContext context = createContext(fastaSequence);
+
+                    pendingSequences.add(fastaSequence);
+                    pendingResults.add(executor.submit(new Callable<IdentificationResults<? extends MappingReport>>() {
+                        public IdentificationResults<? extends MappingReport> call() throws Exception {
+                            return identificationStrategy.identifyProtein(context);
+                        }
+                    }));
+                }
+
+                // write the oldest result, waiting for it if necessary
+                FastaSequence fastaSequence = pendingSequences.removeFirst();
+                Future<IdentificationResults<? extends MappingReport>> future = pendingResults.removeFirst();
+
+                IdentificationResults<? extends MappingReport> results = null;
+                try {
+                    results = future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("The identification job has been interrupted", e);
+                } catch (ExecutionException e) {
+                    log.error("The fasta sequence " + fastaSequence.getIdentifier() + " can't be identified", e.getCause());
+                }
+
+                writeResults(fastaSequence, results);
             }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     *
+     * @param fastaSequence
+     * @return the context to identify the fasta sequence
+     */
+    private IdentificationContext createContext(FastaSequence fastaSequence){
+        IdentificationContext context = new IdentificationContext();
+        context.setSequence(fastaSequence.getSequence());
+        context.setOrganism(new BioSource(taxId, taxId));
+
+        return context;
+    }
 
-            System.out.println("Processing fasta sequence " + fastaSequence.getIdentifier());
-            numberOfLines++;
+    /**
+     * Write the results of a fasta sequence. The writer creates a new file with results if current one is too big.
+     * @param fastaSequence
+     * @param results : the results of the identification, null if the identification failed
+     * @throws IOException
+     */
+    private void writeResults(FastaSequence fastaSequence, IdentificationResults<? extends MappingReport> results) throws IOException {
+        if (results != null){
+            this.resultsWriter.writeResults(fastaSequence, results);
         }
+        else {
+            this.resultsWriter.writeEmptyResults(fastaSequence);
+        }
+
+        log.info("Processing fasta sequence " + fastaSequence.getIdentifier());
     }
 
     public static void main(String[] args){
 
-        if (args.length != 3){
-            System.err.println( "Usage: ProteinSequenceIdentificationManager <input file name> <output file name> <taxid of the sequences>" );
+        if (args.length < 3 || args.length > 6){
+            System.err.println( "Usage: ProteinSequenceIdentificationManager <input file name> <output file name> <taxid of the sequences> [number of threads] [results cache directory] [sequence index file]" );
             System.exit( 1 );
         }
 
         String inputFile = args[0];
         String outputFile = args[1];
         String taxId = args[2];
+        int numberOfThreads = args.length >= 4 ? Integer.parseInt(args[3]) : 1;
+        String cacheDirectory = args.length >= 5 ? args[4] : null;
+        String sequenceIndex = args.length == 6 ? args[5] : null;
 
         try {
             ProteinSequenceIdentificationManager sequenceManager = new ProteinSequenceIdentificationManager(inputFile, outputFile, taxId);
+            sequenceManager.setNumberOfThreads(numberOfThreads);
+            if (cacheDirectory != null && cacheDirectory.trim().length() > 0){
+                sequenceManager.enableResultsCache(new File(cacheDirectory), DEFAULT_CACHE_TIME_TO_LIVE, null);
+            }
+            if (sequenceIndex != null && sequenceIndex.trim().length() > 0){
+                sequenceManager.setSequenceIndex(new File(sequenceIndex));
+            }
 
             sequenceManager.runIdentificationJob();
 
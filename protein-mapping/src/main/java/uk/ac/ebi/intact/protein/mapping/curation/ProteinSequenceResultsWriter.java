@@ -10,22 +10,56 @@ import uk.ac.ebi.intact.protein.mapping.results.IdentificationResults;
 
 import java.io.*;
 import java.util.Set;
+import java.util.zip.GZIPOutputStream;
 
 /**
- * Writer of protein seuqnec results
+ * Writer of protein seuqnec results.
+ *
+ * The results are written through a single buffered stream which is kept open until the writer is closed. When the current file
+ * reaches the maximum file size, it is closed and the next results are written in a new file (name_2.ext, name_3.ext, ...) starting with the header.
+ * The results can be compressed with gzip.
  *
  * @author Marine Dumousseau (marine@ebi.ac.uk)
  * @version $Id$
  * @since <pre>16/08/12</pre>
  */
 
-public class ProteinSequenceResultsWriter {
+public class ProteinSequenceResultsWriter implements Closeable, Flushable {
 
     File ouptutFile;
     public final String NEW_COLUMN = "\t";
     public final String NEW_LINE = "\n";
     public final String EMPTY = "-";
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String GZIP_EXTENSION = ".gz";
+
+    /**
+     * The maximum size in bytes of a file before the results are written in a new file. 0 or less means a single file is written
+     */
+    private long maxFileSize = 0;
+
+    /**
+     * true if the results are compressed with gzip
+     */
+    private boolean compressed = false;
+
+    /**
+     * The writer of the current file, null if the file is not open
+     */
+    private Writer writer;
+
+    /**
+     * The stream counting the bytes written in the current file
+     */
+    private CountingOutputStream fileStream;
+
+    /**
+     * The current file and its index
+     */
+    private File currentFile;
+    private int fileIndex = 1;
+
     public ProteinSequenceResultsWriter(String fileName){
         if (fileName == null){
             throw new IllegalArgumentException("The file name where to write the results must be provided");
@@ -40,6 +74,70 @@ public class ProteinSequenceResultsWriter {
         this.ouptutFile = file;
     }
 
+    /**
+     *
+     * @param file : the file where to write the results
+     * @param compressed : true if the results are compressed with gzip. The extension .gz is added to the file name if it doesn't have it
+     */
+    public ProteinSequenceResultsWriter(File file, boolean compressed){
+        this(file);
+        this.compressed = compressed;
+    }
+
+    /**
+     *
+     * @param index : the index of the file, starting at 1
+     * @return the file where to write the results with this index
+     */
+    private File getFile(int index){
+        String name = this.ouptutFile.getName();
+        if (this.compressed && !name.endsWith(GZIP_EXTENSION)){
+            name = name + GZIP_EXTENSION;
+        }
+
+        if (index > 1){
+            String extension = name.contains(".") ? name.substring(name.indexOf(".")) : "";
+            name = name.substring(0, name.length() - extension.length()) + "_" + index + extension;
+        }
+
+        return new File(this.ouptutFile.getParentFile(), name);
+    }
+
+    /**
+     * Open the current file
+     * @param append : true if the results are added at the end of the file
+     * @throws IOException
+     */
+    private void open(boolean append) throws IOException {
+        this.currentFile = getFile(this.fileIndex);
+        this.fileStream = new CountingOutputStream(new FileOutputStream(this.currentFile, append), append ? this.currentFile.length() : 0);
+
+        OutputStream out = this.fileStream;
+        if (this.compressed){
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"), BUFFER_SIZE);
+    }
+
+    /**
+     *
+     * @return the writer where to write the next results. Opens a new file if the current one has reached the maximum file size
+     * @throws IOException
+     */
+    private Writer getWriter() throws IOException {
+        if (this.writer == null){
+            open(true);
+        }
+        else if (this.maxFileSize > 0 && this.fileStream.getCount() >= this.maxFileSize){
+            close();
+
+            this.fileIndex++;
+            open(false);
+            writeHeader(this.writer);
+        }
+        return this.writer;
+    }
+
     public void writeResults(FastaSequence fastaSequence, IdentificationResults<? extends MappingReport> identificationResults) throws IOException {
 
         if (identificationResults == null){
@@ -50,7 +148,7 @@ public class ProteinSequenceResultsWriter {
             throw new IllegalArgumentException("A fast sequence is expected");
         }
 
-        BufferedWriter writer = new BufferedWriter(new FileWriter(ouptutFile, true));
+        Writer writer = getWriter();
 
         // Uniprot Protein API/swissprot remapping could identify one single uniprot id. We want to give the blast results of swissprot remapping if necessary
         if (identificationResults.hasUniqueUniprotId()){
@@ -94,7 +192,8 @@ public class ProteinSequenceResultsWriter {
             // Uniprot Protein API sequence to be reviewed ? if yes, no blast to report
             MappingReport report = identificationResults.getLastAction();
             if (report != null && report.getStatusLabel().equals(StatusLabel.TO_BE_REVIEWED)
-                    && (report.getName().equals(ActionName.UniprotProteinAPI_sequence_Swissprot) || report.getName().equals(ActionName.UniprotProteinAPI_sequence_Trembl))){
+                    && (report.getName().equals(ActionName.UniprotProteinAPI_sequence_Swissprot) || report.getName().equals(ActionName.UniprotProteinAPI_sequence_Trembl)
+                    || report.getName().equals(ActionName.SEARCH_uniprot_sequence_index))){
 
                 // fasta identifier
                 writer.write(fastaSequence.getIdentifier());
@@ -115,7 +214,7 @@ public class ProteinSequenceResultsWriter {
                  BlastReport<BlastResults> blastReport = (BlastReport<BlastResults>) report;
 
                 if (blastReport.getBlastMatchingProteins().isEmpty()){
-                    writeEmptyResults(fastaSequence);
+                    writeEmptyResults(writer, fastaSequence);
                 }
                 else {
                     for (BlastResults blastResult : blastReport.getBlastMatchingProteins()){
@@ -136,13 +235,9 @@ public class ProteinSequenceResultsWriter {
             }
             // no blast results
             else {
-                writeEmptyResults(fastaSequence);
+                writeEmptyResults(writer, fastaSequence);
             }
         }
-
-        writer.flush();
-
-        writer.close();
     }
 
     private void writeBlastResults(Writer writer, BlastResults blastResult, FastaSequence fastaSequence) throws IOException {
@@ -181,8 +276,6 @@ public class ProteinSequenceResultsWriter {
         writer.write(NEW_COLUMN);
         writer.write(blastResult.getSequence());
         writer.write(NEW_LINE);
-
-        writer.flush();
     }
 
     private void writeEmpytBlastResults(Writer writer, FastaSequence fastaSequence) throws IOException {
@@ -217,8 +310,6 @@ public class ProteinSequenceResultsWriter {
         writer.write(NEW_COLUMN);
         writer.write(EMPTY);
         writer.write(NEW_LINE);
-
-        writer.flush();
     }
 
     public static float getQueryCoveragePercentFor(BlastResults protein, String sequence){
@@ -240,9 +331,19 @@ public class ProteinSequenceResultsWriter {
         return ((float) (protein.getEndMatch() - protein.getStartMatch() + 1)) / (float) protein.getSequence().length() * 100;
     }
 
+    /**
+     * Start the results file with the header. The content of the file is replaced if it already exists
+     * @throws IOException
+     */
     public void writeHeader() throws IOException {
-        FileWriter writer = new FileWriter(ouptutFile);
+        close();
 
+        this.fileIndex = 1;
+        open(false);
+        writeHeader(this.writer);
+    }
+
+    private void writeHeader(Writer writer) throws IOException {
         writer.write("Fasta identifier");
         writer.write(NEW_COLUMN);
         writer.write("unique uniprot ID");
@@ -267,15 +368,22 @@ public class ProteinSequenceResultsWriter {
         writer.write(NEW_COLUMN);
         writer.write("match sequence");
         writer.write(NEW_LINE);
-
-        writer.flush();
-
-        writer.close();
     }
 
+    /**
+     * Write a line without results for a fasta sequence which couldn't be identified
+     * @param fasta
+     * @throws IOException
+     */
     public void writeEmptyResults(FastaSequence fasta) throws IOException {
-        FileWriter writer = new FileWriter(ouptutFile);
+        if (fasta == null){
+            throw new IllegalArgumentException("A fast sequence is expected");
+        }
+
+        writeEmptyResults(getWriter(), fasta);
+    }
 
+    private void writeEmptyResults(Writer writer, FastaSequence fasta) throws IOException {
         writer.write(fasta.getIdentifier());
         writer.write(NEW_COLUMN);
         writer.write(EMPTY);
@@ -300,9 +408,104 @@ public class ProteinSequenceResultsWriter {
         writer.write(NEW_COLUMN);
         writer.write(EMPTY);
         writer.write(NEW_LINE);
+    }
+
+    /**
+     * Write the buffered results in the current file. The compressed results are only complete when the writer is closed
+     * @throws IOException
+     */
+    public void flush() throws IOException {
+        if (this.writer != null){
+            this.writer.flush();
+        }
+    }
+
+    /**
+     * Write the buffered results and close the current file. The writer can still be used : the next results are added at the end of the file
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        if (this.writer != null){
+            try {
+                this.writer.close();
+            }
+            finally {
+                this.writer = null;
+                this.fileStream = null;
+            }
+        }
+    }
+
+    public long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    /**
+     * Set the size of the files before the results are written in a new file. As the results are buffered and written line by line,
+     * a file can be slightly bigger than this size.
+     * @param maxFileSize : the maximum size in bytes (compressed size if the results are compressed), 0 or less means a single file is written
+     */
+    public void setMaxFileSize(long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    /**
+     *
+     * @param compressed : true if the results are compressed with gzip. The extension .gz is added to the file name if it doesn't have it
+     */
+    public void setCompressed(boolean compressed) {
+        if (this.writer != null){
+            throw new IllegalStateException("The compression can't be changed while the file " + this.currentFile.getName() + " is open");
+        }
+        this.compressed = compressed;
+    }
 
-        writer.flush();
+    /**
+     *
+     * @return the file where the results are currently written
+     */
+    public File getCurrentFile() {
+        return this.currentFile != null ? this.currentFile : getFile(this.fileIndex);
+    }
 
-        writer.close();
+    /**
+     *
+     * @return the number of files written, including the current one
+     */
+    public int getNumberOfFiles() {
+        return fileIndex;
+    }
+
+    /**
+     * Output stream counting the bytes written in the file
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        public CountingOutputStream(OutputStream out, long count){
+            super(out);
+            this.count = count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        public long getCount() {
+            return count;
+        }
     }
 }
@@ -0,0 +1,20 @@
+package uk.ac.ebi.intact.protein.mapping.factories;
+
+import uk.ac.ebi.intact.uniprot.service.UniprotService;
+
+/**
+ * Factory for the uniprot services. A uniprot service can't be shared by several threads so each thread gets its own service
+ * from the factory.
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+public interface UniprotServiceFactory {
+
+    /**
+     *
+     * @return a new uniprot service, used by a single thread
+     */
+    public UniprotService createUniprotService();
+}
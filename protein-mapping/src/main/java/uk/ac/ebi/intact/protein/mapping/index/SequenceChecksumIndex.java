@@ -0,0 +1,563 @@
+package uk.ac.ebi.intact.protein.mapping.index;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import uk.ac.ebi.intact.commons.util.Crc64;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * This class is a local index of the Uniprot sequences. It maps the checksum of a sequence (CRC64, the beginning of the MD5
+ * and the length) to the Swissprot and Trembl entries having exactly this sequence and to their taxIds.
+ *
+ * The index is built once from a Uniprot FASTA file (for instance uniprot_sprot.fasta + uniprot_sprot_varsplic.fasta for the isoforms)
+ * or a Uniprot flat file (.dat) and is then memory mapped : a lookup reads a few bytes of the file and doesn't need any network access.
+ *
+ * File format (big endian) :
+ * - header : magic number, format version, number of slots, number of sequences, number of entries, size of the entries
+ * - slots : an open addressing hash table of (CRC64, MD5, length, offset of the entries)
+ * - entries : for each sequence, the number of entries and then for each entry the database (0 = swissprot, 1 = trembl), the taxId and the accession
+ *
+ * The index is built in memory so the file given to build it must be Swissprot or a subset of Trembl (an organism or a taxonomic division).
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+public class SequenceChecksumIndex {
+
+    /**
+     * Sets up a logger for that class.
+     */
+    public static final Log log = LogFactory.getLog( SequenceChecksumIndex.class );
+
+    private static final int MAGIC_NUMBER = 0x53514958;
+
+    /**
+     * The version of the format of the index. Must be incremented each time the format changes
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = 32;
+    private static final int SLOT_SIZE = 24;
+
+    /**
+     * The maximum size of an index : it is built in memory and memory mapped in a single buffer
+     */
+    static final long MAX_INDEX_SIZE = Integer.MAX_VALUE;
+
+    private static final byte SWISSPROT = 0;
+    private static final byte TREMBL = 1;
+
+    /**
+     * The content of the index file
+     */
+    private final MappedByteBuffer buffer;
+
+    private final int numberOfSlots;
+    private final int numberOfSequences;
+    private final int numberOfEntries;
+
+    /**
+     * The position of the entries in the file
+     */
+    private final int entriesStart;
+
+    private SequenceChecksumIndex(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC_NUMBER){
+            throw new IOException("The file is not a sequence index");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION){
+            throw new IOException("The sequence index has been built with the format " + buffer.getInt(4) + " and must be built again");
+        }
+
+        this.numberOfSlots = buffer.getInt(8);
+        this.numberOfSequences = buffer.getInt(12);
+        this.numberOfEntries = buffer.getInt(16);
+        long entriesStart = HEADER_SIZE + (long) this.numberOfSlots * SLOT_SIZE;
+
+        if (Integer.bitCount(this.numberOfSlots) != 1 || entriesStart + buffer.getInt(20) != buffer.capacity()){
+            throw new IOException("The sequence index is corrupted");
+        }
+        this.entriesStart = (int) entriesStart;
+    }
+
+    /**
+     * Open an index built with build(uniprotFile, indexFile)
+     * @param indexFile : the index file
+     * @return the index, memory mapped
+     * @throws IOException if the file can't be read or is not a valid index
+     */
+    public static SequenceChecksumIndex open(File indexFile) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(indexFile, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            if (channel.size() > Integer.MAX_VALUE){
+                throw new IOException("The sequence index " + indexFile.getAbsolutePath() + " is bigger than 2GB");
+            }
+
+            SequenceChecksumIndex index = new SequenceChecksumIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            log.info("Sequence index " + indexFile.getAbsolutePath() + " opened : " + index.getNumberOfSequences() + " sequences, " + index.getNumberOfEntries() + " entries");
+
+            return index;
+        }
+        finally {
+            file.close();
+        }
+    }
+
+    /**
+     *
+     * @param sequence : the sequence of the protein
+     * @return the Uniprot entries having exactly this sequence, an empty list if there are none
+     */
+    public List<SequenceIndexEntry> getEntries(String sequence){
+        List<SequenceIndexEntry> entries = new ArrayList<SequenceIndexEntry>();
+
+        if (sequence == null || sequence.length() == 0){
+            return entries;
+        }
+
+        String normalizedSequence = sequence.toUpperCase();
+        long crc64 = getCrc64(normalizedSequence);
+        long md5 = getMd5(normalizedSequence);
+        int length = normalizedSequence.length();
+
+        int mask = this.numberOfSlots - 1;
+        int slot = hash(crc64, md5) & mask;
+
+        for (int i = 0; i < this.numberOfSlots; i++){
+            int position = HEADER_SIZE + slot * SLOT_SIZE;
+            int slotLength = this.buffer.getInt(position + 16);
+
+            // empty slot, the sequence is not indexed
+            if (slotLength == 0){
+                return entries;
+            }
+
+            if (slotLength == length && this.buffer.getLong(position) == crc64 && this.buffer.getLong(position + 8) == md5){
+                readEntries(this.entriesStart + this.buffer.getInt(position + 20), entries);
+                return entries;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return entries;
+    }
+
+    /**
+     * Read the entries of a sequence
+     * @param position : the position of the entries in the file
+     * @param entries : the list where the entries are added
+     */
+    private void readEntries(int position, List<SequenceIndexEntry> entries){
+        int numberOfEntries = this.buffer.getInt(position);
+        position += 4;
+
+        for (int i = 0; i < numberOfEntries; i++){
+            byte database = this.buffer.get(position);
+            int taxId = this.buffer.getInt(position + 1);
+            int accessionLength = this.buffer.getShort(position + 5);
+            position += 7;
+
+            char[] accession = new char[accessionLength];
+            for (int j = 0; j < accessionLength; j++){
+                accession[j] = (char) this.buffer.get(position + j);
+            }
+            position += accessionLength;
+
+            entries.add(new SequenceIndexEntry(new String(accession), database == SWISSPROT, taxId > 0 ? Integer.toString(taxId) : null));
+        }
+    }
+
+    public int getNumberOfSequences() {
+        return numberOfSequences;
+    }
+
+    public int getNumberOfEntries() {
+        return numberOfEntries;
+    }
+
+    /**
+     * Build an index from a Uniprot file
+     * @param uniprotFile : a Uniprot FASTA file or flat file (.dat), can be compressed with gzip if the name ends with .gz
+     * @param indexFile : the index file to write
+     * @throws IOException if the Uniprot file can't be read or the index can't be written
+     */
+    public static void build(File uniprotFile, File indexFile) throws IOException {
+        build(Collections.singletonList(uniprotFile), indexFile);
+    }
+
+    /**
+     * Build an index from several Uniprot files, for instance the canonical sequences and the isoforms
+     * @param uniprotFiles : the Uniprot FASTA files or flat files (.dat), can be compressed with gzip if the name ends with .gz
+     * @param indexFile : the index file to write
+     * @throws IOException if a Uniprot file can't be read or the index can't be written
+     */
+    public static void build(List<File> uniprotFiles, File indexFile) throws IOException {
+        build(uniprotFiles, indexFile, MAX_INDEX_SIZE);
+    }
+
+    /**
+     * Build an index from several Uniprot files
+     * @param uniprotFiles : the Uniprot FASTA files or flat files (.dat)
+     * @param indexFile : the index file to write
+     * @param maxIndexSize : the maximum size of the index in bytes
+     * @throws IOException if a Uniprot file can't be read, the index would be bigger than maxIndexSize or can't be written
+     */
+    static void build(List<File> uniprotFiles, File indexFile, long maxIndexSize) throws IOException {
+        Map<SequenceKey, List<IndexedEntry>> entriesBySequence = new LinkedHashMap<SequenceKey, List<IndexedEntry>>();
+
+        for (File uniprotFile : uniprotFiles){
+            BufferedReader reader = openUniprotFile(uniprotFile);
+            try {
+                reader.mark(1);
+                int firstCharacter = reader.read();
+                reader.reset();
+
+                if (firstCharacter == '>'){
+                    readFasta(reader, entriesBySequence);
+                }
+                else {
+                    readFlatFile(reader, entriesBySequence);
+                }
+            }
+            finally {
+                reader.close();
+            }
+        }
+
+        writeIndex(entriesBySequence, indexFile, maxIndexSize);
+    }
+
+    private static BufferedReader openUniprotFile(File uniprotFile) throws IOException {
+        InputStream in = new FileInputStream(uniprotFile);
+        if (uniprotFile.getName().endsWith(".gz")){
+            in = new GZIPInputStream(in, 65536);
+        }
+        return new BufferedReader(new InputStreamReader(in, "US-ASCII"), 65536);
+    }
+
+    /**
+     * Read the entries of a Uniprot FASTA file : >sp|P12345|NAME_HUMAN description OS=organism OX=9606
+     */
+    private static void readFasta(BufferedReader reader, Map<SequenceKey, List<IndexedEntry>> entriesBySequence) throws IOException {
+        String header = null;
+        StringBuilder sequence = new StringBuilder();
+        String line;
+
+        while ((line = reader.readLine()) != null){
+            if (line.startsWith(">")){
+                if (header != null){
+                    addFastaEntry(header, sequence.toString(), entriesBySequence);
+                }
+                header = line.substring(1).trim();
+                sequence.setLength(0);
+            }
+            else {
+                appendResidues(line, 0, sequence);
+            }
+        }
+        if (header != null){
+            addFastaEntry(header, sequence.toString(), entriesBySequence);
+        }
+    }
+
+    private static void addFastaEntry(String header, String sequence, Map<SequenceKey, List<IndexedEntry>> entriesBySequence){
+        int endOfIdentifier = header.indexOf(' ');
+        String identifier = endOfIdentifier > 0 ? header.substring(0, endOfIdentifier) : header;
+        String[] identifiers = identifier.split("\\|");
+
+        if (identifiers.length < 2 || !("sp".equals(identifiers[0]) || "tr".equals(identifiers[0]))){
+            log.warn("The FASTA entry " + identifier + " is not a Uniprot entry and is not indexed");
+            return;
+        }
+
+        int taxId = 0;
+        int startOfTaxId = header.indexOf(" OX=");
+        if (startOfTaxId > 0){
+            taxId = parseTaxId(header, startOfTaxId + 4);
+        }
+
+        addEntry(sequence, new IndexedEntry(identifiers[1], "sp".equals(identifiers[0]) ? SWISSPROT : TREMBL, taxId), entriesBySequence);
+    }
+
+    /**
+     * Read the entries of a Uniprot flat file
+     */
+    private static void readFlatFile(BufferedReader reader, Map<SequenceKey, List<IndexedEntry>> entriesBySequence) throws IOException {
+        String accession = null;
+        byte database = TREMBL;
+        int taxId = 0;
+        boolean isReadingSequence = false;
+        StringBuilder sequence = new StringBuilder();
+        String line;
+
+        while ((line = reader.readLine()) != null){
+            if (isReadingSequence && line.startsWith(" ")){
+                appendResidues(line, 0, sequence);
+            }
+            else if (line.startsWith("//")){
+                if (accession != null){
+                    addEntry(sequence.toString(), new IndexedEntry(accession, database, taxId), entriesBySequence);
+                }
+                accession = null;
+                database = TREMBL;
+                taxId = 0;
+                isReadingSequence = false;
+                sequence.setLength(0);
+            }
+            else if (line.startsWith("ID   ")){
+                database = line.contains("Reviewed;") ? SWISSPROT : TREMBL;
+            }
+            // the primary accession is the first accession of the first AC line
+            else if (line.startsWith("AC   ") && accession == null){
+                int endOfAccession = line.indexOf(';');
+                accession = (endOfAccession > 0 ? line.substring(5, endOfAccession) : line.substring(5)).trim();
+            }
+            else if (line.startsWith("OX   ")){
+                int startOfTaxId = line.indexOf("NCBI_TaxID=");
+                if (startOfTaxId > 0){
+                    taxId = parseTaxId(line, startOfTaxId + 11);
+                }
+            }
+            else if (line.startsWith("SQ   ")){
+                isReadingSequence = true;
+            }
+        }
+    }
+
+    private static void appendResidues(String line, int start, StringBuilder sequence){
+        for (int i = start; i < line.length(); i++){
+            char residue = line.charAt(i);
+            if (!Character.isWhitespace(residue)){
+                sequence.append(Character.toUpperCase(residue));
+            }
+        }
+    }
+
+    /**
+     *
+     * @return the taxId starting at this position, 0 if it is not a number
+     */
+    private static int parseTaxId(String line, int start){
+        int taxId = 0;
+        for (int i = start; i < line.length() && Character.isDigit(line.charAt(i)); i++){
+            taxId = taxId * 10 + (line.charAt(i) - '0');
+        }
+        return taxId;
+    }
+
+    private static void addEntry(String sequence, IndexedEntry entry, Map<SequenceKey, List<IndexedEntry>> entriesBySequence){
+        if (sequence.length() == 0){
+            return;
+        }
+
+        SequenceKey key = new SequenceKey(getCrc64(sequence), getMd5(sequence), sequence.length());
+        List<IndexedEntry> entries = entriesBySequence.get(key);
+
+        if (entries == null){
+            entries = new ArrayList<IndexedEntry>(1);
+            entriesBySequence.put(key, entries);
+        }
+        entries.add(entry);
+    }
+
+    private static IOException createIndexTooBigException(int numberOfSequences, long maxIndexSize){
+        return new IOException("The index of the " + numberOfSequences + " sequences would be bigger than " + maxIndexSize
+                + " bytes, it must be built from a smaller Uniprot file (Swissprot or a subset of Trembl)");
+    }
+
+    /**
+     * Write the index file. The file is written in a temporary file first so an index being used is never half written
+     * @throws IOException if the index would be bigger than maxIndexSize, which is checked before the entries are copied in memory
+     */
+    private static void writeIndex(Map<SequenceKey, List<IndexedEntry>> entriesBySequence, File indexFile, long maxIndexSize) throws IOException {
+        long slotsSize = (Long.highestOneBit(Math.max(entriesBySequence.size(), 1) * 2L - 1) << 1) * SLOT_SIZE;
+        long maxEntriesSize = maxIndexSize - HEADER_SIZE - slotsSize;
+        if (maxEntriesSize < 0){
+            throw createIndexTooBigException(entriesBySequence.size(), maxIndexSize);
+        }
+
+        int numberOfSlots = (int) (slotsSize / SLOT_SIZE);
+        int mask = numberOfSlots - 1;
+        SequenceKey[] slots = new SequenceKey[numberOfSlots];
+        int[] offsets = new int[numberOfSlots];
+
+        ByteArrayOutputStream entriesContent = new ByteArrayOutputStream();
+        DataOutputStream entriesOut = new DataOutputStream(entriesContent);
+        int numberOfEntries = 0;
+
+        for (Map.Entry<SequenceKey, List<IndexedEntry>> sequenceEntries : entriesBySequence.entrySet()){
+            SequenceKey key = sequenceEntries.getKey();
+
+            long entriesSize = 4;
+            for (IndexedEntry entry : sequenceEntries.getValue()){
+                entriesSize += 7 + entry.accession.length();
+            }
+            if (entriesOut.size() + entriesSize > maxEntriesSize){
+                throw createIndexTooBigException(entriesBySequence.size(), maxIndexSize);
+            }
+
+            int slot = hash(key.crc64, key.md5) & mask;
+            while (slots[slot] != null){
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = key;
+            offsets[slot] = entriesOut.size();
+
+            entriesOut.writeInt(sequenceEntries.getValue().size());
+            for (IndexedEntry entry : sequenceEntries.getValue()){
+                entriesOut.writeByte(entry.database);
+                entriesOut.writeInt(entry.taxId);
+                entriesOut.writeShort(entry.accession.length());
+                entriesOut.writeBytes(entry.accession);
+                numberOfEntries++;
+            }
+        }
+        entriesOut.flush();
+
+        File temporaryFile = new File(indexFile.getAbsolutePath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile), 65536));
+        try {
+            out.writeInt(MAGIC_NUMBER);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(numberOfSlots);
+            out.writeInt(entriesBySequence.size());
+            out.writeInt(numberOfEntries);
+            out.writeInt(entriesContent.size());
+            out.writeLong(0);
+
+            for (int slot = 0; slot < numberOfSlots; slot++){
+                SequenceKey key = slots[slot];
+
+                if (key == null){
+                    out.writeLong(0);
+                    out.writeLong(0);
+                    out.writeInt(0);
+                    out.writeInt(0);
+                }
+                else {
+                    out.writeLong(key.crc64);
+                    out.writeLong(key.md5);
+                    out.writeInt(key.length);
+                    out.writeInt(offsets[slot]);
+                }
+            }
+
+            entriesContent.writeTo(out);
+        }
+        finally {
+            out.close();
+        }
+
+        if (indexFile.exists() && !indexFile.delete()){
+            throw new IOException("Impossible to replace the sequence index " + indexFile.getAbsolutePath());
+        }
+        if (!temporaryFile.renameTo(indexFile)){
+            throw new IOException("Impossible to write the sequence index " + indexFile.getAbsolutePath());
+        }
+
+        log.info("Sequence index " + indexFile.getAbsolutePath() + " written : " + entriesBySequence.size() + " sequences, " + numberOfEntries + " entries");
+    }
+
+    private static int hash(long crc64, long md5){
+        long hash = crc64 ^ md5;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static long getCrc64(String sequence){
+        return Long.parseUnsignedLong(Crc64.getCrc64(sequence), 16);
+    }
+
+    /**
+     *
+     * @return the first 8 bytes of the MD5 of the sequence
+     */
+    private static long getMd5(String sequence){
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(sequence.getBytes("US-ASCII"));
+
+            long md5 = 0;
+            for (int i = 0; i < 8; i++){
+                md5 = (md5 << 8) | (digest[i] & 0xFF);
+            }
+            return md5;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not supported", e);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("US-ASCII is not supported", e);
+        }
+    }
+
+    /**
+     * The checksum of a sequence
+     */
+    private static class SequenceKey {
+        private final long crc64;
+        private final long md5;
+        private final int length;
+
+        private SequenceKey(long crc64, long md5, int length){
+            this.crc64 = crc64;
+            this.md5 = md5;
+            this.length = length;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof SequenceKey)) return false;
+
+            SequenceKey that = (SequenceKey) o;
+            return crc64 == that.crc64 && md5 == that.md5 && length == that.length;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash(crc64, md5) * 31 + length;
+        }
+    }
+
+    /**
+     * An entry read from the Uniprot file
+     */
+    private static class IndexedEntry {
+        private final String accession;
+        private final byte database;
+        private final int taxId;
+
+        private IndexedEntry(String accession, byte database, int taxId){
+            this.accession = accession;
+            this.database = database;
+            this.taxId = taxId;
+        }
+    }
+
+    public static void main(String[] args){
+
+        if (args.length < 2){
+            System.err.println( "Usage: SequenceChecksumIndex <index file> <uniprot fasta or dat file> [other uniprot files]" );
+            System.exit( 1 );
+        }
+
+        List<File> uniprotFiles = new ArrayList<File>();
+        for (int i = 1; i < args.length; i++){
+            uniprotFiles.add(new File(args[i]));
+        }
+
+        try {
+            build(uniprotFiles, new File(args[0]));
+        } catch (IOException e) {
+            log.error("Impossible to build the index " + args[0], e);
+            System.exit( 1 );
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package uk.ac.ebi.intact.protein.mapping.index;
+
+/**
+ * A Uniprot entry found in the SequenceChecksumIndex
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+public class SequenceIndexEntry {
+
+    /**
+     * The uniprot accession (or isoform accession)
+     */
+    private final String accession;
+
+    /**
+     * true if the entry is a swissprot entry, false if it is a trembl entry
+     */
+    private final boolean isSwissprotEntry;
+
+    /**
+     * The taxId of the organism, null if it is unknown
+     */
+    private final String taxId;
+
+    public SequenceIndexEntry(String accession, boolean swissprotEntry, String taxId) {
+        this.accession = accession;
+        this.isSwissprotEntry = swissprotEntry;
+        this.taxId = taxId;
+    }
+
+    public String getAccession() {
+        return accession;
+    }
+
+    public boolean isSwissprotEntry() {
+        return isSwissprotEntry;
+    }
+
+    public String getTaxId() {
+        return taxId;
+    }
+}
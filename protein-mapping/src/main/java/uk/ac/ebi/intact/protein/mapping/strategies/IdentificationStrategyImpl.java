@@ -3,7 +3,11 @@ package uk.ac.ebi.intact.protein.mapping.strategies;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import uk.ac.ebi.intact.protein.mapping.actions.ActionName;
+import uk.ac.ebi.intact.protein.mapping.actions.ActionNeedingBlastService;
 import uk.ac.ebi.intact.protein.mapping.actions.IdentificationAction;
+import uk.ac.ebi.intact.protein.mapping.actions.ThreadLocalUniprotService;
+import uk.ac.ebi.intact.protein.mapping.alignment.AlignmentBackend;
+import uk.ac.ebi.intact.protein.mapping.cache.UniprotProteinCache;
 import uk.ac.ebi.intact.protein.mapping.factories.ReportsFactory;
 import uk.ac.ebi.intact.protein.mapping.factories.ResultsFactory;
 import uk.ac.ebi.intact.protein.mapping.factories.impl.DefaultReportsFactory;
@@ -17,7 +21,6 @@ import uk.ac.ebi.intact.protein.mapping.strategies.exceptions.StrategyException;
 import uk.ac.ebi.intact.uniprot.model.UniprotProtein;
 import uk.ac.ebi.intact.uniprot.model.UniprotXref;
 import uk.ac.ebi.intact.uniprot.service.IdentifierChecker;
-import uk.ac.ebi.intact.uniprot.service.SimpleUniprotRemoteService;
 import uk.ac.ebi.intact.uniprot.service.UniprotService;
 import uk.ac.ebi.kraken.interfaces.uniprot.DatabaseType;
 
@@ -42,9 +45,9 @@ public abstract class IdentificationStrategyImpl implements IdentificationStrate
     public static final Log log = LogFactory.getLog( IdentificationStrategyImpl.class );
 
     /**
-     * The uniprot service
+     * The uniprot service of each thread using this strategy
      */
-    protected static UniprotService uniprotService;
+    protected ThreadLocalUniprotService uniprotService;
 
     /**
      * The list of actions used by the strategy to identify a protein
@@ -74,19 +77,29 @@ public abstract class IdentificationStrategyImpl implements IdentificationStrate
      * Create a new IdentificationStrategyImpl
      */
     public IdentificationStrategyImpl(){
-        // initialise the set of actions for this strategy
-        setReportsFactory(new DefaultReportsFactory());
-        setResultsFactory(new DefaultResultsFactory());
-        initialiseSetOfActions();
-        uniprotService = new SimpleUniprotRemoteService();
+        this(new ThreadLocalUniprotService());
     }
 
+    /**
+     * Create a new IdentificationStrategyImpl
+     * @param uniprotService : the uniprot service, which can only be used by the thread creating the strategy.
+     * Use a ThreadLocalUniprotService with a UniprotServiceFactory to identify proteins in several threads
+     */
     public IdentificationStrategyImpl(UniprotService uniprotService){
+        this(new ThreadLocalUniprotService(uniprotService));
+    }
+
+    /**
+     * Create a new IdentificationStrategyImpl
+     * @param uniprotService : the uniprot services of the threads, shared with the actions of this strategy
+     */
+    protected IdentificationStrategyImpl(ThreadLocalUniprotService uniprotService){
+        // the uniprot service is shared with the actions so it must be set before initialising them
+        this.uniprotService = uniprotService != null ? uniprotService : new ThreadLocalUniprotService();
         // initialise the set of actions for this strategy
         setReportsFactory(new DefaultReportsFactory());
         setResultsFactory(new DefaultResultsFactory());
         initialiseSetOfActions();
-        uniprotService = uniprotService != null ? uniprotService : new SimpleUniprotRemoteService();
     }
 
     /**
@@ -142,13 +155,25 @@ public abstract class IdentificationStrategyImpl implements IdentificationStrate
     }
 
     /**
-     * Get the uniprot cross references of the uniprot entry matching this accession and extract the ensembl gene accession if any
+     * Get the uniprot cross references of the uniprot entry matching this accession and extract the ensembl gene accession if any.
+     * The uniprot entry is retrieved with a new SimpleUniprotRemoteService
      * @param uniprotAccession : the uniprot accession
      * @return the ensembl gene accession (if any) of this protein, null otherwise
      * @throws StrategyException
      */
     public static String extractENSEMBLGeneAccessionFrom(String uniprotAccession) throws StrategyException{
-        UniprotProtein entry = getUniprotProteinFor(uniprotAccession);
+        return extractENSEMBLGeneAccessionFrom(uniprotAccession, new ThreadLocalUniprotService());
+    }
+
+    /**
+     * Get the uniprot cross references of the uniprot entry matching this accession and extract the ensembl gene accession if any
+     * @param uniprotAccession : the uniprot accession
+     * @param uniprotService : the uniprot services used to retrieve the uniprot entry
+     * @return the ensembl gene accession (if any) of this protein, null otherwise
+     * @throws StrategyException
+     */
+    public static String extractENSEMBLGeneAccessionFrom(String uniprotAccession, ThreadLocalUniprotService uniprotService) throws StrategyException{
+        UniprotProtein entry = getUniprotProteinFor(uniprotAccession, uniprotService);
 
         if (entry != null){
             String ensemblGene = extractENSEMBLGeneAccessionFrom(entry.getCrossReferences());
@@ -224,19 +249,32 @@ public abstract class IdentificationStrategyImpl implements IdentificationStrate
     }
 
     /**
-     * Get the uniprotProtein with this accession in Uniprot
+     * Get the uniprotProtein with this accession in Uniprot using the uniprot service of this strategy
+     * @param accession : the uniprot accession
+     * @return the uniprotProtein with this accession in Uniprot
+     */
+    protected UniprotProtein getUniprotProteinFor(String accession){
+        return getUniprotProteinFor(accession, this.uniprotService);
+    }
+
+    /**
+     * Get the uniprotProtein with this accession in Uniprot. The entries already retrieved are read from the UniprotProteinCache of the uniprot services
      * @param accession : the uniprot accession
+     * @param uniprotService : the uniprot services of the threads
      * @return the uniprotProtein with this accession in Uniprot
      */
-    protected static UniprotProtein getUniprotProteinFor(String accession){
+    protected static UniprotProtein getUniprotProteinFor(String accession, ThreadLocalUniprotService uniprotService){
         if (accession == null){
             log.error("You must give a non null Uniprot accession");
         }
         else {
-            if (uniprotService == null){
-                uniprotService = new SimpleUniprotRemoteService();
+            UniprotProteinCache cache = uniprotService.getUniprotCache();
+            UniprotProtein cachedEntry = cache.get(accession);
+
+            if (cachedEntry != null){
+                return cachedEntry;
             }
-            uniprotService.start();
+
             Collection<UniprotProtein> entries = uniprotService.retrieve(accession);
 
             if (entries.isEmpty()){
@@ -246,12 +284,13 @@ public abstract class IdentificationStrategyImpl implements IdentificationStrate
                 log.error("The uniprot accession " + accession + " is matching several UniprotEntry instances.");
             }
             else {
-                uniprotService.close();
-                return entries.iterator().next();
+                UniprotProtein entry = entries.iterator().next();
+                cache.put(accession, entry);
+
+                return entry;
             }
 
         }
-        uniprotService.close();
         return null;
     }
 
@@ -286,6 +325,34 @@ public abstract class IdentificationStrategyImpl implements IdentificationStrate
         }
     }
 
+    /**
+     * Set the backend running the alignments of all the actions of this strategy which need a blast
+     * @param alignmentBackend : the backend
+     */
+    public void setAlignmentBackend(AlignmentBackend alignmentBackend) {
+        for (IdentificationAction action : this.listOfActions){
+            if (action instanceof ActionNeedingBlastService){
+                ((ActionNeedingBlastService) action).setAlignmentBackend(alignmentBackend);
+            }
+        }
+    }
+
+    /**
+     *
+     * @return the cache of the uniprot entries retrieved by this strategy and its actions
+     */
+    public UniprotProteinCache getUniprotCache() {
+        return this.uniprotService.getUniprotCache();
+    }
+
+    /**
+     * Set the cache of the uniprot entries retrieved by this strategy and its actions, which share the uniprot services of this strategy
+     * @param uniprotCache : the cache
+     */
+    public void setUniprotCache(UniprotProteinCache uniprotCache) {
+        this.uniprotService.setUniprotCache(uniprotCache);
+    }
+
     public ResultsFactory getResultsFactory() {
         return resultsFactory;
     }
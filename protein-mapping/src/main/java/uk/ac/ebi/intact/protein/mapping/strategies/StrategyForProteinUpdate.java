@@ -4,6 +4,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import uk.ac.ebi.intact.protein.mapping.actions.ActionName;
 import uk.ac.ebi.intact.protein.mapping.actions.FeatureRangeCheckingProcess;
+import uk.ac.ebi.intact.protein.mapping.actions.ThreadLocalUniprotService;
 import uk.ac.ebi.intact.protein.mapping.actions.exception.ActionProcessingException;
 import uk.ac.ebi.intact.protein.mapping.actions.status.Status;
 import uk.ac.ebi.intact.protein.mapping.actions.status.StatusLabel;
@@ -16,6 +17,7 @@ import uk.ac.ebi.intact.protein.mapping.results.IdentificationResults;
 import uk.ac.ebi.intact.protein.mapping.strategies.exceptions.StrategyException;
 import uk.ac.ebi.intact.uniprot.service.UniprotService;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -60,6 +62,15 @@ public class StrategyForProteinUpdate extends IdentificationStrategyImpl {
         updateEnabled = true;
     }
 
+    /**
+     * Create a Strategy for protein update
+     * @param uniprotService : the uniprot services of the threads using this strategy
+     */
+    public StrategyForProteinUpdate(ThreadLocalUniprotService uniprotService) {
+        super(uniprotService);
+        updateEnabled = true;
+    }
+
     /**
      *
      * @return  the isBasicBlastProcessRequired boolean
@@ -199,10 +210,8 @@ public class StrategyForProteinUpdate extends IdentificationStrategyImpl {
                 // add the Trembl accession and the results of the swissprot remapping process in the new context
                 featureCheckingContext.setResultsOfSwissprotRemapping(sr.getBlastMatchingProteins());
 
-                // run the featureRangeChecking process
-                String accession = process.runAction(featureCheckingContext);
-                // add the report to the result
-                results.getListOfActions().addAll(process.getListOfActionReports());
+                // run the featureRangeChecking process and add the report to the result
+                String accession = process.runAction(featureCheckingContext, results.getListOfActions());
                 // process the isoforms and set the uniprot accession of the result with the one returned by the feature
                 // range checking process
                 processIsoforms(accession, results);
@@ -256,10 +265,8 @@ public class StrategyForProteinUpdate extends IdentificationStrategyImpl {
 
                 String uniprot = null;
 
-                // We run the strategy with sequence
-                uniprot = this.listOfActions.get(0).runAction(context);
-                // add the reports to the result
-                result.getListOfActions().addAll(this.listOfActions.get(0).getListOfActionReports());
+                // We run the strategy with sequence and add the reports to the result
+                uniprot = this.listOfActions.get(0).runAction(context, result.getListOfActions());
                 // process the isoforms and set the uniprot id of the result
                 processIsoforms(uniprot, result);
 
@@ -279,7 +286,8 @@ public class StrategyForProteinUpdate extends IdentificationStrategyImpl {
                         // set the database
                         updateContext.setDatabaseForIdentifier(entry.getKey());
                         // Get the uniprot accession using the strategy with identifier
-                        String otherResultFromIdentifier = this.listOfActions.get(1).runAction(context);
+                        List<MappingReport> identifierReports = new ArrayList<MappingReport>();
+                        String otherResultFromIdentifier = this.listOfActions.get(1).runAction(context, identifierReports);
                         // process the isoforms
                         otherResultFromIdentifier = processIsoforms(otherResultFromIdentifier);
 
@@ -294,7 +302,7 @@ public class StrategyForProteinUpdate extends IdentificationStrategyImpl {
                         }
 
                         // add the reports to the list of reports of the result
-                        result.getListOfActions().addAll(this.listOfActions.get(1).getListOfActionReports());
+                        result.getListOfActions().addAll(identifierReports);
                         // check the possible conflicts with the previous results
                         isMatchingIdentifierResults = checkIdentifierResults(result, report, otherResultFromIdentifier);
 
@@ -355,9 +363,10 @@ public class StrategyForProteinUpdate extends IdentificationStrategyImpl {
                     updateContext.setDatabaseForIdentifier(entry.getKey());
 
                     // we run the strategy with identifier
-                    String newUniprot = this.listOfActions.get(1).runAction(updateContext);
+                    List<MappingReport> identifierReports = new ArrayList<MappingReport>();
+                    String newUniprot = this.listOfActions.get(1).runAction(updateContext, identifierReports);
                     // we add teh reports to the result
-                    result.getListOfActions().addAll(this.listOfActions.get(1).getListOfActionReports());
+                    result.getListOfActions().addAll(identifierReports);
                     // we process the isoforms
                     newUniprot = processIsoforms(newUniprot);
 
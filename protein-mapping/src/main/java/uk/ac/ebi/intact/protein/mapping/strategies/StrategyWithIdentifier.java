@@ -7,6 +7,7 @@ import uk.ac.ebi.intact.protein.mapping.actions.CrossReferenceSearchProcess;
 import uk.ac.ebi.intact.protein.mapping.actions.IdentificationAction;
 import uk.ac.ebi.intact.protein.mapping.actions.UniprotProteinAPISearchProcessWithAccession;
 import uk.ac.ebi.intact.protein.mapping.actions.SwissprotRemappingProcess;
+import uk.ac.ebi.intact.protein.mapping.actions.ThreadLocalUniprotService;
 import uk.ac.ebi.intact.protein.mapping.actions.exception.ActionProcessingException;
 import uk.ac.ebi.intact.protein.mapping.model.actionReport.BlastReport;
 import uk.ac.ebi.intact.protein.mapping.model.actionReport.MappingReport;
@@ -39,9 +40,14 @@ public class StrategyWithIdentifier extends IdentificationStrategyImpl implement
     public static final Log log = LogFactory.getLog( StrategyWithIdentifier.class );
 
     /**
-     * The list of reports of this action
+     * The reports of the last call to runAction(context) made by each thread
      */
-    private List<MappingReport> listOfReports = new ArrayList<MappingReport> ();
+    private final ThreadLocal<List<MappingReport>> lastReports = new ThreadLocal<List<MappingReport>>(){
+        @Override
+        protected List<MappingReport> initialValue() {
+            return new ArrayList<MappingReport>();
+        }
+    };
 
     /**
      * the list of special organisms entirely sequenced
@@ -77,6 +83,18 @@ public class StrategyWithIdentifier extends IdentificationStrategyImpl implement
         }
     }
 
+    /**
+     * Create a new strategy with identifier
+     * @param uniprotService : the uniprot services of the threads using this strategy
+     */
+    public StrategyWithIdentifier(ThreadLocalUniprotService uniprotService) {
+        super(uniprotService);
+        if (listOfMIDatabasesManagedByUniprotProteinAPI.isEmpty()){
+            initialiseListOfMIDatabasesManagedByUniprotProteinAPI();
+            initialiseListOfDatabaseNamesManagedByUniprotProteinAPI();
+        }
+    }
+
     private void initialiseListOfMIDatabasesManagedByUniprotProteinAPI(){
         listOfMIDatabasesManagedByUniprotProteinAPI.add(CvDatabase.UNIPROT_MI_REF);
         listOfMIDatabasesManagedByUniprotProteinAPI.add(CvDatabase.FLYBASE_MI_REF);
@@ -158,7 +176,7 @@ public class StrategyWithIdentifier extends IdentificationStrategyImpl implement
         this.listOfActions.add(secondAction);
 
         // third action = SwissprotRemappingProcess
-        SwissprotRemappingProcess thirdAction = new SwissprotRemappingProcess(getReportsFactory());
+        SwissprotRemappingProcess thirdAction = new SwissprotRemappingProcess(getReportsFactory(), uniprotService);
         this.listOfActions.add(thirdAction);
     }
 
@@ -215,19 +233,17 @@ public class StrategyWithIdentifier extends IdentificationStrategyImpl implement
     }
 
     private void runCrossReferenceProcess(IdentificationContext context, IdentificationResults result) throws ActionProcessingException {
-        String uniprotResult = this.listOfActions.get(1).runAction(context);
-        // get the reports of the second action
-        result.getListOfActions().addAll(this.listOfActions.get(1).getListOfActionReports());
+        // run the second action and add its reports to the result
+        String uniprotResult = this.listOfActions.get(1).runAction(context, result.getListOfActions());
 
         MappingReport lastReport = result.getLastAction();
 
         processIsoforms(uniprotResult, result);
     }
 
-    private String runCrossReferenceProcess(IdentificationContext context) throws ActionProcessingException {
-        String uniprot = this.listOfActions.get(1).runAction(context);
-        // get the reports of the second action
-        this.listOfReports.addAll(this.listOfActions.get(1).getListOfActionReports());
+    private String runCrossReferenceProcess(IdentificationContext context, List<MappingReport> reports) throws ActionProcessingException {
+        // run the second action and add its reports to the list of reports
+        String uniprot = this.listOfActions.get(1).runAction(context, reports);
         // process the isoforms and set the uniprot id of the result
         uniprot = processIsoforms(uniprot);
 
@@ -260,10 +276,8 @@ public class StrategyWithIdentifier extends IdentificationStrategyImpl implement
                 }
 
                 if (isADatabaseManagedByUniprotProteinAPI(context.getDatabaseForIdentifier(), context.getDatabaseName())){
-                    // result of Uniprot Protein API
-                    uniprot = this.listOfActions.get(0).runAction(context);
-                    // get the reports of the first action
-                    result.getListOfActions().addAll(this.listOfActions.get(0).getListOfActionReports());
+                    // result of Uniprot Protein API, the reports of the first action are added to the result
+                    uniprot = this.listOfActions.get(0).runAction(context, result.getListOfActions());
 
                     if (uniprot == null && result.getLastAction().getPossibleAccessions().isEmpty()){
                         String taxId = null;
@@ -314,10 +328,8 @@ public class StrategyWithIdentifier extends IdentificationStrategyImpl implement
                             throw new StrategyException("We couldn't find any Uniprot entries which match this accession number " + result.getFinalUniprotId());
                         }
 
-                        // run the swissprotRemappingProcess
-                        uniprot = this.listOfActions.get(2).runAction(blastContext);
-                        // add the reports of the second action
-                        result.getListOfActions().addAll(this.listOfActions.get(2).getListOfActionReports());
+                        // run the swissprotRemappingProcess and add its reports to the result
+                        uniprot = this.listOfActions.get(2).runAction(blastContext, result.getListOfActions());
                         // process the isoforms and set the uniprot id of the result
                         processIsoforms(uniprot, result);
 
@@ -348,8 +360,21 @@ public class StrategyWithIdentifier extends IdentificationStrategyImpl implement
      * @throws ActionProcessingException
      */
     public String runAction(IdentificationContext context) throws ActionProcessingException {
-        // Always clear the previous reports
-        this.listOfReports.clear();
+        List<MappingReport> reports = new ArrayList<MappingReport>();
+        this.lastReports.set(reports);
+
+        return runAction(context, reports);
+    }
+
+    /**
+     * This action is using Uniprot Protein API and/or uniprot cross reference search to map the identifier to an unique uniprot AC. If an unique Trembl is found,
+     * the strategy will use the SwissprotRemappingProcess to remap the trembl entry to a Swissprot entry.
+     * @param context  : the context of the protein
+     * @param reports : the list where the reports of this call are added
+     * @return an unique uniprot Accession if possible, null otherwise
+     * @throws ActionProcessingException
+     */
+    public String runAction(IdentificationContext context, List<MappingReport> reports) throws ActionProcessingException {
         String uniprot = null;
 
         if (context.getDatabaseForIdentifier() == null && context.getDatabaseName() == null){
@@ -358,12 +383,10 @@ public class StrategyWithIdentifier extends IdentificationStrategyImpl implement
         }
 
         if (isADatabaseManagedByUniprotProteinAPI(context.getDatabaseForIdentifier(), context.getDatabaseName())){
-            // result of Uniprot Protein API
-            uniprot = this.listOfActions.get(0).runAction(context);
-            // get the reports of the first action
-            this.listOfReports.addAll(this.listOfActions.get(0).getListOfActionReports());
+            // result of Uniprot Protein API, the reports of the first action are added to the list of reports
+            uniprot = this.listOfActions.get(0).runAction(context, reports);
 
-            MappingReport lastReport =  this.listOfReports.get(this.listOfReports.size() - 1);
+            MappingReport lastReport =  reports.get(reports.size() - 1);
 
             if (uniprot == null && lastReport.getPossibleAccessions().isEmpty()){
                 String taxId = null;
@@ -373,11 +396,11 @@ public class StrategyWithIdentifier extends IdentificationStrategyImpl implement
 
                 if (taxId != null){
                     if (!taxId.startsWith("-")){
-                        uniprot = runCrossReferenceProcess(context);
+                        uniprot = runCrossReferenceProcess(context, reports);
                     }
                 }
                 else {
-                    uniprot = runCrossReferenceProcess(context);
+                    uniprot = runCrossReferenceProcess(context, reports);
                 }
             }
 
@@ -385,11 +408,11 @@ public class StrategyWithIdentifier extends IdentificationStrategyImpl implement
             uniprot = processIsoforms(uniprot);
         }
         else {
-            uniprot = runCrossReferenceProcess(context);
+            uniprot = runCrossReferenceProcess(context, reports);
         }
 
         // Get the last report
-        MappingReport report = this.listOfReports.get(this.listOfReports.size() - 1);
+        MappingReport report = reports.get(reports.size() - 1);
 
         // If Uniprot Protein API and Uniprot could mapp the identifier to an unique Uniprot accession
         if (uniprot != null){
@@ -415,8 +438,8 @@ public class StrategyWithIdentifier extends IdentificationStrategyImpl implement
                     throw new ActionProcessingException("We couldn't find any Uniprot entries which match this accession number " + uniprot);
                 }
 
-                // Try to do a Swissprot-remapping process
-                String uniprot2 = this.listOfActions.get(2).runAction(blastContext);
+                // Try to do a Swissprot-remapping process and add its reports
+                String uniprot2 = this.listOfActions.get(2).runAction(blastContext, reports);
                 // process the isoforms
                 uniprot2 = processIsoforms(uniprot2);
 
@@ -424,10 +447,7 @@ public class StrategyWithIdentifier extends IdentificationStrategyImpl implement
                 if (uniprot2 != null){
                     uniprot = uniprot2;
                 }
-                // add the reports
-                this.listOfReports.addAll(this.listOfActions.get(2).getListOfActionReports());
-
-                List<BlastReport> listOfSwissprotRemappingReports = getSwissprotRemappingReports(this.listOfReports);
+                List<BlastReport> listOfSwissprotRemappingReports = getSwissprotRemappingReports(reports);
 
                 for (BlastReport<BlastResults> sr : listOfSwissprotRemappingReports){
                     for (BlastResults r : sr.getBlastMatchingProteins()){
@@ -441,9 +461,9 @@ public class StrategyWithIdentifier extends IdentificationStrategyImpl implement
 
     /**
      *
-     * @return the list of reports of this object
+     * @return the list of reports of the last call to runAction(context) made by the current thread
      */
     public List<MappingReport> getListOfActionReports() {
-        return this.listOfReports;
+        return this.lastReports.get();
     }
 }
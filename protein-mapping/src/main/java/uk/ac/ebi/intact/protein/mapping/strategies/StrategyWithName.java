@@ -3,13 +3,18 @@ package uk.ac.ebi.intact.protein.mapping.strategies;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import uk.ac.ebi.intact.protein.mapping.actions.IntactNameSearchProcess;
+import uk.ac.ebi.intact.protein.mapping.actions.ThreadLocalUniprotService;
 import uk.ac.ebi.intact.protein.mapping.actions.UniprotNameSearchProcess;
 import uk.ac.ebi.intact.protein.mapping.actions.exception.ActionProcessingException;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.MappingReport;
 import uk.ac.ebi.intact.protein.mapping.model.contexts.IdentificationContext;
 import uk.ac.ebi.intact.protein.mapping.results.IdentificationResults;
 import uk.ac.ebi.intact.protein.mapping.strategies.exceptions.StrategyException;
 import uk.ac.ebi.intact.uniprot.service.UniprotService;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * This strategy aims at identifying a protein using a gene name and/or a protein name, or a general name and its organism.
  *
@@ -38,6 +43,14 @@ public class StrategyWithName extends IdentificationStrategyImpl {
         super(uniprotService);
     }
 
+    /**
+     * Create a new Strategy
+     * @param uniprotService : the uniprot services of the threads using this strategy
+     */
+    public StrategyWithName(ThreadLocalUniprotService uniprotService) {
+        super(uniprotService);
+    }
+
     /**
      * Do a search on uniprot first to try to map an unique uniprot entry to the name of the protein, if the search on uniprot fails, this strategy
      * is doing a search on Intact.
@@ -59,11 +72,12 @@ public class StrategyWithName extends IdentificationStrategyImpl {
 
             try {
                 // Get the result of the search on uniprot
-                String uniprot = this.listOfActions.get(0).runAction(context);
+                List<MappingReport> reports = new ArrayList<MappingReport>();
+                String uniprot = this.listOfActions.get(0).runAction(context, reports);
                 // process the isoforms and set the uniprot id of the result
                 processIsoforms(uniprot, result);
                 // add the reports
-                result.getListOfActions().addAll(this.listOfActions.get(0).getListOfActionReports());
+                result.getListOfActions().addAll(reports);
 
                 // If the search on uniprot is unsuccessful
                 if (uniprot == null && result.getLastAction().getPossibleAccessions().isEmpty()){
@@ -72,10 +86,8 @@ public class StrategyWithName extends IdentificationStrategyImpl {
                         // set the intact context of the action
                         IntactNameSearchProcess intactProcess = (IntactNameSearchProcess) this.listOfActions.get(1);
 
-                        // run the action. as this method is looking for an Intact accession, we don't have any uniprot accession to expect
-                        intactProcess.runAction(context);
-                        // add the reports
-                        result.getListOfActions().addAll(this.listOfActions.get(1).getListOfActionReports());
+                        // run the action and add the reports. as this method is looking for an Intact accession, we don't have any uniprot accession to expect
+                        intactProcess.runAction(context, result.getListOfActions());
                     }
                 }
 
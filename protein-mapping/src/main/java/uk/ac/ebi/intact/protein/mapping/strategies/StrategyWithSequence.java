@@ -4,6 +4,10 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import uk.ac.ebi.intact.protein.mapping.actions.*;
 import uk.ac.ebi.intact.protein.mapping.actions.exception.ActionProcessingException;
+import uk.ac.ebi.intact.protein.mapping.actions.status.StatusLabel;
+import uk.ac.ebi.intact.protein.mapping.alignment.AlignmentResults;
+import uk.ac.ebi.intact.protein.mapping.cache.IdentificationResultsCache;
+import uk.ac.ebi.intact.protein.mapping.index.SequenceChecksumIndex;
 import uk.ac.ebi.intact.protein.mapping.model.actionReport.BlastReport;
 import uk.ac.ebi.intact.protein.mapping.model.actionReport.IntactCrc64Report;
 import uk.ac.ebi.intact.protein.mapping.model.actionReport.MappingReport;
@@ -18,6 +22,8 @@ import uk.ac.ebi.intact.uniprot.service.UniprotService;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
 
 /**
  * This strategy aims at identifying a protein using its sequence and organism. It can be also a complex IdentificationAction
@@ -45,9 +51,24 @@ public class StrategyWithSequence extends IdentificationStrategyImpl implements
     private boolean isBasicBlastRequired = false;
 
     /**
-     * the list of reports of this object
+     * A boolean value to know if the BLAST on uniprot is started at the same time as the Uniprot Protein API query instead of after it
      */
-    private List<MappingReport> listOfReports = new ArrayList<MappingReport>();
+    private boolean isSpeculativeBlastEnabled = false;
+
+    /**
+     * The persistent cache of the results of identifyProtein, null if the results are not cached
+     */
+    private IdentificationResultsCache resultsCache;
+
+    /**
+     * the reports of the last call to runAction(context) made by each thread
+     */
+    private final ThreadLocal<List<MappingReport>> lastReports = new ThreadLocal<List<MappingReport>>(){
+        @Override
+        protected List<MappingReport> initialValue() {
+            return new ArrayList<MappingReport>();
+        }
+    };
 
     /**
      * Create a new StrategyWithSequence
@@ -60,6 +81,14 @@ public class StrategyWithSequence extends IdentificationStrategyImpl implements
         super(uniprotService);
     }
 
+    /**
+     * Create a new StrategyWithSequence
+     * @param uniprotService : the uniprot services of the threads using this strategy
+     */
+    public StrategyWithSequence(ThreadLocalUniprotService uniprotService) {
+        super(uniprotService);
+    }
+
     /**
      *
      * @return true if we want to process a blast on uniprot if Uniprot Protein API couldn't map any uniprot accession to the sequence
@@ -77,38 +106,230 @@ public class StrategyWithSequence extends IdentificationStrategyImpl implements
     }
 
     /**
-     * Run a Blast on uniprot and keep the results in a report
+     *
+     * @return true if the BLAST on uniprot is started at the same time as the Uniprot Protein API query
+     */
+    public boolean isSpeculativeBlastEnabled() {
+        return isSpeculativeBlastEnabled;
+    }
+
+    /**
+     * When the speculative BLAST is enabled and the BLAST is required, the BLAST on uniprot of a protein is submitted before querying
+     * Uniprot Protein API and cancelled if it is not needed. The reports are the same as when the BLAST is run after the other actions,
+     * but a BLAST is submitted for every protein, even the proteins identified by Uniprot Protein API.
+     * It only applies to identifyProtein and runAction, identifyProteins already submits the BLASTs of all the proteins together.
+     * @param speculativeBlastEnabled
+     */
+    public void setSpeculativeBlastEnabled(boolean speculativeBlastEnabled) {
+        isSpeculativeBlastEnabled = speculativeBlastEnabled;
+    }
+
+    public IdentificationResultsCache getResultsCache() {
+        return resultsCache;
+    }
+
+    /**
+     * Set the persistent cache of the results. When a cache is set, identifyProtein returns the cached results of a sequence
+     * identified with the same organism and the same options instead of running the actions again.
+     * @param resultsCache : the cache, null to disable it
+     */
+    public void setResultsCache(IdentificationResultsCache resultsCache) {
+        this.resultsCache = resultsCache;
+    }
+
+    /**
+     *
+     * @return the options of this strategy which change the results of identifyProtein
+     */
+    private String getCacheOptions(){
+        String alignment = ((ActionNeedingBlastService) this.listOfActions.get(3)).getAlignmentBackend().getDescription();
+
+        return "blast-" + isBasicBlastRequired + "_intact-" + enableIntactSearch + "_isoforms-" + isIsoformEnabled() + (getSequenceIndex() != null ? "_index" : "") + "_alignment-" + alignment;
+    }
+
+    /**
+     * Run a Blast on uniprot, use the speculative BLAST or defer it
      * @param context : the context of the protein
-     * @param result : the result of the strategy
-     * @return always null as we can't take a decision with only BLAST results. However, we have one report with the results of the BLAST on uniprot
-     * @throws uk.ac.ebi.intact.protein.mapping.actions.exception.ActionProcessingException
+     * @param reports : the list where the reports of the BLAST are added
+     * @param contextsToBlast : if not null, the context is added to this list and the blast is not run
+     * @param speculativeBlast : the BLAST already submitted for this protein, null to run the blast now
+     * @throws ActionProcessingException
      */
-    private void processLastAction(IdentificationContext context, IdentificationResults result) throws ActionProcessingException {
+    private void processLastAction(IdentificationContext context, List<MappingReport> reports, List<IdentificationContext> contextsToBlast,
+                                   Future<AlignmentResults> speculativeBlast) throws ActionProcessingException {
+        if (contextsToBlast != null){
+            contextsToBlast.add(context);
+            return;
+        }
 
         // create a blast context
         BlastContext blastContext = new BlastContext(context);
         blastContext.setSequence(context.getSequence());
 
         // run the blast. We don't expect any swissprot accession as we just want to have the blast results in a report
-        this.listOfActions.get(3).runAction(blastContext);
-        // add the reports
-        if (result != null){
-            result.getListOfActions().addAll(this.listOfActions.get(3).getListOfActionReports());
+        if (speculativeBlast != null){
+            ((BasicBlastProcess) this.listOfActions.get(3)).runAction(blastContext, reports, speculativeBlast);
         }
         else {
-            this.listOfReports.addAll(this.listOfActions.get(3).getListOfActionReports());
+            this.listOfActions.get(3).runAction(blastContext, reports);
+        }
+    }
+
+    /**
+     * Submit the BLAST on uniprot of the protein before knowing if it is needed, if the speculative BLAST is enabled
+     * @param context : the context of the protein
+     * @param contextsToBlast : the list of the deferred BLASTs, if not null the BLAST is not submitted
+     * @return the BLAST submitted, null if the BLAST is not submitted in advance. The BLAST is not submitted when the queue of the BLAST jobs is full
+     */
+    private Future<AlignmentResults> submitSpeculativeBlast(IdentificationContext context, List<IdentificationContext> contextsToBlast){
+        if (!this.isSpeculativeBlastEnabled || !this.isBasicBlastRequired || contextsToBlast != null || context.getSequence() == null){
+            return null;
+        }
+        BasicBlastProcess blastProcess = (BasicBlastProcess) this.listOfActions.get(3);
+
+        Future<AlignmentResults> speculativeBlast = blastProcess.trySubmitBlastOnUniprot(context);
+        if (speculativeBlast == null){
+            log.debug("Too many BLASTs are waiting, the BLAST on uniprot will be run only if it is needed");
+        }
+        return speculativeBlast;
+    }
+
+    /**
+     * Cancel the speculative BLAST if it has not been used. A BLAST still waiting for a permit of the RemoteServiceThrottle is not submitted
+     * @param speculativeBlast : the BLAST submitted in advance, can be null
+     */
+    private void cancelSpeculativeBlast(Future<AlignmentResults> speculativeBlast){
+        if (speculativeBlast != null && speculativeBlast.cancel(true)){
+            log.debug("The speculative BLAST on uniprot has been cancelled");
         }
     }
 
     /**
      * Query Uniprot Protein API with the sequence first. If Uniprot Protein API didn't return any results, we can run a CRC64 search on Intact if the intact context is not null and/or
-     * we can run a BLAST on uniprot if the boolean value isBasicBlastRequired is set to true
+     * we can run a BLAST on uniprot if the boolean value isBasicBlastRequired is set to true.
+     * If a results cache is set, the cached results of the sequence are returned when they are still valid.
      * @param context : the context of the protein to identify
      * @return the result instance containing the information and results of this strategy
      * @throws uk.ac.ebi.intact.protein.mapping.strategies.exceptions.StrategyException
      */
     @Override
     public IdentificationResults identifyProtein(IdentificationContext context) throws StrategyException {
+        IdentificationResults result = getCachedResults(context);
+
+        if (result == null){
+            result = identifyProteinWithActions(context, null);
+            cacheResults(context, result);
+        }
+        return result;
+    }
+
+    /**
+     * Identify several proteins. The results are the same as calling identifyProtein for each context but the BLASTs on uniprot
+     * needed by the proteins are submitted together so they don't wait in the NCBI queue one after the other.
+     * @param contexts : the contexts of the proteins to identify
+     * @return the results in the same order as the contexts. A result is null if the protein couldn't be identified, the error is logged
+     */
+    public List<IdentificationResults> identifyProteins(List<? extends IdentificationContext> contexts){
+        List<IdentificationResults> results = new ArrayList<IdentificationResults>(contexts.size());
+
+        // the proteins waiting for a blast on uniprot
+        List<IdentificationContext> contextsToBlast = new ArrayList<IdentificationContext>();
+        List<Integer> indexesToBlast = new ArrayList<Integer>();
+
+        for (IdentificationContext context : contexts){
+            IdentificationResults result = getCachedResults(context);
+
+            if (result == null){
+                int numberOfDeferredBlasts = contextsToBlast.size();
+                try {
+                    result = identifyProteinWithActions(context, contextsToBlast);
+
+                    if (contextsToBlast.size() > numberOfDeferredBlasts){
+                        indexesToBlast.add(results.size());
+                    }
+                    else {
+                        cacheResults(context, result);
+                    }
+                } catch (StrategyException e) {
+                    log.error("The protein with the sequence " + context.getSequence() + " couldn't be identified", e);
+                }
+            }
+            results.add(result);
+        }
+
+        if (!contextsToBlast.isEmpty()){
+            BasicBlastProcess blastProcess = (BasicBlastProcess) this.listOfActions.get(3);
+
+            // create the blast contexts and submit all the blasts at once
+            List<BlastContext> blastContexts = new ArrayList<BlastContext>(contextsToBlast.size());
+            for (IdentificationContext context : contextsToBlast){
+                BlastContext blastContext = new BlastContext(context);
+                blastContext.setSequence(context.getSequence());
+                blastContexts.add(blastContext);
+            }
+            Map<IdentificationContext, Future<AlignmentResults>> blastResults = blastProcess.submitBlastsOnUniprot(blastContexts);
+
+            for (int i = 0; i < blastContexts.size(); i++){
+                int index = indexesToBlast.get(i);
+                IdentificationResults result = results.get(index);
+                BlastContext blastContext = blastContexts.get(i);
+
+                try {
+                    blastProcess.runAction(blastContext, result.getListOfActions(), blastResults.get(blastContext));
+                    cacheResults(contextsToBlast.get(i), result);
+                } catch (ActionProcessingException e) {
+                    log.error("The protein with the sequence " + blastContext.getSequence() + " couldn't be identified", e);
+                    results.set(index, null);
+                }
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     *
+     * @param context : the context of the protein to identify
+     * @return the results cached for this protein, null if there is no results cache or no valid cached results
+     */
+    private IdentificationResults getCachedResults(IdentificationContext context){
+        if (this.resultsCache == null || context.getSequence() == null){
+            return null;
+        }
+
+        String taxId = context.getOrganism() != null ? context.getOrganism().getTaxId() : null;
+        return this.resultsCache.get(context.getSequence(), taxId, getCacheOptions());
+    }
+
+    /**
+     * Store the results of a protein in the results cache if any. The results are not cached when the last action failed : a failed
+     * search or BLAST can be caused by a service which was not available and must be run again the next time.
+     * @param context : the context of the identified protein
+     * @param result : the results of the identification
+     */
+    private void cacheResults(IdentificationContext context, IdentificationResults result){
+        if (this.resultsCache == null || context.getSequence() == null){
+            return;
+        }
+
+        MappingReport lastAction = result.getLastAction();
+        if (lastAction == null || lastAction.getStatusLabel().equals(StatusLabel.FAILED)){
+            return;
+        }
+
+        String taxId = context.getOrganism() != null ? context.getOrganism().getTaxId() : null;
+        this.resultsCache.put(context.getSequence(), taxId, getCacheOptions(), result);
+    }
+
+    /**
+     * Run the actions of this strategy to identify the protein
+     * @param context : the context of the protein to identify
+     * @param contextsToBlast : if not null, the context is added to this list instead of running the BLAST on uniprot. The BLAST report
+     * must then be added by the caller
+     * @return the result instance containing the information and results of this strategy
+     * @throws uk.ac.ebi.intact.protein.mapping.strategies.exceptions.StrategyException
+     */
+    private IdentificationResults identifyProteinWithActions(IdentificationContext context, List<IdentificationContext> contextsToBlast) throws StrategyException {
         // create the result instance
         IdentificationResults result = getResultsFactory().getIdentificationResults();
 
@@ -117,13 +338,13 @@ public class StrategyWithSequence extends IdentificationStrategyImpl implements
             throw new StrategyException("The sequence of the protein must be not null.");
         }
         else{
+            // the BLAST runs while the other actions are processed if the speculative BLAST is enabled
+            Future<AlignmentResults> speculativeBlast = submitSpeculativeBlast(context, contextsToBlast);
 
             try {
 
-                // Query Uniprot Protein API with the sequence and the organism
-                String uniprot = this.listOfActions.get(0).runAction(context);
-                // add the reports in  the result
-                result.getListOfActions().addAll(this.listOfActions.get(0).getListOfActionReports());
+                // Look for the sequence in the sequence index, then query Uniprot Protein API with the sequence and the organism and add the reports in  the result
+                String uniprot = runSequenceSearch(context, result.getListOfActions());
                 // process the isoforms and set the uniprot id of the result
                 processIsoforms(uniprot, result);
                 // get the Uniprot Protein API report
@@ -136,21 +357,19 @@ public class StrategyWithSequence extends IdentificationStrategyImpl implements
                         // get the intact process and set the intact context
                         IntactCrc64SearchProcess intactProcess = (IntactCrc64SearchProcess) this.listOfActions.get(1);
 
-                        // run the search on Intact. We don't expect any uniprot accession as we are looking for an intact accession
-                        intactProcess.runAction(context);
-                        // add the reports to the result
-                        result.getListOfActions().addAll(this.listOfActions.get(1).getListOfActionReports());
+                        // run the search on Intact and add the reports to the result. We don't expect any uniprot accession as we are looking for an intact accession
+                        intactProcess.runAction(context, result.getListOfActions());
 
                         // get the last report
                         IntactCrc64Report lastReport = (IntactCrc64Report) result.getLastAction();
                         // if the Intact search failed and the BLAST process is enabled, we process the BLAST on uniprot
                         if (lastReport.getIntactAc() == null && lastReport.getPossibleIntactIds().isEmpty() && isBasicBlastRequired){
-                            processLastAction(context, result);
+                            processLastAction(context, result.getListOfActions(), contextsToBlast, speculativeBlast);
                         }
                     }
                     // if we don't have an intact context but the BLAST is enabled, we process a BLAST on uniprot
                     else if (isBasicBlastRequired) {
-                        processLastAction(context, result);
+                        processLastAction(context, result.getListOfActions(), contextsToBlast, speculativeBlast);
                     }
                 }
                 // Uniprot Protein API was successful
@@ -174,10 +393,8 @@ public class StrategyWithSequence extends IdentificationStrategyImpl implements
                             throw new StrategyException("We couldn't find any Uniprot entries which match this accession number " + result.getFinalUniprotId());
                         }
 
-                        // run a swissprot remapping process
-                        uniprot = this.listOfActions.get(2).runAction(blastContext);
-                        // add the report to the result
-                        result.getListOfActions().addAll(this.listOfActions.get(2).getListOfActionReports());
+                        // run a swissprot remapping process and add the report to the result
+                        uniprot = this.listOfActions.get(2).runAction(blastContext, result.getListOfActions());
                         // process the isoforms and set the uniprot id of the result
                         processIsoforms(uniprot, result);
 
@@ -196,6 +413,9 @@ public class StrategyWithSequence extends IdentificationStrategyImpl implements
                 throw  new StrategyException("An error occured while trying to identify the protein using the sequence " + context.getSequence(), e);
 
             }
+            finally {
+                cancelSpeculativeBlast(speculativeBlast);
+            }
             return result;
         }
     }
@@ -214,14 +434,53 @@ public class StrategyWithSequence extends IdentificationStrategyImpl implements
         this.listOfActions.add(secondAction);
 
         // the third action is a swissprot remapping process
-        SwissprotRemappingProcess thirdAction = new SwissprotRemappingProcess(getReportsFactory());
+        SwissprotRemappingProcess thirdAction = new SwissprotRemappingProcess(getReportsFactory(), uniprotService);
         this.listOfActions.add(thirdAction);
 
-        // the last action is a BLAST on uniprot (only if the Blast is enabled)
-        BasicBlastProcess lastAction = new BasicBlastProcess(getReportsFactory());
+        // the fourth action is a BLAST on uniprot (only if the Blast is enabled)
+        BasicBlastProcess fourthAction = new BasicBlastProcess(getReportsFactory());
+        this.listOfActions.add(fourthAction);
+
+        // the last action is a search in the local sequence index (only if a sequence index is set). It is run before the Uniprot Protein API query
+        UniprotSequenceIndexSearchProcess lastAction = new UniprotSequenceIndexSearchProcess(getReportsFactory());
         this.listOfActions.add(lastAction);
     }
 
+    /**
+     * Look for the sequence in the local sequence index if there is one. If the index doesn't contain the sequence, query Uniprot Protein API with the sequence.
+     * @param context : the context of the protein
+     * @param reports : the list where the reports are added. The last report is the report of the search which gave the results
+     * @return an unique uniprot accession if only one uniprot entry is matching the sequence, null otherwise
+     * @throws ActionProcessingException
+     */
+    private String runSequenceSearch(IdentificationContext context, List<MappingReport> reports) throws ActionProcessingException {
+        UniprotSequenceIndexSearchProcess indexProcess = (UniprotSequenceIndexSearchProcess) this.listOfActions.get(4);
+
+        if (indexProcess.getSequenceIndex() != null){
+            String uniprot = indexProcess.runAction(context, reports);
+            UniprotProteinAPIReport report = (UniprotProteinAPIReport) reports.get(reports.size() - 1);
+
+            if (uniprot != null || !report.getPossibleAccessions().isEmpty()){
+                return uniprot;
+            }
+        }
+
+        return this.listOfActions.get(0).runAction(context, reports);
+    }
+
+    public SequenceChecksumIndex getSequenceIndex() {
+        return ((UniprotSequenceIndexSearchProcess) this.listOfActions.get(4)).getSequenceIndex();
+    }
+
+    /**
+     * Set the local index of the Uniprot sequences. When an index is set, the sequences are looked for in the index first and Uniprot Protein API is only
+     * queried for the sequences which are not in the index
+     * @param sequenceIndex : the index, null to always query Uniprot Protein API
+     */
+    public void setSequenceIndex(SequenceChecksumIndex sequenceIndex) {
+        ((UniprotSequenceIndexSearchProcess) this.listOfActions.get(4)).setSequenceIndex(sequenceIndex);
+    }
+
     /**
      * Query Uniprot Protein API with the sequence first. If Uniprot Protein API didn't return any results, we can run a CRC64 search on Intact if the intact context is not null and/or
      * we can run a BLAST on uniprot if the boolean value isBasicBlastRequired is set to true
@@ -230,92 +489,108 @@ public class StrategyWithSequence extends IdentificationStrategyImpl implements
      * @throws ActionProcessingException
      */
     public String runAction(IdentificationContext context) throws ActionProcessingException {
-        // always clear the previous reports
-        this.listOfReports.clear();
-
-        // query Uniprot Protein API with the sequence
-        String uniprot = this.listOfActions.get(0).runAction(context);
-        // process the isoforms
-        uniprot = processIsoforms(uniprot);
-        // collect the reports and add them to the list of reports
-        this.listOfReports.addAll(this.listOfActions.get(0).getListOfActionReports());
-        // get the Uniprot Protein API report
-        UniprotProteinAPIReport report = (UniprotProteinAPIReport) this.listOfReports.get(this.listOfReports.size() - 1);
-
-        // If Uniprot Protein API didn't return any Uniprot accession
-        if (uniprot == null && report.getPossibleAccessions().isEmpty()){
-            // we can run a CRC64 search on Intact if it is enabled
-            if (isEnableIntactSearch()){
-                // get the intact process and set the intact context
-                IntactCrc64SearchProcess intactProcess = (IntactCrc64SearchProcess) this.listOfActions.get(1);
-
-                // run the search on Intact. We don't expect any uniprot accession as we are looking for an intact accession                
-                intactProcess.runAction(context);
-                // add the reports to the result
-                this.listOfReports.addAll(this.listOfActions.get(1).getListOfActionReports());
-                // get the last report
-                IntactCrc64Report report2 = (IntactCrc64Report) this.listOfReports.get(this.listOfReports.size() - 1);
-
-                // if the Intact search failed and the BLAST process is enabled, we process the BLAST on uniprot
-                if (report2.getIntactAc() == null && report2.getPossibleIntactIds().isEmpty() && isBasicBlastRequired){
-                    processLastAction(context, null);
+        List<MappingReport> reports = new ArrayList<MappingReport>();
+        this.lastReports.set(reports);
+
+        return runAction(context, reports);
+    }
+
+    /**
+     * Query Uniprot Protein API with the sequence first. If Uniprot Protein API didn't return any results, we can run a CRC64 search on Intact if the intact context is not null and/or
+     * we can run a BLAST on uniprot if the boolean value isBasicBlastRequired is set to true
+     * @param context  : the context of the protein
+     * @param reports : the list where the reports of this call are added
+     * @return an unique uniprot accession if possible, null otherwise
+     * @throws ActionProcessingException
+     */
+    public String runAction(IdentificationContext context, List<MappingReport> reports) throws ActionProcessingException {
+        // the BLAST runs while the other actions are processed if the speculative BLAST is enabled
+        Future<AlignmentResults> speculativeBlast = submitSpeculativeBlast(context, null);
+
+        try {
+            // look for the sequence in the sequence index, then query Uniprot Protein API with the sequence and add the reports to the list of reports
+            String uniprot = runSequenceSearch(context, reports);
+            // process the isoforms
+            uniprot = processIsoforms(uniprot);
+            // get the Uniprot Protein API report
+            UniprotProteinAPIReport report = (UniprotProteinAPIReport) reports.get(reports.size() - 1);
+
+            // If Uniprot Protein API didn't return any Uniprot accession
+            if (uniprot == null && report.getPossibleAccessions().isEmpty()){
+                // we can run a CRC64 search on Intact if it is enabled
+                if (isEnableIntactSearch()){
+                    // get the intact process and set the intact context
+                    IntactCrc64SearchProcess intactProcess = (IntactCrc64SearchProcess) this.listOfActions.get(1);
+
+                    // run the search on Intact and add the reports. We don't expect any uniprot accession as we are looking for an intact accession
+                    intactProcess.runAction(context, reports);
+                    // get the last report
+                    IntactCrc64Report report2 = (IntactCrc64Report) reports.get(reports.size() - 1);
+
+                    // if the Intact search failed and the BLAST process is enabled, we process the BLAST on uniprot
+                    if (report2.getIntactAc() == null && report2.getPossibleIntactIds().isEmpty() && isBasicBlastRequired){
+                        processLastAction(context, reports, null, speculativeBlast);
+                    }
+                }
+                // if we don't have an intact context but the BLAST is enabled, we process a BLAST on uniprot
+                else if (isBasicBlastRequired) {
+                    processLastAction(context, reports, null, speculativeBlast);
                 }
             }
-            // if we don't have an intact context but the BLAST is enabled, we process a BLAST on uniprot
-            else if (isBasicBlastRequired) {
-                processLastAction(context, null);
-            }
-        }
-        // Uniprot Protein API was successful
-        else {
-            // Uniprot Protein API could map the sequence to a Trembl entry
-            if (uniprot != null && !report.isASwissprotEntry()){
-                // get the uniprot protein for the Trembl entry
-                UniprotProtein tremblEntry = getUniprotProteinFor(uniprot);
-
-                if (tremblEntry != null){
-                    String sequence = tremblEntry.getSequence();
-
-                    // create a Blast context
-                    BlastContext blastContext = new BlastContext(context);
-                    blastContext.setSequence(sequence);
-
-                    // extract the Ensembl gene accession
-                    String ensemblGene = extractENSEMBLGeneAccessionFrom(tremblEntry.getCrossReferences());
-                    blastContext.setEnsemblGene(ensemblGene);
-
-                    // run a swissprot remapping process
-                    String uniprot2 = this.listOfActions.get(2).runAction(blastContext);
-                    // process the isoforms
-                    uniprot2 = processIsoforms(uniprot2);
-
-                    // if the swissprot remapping process was successful, we replace the trembl accession with the swissprot one
-                    if (uniprot2 != null){
-                        uniprot = uniprot2;
-                    }
-                    // add the reports to the list of reports
-                    this.listOfReports.addAll(this.listOfActions.get(2).getListOfActionReports());
+            // Uniprot Protein API was successful
+            else {
+                // Uniprot Protein API could map the sequence to a Trembl entry
+                if (uniprot != null && !report.isASwissprotEntry()){
+                    // get the uniprot protein for the Trembl entry
+                    UniprotProtein tremblEntry = getUniprotProteinFor(uniprot);
+
+                    if (tremblEntry != null){
+                        String sequence = tremblEntry.getSequence();
+
+                        // create a Blast context
+                        BlastContext blastContext = new BlastContext(context);
+                        blastContext.setSequence(sequence);
+
+                        // extract the Ensembl gene accession
+                        String ensemblGene = extractENSEMBLGeneAccessionFrom(tremblEntry.getCrossReferences());
+                        blastContext.setEnsemblGene(ensemblGene);
 
-                    List<BlastReport> listOfSwissprotRemappingReports = getSwissprotRemappingReports(this.listOfReports);
+                        // run a swissprot remapping process and add the reports to the list of reports
+                        String uniprot2 = this.listOfActions.get(2).runAction(blastContext, reports);
+                        // process the isoforms
+                        uniprot2 = processIsoforms(uniprot2);
 
-                    for (BlastReport<BlastResults> sr : listOfSwissprotRemappingReports){
-                        for (BlastResults r : sr.getBlastMatchingProteins()){
-                            r.setTremblAccession(tremblEntry.getPrimaryAc());
+                        // if the swissprot remapping process was successful, we replace the trembl accession with the swissprot one
+                        if (uniprot2 != null){
+                            uniprot = uniprot2;
                         }
-                    }
+                        List<BlastReport> listOfSwissprotRemappingReports = getSwissprotRemappingReports(reports);
 
-                }
-                else {
-                    throw new ActionProcessingException("We couldn't find any Uniprot entries which match this accession number " + uniprot);
+                        for (BlastReport<BlastResults> sr : listOfSwissprotRemappingReports){
+                            for (BlastResults r : sr.getBlastMatchingProteins()){
+                                r.setTremblAccession(tremblEntry.getPrimaryAc());
+                            }
+                        }
+
+                    }
+                    else {
+                        throw new ActionProcessingException("We couldn't find any Uniprot entries which match this accession number " + uniprot);
+                    }
                 }
             }
+            return uniprot;
+        }
+        finally {
+            cancelSpeculativeBlast(speculativeBlast);
         }
-        return uniprot;
-
     }
 
+    /**
+     *
+     * @return the list of reports of the last call to runAction(context) made by the current thread
+     */
     public List<MappingReport> getListOfActionReports() {
-        return this.listOfReports;
+        return this.lastReports.get();
     }
 
     public boolean isEnableIntactSearch() {
@@ -0,0 +1,242 @@
+package uk.ac.ebi.intact.protein.mapping.update;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import uk.ac.ebi.intact.protein.mapping.model.contexts.UpdateContext;
+import uk.ac.ebi.intact.protein.mapping.results.IdentificationResults;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class identifies proteins and writes their reports in three stages running at the same time :
+ * a reader thread reading the candidates batch after batch, a pool of threads identifying them and the writer,
+ * the thread calling run, writing the reports in the order the candidates have been read.
+ *
+ * The proteins read and not written yet wait in a bounded queue : the reader waits when the queue is full so
+ * a slow identification or a slow writer never makes the candidates pile up in memory.
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+public abstract class IdentificationReportPipeline {
+
+    /**
+     * Sets up a logger for that class.
+     */
+    public static final Log log = LogFactory.getLog( IdentificationReportPipeline.class );
+
+    /**
+     * the default number of proteins read and not written yet
+     */
+    public final static int DEFAULT_QUEUE_CAPACITY = 200;
+
+    /**
+     * the identification of a candidate, the result is null if the identification failed
+     */
+    private static class Identification {
+        private final ProteinCandidate candidate;
+        private final Future<IdentificationResults> result;
+
+        private Identification(ProteinCandidate candidate, Future<IdentificationResults> result){
+            this.candidate = candidate;
+            this.result = result;
+        }
+    }
+
+    /**
+     * the end of the candidates, put in the queue by the reader
+     */
+    private static final Identification END = new Identification(null, null);
+
+    /**
+     * the number of threads identifying the proteins
+     */
+    private int numberOfThreads;
+
+    /**
+     * the queue of the proteins read and not written yet, in the order they have been read
+     */
+    private BlockingQueue<Identification> identifications;
+
+    /**
+     * the metrics of the stages
+     */
+    private ReportPipelineMetrics metrics;
+
+    /**
+     * the error which stopped the reader, null if the reader read all the candidates
+     */
+    private volatile Exception readerFailure;
+
+    /**
+     * Create a new pipeline
+     * @param numberOfThreads : the number of threads identifying the proteins, at least one
+     * @param queueCapacity : the maximum number of proteins read and not written yet
+     */
+    public IdentificationReportPipeline(int numberOfThreads, int queueCapacity){
+        if (queueCapacity <= 0){
+            throw new IllegalArgumentException("The queue capacity must be positive : " + queueCapacity);
+        }
+        this.numberOfThreads = Math.max(numberOfThreads, 1);
+        this.identifications = new ArrayBlockingQueue<Identification>(queueCapacity);
+        this.metrics = new ReportPipelineMetrics(this.identifications, this.numberOfThreads);
+    }
+
+    /**
+     * Read the next candidates. Called by the reader thread
+     * @param lastAc : the accession of the last candidate read, null for the first batch
+     * @return the next candidates in the order of the accessions, empty when all the candidates have been read
+     * @throws ProteinUpdateException
+     */
+    protected abstract List<ProteinCandidate> readNextCandidates(String lastAc) throws ProteinUpdateException;
+
+    /**
+     * Identify a protein. Called by the threads of the identification pool
+     * @param context : the context of the protein
+     * @return the results of the identification
+     * @throws Exception if the protein could not be identified
+     */
+    protected abstract IdentificationResults identify(UpdateContext context) throws Exception;
+
+    /**
+     * Write the report of a protein. Called by the thread running the pipeline
+     * @param candidate : the protein
+     * @param result : the results of the identification, null if the identification failed
+     * @throws ProteinUpdateException
+     * @throws IOException
+     */
+    protected abstract void writeReport(ProteinCandidate candidate, IdentificationResults result) throws ProteinUpdateException, IOException;
+
+    /**
+     *
+     * @return the metrics of the stages, updated while the pipeline runs
+     */
+    public ReportPipelineMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Read, identify and write the reports of all the candidates
+     * @throws ProteinUpdateException if the candidates could not be read or a report could not be written. The pipeline is stopped
+     * @throws IOException if a report could not be written. The pipeline is stopped
+     */
+    public void run() throws ProteinUpdateException, IOException {
+        final ExecutorService identificationPool = Executors.newFixedThreadPool(this.numberOfThreads);
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<?> reading = reader.submit(new Runnable() {
+                public void run() {
+                    read(identificationPool);
+                }
+            });
+
+            write();
+            reading.get();
+
+            if (this.readerFailure instanceof ProteinUpdateException){
+                throw (ProteinUpdateException) this.readerFailure;
+            }
+            else if (this.readerFailure != null){
+                throw new ProteinUpdateException("The proteins could not be read", this.readerFailure);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProteinUpdateException("The report has been interrupted", e);
+        } catch (ExecutionException e) {
+            throw new ProteinUpdateException("The proteins could not be read", e.getCause());
+        }
+        finally {
+            this.metrics.stop();
+            reader.shutdownNow();
+            identificationPool.shutdownNow();
+        }
+    }
+
+    /**
+     * The reader stage : read the candidates, submit their identification and queue them until the queue is full
+     * @param identificationPool : the threads identifying the proteins
+     */
+    private void read(ExecutorService identificationPool){
+        try {
+            String lastAc = null;
+            List<ProteinCandidate> candidates;
+            do {
+                long start = System.nanoTime();
+                candidates = readNextCandidates(lastAc);
+                this.metrics.recordItems(ReportPipelineMetrics.Stage.READ, candidates.size(), System.nanoTime() - start);
+
+                for (final ProteinCandidate candidate : candidates){
+                    Future<IdentificationResults> result = identificationPool.submit(new Callable<IdentificationResults>() {
+                        public IdentificationResults call() throws Exception {
+                            long identificationStart = System.nanoTime();
+                            try {
+                                return identify(candidate.createUpdateContext());
+                            }
+                            finally {
+                                metrics.recordItems(ReportPipelineMetrics.Stage.IDENTIFY, 1, System.nanoTime() - identificationStart);
+                            }
+                        }
+                    });
+
+                    long wait = System.nanoTime();
+                    this.identifications.put(new Identification(candidate, result));
+                    this.metrics.recordWait(ReportPipelineMetrics.Stage.READ, System.nanoTime() - wait);
+                    this.metrics.recordQueueDepth();
+                }
+
+                if (!candidates.isEmpty()){
+                    lastAc = candidates.get(candidates.size() - 1).getAc();
+                }
+            } while (!candidates.isEmpty());
+        } catch (InterruptedException e) {
+            // the writer stopped the pipeline
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            this.readerFailure = e;
+        }
+
+        try {
+            this.identifications.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The writer stage : write the reports in the order the candidates have been read until the reader has read all of them
+     */
+    private void write() throws InterruptedException, ProteinUpdateException, IOException {
+        while (true){
+            long wait = System.nanoTime();
+            Identification identification = this.identifications.take();
+            if (identification == END){
+                this.metrics.recordWait(ReportPipelineMetrics.Stage.WRITE, System.nanoTime() - wait);
+                return;
+            }
+
+            IdentificationResults result;
+            try {
+                result = identification.result.get();
+            } catch (ExecutionException e) {
+                log.error("The protein " + identification.candidate.getAc() + " could not be identified", e.getCause());
+                result = null;
+            }
+            long start = System.nanoTime();
+            this.metrics.recordWait(ReportPipelineMetrics.Stage.WRITE, start - wait);
+
+            writeReport(identification.candidate, result);
+            this.metrics.recordItems(ReportPipelineMetrics.Stage.WRITE, 1, System.nanoTime() - start);
+        }
+    }
+}
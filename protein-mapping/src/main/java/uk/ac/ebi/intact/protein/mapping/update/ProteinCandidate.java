@@ -0,0 +1,133 @@
+package uk.ac.ebi.intact.protein.mapping.update;
+
+import uk.ac.ebi.intact.model.BioSource;
+import uk.ac.ebi.intact.protein.mapping.model.contexts.UpdateContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The values of an IntAct protein needed to identify it : accession, sequence, organism and identity cross references.
+ * A candidate is read with scalar queries by the ProteinCandidateReader and never references an entity.
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+public class ProteinCandidate {
+
+    /**
+     * the intact accession of the protein
+     */
+    private String ac;
+
+    /**
+     * the short label of the protein
+     */
+    private String shortLabel;
+
+    /**
+     * the short label of the organism, null if the protein has no organism
+     */
+    private String organismShortLabel;
+
+    /**
+     * the taxId of the organism, null if the protein has no organism
+     */
+    private String taxId;
+
+    /**
+     * the sequence of the protein, reassembled from its sequence chunks
+     */
+    private StringBuilder sequence;
+
+    /**
+     * the identifiers of the identity cross references, the key is the database MI or short label
+     */
+    private Map<String, String> identifiers = new LinkedHashMap<String, String>();
+
+    /**
+     * Create a new ProteinCandidate
+     * @param ac : the intact accession
+     * @param shortLabel : the short label
+     * @param organismShortLabel : the short label of the organism
+     * @param taxId : the taxId of the organism
+     */
+    public ProteinCandidate(String ac, String shortLabel, String organismShortLabel, String taxId){
+        if (ac == null){
+            throw new IllegalArgumentException("The accession of a protein candidate is mandatory");
+        }
+        this.ac = ac;
+        this.shortLabel = shortLabel;
+        this.organismShortLabel = organismShortLabel;
+        this.taxId = taxId;
+    }
+
+    public String getAc() {
+        return ac;
+    }
+
+    public String getShortLabel() {
+        return shortLabel;
+    }
+
+    public String getOrganismShortLabel() {
+        return organismShortLabel;
+    }
+
+    public String getTaxId() {
+        return taxId;
+    }
+
+    /**
+     *
+     * @return the sequence of the protein, null if the protein has no sequence chunk
+     */
+    public String getSequence() {
+        return sequence != null ? sequence.toString() : null;
+    }
+
+    public Map<String, String> getIdentifiers() {
+        return identifiers;
+    }
+
+    /**
+     * Append the next sequence chunk to the sequence
+     * @param sequenceChunk : the sequence chunk
+     */
+    public void appendSequenceChunk(String sequenceChunk){
+        if (sequenceChunk == null){
+            return;
+        }
+        if (this.sequence == null){
+            this.sequence = new StringBuilder(sequenceChunk.length());
+        }
+        this.sequence.append(sequenceChunk);
+    }
+
+    /**
+     * Add an identifier, it replaces the previous identifier of the same database as UpdateContext does
+     * @param database : the database MI or short label
+     * @param identifier : the identifier
+     */
+    public void addIdentifier(String database, String identifier){
+        this.identifiers.put(database, identifier);
+    }
+
+    /**
+     *
+     * @return a new context with the values of the protein needed by the identification
+     */
+    public UpdateContext createUpdateContext(){
+        UpdateContext context = new UpdateContext();
+
+        context.setSequence(getSequence());
+        context.setOrganism(this.taxId != null ? new BioSource(this.organismShortLabel, this.taxId) : null);
+        context.setIntactAccession(this.ac);
+        for (Map.Entry<String, String> identifier : this.identifiers.entrySet()){
+            context.addIdentifier(identifier.getKey(), identifier.getValue());
+        }
+
+        return context;
+    }
+}
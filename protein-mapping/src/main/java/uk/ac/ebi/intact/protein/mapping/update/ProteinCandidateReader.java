@@ -0,0 +1,126 @@
+package uk.ac.ebi.intact.protein.mapping.update;
+
+import uk.ac.ebi.intact.core.context.DataContext;
+import uk.ac.ebi.intact.model.CvDatabase;
+import uk.ac.ebi.intact.model.CvXrefQualifier;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class reads the candidates of the protein update with scalar queries instead of loading the ProteinImpl entities.
+ *
+ * A batch of candidates is read with three queries : the proteins and their organism, the sequence chunks in order and
+ * the identity cross references. No entity is loaded in the persistence context.
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+public class ProteinCandidateReader {
+
+    /**
+     * Read the candidates of a batch of proteins
+     * @param dataContext : the data context, a transaction must be active
+     * @param accessions : the accessions of the proteins
+     * @return the candidates in the order of the accessions, the accessions which are not proteins are ignored
+     */
+    public List<ProteinCandidate> readCandidates(DataContext dataContext, List<String> accessions){
+        if (accessions.isEmpty()){
+            return new ArrayList<ProteinCandidate>();
+        }
+        final EntityManager entityManager = dataContext.getDaoFactory().getEntityManager();
+
+        Query proteinQuery = entityManager.createQuery("select p.ac, p.shortLabel, organism.shortLabel, organism.taxId " +
+                "from InteractorImpl p left join p.bioSource as organism " +
+                "where p.objClass = 'uk.ac.ebi.intact.model.ProteinImpl' " +
+                "and p.ac in (:accessions) " +
+                "order by p.ac");
+        proteinQuery.setParameter("accessions", accessions);
+
+        Map<String, ProteinCandidate> candidates = createCandidates(proteinQuery.getResultList());
+
+        Query sequenceQuery = entityManager.createQuery("select p.ac, seq.sequenceChunk " +
+                "from InteractorImpl p join p.sequenceChunks as seq " +
+                "where p.ac in (:accessions) " +
+                "order by p.ac, seq.sequenceIndex");
+        sequenceQuery.setParameter("accessions", accessions);
+
+        addSequenceChunks(candidates, sequenceQuery.getResultList());
+
+        // only the identity cross references are read, the database is filtered afterwards as in the identification
+        Query xrefQuery = entityManager.createQuery("select p.ac, xref.primaryId, db.identifier, db.shortLabel " +
+                "from InteractorImpl p join p.xrefs as xref " +
+                "join xref.cvXrefQualifier as qualifier " +
+                "join xref.cvDatabase as db " +
+                "where p.ac in (:accessions) " +
+                "and xref.primaryId is not null " +
+                "and (qualifier.identifier = :identityMi " +
+                "or (qualifier.identifier is null and qualifier.shortLabel = :identity))");
+        xrefQuery.setParameter("accessions", accessions);
+        xrefQuery.setParameter("identityMi", CvXrefQualifier.IDENTITY_MI_REF);
+        xrefQuery.setParameter("identity", CvXrefQualifier.IDENTITY);
+
+        addIdentityCrossReferences(candidates, xrefQuery.getResultList());
+
+        return new ArrayList<ProteinCandidate>(candidates.values());
+    }
+
+    /**
+     *
+     * @param rows : the rows ac, shortLabel, organism shortLabel, organism taxId
+     * @return the candidates indexed by accession, in the order of the rows
+     */
+    static Map<String, ProteinCandidate> createCandidates(List<Object[]> rows){
+        Map<String, ProteinCandidate> candidates = new LinkedHashMap<String, ProteinCandidate>();
+
+        for (Object[] row : rows){
+            String ac = (String) row[0];
+            candidates.put(ac, new ProteinCandidate(ac, (String) row[1], (String) row[2], (String) row[3]));
+        }
+        return candidates;
+    }
+
+    /**
+     * Reassemble the sequences of the candidates
+     * @param candidates : the candidates indexed by accession
+     * @param rows : the rows ac, sequence chunk, in the order of the sequence index for each protein
+     */
+    static void addSequenceChunks(Map<String, ProteinCandidate> candidates, List<Object[]> rows){
+        for (Object[] row : rows){
+            ProteinCandidate candidate = candidates.get((String) row[0]);
+
+            if (candidate != null){
+                candidate.appendSequenceChunk((String) row[1]);
+            }
+        }
+    }
+
+    /**
+     * Add the identity cross references to the identifiers of the candidates (intact cross references are ignored)
+     * @param candidates : the candidates indexed by accession
+     * @param rows : the rows ac, primaryId, database MI, database short label
+     */
+    static void addIdentityCrossReferences(Map<String, ProteinCandidate> candidates, List<Object[]> rows){
+        for (Object[] row : rows){
+            ProteinCandidate candidate = candidates.get((String) row[0]);
+            String primaryId = (String) row[1];
+            String databaseMi = (String) row[2];
+            String databaseLabel = (String) row[3];
+
+            if (candidate == null || primaryId == null){
+                continue;
+            }
+            if (databaseMi != null && !CvDatabase.INTACT_MI_REF.equals(databaseMi)){
+                candidate.addIdentifier(databaseMi, primaryId);
+            }
+            else if (databaseLabel != null && !CvDatabase.INTACT.equals(databaseLabel)) {
+                candidate.addIdentifier(databaseLabel, primaryId);
+            }
+        }
+    }
+}
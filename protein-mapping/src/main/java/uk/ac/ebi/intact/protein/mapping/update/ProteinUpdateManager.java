@@ -19,14 +19,25 @@ import uk.ac.ebi.intact.protein.mapping.strategies.StrategyForProteinUpdate;
 import uk.ac.ebi.intact.protein.mapping.strategies.exceptions.StrategyException;
 
 import javax.persistence.Query;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 //import uk.ac.ebi.intact.dbupdate.prot.ProteinUpdateProcessor;
 
@@ -46,9 +57,34 @@ public class ProteinUpdateManager {
     public static final Log log = LogFactory.getLog( ProteinUpdateManager.class );
 
     /**
-     * the list of proteins to update
+     * the proteins without any uniprot cross reference or with uniprot cross references which can only be uniprot-removed-ac
      */
-    private List<ProteinImpl> proteinToUpdate = new ArrayList<ProteinImpl>();
+    private final static String WITHOUT_UNIPROT_XREFS = "p.objClass = 'uk.ac.ebi.intact.model.ProteinImpl' "+
+            "and not exists ( "+
+            "select p2 "+
+            "from InteractorImpl p2 join p2.xrefs as xrefs "+
+            "where p2.ac = p.ac " +
+            "and p2.objClass = 'uk.ac.ebi.intact.model.ProteinImpl' "+
+            "and xrefs.cvDatabase.ac = 'EBI-31' " +
+            "and xrefs.cvXrefQualifier.shortLabel <> 'uniprot-removed-ac' )";
+
+    /**
+     * the proteins without any uniprot cross reference 'identity' but with other uniprot cross references than uniprot-removed-ac
+     */
+    private final static String WITH_UNIPROT_XREFS_WITHOUT_IDENTITY = "p.objClass = 'uk.ac.ebi.intact.model.ProteinImpl' "+
+            "and not exists ( "+
+            "select p2 "+
+            "from InteractorImpl p2 join p2.xrefs as xrefs "+
+            "where p2.ac = p.ac " +
+            "and p2.objClass = 'uk.ac.ebi.intact.model.ProteinImpl' "+
+            "and xrefs.cvDatabase.ac = 'EBI-31' " +
+            "and xrefs.cvXrefQualifier.shortLabel = 'identity') " +
+            "and p in ( " +
+            "select p2 " +
+            "from InteractorImpl p2 join p2.xrefs as xrefs " +
+            "where p2.objClass = 'uk.ac.ebi.intact.model.ProteinImpl' " +
+            "and xrefs.cvDatabase.ac = 'EBI-31' " +
+            "and xrefs.cvXrefQualifier.shortLabel <> 'uniprot-removed-ac')";
 
     /**
      * the strategy used to update the proteins
@@ -56,9 +92,39 @@ public class ProteinUpdateManager {
     private StrategyForProteinUpdate strategy;
 
     /**
-     * the context of the protein to update
+     * the reader of the values of the proteins to identify
+     */
+    private ProteinCandidateReader candidateReader = new ProteinCandidateReader();
+
+    /**
+     * the default number of proteins updated in each transaction
+     */
+    public final static int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * the number of proteins updated in each transaction
      */
-    private UpdateContext context;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * the number of threads identifying the proteins of a batch
+     */
+    private int numberOfThreads = 1;
+
+    /**
+     * the file where the progress of updateProteins is saved, null if the progress is not saved
+     */
+    private File checkpointFile;
+
+    /**
+     * the maximum number of proteins read and not written yet when writing a report
+     */
+    private int reportQueueCapacity = IdentificationReportPipeline.DEFAULT_QUEUE_CAPACITY;
+
+    /**
+     * the metrics of the last report, null if no report has been written
+     */
+    private ReportPipelineMetrics reportPipelineMetrics;
 
     /**
      * create a new ProteinUpdate manager.The strategy for update doesn't take into account the isoforms and keep the canonical sequence.
@@ -67,152 +133,122 @@ public class ProteinUpdateManager {
         this.strategy = new StrategyForProteinUpdate();
         this.strategy.enableIsoforms(false);
         this.strategy.setBasicBlastProcessRequired(false);
-        this.context = new UpdateContext();
     }
 
-    protected Query getProteinsWithoutUniprotXrefs(DataContext dataContext){
-        // get all the intact entries without any uniprot cross reference or with uniprot cross reference with a qualifier different from 'identity' and which can only be uniprot-removed-ac
-        final DaoFactory daoFactory = dataContext.getDaoFactory();
-        final Query query = daoFactory.getEntityManager().createQuery("select distinct p from InteractorImpl p "+
-                "left join p.sequenceChunks as seq " +
-                "left join p.xrefs as xrefs " +
-                "left join p.annotations as annotations " +
-                "where p.objClass = 'uk.ac.ebi.intact.model.ProteinImpl' "+
-                "and not exists ( "+
-                "select p2 "+
-                "from InteractorImpl p2 join p2.xrefs as xrefs "+
-                "where p2.ac = p.ac " +
-                "and p2.objClass = 'uk.ac.ebi.intact.model.ProteinImpl' "+
-                "and xrefs.cvDatabase.ac = 'EBI-31' " +
-                "and xrefs.cvXrefQualifier.shortLabel <> 'uniprot-removed-ac' )");
-
-        return query;
+    public int getBatchSize() {
+        return batchSize;
     }
 
-    protected Query getProteinsWithUniprotXrefsWithoutIdentity(DataContext dataContext){
-        // get all the intact entries without any uniprot cross reference or with uniprot cross reference with a qualifier different from 'identity' and which can only be uniprot-removed-ac
-        final DaoFactory daoFactory = dataContext.getDaoFactory();
-        final Query query = daoFactory.getEntityManager().createQuery("select distinct p from InteractorImpl p "+
-                "left join p.sequenceChunks as seq " +
-                "left join p.xrefs as xrefs " +
-                "left join p.annotations as annotations " +
-                "where p.objClass = 'uk.ac.ebi.intact.model.ProteinImpl' "+
-                "and not exists ( "+
-                "select p2 "+
-                "from InteractorImpl p2 join p2.xrefs as xrefs "+
-                "where p2.ac = p.ac " +
-                "and p2.objClass = 'uk.ac.ebi.intact.model.ProteinImpl' "+
-                "and xrefs.cvDatabase.ac = 'EBI-31' " +
-                "and xrefs.cvXrefQualifier.shortLabel = 'identity') " +
-                "and p in ( " +
-                "select p2 " +
-                "from InteractorImpl p2 join p2.xrefs as xrefs " +
-                "where p2.objClass = 'uk.ac.ebi.intact.model.ProteinImpl' " +
-                "and xrefs.cvDatabase.ac = 'EBI-31' " +
-                "and xrefs.cvXrefQualifier.shortLabel <> 'uniprot-removed-ac')");
+    /**
+     *
+     * @param batchSize : the number of proteins updated and committed in each transaction
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0){
+            throw new IllegalArgumentException("The batch size must be positive : " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
 
-        return query;
+    public int getNumberOfThreads() {
+        return numberOfThreads;
     }
 
     /**
-     * This method query IntAct to get the list of protein to update and for each one create an updateContext
-     * Write the results of the protein update process
-     * @return the list of UpdateContext created from the protein to update
-     * @throws ProteinUpdateException
-     * @throws StrategyException
+     *
+     * @param numberOfThreads : the number of threads identifying the proteins of a batch or of a report, 1 or less means the proteins of a batch are identified one after the other
      */
-    public void writeResultsOfProteinUpdate() throws ProteinUpdateException, StrategyException {
-        // disable the update
-        this.strategy.setUpdateEnabled(false);
-
-        try {
-            IntactContext intactContext = IntactContext.getCurrentInstance();
-
-            File file = new File("updateReport_"+ Calendar.getInstance().getTime().getTime() +".txt");
-            Writer writer = new FileWriter(file);
-
-            // set the intact data context
-            final DataContext dataContext = intactContext.getDataContext();
-            TransactionStatus transactionStatus = dataContext.beginTransaction();
-
-            // get all the intact entries without any uniprot cross reference or with uniprot cross reference with a qualifier different from 'identity' and which can only be uniprot-removed-ac
-            final Query query = getProteinsWithoutUniprotXrefs(dataContext);
-
-            proteinToUpdate = query.getResultList();
-            log.info(proteinToUpdate.size());
-
-            for (ProteinImpl prot : proteinToUpdate){
-                this.context.clean();
+    public void setNumberOfThreads(int numberOfThreads) {
+        this.numberOfThreads = numberOfThreads;
+    }
 
-                String accession = prot.getAc();
-                Collection<InteractorXref> refs = prot.getXrefs();
-                String sequence = prot.getSequence();
-                BioSource organism = prot.getBioSource();
+    public File getCheckpointFile() {
+        return checkpointFile;
+    }
 
-                context.setSequence(sequence);
-                context.setOrganism(organism);
-                context.setIntactAccession(accession);
-                addIdentityCrossreferencesToContext(refs, context);
+    /**
+     *
+     * @param checkpointFile : the file where the progress of updateProteins is saved after each batch, null to never save it
+     */
+    public void setCheckpointFile(File checkpointFile) {
+        this.checkpointFile = checkpointFile;
+    }
 
-                log.info("protAc = " + accession);
-                IdentificationResults result = this.strategy.identifyProtein(context);
-                writeResultReports(accession, result, writer);
+    public int getReportQueueCapacity() {
+        return reportQueueCapacity;
+    }
 
-            }
-            dataContext.commitTransaction(transactionStatus);
-            writer.close();
-        } catch (IntactTransactionException e) {
-            throw new ProteinUpdateException(e);
-        } catch (IOException e) {
-            throw new ProteinUpdateException(e);
+    /**
+     *
+     * @param reportQueueCapacity : the maximum number of proteins read and not written yet when writing a report. The reader waits when it is reached
+     */
+    public void setReportQueueCapacity(int reportQueueCapacity) {
+        if (reportQueueCapacity <= 0){
+            throw new IllegalArgumentException("The queue capacity must be positive : " + reportQueueCapacity);
         }
+        this.reportQueueCapacity = reportQueueCapacity;
     }
 
     /**
      *
-     * @param qualifier : the qualifier of the cross reference
-     * @return true if the qualifier is 'identity'
+     * @return the throughput of the stages and the queue depth of the last report, updated while the report is written. Null if no report has been written
      */
-    private boolean isIdentityCrossReference(CvXrefQualifier qualifier){
-        if (qualifier.getIdentifier() != null){
-            if (qualifier.getIdentifier().equals(CvXrefQualifier.IDENTITY_MI_REF)){
-                return true;
-            }
+    public ReportPipelineMetrics getReportPipelineMetrics() {
+        return reportPipelineMetrics;
+    }
 
+    /**
+     * @param dataContext : the data context
+     * @param accessions : the accessions of the proteins
+     * @return the query of the proteins having these accessions which still don't have any uniprot cross reference, in the order of the accessions.
+     * A protein which has been given a uniprot cross reference since it was identified is not updated
+     */
+    protected Query getProteinsToUpdate(DataContext dataContext, List<String> accessions){
+        final DaoFactory daoFactory = dataContext.getDaoFactory();
+        final Query query = daoFactory.getEntityManager().createQuery("select p from InteractorImpl p "+
+                "where " + WITHOUT_UNIPROT_XREFS + " " +
+                "and p.ac in (:accessions) " +
+                "order by p.ac");
+        query.setParameter("accessions", accessions);
+
+        return query;
+    }
+
+    /**
+     * @param dataContext : the data context
+     * @param condition : the condition on the proteins p
+     * @param lastAc : the accession after which the accessions are read, null to read from the first accession
+     * @param maxResults : the maximum number of accessions
+     * @return the query of the accessions of the proteins matching the condition, in order
+     */
+    private Query createAcsQuery(DataContext dataContext, String condition, String lastAc, int maxResults){
+        final DaoFactory daoFactory = dataContext.getDaoFactory();
+        final Query query = daoFactory.getEntityManager().createQuery("select p.ac from InteractorImpl p "+
+                "where " + condition + " " +
+                (lastAc != null ? "and p.ac > :lastAc " : "") +
+                "order by p.ac");
+        if (lastAc != null){
+            query.setParameter("lastAc", lastAc);
         }
-        else {
-            if (qualifier.getShortLabel().equals(CvXrefQualifier.IDENTITY)){
-                return true;
-            }
-        }
-        return false;
+        query.setMaxResults(maxResults);
+
+        return query;
     }
 
     /**
-     * Add all the cross references with qualifier 'identity' to the list of identifiers of the protein (intact cross references are ignored)
-     * @param refs : the refs of the protein
-     * @param context : the context of the protein
+     * This method query IntAct to get the list of protein to update and for each one create an updateContext
+     * Write the results of the protein update process
+     * @throws ProteinUpdateException
+     * @throws StrategyException
      */
-    private void addIdentityCrossreferencesToContext(Collection<InteractorXref> refs, UpdateContext context){
-        for (InteractorXref ref : refs){
-            if (ref.getPrimaryId() != null){
-                if (ref.getCvXrefQualifier() != null){
-                    CvXrefQualifier qualifier = ref.getCvXrefQualifier();
+    public void writeResultsOfProteinUpdate() throws ProteinUpdateException, StrategyException {
+        // disable the update
+        this.strategy.setUpdateEnabled(false);
 
-                    if (isIdentityCrossReference(qualifier)){
-                        CvDatabase database = ref.getCvDatabase();
-                        if (database != null){
-                            if (database.getIdentifier() != null && !CvDatabase.INTACT_MI_REF.equals(database.getIdentifier())){
-                                context.addIdentifier(database.getIdentifier(), ref.getPrimaryId());
-                            }
-                            else if (database.getShortLabel() != null && !CvDatabase.INTACT.equals(database.getShortLabel())) {
-                                context.addIdentifier(database.getShortLabel(), ref.getPrimaryId());
-                            }
-                        }
-                    }
-                }
-            }
-        }
+        File file = new File("updateReport_"+ Calendar.getInstance().getTime().getTime() +".txt");
+        UpdateCheckpoint progress = writeIdentificationReport(file, false);
+
+        log.info(progress.getProcessed() + " proteins processed, " + progress.getUpdated() + " proteins have been identified.");
     }
 
     /**
@@ -332,7 +368,15 @@ public class ProteinUpdateManager {
     }*/
 
     /**
-     * Update the proteins with no uniprot cross references and the proteins with uniprot cross references set to 'uniprot-removed-ac'
+     * Update the proteins with no uniprot cross references and the proteins with uniprot cross references set to 'uniprot-removed-ac'.
+     *
+     * The proteins to update are read by batches of batchSize proteins, in the order of the accessions. The values of a batch are read
+     * in a short read-only transaction, the proteins are identified outside of any transaction (in parallel if numberOfThreads > 1)
+     * so no database connection is held during the remote queries, and the updates are applied in a short transaction.
+     * The report of a batch is written once the batch is committed. If a checkpoint file is set, the progress and the length of
+     * the report are saved after each batch and a run which stopped resumes after the last batch saved, removing the report
+     * lines written after it. The checkpoint is deleted at the end of a complete run.
+     * A protein which can't be identified is reported and skipped, the other proteins of its batch are still updated.
      * @throws ProteinUpdateException
      */
     public void updateProteins() throws ProteinUpdateException {
@@ -343,73 +387,51 @@ public class ProteinUpdateManager {
 
         // get the data context
         final DataContext dataContext = intactContext.getDataContext();
-        TransactionStatus transactionStatus = dataContext.beginTransaction();
-        try {
-
-            // create a new file where the results are stored in
-            File file = new File("updateReport_"+ Calendar.getInstance().getTime().getTime() +".txt");
-
-            Writer writer = new FileWriter(file);
-
-            final DaoFactory daoFactory = dataContext.getDaoFactory();
-            final Query query = getProteinsWithoutUniprotXrefs(dataContext);
-
-            proteinToUpdate = query.getResultList();
-            log.info(proteinToUpdate.size());
-
-            ArrayList<String> accessionsToUpdate = new ArrayList<String>();
 
-            for (ProteinImpl prot : proteinToUpdate){
-
-                this.context.clean();
-                String accession = prot.getAc();
-                String shortLabel = prot.getShortLabel();
-                log.info("Protein AC = " + accession + " shortLabel = " + shortLabel);
+        ExecutorService executor = null;
+        FileOutputStream reportStream = null;
+        Writer writer = null;
+        try {
+            UpdateCheckpoint checkpoint = this.checkpointFile != null ? UpdateCheckpoint.read(this.checkpointFile) : null;
+            boolean resumed = checkpoint != null;
 
-                Collection<InteractorXref> refs = prot.getXrefs();
-                Collection<Annotation> annotations = prot.getAnnotations();
-                String sequence = prot.getSequence();
-                BioSource organism = prot.getBioSource();
+            if (checkpoint == null){
+                // create a new file where the results are stored in
+                checkpoint = new UpdateCheckpoint(new File("updateReport_"+ Calendar.getInstance().getTime().getTime() +".txt"));
+            }
+            else {
+                log.info("Resume the update after the protein " + checkpoint.getLastAc() + ", " + checkpoint.getProcessed() + " proteins already processed.");
+            }
 
-                // context
-                context.setSequence(sequence);
-                context.setOrganism(organism);
-                context.setIntactAccession(accession);
-                addIdentityCrossreferencesToContext(refs, context);
+            reportStream = new FileOutputStream(checkpoint.getReportFile(), resumed);
+            if (resumed){
+                // remove the lines of the batch which was not saved in the checkpoint
+                reportStream.getChannel().truncate(checkpoint.getReportLength());
+            }
+            writer = new BufferedWriter(new OutputStreamWriter(reportStream));
 
-                // result
-                IdentificationResults result = this.strategy.identifyProtein(context);
-                writeResultReports(accession, result, writer);
+            if (this.numberOfThreads > 1){
+                executor = Executors.newFixedThreadPool(this.numberOfThreads);
+            }
 
-                // update
-                if (result != null && result.getFinalUniprotId() != null){
-                    Annotation a = collectNo_Uniprot_UpdateAnnotation(annotations);
+            int batchLength;
+            do {
+                batchLength = updateNextBatch(dataContext, checkpoint, executor, writer);
 
-                    if (a != null){
-                        log.info("annotation no_uniprot_update removed from the annotations of " + accession);
-                        prot.removeAnnotation(a);
-                        daoFactory.getAnnotationDao().delete(a);
-                    }
+                if (batchLength > 0 && this.checkpointFile != null){
+                    checkpoint.setReportLength(reportStream.getChannel().size());
+                    checkpoint.write(this.checkpointFile);
+                }
+            } while (batchLength == this.batchSize);
 
-                    Annotation a2 = collectObsoleteAnnotation(annotations);
+            log.info(checkpoint.getProcessed() + " proteins processed, " + checkpoint.getUpdated() + " proteins have been modified, "
+                    + checkpoint.getFailed() + " proteins could not be identified.");
 
-                    if (a2 != null){
-                        log.info("caution removed from the annotations of " + accession);
-                        prot.removeAnnotation(a2);
-                        daoFactory.getAnnotationDao().delete(a2);
-                    }
-                    addUniprotCrossReferenceTo(prot, result.getFinalUniprotId(), daoFactory);
-                    daoFactory.getProteinDao().update( prot );
-                    accessionsToUpdate.add(accession);
-                }
+            // the run is complete, the next one starts from the beginning
+            if (this.checkpointFile != null && !this.checkpointFile.delete()){
+                log.warn("The checkpoint " + this.checkpointFile.getAbsolutePath() + " could not be deleted");
             }
 
-            // commit the changes
-            log.info("commit the change in the database.");
-            log.info(accessionsToUpdate.size() + " proteins have been modified.");
-            dataContext.commitTransaction(transactionStatus);
-            writer.close();
-
             // update the database
             log.info("Processing the update of the proteins in Intact");
             //UpdateReportHandler reportHandler = new FileReportHandler(new File("target"));
@@ -419,81 +441,305 @@ public class ProteinUpdateManager {
             //ProteinUpdateProcessor protUpdateProcessor = new ProteinUpdateProcessor();
             //protUpdateProcessor.updateByACs(accessionsToUpdate);
 
-        } catch (IntactTransactionException e) {
-            throw new ProteinUpdateException(e);
-        } catch (StrategyException e) {
-            throw new ProteinUpdateException("There is a problem when executing the protein update strategy. Check the protein contexts.", e);
         } catch (IOException e) {
             throw new ProteinUpdateException("We can't write the results in a file.", e);
-        } catch (Exception e){
+        } catch (RuntimeException e){
             throw new ProteinUpdateException( e);
         }
+        finally {
+            if (executor != null){
+                executor.shutdownNow();
+            }
+            try {
+                if (writer != null){
+                    writer.close();
+                }
+                else if (reportStream != null){
+                    reportStream.close();
+                }
+            } catch (IOException e) {
+                log.error("The update report could not be closed", e);
+            }
+        }
     }
 
     /**
-     * Write a report for the identification of the proteins without any uniprot cross references set to identity but another uniprot cross reference
-     * @throws ProteinUpdateException
+     * Identify, update and commit the next batch of proteins after the last protein of the checkpoint.
+     * The values of the proteins are read by the candidate reader and only the proteins which are updated are loaded.
+     * @param dataContext : the data context
+     * @param checkpoint : the progress of the run, updated once the batch is committed
+     * @param executor : the workers identifying the proteins, null to identify them in the current thread
+     * @param writer : the writer of the report, the report of the batch is written and flushed once the batch is committed
+     * @return the number of proteins of the batch, 0 when all the proteins have been processed
+     * @throws ProteinUpdateException if the batch could not be read or committed. It is rolled back
+     * @throws IOException if the report could not be written
      */
-    public void writeUpdateReportForProteinsWithUniprotCrossReferences() throws ProteinUpdateException {
-        IntactContext intactContext = IntactContext.getCurrentInstance();
+    private int updateNextBatch(DataContext dataContext, UpdateCheckpoint checkpoint, ExecutorService executor, Writer writer) throws ProteinUpdateException, IOException {
+        List<ProteinCandidate> candidates = readCandidatesInNewTransaction(WITHOUT_UNIPROT_XREFS, checkpoint.getLastAc());
+        if (candidates.isEmpty()){
+            return 0;
+        }
 
-        // disable the update
-        this.strategy.setUpdateEnabled(false);
+        // the contexts only contain values so the identification doesn't need any transaction
+        List<UpdateContext> contexts = new ArrayList<UpdateContext>(candidates.size());
+        for (ProteinCandidate candidate : candidates){
+            log.info("Protein AC = " + candidate.getAc() + " shortLabel = " + candidate.getShortLabel());
+            contexts.add(candidate.createUpdateContext());
+        }
 
-        // create the data context
-        final DataContext dataContext = intactContext.getDataContext();
+        List<IdentificationResults> results = identifyProteins(contexts, executor);
+
+        // the report of the batch is kept in memory until the batch is committed
+        Writer batchReport = new StringWriter();
+        Map<String, String> uniprotAcs = new LinkedHashMap<String, String>();
+        int failed = 0;
+        for (int i = 0; i < candidates.size(); i++){
+            String accession = candidates.get(i).getAc();
+            IdentificationResults result = results.get(i);
+
+            if (result == null){
+                batchReport.write("************************" + accession + "************************************ \n");
+                batchReport.write("The identification of the protein failed, the protein is not updated.\n");
+                failed++;
+            }
+            else {
+                writeResultReports(accession, result, batchReport);
+
+                if (result.getFinalUniprotId() != null){
+                    uniprotAcs.put(accession, result.getFinalUniprotId());
+                }
+            }
+        }
+
+        if (!uniprotAcs.isEmpty()){
+            updateProteinsInNewTransaction(dataContext, uniprotAcs, checkpoint.getLastAc());
+        }
+
+        writer.write(batchReport.toString());
+        writer.flush();
+
+        String lastAc = candidates.get(candidates.size() - 1).getAc();
+        log.info("Batch committed : " + candidates.size() + " proteins processed up to " + lastAc + ", " + uniprotAcs.size() + " proteins modified.");
+        checkpoint.addBatch(lastAc, candidates.size(), uniprotAcs.size(), failed);
+
+        return candidates.size();
+    }
+
+    /**
+     * Update the proteins identified in a batch and commit them in a transaction of their own. The persistence context is cleared after the commit
+     * @param dataContext : the data context
+     * @param uniprotAcs : the uniprot accession found for each intact accession
+     * @param previousAc : the accession of the last protein of the previous batch
+     * @throws ProteinUpdateException if the batch could not be committed. It is rolled back
+     */
+    private void updateProteinsInNewTransaction(DataContext dataContext, Map<String, String> uniprotAcs, String previousAc) throws ProteinUpdateException {
         TransactionStatus transactionStatus = dataContext.beginTransaction();
         try {
+            final DaoFactory daoFactory = dataContext.getDaoFactory();
 
-            // create the file where to write the report
-            File file = new File("updateReportForProteinWithUniprotCrossReferences_"+Calendar.getInstance().getTime().getTime()+".txt");
-            Writer writer = new FileWriter(file);
+            // load only the proteins to update
+            List<ProteinImpl> proteins = getProteinsToUpdate(dataContext, new ArrayList<String>(uniprotAcs.keySet())).getResultList();
 
-            final Query query = getProteinsWithUniprotXrefsWithoutIdentity(dataContext);
+            for (ProteinImpl prot : proteins){
+                updateProtein(prot, uniprotAcs.get(prot.getAc()), daoFactory);
+            }
 
-            proteinToUpdate = query.getResultList();
-            log.info(proteinToUpdate.size());
+            // commit the changes and empty the persistence context before the next batch
+            daoFactory.getEntityManager().flush();
+            daoFactory.getEntityManager().clear();
+            dataContext.commitTransaction(transactionStatus);
+        } catch (IntactTransactionException e) {
+            throw new ProteinUpdateException("The batch of proteins after " + previousAc + " could not be committed.", e);
+        }
+        finally {
+            // nothing to do if the batch has been committed
+            rollback(dataContext, transactionStatus);
+        }
+    }
 
-            ArrayList<String> accessionsToUpdate = new ArrayList<String>();
+    /**
+     * Identify the proteins, one after the other or using the workers. The identification doesn't hold any transaction, the actions
+     * reading the database open their own.
+     * @param contexts : the contexts of the proteins
+     * @param executor : the workers, null to identify the proteins in the current thread
+     * @return the results in the order of the contexts, a result is null if the identification of the protein failed
+     * @throws ProteinUpdateException if the current thread is interrupted
+     */
+    private List<IdentificationResults> identifyProteins(List<UpdateContext> contexts, ExecutorService executor) throws ProteinUpdateException {
+        List<IdentificationResults> results = new ArrayList<IdentificationResults>(contexts.size());
+
+        if (executor == null){
+            for (UpdateContext context : contexts){
+                try {
+                    results.add(this.strategy.identifyProtein(context));
+                } catch (StrategyException e) {
+                    log.error("The protein " + context.getIntactAccession() + " could not be identified", e);
+                    results.add(null);
+                }
+            }
+            return results;
+        }
 
-            for (ProteinImpl prot : proteinToUpdate){
-                this.context.clean();
-                String accession = prot.getAc();
-                String shortLabel = prot.getShortLabel();
-                log.info("Protein AC = " + accession + " shortLabel = " + shortLabel);
+        List<Future<IdentificationResults>> futures = new ArrayList<Future<IdentificationResults>>(contexts.size());
+        for (final UpdateContext context : contexts){
+            futures.add(executor.submit(new Callable<IdentificationResults>() {
+                public IdentificationResults call() throws Exception {
+                    return strategy.identifyProtein(context);
+                }
+            }));
+        }
 
-                Collection<InteractorXref> refs = prot.getXrefs();
-                String sequence = prot.getSequence();
-                BioSource organism = prot.getBioSource();
+        for (int i = 0; i < futures.size(); i++){
+            try {
+                results.add(futures.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ProteinUpdateException("The protein update has been interrupted", e);
+            } catch (ExecutionException e) {
+                log.error("The protein " + contexts.get(i).getIntactAccession() + " could not be identified", e.getCause());
+                results.add(null);
+            }
+        }
+        return results;
+    }
 
-                // context
-                context.setSequence(sequence);
-                context.setOrganism(organism);
-                context.setIntactAccession(accession);
-                addIdentityCrossreferencesToContext(refs, context);
+    /**
+     * Remove the annotations no_uniprot_update and caution of the protein and add the uniprot cross reference with qualifier identity
+     * @param prot : the protein
+     * @param uniprotAc : the uniprot accession found for the protein
+     * @param daoFactory : the dao factory
+     */
+    private void updateProtein(ProteinImpl prot, String uniprotAc, DaoFactory daoFactory){
+        Collection<Annotation> annotations = prot.getAnnotations();
+        Annotation a = collectNo_Uniprot_UpdateAnnotation(annotations);
+
+        if (a != null){
+            log.info("annotation no_uniprot_update removed from the annotations of " + prot.getAc());
+            prot.removeAnnotation(a);
+            daoFactory.getAnnotationDao().delete(a);
+        }
 
-                // result
-                IdentificationResults result = this.strategy.identifyProtein(context);
-                writeResultReports(accession, result, writer);
+        Annotation a2 = collectObsoleteAnnotation(annotations);
 
-                // update
-                if (result != null && result.getFinalUniprotId() != null){
-                    accessionsToUpdate.add(accession);
-                }
+        if (a2 != null){
+            log.info("caution removed from the annotations of " + prot.getAc());
+            prot.removeAnnotation(a2);
+            daoFactory.getAnnotationDao().delete(a2);
+        }
+        addUniprotCrossReferenceTo(prot, uniprotAc, daoFactory);
+        daoFactory.getProteinDao().update( prot );
+    }
+
+    private void rollback(DataContext dataContext, TransactionStatus transactionStatus){
+        if (!transactionStatus.isCompleted()){
+            try {
+                dataContext.rollbackTransaction(transactionStatus);
+            } catch (IntactTransactionException e) {
+                log.error("The transaction could not be rolled back", e);
             }
-            log.info(accessionsToUpdate.size() + " proteins have been identified and could be updated.");
-            dataContext.commitTransaction(transactionStatus);
-            writer.close();
+        }
+    }
 
-        } catch (IntactTransactionException e) {
-            throw new ProteinUpdateException(e);
-        } catch (StrategyException e) {
-            throw new ProteinUpdateException("There is a problem when executing the protein update strategy. Check the protein contexts.", e);
+    /**
+     * Write a report for the identification of the proteins without any uniprot cross references set to identity but another uniprot cross reference
+     * @throws ProteinUpdateException
+     */
+    public void writeUpdateReportForProteinsWithUniprotCrossReferences() throws ProteinUpdateException {
+        // disable the update
+        this.strategy.setUpdateEnabled(false);
+
+        // create the file where to write the report
+        File file = new File("updateReportForProteinWithUniprotCrossReferences_"+Calendar.getInstance().getTime().getTime()+".txt");
+        UpdateCheckpoint progress = writeIdentificationReport(file, true);
+
+        log.info(progress.getUpdated() + " proteins have been identified and could be updated.");
+    }
+
+    /**
+     * Identify the proteins and write the report without updating them. The proteins are read, identified and written
+     * by the stages of an IdentificationReportPipeline running at the same time.
+     * @param file : the file where to write the report
+     * @param withUniprotXrefs : true for the proteins with uniprot cross references without identity, false for the proteins without uniprot cross references
+     * @return the progress at the end of the run, the updated proteins are the proteins identified
+     * @throws ProteinUpdateException
+     */
+    private UpdateCheckpoint writeIdentificationReport(File file, boolean withUniprotXrefs) throws ProteinUpdateException {
+        final String condition = withUniprotXrefs ? WITH_UNIPROT_XREFS_WITHOUT_IDENTITY : WITHOUT_UNIPROT_XREFS;
+        final UpdateCheckpoint progress = new UpdateCheckpoint(file);
+
+        Writer writer = null;
+        try {
+            writer = new BufferedWriter(new FileWriter(file));
+            final Writer reportWriter = writer;
+
+            IdentificationReportPipeline pipeline = new IdentificationReportPipeline(this.numberOfThreads, this.reportQueueCapacity) {
+                @Override
+                protected List<ProteinCandidate> readNextCandidates(String lastAc) throws ProteinUpdateException {
+                    return readCandidatesInNewTransaction(condition, lastAc);
+                }
+
+                @Override
+                protected IdentificationResults identify(UpdateContext context) throws Exception {
+                    return strategy.identifyProtein(context);
+                }
+
+                @Override
+                protected void writeReport(ProteinCandidate candidate, IdentificationResults result) throws ProteinUpdateException, IOException {
+                    if (result == null){
+                        reportWriter.write("************************" + candidate.getAc() + "************************************ \n");
+                        reportWriter.write("The identification of the protein failed.\n");
+                        progress.addBatch(candidate.getAc(), 1, 0, 1);
+                    }
+                    else {
+                        writeResultReports(candidate.getAc(), result, reportWriter);
+                        progress.addBatch(candidate.getAc(), 1, result.getFinalUniprotId() != null ? 1 : 0, 0);
+                    }
+                }
+            };
+            this.reportPipelineMetrics = pipeline.getMetrics();
+
+            pipeline.run();
+            log.info(pipeline.getMetrics());
+
+            return progress;
         } catch (IOException e) {
             throw new ProteinUpdateException("We can't write the results in a file.", e);
-        } catch (Exception e){
+        } catch (RuntimeException e){
             throw new ProteinUpdateException( e);
         }
+        finally {
+            if (writer != null){
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    log.error("The report could not be closed", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the values of the next batch of proteins in a transaction of the current thread
+     * @param condition : the condition on the proteins p to read
+     * @param lastAc : the accession after which the proteins are read, null to read from the first protein
+     * @return the candidates in the order of their accessions, empty if there is no protein after lastAc
+     * @throws ProteinUpdateException
+     */
+    private List<ProteinCandidate> readCandidatesInNewTransaction(String condition, String lastAc) throws ProteinUpdateException {
+        DataContext dataContext = IntactContext.getCurrentInstance().getDataContext();
+        TransactionStatus transactionStatus = dataContext.beginTransaction();
+        try {
+            List<String> accessions = createAcsQuery(dataContext, condition, lastAc, this.batchSize).getResultList();
+            List<ProteinCandidate> candidates = this.candidateReader.readCandidates(dataContext, accessions);
+
+            dataContext.commitTransaction(transactionStatus);
+            return candidates;
+        } catch (IntactTransactionException e) {
+            throw new ProteinUpdateException("The proteins after " + lastAc + " could not be read.", e);
+        }
+        finally {
+            rollback(dataContext, transactionStatus);
+        }
     }
 
     /**
@@ -537,7 +783,6 @@ public class ProteinUpdateManager {
                     }
                 }
             }
-            writer.flush();
         } catch (IOException e) {
             throw new ProteinUpdateException("We can't write the results of the protein " + protAc, e);
         }
@@ -0,0 +1,170 @@
+package uk.ac.ebi.intact.protein.mapping.update;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The throughput of each stage of an IdentificationReportPipeline and the depth of the queue between the reader and the writer.
+ *
+ * The busy time of a stage is the time spent doing its work and the waiting time is the time spent blocked on another stage.
+ * The stage with the highest utilization (busy time divided by the elapsed time of all its threads) is the bottleneck.
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+public class ReportPipelineMetrics {
+
+    /**
+     * the stages of the pipeline
+     */
+    public enum Stage {
+        /*Read the candidates in the database*/
+        READ,
+        /*Identify the candidates, using several threads*/
+        IDENTIFY,
+        /*Write the report of each candidate*/
+        WRITE
+    }
+
+    /**
+     * the number of items processed by each stage
+     */
+    private final AtomicLongArray items = new AtomicLongArray(Stage.values().length);
+
+    /**
+     * the time spent by each stage processing the items, in nanoseconds
+     */
+    private final AtomicLongArray busyNanos = new AtomicLongArray(Stage.values().length);
+
+    /**
+     * the time spent by each stage waiting for the other stages, in nanoseconds
+     */
+    private final AtomicLongArray waitNanos = new AtomicLongArray(Stage.values().length);
+
+    /**
+     * the maximum number of proteins waiting in the queue
+     */
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    /**
+     * the queue of the proteins read and not written yet
+     */
+    private final BlockingQueue<?> queue;
+
+    /**
+     * the number of threads identifying the proteins
+     */
+    private final int numberOfIdentificationThreads;
+
+    private final long startTime = System.nanoTime();
+    private volatile long endTime;
+
+    /**
+     *
+     * @param queue : the queue between the reader and the writer
+     * @param numberOfIdentificationThreads : the number of threads identifying the proteins
+     */
+    ReportPipelineMetrics(BlockingQueue<?> queue, int numberOfIdentificationThreads){
+        this.queue = queue;
+        this.numberOfIdentificationThreads = numberOfIdentificationThreads;
+    }
+
+    void recordItems(Stage stage, int count, long busyTime){
+        this.items.addAndGet(stage.ordinal(), count);
+        this.busyNanos.addAndGet(stage.ordinal(), busyTime);
+    }
+
+    void recordWait(Stage stage, long waitTime){
+        this.waitNanos.addAndGet(stage.ordinal(), waitTime);
+    }
+
+    void recordQueueDepth(){
+        int depth = this.queue.size();
+        int max = this.maxQueueDepth.get();
+        while (depth > max && !this.maxQueueDepth.compareAndSet(max, depth)){
+            max = this.maxQueueDepth.get();
+        }
+    }
+
+    void stop(){
+        this.endTime = System.nanoTime();
+    }
+
+    public long getItems(Stage stage){
+        return this.items.get(stage.ordinal());
+    }
+
+    public long getBusyMillis(Stage stage){
+        return TimeUnit.NANOSECONDS.toMillis(this.busyNanos.get(stage.ordinal()));
+    }
+
+    public long getWaitMillis(Stage stage){
+        return TimeUnit.NANOSECONDS.toMillis(this.waitNanos.get(stage.ordinal()));
+    }
+
+    /**
+     *
+     * @param stage : the stage
+     * @return the number of items the stage can process per second when all its threads are busy, 0 if the stage hasn't been busy
+     */
+    public double getThroughput(Stage stage){
+        long busy = this.busyNanos.get(stage.ordinal());
+        return busy > 0 ? getItems(stage) * 1e9 / busy * getNumberOfThreads(stage) : 0;
+    }
+
+    /**
+     *
+     * @param stage : the stage
+     * @return the fraction of the elapsed time of its threads the stage has been busy, between 0 and 1
+     */
+    public double getUtilization(Stage stage){
+        long elapsed = getElapsedNanos() * getNumberOfThreads(stage);
+        return elapsed > 0 ? Math.min(1.0, (double) this.busyNanos.get(stage.ordinal()) / elapsed) : 0;
+    }
+
+    /**
+     *
+     * @return the number of proteins read and not written yet
+     */
+    public int getQueueDepth(){
+        return this.queue.size();
+    }
+
+    public int getMaxQueueDepth(){
+        return this.maxQueueDepth.get();
+    }
+
+    public int getQueueCapacity(){
+        return this.queue.size() + this.queue.remainingCapacity();
+    }
+
+    public long getElapsedMillis(){
+        return TimeUnit.NANOSECONDS.toMillis(getElapsedNanos());
+    }
+
+    private long getElapsedNanos(){
+        return (this.endTime != 0 ? this.endTime : System.nanoTime()) - this.startTime;
+    }
+
+    private int getNumberOfThreads(Stage stage){
+        return stage == Stage.IDENTIFY ? this.numberOfIdentificationThreads : 1;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append("Report pipeline : ").append(getElapsedMillis()).append(" ms, queue depth ").append(getQueueDepth())
+                .append(" (max ").append(getMaxQueueDepth()).append(" / ").append(getQueueCapacity()).append(")");
+
+        for (Stage stage : Stage.values()){
+            buffer.append(", ").append(stage).append(" : ").append(getItems(stage)).append(" items, ")
+                    .append(String.format("%.1f", getThroughput(stage))).append(" items/s, ")
+                    .append(String.format("%.0f", getUtilization(stage) * 100)).append("% busy, ")
+                    .append(getWaitMillis(stage)).append(" ms waiting");
+        }
+        return buffer.toString();
+    }
+}
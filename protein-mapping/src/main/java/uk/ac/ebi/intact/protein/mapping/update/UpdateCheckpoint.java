@@ -0,0 +1,168 @@
+package uk.ac.ebi.intact.protein.mapping.update;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * The progress of a protein update run, saved after each committed batch so a run which stopped can resume after
+ * the last protein committed. The length of the report at the end of the last batch is saved too : the lines written
+ * after it belong to a batch which wasn't saved and are removed when the run resumes.
+ *
+ * The checkpoint is a properties file. It is written in a temporary file which is synced to the disk and then renamed,
+ * so the checkpoint on disk is always complete.
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+
+public class UpdateCheckpoint {
+
+    private static final String LAST_AC = "lastAc";
+    private static final String PROCESSED = "processed";
+    private static final String UPDATED = "updated";
+    private static final String FAILED = "failed";
+    private static final String REPORT_FILE = "reportFile";
+    private static final String REPORT_LENGTH = "reportLength";
+
+    /**
+     * the accession of the last protein committed, null if no batch has been committed yet
+     */
+    private String lastAc;
+
+    /**
+     * the number of proteins processed, updated and which could not be identified so far
+     */
+    private long processed;
+    private long updated;
+    private long failed;
+
+    /**
+     * the file where the results of the identifications are written
+     */
+    private File reportFile;
+
+    /**
+     * the length in bytes of the report after the last batch committed
+     */
+    private long reportLength;
+
+    public UpdateCheckpoint(File reportFile){
+        this.reportFile = reportFile;
+    }
+
+    /**
+     *
+     * @param file : the checkpoint file
+     * @return the checkpoint saved in the file, null if the file doesn't exist
+     * @throws IOException
+     */
+    public static UpdateCheckpoint read(File file) throws IOException {
+        if (!file.exists()){
+            return null;
+        }
+
+        Properties properties = new Properties();
+        InputStream input = new FileInputStream(file);
+        try {
+            properties.load(input);
+        }
+        finally {
+            input.close();
+        }
+
+        String reportFile = properties.getProperty(REPORT_FILE);
+        if (reportFile == null){
+            throw new IOException("The checkpoint " + file.getAbsolutePath() + " doesn't contain any report file");
+        }
+
+        UpdateCheckpoint checkpoint = new UpdateCheckpoint(new File(reportFile));
+        checkpoint.lastAc = properties.getProperty(LAST_AC);
+        checkpoint.processed = Long.parseLong(properties.getProperty(PROCESSED, "0"));
+        checkpoint.updated = Long.parseLong(properties.getProperty(UPDATED, "0"));
+        checkpoint.failed = Long.parseLong(properties.getProperty(FAILED, "0"));
+        checkpoint.reportLength = Long.parseLong(properties.getProperty(REPORT_LENGTH, "0"));
+        return checkpoint;
+    }
+
+    /**
+     * Save the checkpoint in the file, replacing the previous checkpoint atomically
+     * @param file : the checkpoint file
+     * @throws IOException
+     */
+    public void write(File file) throws IOException {
+        Properties properties = new Properties();
+        if (lastAc != null){
+            properties.setProperty(LAST_AC, lastAc);
+        }
+        properties.setProperty(PROCESSED, Long.toString(processed));
+        properties.setProperty(UPDATED, Long.toString(updated));
+        properties.setProperty(FAILED, Long.toString(failed));
+        properties.setProperty(REPORT_FILE, reportFile.getAbsolutePath());
+        properties.setProperty(REPORT_LENGTH, Long.toString(reportLength));
+
+        File temporaryFile = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+        FileOutputStream output = new FileOutputStream(temporaryFile);
+        try {
+            properties.store(output, "protein update checkpoint");
+            output.flush();
+            output.getFD().sync();
+        }
+        finally {
+            output.close();
+        }
+
+        Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Record a committed batch
+     * @param lastAc : the accession of the last protein of the batch
+     * @param processed : the number of proteins of the batch
+     * @param updated : the number of proteins updated in the batch
+     * @param failed : the number of proteins of the batch which could not be identified
+     */
+    public void addBatch(String lastAc, int processed, int updated, int failed){
+        this.lastAc = lastAc;
+        this.processed += processed;
+        this.updated += updated;
+        this.failed += failed;
+    }
+
+    public String getLastAc() {
+        return lastAc;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public File getReportFile() {
+        return reportFile;
+    }
+
+    public long getReportLength() {
+        return reportLength;
+    }
+
+    /**
+     *
+     * @param reportLength : the length in bytes of the report after the last batch committed
+     */
+    public void setReportLength(long reportLength) {
+        this.reportLength = reportLength;
+    }
+}
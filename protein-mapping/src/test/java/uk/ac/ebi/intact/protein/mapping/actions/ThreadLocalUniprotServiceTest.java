@@ -0,0 +1,171 @@
+package uk.ac.ebi.intact.protein.mapping.actions;
+
+import org.junit.Assert;
+import org.junit.Test;
+import uk.ac.ebi.intact.protein.mapping.cache.UniprotProteinCache;
+import uk.ac.ebi.intact.protein.mapping.factories.UniprotServiceFactory;
+import uk.ac.ebi.intact.uniprot.model.Organism;
+import uk.ac.ebi.intact.uniprot.model.UniprotProtein;
+import uk.ac.ebi.intact.uniprot.service.UniprotService;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit test for ThreadLocalUniprotService, with uniprot services answering the name of the thread using them
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+public class ThreadLocalUniprotServiceTest {
+
+    /**
+     * Creates uniprot services returning a protein whose description is the name of the service
+     */
+    private static class NamedServiceFactory implements UniprotServiceFactory {
+        private final AtomicInteger createdServices = new AtomicInteger();
+
+        public UniprotService createUniprotService() {
+            return createService("service " + createdServices.incrementAndGet());
+        }
+    }
+
+    @Test
+    public void factory_gives_each_thread_its_own_service() throws Exception {
+        NamedServiceFactory factory = new NamedServiceFactory();
+        final ThreadLocalUniprotService uniprotService = new ThreadLocalUniprotService(factory);
+
+        UniprotService mainService = uniprotService.getUniprotService();
+        Assert.assertSame(mainService, uniprotService.getUniprotService());
+        Assert.assertEquals("service 1", retrieveDescription(uniprotService));
+
+        String workerDescription = runInWorker(new Callable<String>() {
+            public String call() {
+                Assert.assertSame(uniprotService.getUniprotService(), uniprotService.getUniprotService());
+                return retrieveDescription(uniprotService);
+            }
+        });
+
+        Assert.assertEquals("service 2", workerDescription);
+        Assert.assertEquals(2, factory.createdServices.get());
+        Assert.assertSame(mainService, uniprotService.getUniprotService());
+    }
+
+    @Test
+    public void single_service_is_only_used_by_its_thread() throws Exception {
+        final ThreadLocalUniprotService uniprotService = new ThreadLocalUniprotService(createService("custom service"));
+        Assert.assertEquals("custom service", retrieveDescription(uniprotService));
+
+        try {
+            runInWorker(new Callable<String>() {
+                public String call() {
+                    return retrieveDescription(uniprotService);
+                }
+            });
+            Assert.fail("A worker thread can't use the uniprot service of another thread");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        // the thread owning the service can still use it
+        Assert.assertEquals("custom service", retrieveDescription(uniprotService));
+    }
+
+    @Test
+    public void subclass_creates_the_services() throws Exception {
+        final ThreadLocalUniprotService uniprotService = new ThreadLocalUniprotService(){
+            @Override
+            protected UniprotService createUniprotService() {
+                return createService("service of " + Thread.currentThread().getName());
+            }
+        };
+
+        String workerDescription = runInWorker(new Callable<String>() {
+            public String call() {
+                Thread.currentThread().setName("worker");
+                return retrieveDescription(uniprotService);
+            }
+        });
+        Assert.assertEquals("service of worker", workerDescription);
+    }
+
+    @Test
+    public void uniprot_cache_is_injected(){
+        ThreadLocalUniprotService uniprotService = new ThreadLocalUniprotService(new NamedServiceFactory());
+        Assert.assertSame(UniprotProteinCache.getSharedInstance(), uniprotService.getUniprotCache());
+
+        UniprotProteinCache cache = new UniprotProteinCache(10, 0);
+        uniprotService.setUniprotCache(cache);
+        Assert.assertSame(cache, uniprotService.getUniprotCache());
+
+        try {
+            uniprotService.setUniprotCache(null);
+            Assert.fail("The uniprot cache is required");
+        } catch (IllegalArgumentException e) {
+            Assert.assertSame(cache, uniprotService.getUniprotCache());
+        }
+    }
+
+    private static String runInWorker(Callable<String> task) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            return executor.submit(task).get();
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String retrieveDescription(ThreadLocalUniprotService uniprotService){
+        Collection<UniprotProtein> proteins = uniprotService.retrieve("P12345");
+        Assert.assertEquals(1, proteins.size());
+        return proteins.iterator().next().getDescription();
+    }
+
+    /**
+     * @return a uniprot service returning a protein with this description. It is a proxy so the other methods of the interface are not needed
+     */
+    private static UniprotService createService(final String description){
+        return (UniprotService) Proxy.newProxyInstance(ThreadLocalUniprotServiceTest.class.getClassLoader(), new Class<?>[]{UniprotService.class},
+                new InvocationHandler() {
+                    private boolean started;
+
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        String name = method.getName();
+                        if (name.equals("start")){
+                            started = true;
+                            return null;
+                        }
+                        else if (name.equals("close")){
+                            started = false;
+                            return null;
+                        }
+                        else if (name.equals("retrieve") && args.length == 1){
+                            Assert.assertTrue(started);
+                            List<UniprotProtein> proteins = new ArrayList<UniprotProtein>();
+                            proteins.add(new UniprotProtein("TEST_HUMAN", (String) args[0], new Organism(9606), description));
+                            return proteins;
+                        }
+                        else if (name.equals("hashCode")){
+                            return System.identityHashCode(proxy);
+                        }
+                        else if (name.equals("equals")){
+                            return proxy == args[0];
+                        }
+                        else if (name.equals("toString")){
+                            return description;
+                        }
+                        throw new UnsupportedOperationException(name);
+                    }
+                });
+    }
+}
@@ -0,0 +1,289 @@
+package uk.ac.ebi.intact.protein.mapping.actions;
+
+import org.junit.Assert;
+import org.junit.Test;
+import psidev.psi.mi.jami.bridges.uniprot.rest.UniprotProteinAPIClient;
+import psidev.psi.mi.jami.bridges.uniprot.rest.UniprotProteinAPIClientException;
+import uk.ac.ebi.intact.protein.mapping.actions.exception.RemoteServiceException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit test for UniprotProteinAPIService, with a client failing on demand instead of the remote service
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+public class UniprotProteinAPIServiceTest {
+
+    /**
+     * A client which fails for the first calls and answers P12345 to the swissprot queries
+     */
+    private static class FailingClient extends UniprotProteinAPIClient {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final int failures;
+        private final long delay;
+
+        private FailingClient(int failures, long delay){
+            this.failures = failures;
+            this.delay = delay;
+        }
+
+        @Override
+        public List<String> getSwissprotIdsForSequence(String sequence, String taxId) throws UniprotProteinAPIClientException {
+            if (calls.incrementAndGet() <= failures){
+                throw new IllegalStateException("503 Service Unavailable");
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Arrays.asList("P12345");
+        }
+
+        @Override
+        public List<String> getTremblIdsForSequence(String sequence, String taxId) throws UniprotProteinAPIClientException {
+            return Arrays.asList("Q11111", "Q22222");
+        }
+    }
+
+    /**
+     * A client whose first swissprot query hangs until it is released, ignoring the interruptions like a blocked HTTP call
+     */
+    private static class HangingClient extends UniprotProteinAPIClient {
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxRunning = new AtomicInteger();
+
+        @Override
+        public List<String> getSwissprotIdsForSequence(String sequence, String taxId) throws UniprotProteinAPIClientException {
+            int current = running.incrementAndGet();
+            maxRunning.set(Math.max(maxRunning.get(), current));
+            try {
+                if (calls.incrementAndGet() == 1){
+                    boolean released = false;
+                    while (!released){
+                        try {
+                            release.await();
+                            released = true;
+                        } catch (InterruptedException e) {
+                            // a blocked socket read doesn't stop when the thread is interrupted
+                        }
+                    }
+                }
+                return Arrays.asList("P12345");
+            }
+            finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+
+    private UniprotProteinAPIService createService(FailingClient client){
+        UniprotProteinAPIService service = new UniprotProteinAPIService(client);
+        service.setInitialBackoff(1);
+        return service;
+    }
+
+    @Test
+    public void retry_when_the_service_fails() throws UniprotProteinAPIClientException {
+        FailingClient client = new FailingClient(2, 0);
+        UniprotProteinAPIService service = createService(client);
+
+        Assert.assertEquals(Arrays.asList("P12345"), service.getSwissprotIdsForSequence("MSAIQ", null));
+        Assert.assertEquals(3, client.calls.get());
+    }
+
+    @Test
+    public void stop_retrying_when_the_budget_is_exhausted() throws UniprotProteinAPIClientException {
+        FailingClient client = new FailingClient(100, 0);
+        UniprotProteinAPIService service = createService(client);
+        service.setRetryBudget(new RetryBudget(0, 1));
+
+        try {
+            service.getSwissprotIdsForSequence("MSAIQ", null);
+            Assert.fail("The call should fail");
+        } catch (IllegalStateException e) {
+            // one call and the only retry of the budget
+            Assert.assertEquals(2, client.calls.get());
+        }
+
+        try {
+            service.getSwissprotIdsForSequence("MSAIQ", null);
+            Assert.fail("The call should fail");
+        } catch (IllegalStateException e) {
+            // the budget is empty, no retry
+            Assert.assertEquals(3, client.calls.get());
+        }
+    }
+
+    @Test
+    public void give_up_after_the_timeout() throws UniprotProteinAPIClientException {
+        FailingClient client = new FailingClient(0, 5000);
+        UniprotProteinAPIService service = createService(client);
+        service.setTimeout(UniprotProteinAPIService.Endpoint.SWISSPROT_SEQUENCE, 50);
+        service.setMaxAttempts(1);
+
+        long start = System.currentTimeMillis();
+        try {
+            service.getSwissprotIdsForSequence("MSAIQ", null);
+            Assert.fail("The call should time out");
+        } catch (RemoteServiceException e) {
+            Assert.assertTrue(System.currentTimeMillis() - start < 2000);
+        }
+    }
+
+    @Test
+    public void submit_trembl_query() throws UniprotProteinAPIClientException {
+        UniprotProteinAPIService service = createService(new FailingClient(0, 0));
+
+        Future<List<String>> query = service.submitTremblIdsForSequence("MSAIQ", null);
+        Assert.assertEquals(Arrays.asList("Q11111", "Q22222"), service.getResult(query));
+    }
+
+    @Test
+    public void timed_out_request_keeps_its_permit_until_it_finishes() throws Exception {
+        final HangingClient client = new HangingClient();
+        UniprotProteinAPIService service = new UniprotProteinAPIService(client, 4);
+        service.setInitialBackoff(1);
+        service.setTimeout(UniprotProteinAPIService.Endpoint.SWISSPROT_SEQUENCE, 50);
+        RemoteServiceThrottle.setMaxConcurrentCalls(RemoteServiceThrottle.RemoteService.UNIPROT_PROTEIN_API, 1);
+
+        Thread releaser = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                client.release.countDown();
+            }
+        });
+        releaser.start();
+
+        try {
+            // the first attempt times out, the retry waits until the hung request gives its permit back
+            Assert.assertEquals(Arrays.asList("P12345"), service.getSwissprotIdsForSequence("MSAIQ", null));
+            Assert.assertEquals(2, client.calls.get());
+            Assert.assertEquals(1, client.maxRunning.get());
+        }
+        finally {
+            RemoteServiceThrottle.setMaxConcurrentCalls(RemoteServiceThrottle.RemoteService.UNIPROT_PROTEIN_API, 0);
+            releaser.join();
+        }
+    }
+
+    @Test
+    public void submitted_lookups_do_not_starve_the_requests() throws UniprotProteinAPIClientException {
+        UniprotProteinAPIService service = new UniprotProteinAPIService(new FailingClient(0, 0), 1);
+
+        long start = System.currentTimeMillis();
+        Future<List<String>> query1 = service.submitTremblIdsForSequence("MSAIQ", null);
+        Future<List<String>> query2 = service.submitTremblIdsForSequence("MSAIQAAW", null);
+
+        Assert.assertEquals(Arrays.asList("Q11111", "Q22222"), service.getResult(query1));
+        Assert.assertEquals(Arrays.asList("Q11111", "Q22222"), service.getResult(query2));
+        Assert.assertTrue(System.currentTimeMillis() - start < 2000);
+    }
+
+    @Test
+    public void cancelled_request_never_runs() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        Semaphore permit = new Semaphore(1);
+        permit.acquire();
+
+        UniprotProteinAPIService.PermitHoldingRequest<String> task = new UniprotProteinAPIService.PermitHoldingRequest<String>(new Callable<String>() {
+            public String call() {
+                runs.incrementAndGet();
+                return "P12345";
+            }
+        }, permit);
+
+        Assert.assertTrue(task.cancel());
+        Assert.assertEquals(1, permit.availablePermits());
+
+        Assert.assertNull(task.call());
+        Assert.assertFalse(task.cancel());
+        Assert.assertEquals(0, runs.get());
+        Assert.assertEquals(1, permit.availablePermits());
+    }
+
+    @Test
+    public void running_request_keeps_its_permit() throws Exception {
+        final Semaphore permit = new Semaphore(1);
+        permit.acquire();
+        final List<UniprotProteinAPIService.PermitHoldingRequest<String>> tasks = new ArrayList<UniprotProteinAPIService.PermitHoldingRequest<String>>();
+
+        tasks.add(new UniprotProteinAPIService.PermitHoldingRequest<String>(new Callable<String>() {
+            public String call() {
+                // the request is cancelled while it runs
+                Assert.assertFalse(tasks.get(0).cancel());
+                Assert.assertEquals(0, permit.availablePermits());
+                return "P12345";
+            }
+        }, permit));
+
+        Assert.assertEquals("P12345", tasks.get(0).call());
+        Assert.assertFalse(tasks.get(0).cancel());
+        Assert.assertEquals(1, permit.availablePermits());
+    }
+
+    @Test
+    public void request_and_cancellation_race_for_the_permit() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 500; i++){
+                final AtomicInteger runs = new AtomicInteger();
+                final Semaphore permit = new Semaphore(1);
+                permit.acquire();
+
+                final UniprotProteinAPIService.PermitHoldingRequest<String> task = new UniprotProteinAPIService.PermitHoldingRequest<String>(new Callable<String>() {
+                    public String call() {
+                        runs.incrementAndGet();
+                        return "P12345";
+                    }
+                }, permit);
+                final CountDownLatch start = new CountDownLatch(1);
+
+                Future<String> answer = executor.submit(new Callable<String>() {
+                    public String call() throws Exception {
+                        start.await();
+                        return task.call();
+                    }
+                });
+                Future<Boolean> cancelled = executor.submit(new Callable<Boolean>() {
+                    public Boolean call() throws Exception {
+                        start.await();
+                        return task.cancel();
+                    }
+                });
+                start.countDown();
+
+                // exactly one of them owned the permit and released it
+                if (cancelled.get()){
+                    Assert.assertNull(answer.get());
+                    Assert.assertEquals(0, runs.get());
+                }
+                else {
+                    Assert.assertEquals("P12345", answer.get());
+                    Assert.assertEquals(1, runs.get());
+                }
+                Assert.assertEquals(1, permit.availablePermits());
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+}
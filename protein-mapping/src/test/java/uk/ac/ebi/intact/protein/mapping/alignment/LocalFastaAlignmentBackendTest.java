@@ -0,0 +1,95 @@
+package uk.ac.ebi.intact.protein.mapping.alignment;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.ac.ebi.intact.bridges.ncbiblast.model.BlastProtein;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Unit test for LocalFastaAlignmentBackend
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+public class LocalFastaAlignmentBackendTest {
+
+    private static final String SEQUENCE = "GTRASKHVFEKNLRPKALKLKNAEHCSIITKETARTVLTIQSYLQSISNPEWAAAIAHK";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private LocalFastaAlignmentBackend backend;
+
+    @Before
+    public void createBackend() throws IOException {
+        File fasta = folder.newFile("uniprot.fasta");
+        FileWriter writer = new FileWriter(fasta);
+        try {
+            writer.write(">sp|P12345|TEST_HUMAN Test protein OS=Homo sapiens OX=9606 GN=TEST PE=1 SV=1\n");
+            writer.write("MSA" + SEQUENCE.substring(0, 30) + "\n" + SEQUENCE.substring(30) + "\n");
+            writer.write(">tr|Q12345|Q12345_MOUSE Test protein OS=Mus musculus OX=10090 PE=4 SV=1\n");
+            writer.write(SEQUENCE.substring(0, 20) + "W" + SEQUENCE.substring(21) + "\n");
+            writer.write(">sp|P99999|OTHER_HUMAN Other protein OS=Homo sapiens OX=9606 PE=1 SV=1\n");
+            writer.write("MDDDPPPLLLWWWCCCYYYHHHMMMDDDPPPLLLWWWCCCYYYHHH\n");
+        }
+        finally {
+            writer.close();
+        }
+
+        this.backend = new LocalFastaAlignmentBackend(fasta, 2);
+    }
+
+    @Test
+    public void align_on_uniprot(){
+        Assert.assertEquals(3, backend.size());
+
+        AlignmentResults results = backend.alignOnUniprot(SEQUENCE);
+        List<BlastProtein> matches = results.getMatchingEntries();
+
+        Assert.assertEquals(2, matches.size());
+
+        BlastProtein exactMatch = matches.get(0);
+        Assert.assertEquals("P12345", exactMatch.getAccession());
+        Assert.assertEquals("SP", exactMatch.getDatabase());
+        Assert.assertEquals(100, exactMatch.getIdentity(), 0);
+        Assert.assertEquals(1, exactMatch.getStartQuery());
+        Assert.assertEquals(SEQUENCE.length(), exactMatch.getEndQuery());
+        Assert.assertEquals(4, exactMatch.getStartMatch());
+        Assert.assertEquals(SEQUENCE.length() + 3, exactMatch.getEndMatch());
+
+        BlastProtein mismatch = matches.get(1);
+        Assert.assertEquals("Q12345", mismatch.getAccession());
+        Assert.assertEquals("TR", mismatch.getDatabase());
+        Assert.assertTrue(mismatch.getIdentity() < 100);
+        Assert.assertTrue(mismatch.getIdentity() > 95);
+    }
+
+    @Test
+    public void filter_with_organism(){
+        AlignmentResults results = backend.alignOnUniprot(SEQUENCE);
+
+        results.filterResultsWithIdentityAndOrganism(95, "10090");
+        Assert.assertEquals(1, results.getMatchingEntries().size());
+        Assert.assertEquals("Q12345", results.getMatchingEntries().get(0).getAccession());
+
+        Assert.assertTrue(results.filterMappingEntriesWithIdentity(100).isEmpty());
+
+        // the copy is not filtered
+        Assert.assertEquals(2, results.copy().getMatchingEntries().size());
+    }
+
+    @Test
+    public void align_on_swissprot(){
+        AlignmentResults results = backend.alignOnSwissprot(SEQUENCE);
+
+        Assert.assertEquals(1, results.getMatchingEntries().size());
+        Assert.assertEquals("P12345", results.getMatchingEntries().get(0).getAccession());
+    }
+}
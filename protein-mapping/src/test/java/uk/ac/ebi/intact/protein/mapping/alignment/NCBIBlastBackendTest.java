@@ -0,0 +1,131 @@
+package uk.ac.ebi.intact.protein.mapping.alignment;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ebi.intact.bridges.ncbiblast.BlastServiceException;
+import uk.ac.ebi.intact.bridges.ncbiblast.ProteinNCBIBlastService;
+import uk.ac.ebi.intact.protein.mapping.actions.BasicBlastProcess;
+import uk.ac.ebi.intact.protein.mapping.actions.RemoteServiceThrottle;
+import uk.ac.ebi.intact.protein.mapping.factories.impl.DefaultReportsFactory;
+import uk.ac.ebi.intact.protein.mapping.model.contexts.IdentificationContext;
+
+import java.io.InputStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit test for NCBIBlastBackend, with a blast service counting the jobs instead of submitting them to NCBI
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+public class NCBIBlastBackendTest {
+
+    private static final String SEQUENCE = "GTRASKHVFEKNLRPKALKLKNAEHCSIITKETARTVLTIQSYLQSISNPEWAAAIAHK";
+
+    /**
+     * A blast service counting the jobs submitted
+     */
+    private static class CountingBlastService extends ProteinNCBIBlastService {
+        private final AtomicInteger submittedJobs = new AtomicInteger();
+
+        private CountingBlastService() throws BlastServiceException {
+            super("test@ebi.ac.uk");
+        }
+
+        @Override
+        public InputStream getResultsOfBlastOnUniprot(String sequence) {
+            submittedJobs.incrementAndGet();
+            return null;
+        }
+
+        @Override
+        public InputStream getResultsOfBlastOnSwissprot(String sequence) {
+            submittedJobs.incrementAndGet();
+            return null;
+        }
+    }
+
+    private CountingBlastService blastService;
+    private NCBIBlastBackend backend;
+
+    @Before
+    public void createBackend() throws BlastServiceException {
+        this.blastService = new CountingBlastService();
+        this.backend = new NCBIBlastBackend(this.blastService);
+        RemoteServiceThrottle.setMaxConcurrentCalls(RemoteServiceThrottle.RemoteService.NCBI_BLAST, 1);
+    }
+
+    @After
+    public void resetThrottle(){
+        RemoteServiceThrottle.setMaxConcurrentCalls(RemoteServiceThrottle.RemoteService.NCBI_BLAST, 0);
+    }
+
+    @Test
+    public void cancelled_speculative_blast_is_not_submitted() throws Exception {
+        BasicBlastProcess blastProcess = new BasicBlastProcess(new DefaultReportsFactory());
+        blastProcess.setAlignmentBackend(this.backend);
+
+        IdentificationContext context = new IdentificationContext();
+        context.setSequence(SEQUENCE);
+
+        // the only permit is held so the speculative blast waits in the throttle
+        Semaphore permit = RemoteServiceThrottle.acquire(RemoteServiceThrottle.RemoteService.NCBI_BLAST);
+        Future<AlignmentResults> speculativeBlast;
+        try {
+            speculativeBlast = blastProcess.trySubmitBlastOnUniprot(context);
+            Assert.assertNotNull(speculativeBlast);
+
+            while (!permit.hasQueuedThreads()){
+                Thread.sleep(5);
+            }
+            Assert.assertTrue(speculativeBlast.cancel(true));
+
+            // the cancelled blast stops waiting for the permit
+            while (permit.hasQueuedThreads()){
+                Thread.sleep(5);
+            }
+        }
+        finally {
+            permit.release();
+        }
+
+        Assert.assertEquals(0, this.blastService.submittedJobs.get());
+        Assert.assertEquals(1, permit.availablePermits());
+
+        // the permit is still available for the blasts which are needed
+        Assert.assertNotNull(blastProcess.trySubmitBlastOnUniprot(context).get());
+        Assert.assertEquals(1, this.blastService.submittedJobs.get());
+        Assert.assertEquals(1, permit.availablePermits());
+    }
+
+    @Test
+    public void interrupted_blast_is_not_submitted(){
+        Thread.currentThread().interrupt();
+        try {
+            this.backend.alignOnUniprot(SEQUENCE);
+            Assert.fail("An interrupted blast should be cancelled");
+        } catch (CancellationException e) {
+            // the interruption is kept for the caller
+            Assert.assertTrue(Thread.interrupted());
+        }
+
+        Assert.assertEquals(0, this.blastService.submittedJobs.get());
+
+        Assert.assertNotNull(this.backend.alignOnSwissprot(SEQUENCE));
+        Assert.assertEquals(1, this.blastService.submittedJobs.get());
+
+        Semaphore permit = RemoteServiceThrottle.acquire(RemoteServiceThrottle.RemoteService.NCBI_BLAST);
+        Assert.assertEquals(0, permit.availablePermits());
+        permit.release();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void email_is_required(){
+        new NCBIBlastBackend(" ");
+    }
+}
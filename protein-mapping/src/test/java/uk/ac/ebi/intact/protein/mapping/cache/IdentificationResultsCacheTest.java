@@ -0,0 +1,215 @@
+package uk.ac.ebi.intact.protein.mapping.cache;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.ac.ebi.intact.protein.mapping.actions.ActionName;
+import uk.ac.ebi.intact.protein.mapping.actions.status.Status;
+import uk.ac.ebi.intact.protein.mapping.actions.status.StatusLabel;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.impl.DefaultBlastReport;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.impl.DefaultIntactCrc64Report;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.impl.DefaultMappingReport;
+import uk.ac.ebi.intact.protein.mapping.model.actionReport.impl.DefaultUniprotProteinAPIReport;
+import uk.ac.ebi.intact.protein.mapping.results.IdentificationResults;
+import uk.ac.ebi.intact.protein.mapping.results.impl.DefaultBlastResults;
+import uk.ac.ebi.intact.protein.mapping.results.impl.DefaultIdentificationResults;
+import uk.ac.ebi.intact.protein.mapping.results.impl.DefaultUniprotProteinAPICrossReferences;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit test for IdentificationResultsCache
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+public class IdentificationResultsCacheTest {
+
+    private static final String SEQUENCE = "GTRASKHVFEKNLRPKALKLKNAEHCSIITKETARTVLTIQSYLQSISNPEWAAAIAHK";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private DefaultIdentificationResults results;
+
+    @Before
+    public void createResults(){
+        this.results = new DefaultIdentificationResults();
+
+        DefaultUniprotProteinAPIReport uniprotReport = new DefaultUniprotProteinAPIReport(ActionName.UniprotProteinAPI_sequence_Swissprot);
+        uniprotReport.setStatus(new Status(StatusLabel.TO_BE_REVIEWED, "Several Uniprot entries match the sequence"));
+        uniprotReport.addPossibleAccession("P12345");
+        uniprotReport.addPossibleAccession("P12346");
+        uniprotReport.addWarning("The organism is not the same");
+        DefaultUniprotProteinAPICrossReferences refs = new DefaultUniprotProteinAPICrossReferences();
+        refs.setDatabase("SWISSPROT");
+        refs.addAccession("P12345");
+        uniprotReport.addUniprotProteinAPICrossReference(refs);
+        this.results.addActionReport(uniprotReport);
+
+        DefaultIntactCrc64Report intactReport = new DefaultIntactCrc64Report(ActionName.SEARCH_intact_crc64);
+        intactReport.setStatus(new Status(StatusLabel.FAILED, null));
+        intactReport.setQuerySequence(SEQUENCE);
+        intactReport.addPossibleIntactAc("EBI-12345");
+        this.results.addActionReport(intactReport);
+
+        DefaultBlastReport blastReport = new DefaultBlastReport(ActionName.BLAST_uniprot);
+        blastReport.setStatus(new Status(StatusLabel.COMPLETED, "One match"));
+        blastReport.setIsASwissprotEntry(true);
+        blastReport.setQuerySequence(SEQUENCE);
+        DefaultBlastResults blastResults = new DefaultBlastResults();
+        blastResults.setAccession("P12345");
+        blastResults.setTaxId(9606);
+        blastResults.setIdentity(99.5f);
+        blastResults.setStartQuery(1);
+        blastResults.setEndQuery(59);
+        blastResults.setStartMatch(3);
+        blastResults.setEndMatch(61);
+        blastResults.setDatabase("SP");
+        blastResults.setDescription("test protein");
+        blastResults.setTremblAccession("Q12345");
+        blastReport.addBlastMatchingProtein(blastResults);
+        this.results.addActionReport(blastReport);
+
+        this.results.setFinalUniprotId("P12345");
+    }
+
+    @Test
+    public void get_after_put() throws Exception {
+        IdentificationResultsCache cache = new IdentificationResultsCache(folder.getRoot(), 0, "2026_05");
+        Assert.assertNull(cache.get(SEQUENCE, "9606", "blast"));
+
+        cache.put(SEQUENCE, "9606", "blast", this.results);
+
+        IdentificationResults<DefaultMappingReport> cachedResults = cache.get(SEQUENCE, "9606", "blast");
+        Assert.assertNotNull(cachedResults);
+        Assert.assertEquals("P12345", cachedResults.getFinalUniprotId());
+        Assert.assertEquals(3, cachedResults.getListOfActions().size());
+        Assert.assertTrue(cachedResults.getListOfActions().get(0) instanceof DefaultUniprotProteinAPIReport);
+        Assert.assertTrue(cachedResults.getListOfActions().get(1) instanceof DefaultIntactCrc64Report);
+        Assert.assertTrue(cachedResults.getListOfActions().get(2) instanceof DefaultBlastReport);
+
+        DefaultUniprotProteinAPIReport uniprotReport = (DefaultUniprotProteinAPIReport) cachedResults.getListOfActions().get(0);
+        Assert.assertEquals(StatusLabel.TO_BE_REVIEWED, uniprotReport.getStatusLabel());
+        Assert.assertEquals(2, uniprotReport.getPossibleAccessions().size());
+        Assert.assertEquals(1, uniprotReport.getWarnings().size());
+        Assert.assertEquals(1, uniprotReport.getCrossReferences().size());
+
+        DefaultIntactCrc64Report intactReport = (DefaultIntactCrc64Report) cachedResults.getListOfActions().get(1);
+        Assert.assertEquals(SEQUENCE, intactReport.getQuerySequence());
+        Assert.assertTrue(intactReport.getPossibleIntactIds().contains("EBI-12345"));
+        Assert.assertNull(intactReport.getIntactAc());
+
+        DefaultBlastReport blastReport = (DefaultBlastReport) cachedResults.getListOfActions().get(2);
+        Assert.assertTrue(blastReport.isASwissprotEntry());
+        Assert.assertEquals(1, blastReport.getBlastMatchingProteins().size());
+
+        DefaultBlastResults blastResults = blastReport.getBlastMatchingProteins().iterator().next();
+        Assert.assertEquals("P12345", blastResults.getAccession());
+        Assert.assertEquals("Q12345", blastResults.getTremblAccession());
+        Assert.assertEquals(9606, blastResults.getTaxId());
+        Assert.assertEquals(99.5f, blastResults.getIdentity(), 0);
+        Assert.assertEquals(61, blastResults.getEndMatch());
+
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void different_taxId_or_options_are_not_shared() throws Exception {
+        IdentificationResultsCache cache = new IdentificationResultsCache(folder.getRoot(), 0, null);
+        cache.put(SEQUENCE, "9606", "blast", this.results);
+
+        Assert.assertNull(cache.get(SEQUENCE, "10090", "blast"));
+        Assert.assertNull(cache.get(SEQUENCE, "9606", "noblast"));
+        Assert.assertNotNull(cache.get(SEQUENCE, "9606", "blast"));
+    }
+
+    @Test
+    public void other_data_version_is_ignored() throws Exception {
+        new IdentificationResultsCache(folder.getRoot(), 0, "2026_04").put(SEQUENCE, "9606", "blast", this.results);
+
+        IdentificationResultsCache cache = new IdentificationResultsCache(folder.getRoot(), 0, "2026_05");
+        Assert.assertNull(cache.get(SEQUENCE, "9606", "blast"));
+    }
+
+    @Test
+    public void expired_results_are_ignored() throws Exception {
+        IdentificationResultsCache cache = new IdentificationResultsCache(folder.getRoot(), 1, null);
+        cache.put(SEQUENCE, "9606", "blast", this.results);
+
+        Thread.sleep(10);
+
+        Assert.assertNull(cache.get(SEQUENCE, "9606", "blast"));
+    }
+
+    @Test
+    public void options_differing_by_special_characters_are_not_shared() throws IOException {
+        IdentificationResultsCache cache = new IdentificationResultsCache(folder.getRoot(), 0, null);
+        cache.put(SEQUENCE, "9606", "blast identity=99", this.results);
+
+        Assert.assertNull(cache.get(SEQUENCE, "9606", "blast-identity-99"));
+        Assert.assertNull(cache.get(SEQUENCE, "9606", "blast identity:99"));
+        Assert.assertNotNull(cache.get(SEQUENCE, "9606", "blast identity=99"));
+    }
+
+    @Test
+    public void long_options_have_a_fixed_length_file_name() throws IOException {
+        StringBuilder options = new StringBuilder();
+        for (int i = 0; i < 1000; i++){
+            options.append("option").append(i).append(' ');
+        }
+
+        IdentificationResultsCache cache = new IdentificationResultsCache(folder.getRoot(), 0, null);
+        cache.put(SEQUENCE, "9606", options.toString(), this.results);
+        cache.put(SEQUENCE, null, null, this.results);
+
+        List<File> entries = listEntries(folder.getRoot());
+        Assert.assertEquals(2, entries.size());
+        for (File entry : entries){
+            // the hexadecimal SHA-1 digest of the key and the extension
+            Assert.assertEquals(44, entry.getName().length());
+        }
+        Assert.assertNotNull(cache.get(SEQUENCE, "9606", options.toString()));
+        Assert.assertNotNull(cache.get(SEQUENCE, null, null));
+    }
+
+    @Test
+    public void entry_of_another_key_is_ignored() throws IOException {
+        IdentificationResultsCache cache = new IdentificationResultsCache(folder.getRoot(), 0, null);
+        cache.put(SEQUENCE, "9606", "blast", this.results);
+        File entry = listEntries(folder.getRoot()).get(0);
+        byte[] content = Files.readAllBytes(entry.toPath());
+        Assert.assertTrue(entry.delete());
+
+        // the entry of 9606 is stored in the file of 10090, like after a collision of their digests
+        cache.put(SEQUENCE, "10090", "blast", this.results);
+        File otherEntry = listEntries(folder.getRoot()).get(0);
+        Files.write(otherEntry.toPath(), content);
+
+        Assert.assertNull(cache.get(SEQUENCE, "10090", "blast"));
+        Assert.assertFalse(otherEntry.exists());
+    }
+
+    private static List<File> listEntries(File directory){
+        List<File> entries = new ArrayList<File>();
+        File[] files = directory.listFiles();
+        if (files != null){
+            for (File file : files){
+                if (file.isDirectory()){
+                    entries.addAll(listEntries(file));
+                }
+                else {
+                    entries.add(file);
+                }
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,142 @@
+package uk.ac.ebi.intact.protein.mapping.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+import uk.ac.ebi.intact.uniprot.model.Organism;
+import uk.ac.ebi.intact.uniprot.model.UniprotProtein;
+
+/**
+ * Unit test for UniprotProteinCache
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+public class UniprotProteinCacheTest {
+
+    @Test
+    public void hitsAndMisses(){
+        UniprotProteinCache cache = new UniprotProteinCache(10, 0);
+        UniprotProtein protein = createProtein("P12345");
+        cache.put("P12345", protein);
+
+        Assert.assertSame(protein, cache.get("P12345"));
+        Assert.assertNull(cache.get("P12346"));
+        Assert.assertNull(cache.get(null));
+        Assert.assertSame(protein, cache.get("P12345"));
+
+        Assert.assertEquals(2, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    public void leastRecentlyUsedEvictedFirst(){
+        UniprotProteinCache cache = new UniprotProteinCache(3, 0);
+        cache.put("P00001", createProtein("P00001"));
+        cache.put("P00002", createProtein("P00002"));
+        cache.put("P00003", createProtein("P00003"));
+        // P00002 becomes the least recently used
+        cache.get("P00001");
+
+        cache.put("P00004", createProtein("P00004"));
+        Assert.assertEquals(3, cache.size());
+        Assert.assertEquals(1, cache.getEvictions());
+        Assert.assertNull(cache.get("P00002"));
+
+        cache.put("P00005", createProtein("P00005"));
+        Assert.assertNull(cache.get("P00003"));
+        Assert.assertNotNull(cache.get("P00001"));
+        Assert.assertNotNull(cache.get("P00004"));
+        Assert.assertNotNull(cache.get("P00005"));
+        Assert.assertEquals(2, cache.getEvictions());
+    }
+
+    @Test
+    public void smallerMaxSize(){
+        UniprotProteinCache cache = new UniprotProteinCache(3, 0);
+        cache.put("P00001", createProtein("P00001"));
+        cache.put("P00002", createProtein("P00002"));
+        cache.put("P00003", createProtein("P00003"));
+        cache.get("P00001");
+
+        cache.setMaxSize(1);
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(2, cache.getEvictions());
+        Assert.assertNotNull(cache.get("P00001"));
+
+        cache.setMaxSize(0);
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(3, cache.getEvictions());
+    }
+
+    @Test
+    public void disabled(){
+        UniprotProteinCache cache = new UniprotProteinCache(0, 0);
+        cache.put("P12345", createProtein("P12345"));
+
+        Assert.assertNull(cache.get("P12345"));
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    public void expiredEntries(){
+        ManualClock clock = new ManualClock();
+        UniprotProteinCache cache = new UniprotProteinCache(10, 50, clock);
+        cache.put("P12345", createProtein("P12345"));
+
+        clock.time += 50;
+        Assert.assertNotNull(cache.get("P12345"));
+
+        clock.time += 1;
+        Assert.assertNull(cache.get("P12345"));
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+        // an expired entry is not counted as an eviction
+        Assert.assertEquals(0, cache.getEvictions());
+
+        // the entries never expire without time to live
+        cache.setTimeToLive(0);
+        cache.put("P12345", createProtein("P12345"));
+        clock.time += 1000000;
+        Assert.assertNotNull(cache.get("P12345"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void clockIsRequired(){
+        new UniprotProteinCache(10, 50, null);
+    }
+
+    @Test
+    public void clearKeepsTheMetrics(){
+        UniprotProteinCache cache = new UniprotProteinCache(1, 0);
+        cache.put("P00001", createProtein("P00001"));
+        cache.put("P00002", createProtein("P00002"));
+        cache.get("P00001");
+        cache.get("P00002");
+
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertNull(cache.get("P00002"));
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(2, cache.getMisses());
+        Assert.assertEquals(1, cache.getEvictions());
+    }
+
+    /**
+     * A clock whose time only changes when the test changes it
+     */
+    private static class ManualClock implements UniprotProteinCache.Clock {
+        private long time = 1000;
+
+        public long currentTimeMillis() {
+            return time;
+        }
+    }
+
+    private static UniprotProtein createProtein(String accession){
+        return new UniprotProtein(accession + "_HUMAN", accession, new Organism(9606), "description of " + accession);
+    }
+}
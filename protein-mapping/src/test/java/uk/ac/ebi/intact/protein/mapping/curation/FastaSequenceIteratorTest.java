@@ -0,0 +1,138 @@
+package uk.ac.ebi.intact.protein.mapping.curation;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Unit test for FastaSequenceIterator
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+public class FastaSequenceIteratorTest {
+
+    private static final String FASTA = "some text before the first sequence\n" +
+            ">sp|P12345|TEST_HUMAN Test protein\n" +
+            "GTRASKHVFEKNLRPKALKL\n" +
+            "KNAEHCSIITKETARTVLTI\r\n" +
+            "QSYL\n" +
+            ">empty sequence\n" +
+            ">sp|P99999|OTHER_HUMAN Other protein\r\n" +
+            "MDDDPPPLLL WWWCCCYYYH\n" +
+            "\n" +
+            ">P11111\n" +
+            "MKTAYIAKQR";
+
+    /**
+     * Records directly followed by the next identifier line, without empty lines or empty records between them
+     */
+    private static final String CONSECUTIVE_FASTA = ">P00001\n" +
+            "MKTAYIAKQR\n" +
+            ">P00002\n" +
+            "GTRASKHVFE\n" +
+            "KNLRPKALKL\n" +
+            ">P00003\r\n" +
+            "MDDDPPPLLL\r\n" +
+            ">P00004\n" +
+            "QSYL\n" +
+            ">P00005\n" +
+            "WWWCCCYYYH\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File write(String name, String content, boolean compressed) throws IOException {
+        File file = folder.newFile(name);
+        OutputStream out = new FileOutputStream(file);
+        if (compressed){
+            out = new GZIPOutputStream(out);
+        }
+        try {
+            out.write(content.getBytes("UTF-8"));
+        }
+        finally {
+            out.close();
+        }
+        return file;
+    }
+
+    private List<FastaSequence> readAll(FastaSequenceIterator iterator){
+        List<FastaSequence> sequences = new ArrayList<FastaSequence>();
+        while (iterator.hasNext()){
+            sequences.add(iterator.next());
+        }
+        return sequences;
+    }
+
+    private void checkSequences(List<FastaSequence> sequences){
+        Assert.assertEquals(3, sequences.size());
+
+        Assert.assertEquals("sp|P12345|TEST_HUMAN Test protein", sequences.get(0).getIdentifier());
+        Assert.assertEquals("GTRASKHVFEKNLRPKALKLKNAEHCSIITKETARTVLTIQSYL", sequences.get(0).getSequence());
+        Assert.assertEquals("sp|P99999|OTHER_HUMAN Other protein", sequences.get(1).getIdentifier());
+        Assert.assertEquals("MDDDPPPLLLWWWCCCYYYH", sequences.get(1).getSequence());
+        Assert.assertEquals("P11111", sequences.get(2).getIdentifier());
+        Assert.assertEquals("MKTAYIAKQR", sequences.get(2).getSequence());
+    }
+
+    @Test
+    public void read_fasta_file() throws IOException {
+        checkSequences(readAll(new FastaSequenceIterator(write("sequences.fasta", FASTA, false))));
+    }
+
+    @Test
+    public void read_compressed_fasta_file() throws IOException {
+        checkSequences(readAll(new FastaSequenceIterator(write("sequences.fasta.gz", FASTA, true))));
+    }
+
+    @Test
+    public void read_shards() throws IOException {
+        File file = write("sequences.fasta", FASTA, false);
+
+        // whatever the number of shards, each sequence is read once
+        for (int numberOfShards = 1; numberOfShards <= FASTA.length() + 1; numberOfShards++){
+            List<FastaSequence> sequences = new ArrayList<FastaSequence>();
+
+            for (FastaSequenceIterator shard : FastaSequenceIterator.split(file, numberOfShards)){
+                sequences.addAll(readAll(shard));
+            }
+            checkSequences(sequences);
+        }
+    }
+
+    @Test
+    public void read_consecutive_sequences() throws IOException {
+        File file = write("consecutive.fasta", CONSECUTIVE_FASTA, false);
+        File compressedFile = write("consecutive.fasta.gz", CONSECUTIVE_FASTA, true);
+
+        checkConsecutiveSequences(readAll(new FastaSequenceIterator(file)));
+        checkConsecutiveSequences(readAll(new FastaSequenceIterator(compressedFile)));
+
+        for (int numberOfShards = 2; numberOfShards <= CONSECUTIVE_FASTA.length() + 1; numberOfShards++){
+            List<FastaSequence> sequences = new ArrayList<FastaSequence>();
+
+            for (FastaSequenceIterator shard : FastaSequenceIterator.split(file, numberOfShards)){
+                sequences.addAll(readAll(shard));
+            }
+            checkConsecutiveSequences(sequences);
+        }
+    }
+
+    private void checkConsecutiveSequences(List<FastaSequence> sequences){
+        String[] identifiers = {"P00001", "P00002", "P00003", "P00004", "P00005"};
+        String[] residues = {"MKTAYIAKQR", "GTRASKHVFEKNLRPKALKL", "MDDDPPPLLL", "QSYL", "WWWCCCYYYH"};
+
+        Assert.assertEquals(identifiers.length, sequences.size());
+        for (int i = 0; i < identifiers.length; i++){
+            Assert.assertEquals(identifiers[i], sequences.get(i).getIdentifier());
+            Assert.assertEquals(residues[i], sequences.get(i).getSequence());
+        }
+    }
+}
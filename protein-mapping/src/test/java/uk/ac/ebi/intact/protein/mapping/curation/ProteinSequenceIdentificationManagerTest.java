@@ -0,0 +1,212 @@
+package uk.ac.ebi.intact.protein.mapping.curation;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.ac.ebi.intact.protein.mapping.model.contexts.IdentificationContext;
+import uk.ac.ebi.intact.protein.mapping.results.IdentificationResults;
+import uk.ac.ebi.intact.protein.mapping.results.impl.DefaultIdentificationResults;
+import uk.ac.ebi.intact.protein.mapping.strategies.StrategyWithSequence;
+import uk.ac.ebi.intact.protein.mapping.strategies.exceptions.StrategyException;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Unit test for ProteinSequenceIdentificationManager, with a strategy identifying each sequence with the accession of its fasta identifier
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+public class ProteinSequenceIdentificationManagerTest {
+
+    private static final int NUMBER_OF_SEQUENCES = 30;
+
+    private static final String AMINO_ACIDS = "ACDEFGHIKLMNPQRSTVWY";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File inputFile;
+    private File outputFile;
+
+    /**
+     * The accession of each sequence
+     */
+    private Map<String, String> accessions = new HashMap<String, String>();
+
+    /**
+     * A strategy returning the accession of the sequence. The sequences take different times to be identified so the
+     * parallel identifications don't finish in the order of the input file
+     */
+    private class AccessionStrategy extends StrategyWithSequence {
+        private final Set<String> failingSequences = new HashSet<String>();
+        private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+        private boolean failingBatches;
+
+        @Override
+        public IdentificationResults identifyProtein(IdentificationContext context) throws StrategyException {
+            String accession = accessions.get(context.getSequence());
+            try {
+                Thread.sleep((accession.hashCode() & Integer.MAX_VALUE) % 5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (failingSequences.contains(context.getSequence())){
+                throw new StrategyException("The sequence of " + accession + " can't be identified");
+            }
+
+            DefaultIdentificationResults results = new DefaultIdentificationResults();
+            results.setFinalUniprotId(accession);
+            return results;
+        }
+
+        @Override
+        public List<IdentificationResults> identifyProteins(List<? extends IdentificationContext> contexts) {
+            batchSizes.add(contexts.size());
+            if (failingBatches){
+                throw new IllegalStateException("The batch can't be identified");
+            }
+
+            // the last sequences are identified first, the results are returned in the order of the contexts
+            IdentificationResults[] results = new IdentificationResults[contexts.size()];
+            for (int i = contexts.size() - 1; i >= 0; i--){
+                try {
+                    results[i] = identifyProtein(contexts.get(i));
+                } catch (StrategyException e) {
+                    results[i] = null;
+                }
+            }
+            return Arrays.asList(results);
+        }
+    }
+
+    @Before
+    public void createInputFile() throws IOException {
+        this.inputFile = folder.newFile("sequences.fasta");
+        this.outputFile = new File(folder.getRoot(), "results.csv");
+
+        Writer writer = new OutputStreamWriter(new FileOutputStream(this.inputFile), "UTF-8");
+        try {
+            for (int i = 0; i < NUMBER_OF_SEQUENCES; i++){
+                String sequence = createSequence(i);
+                this.accessions.put(sequence, "P" + (10000 + i));
+
+                writer.write(">SEQ" + i + "\n");
+                writer.write(sequence + "\n");
+            }
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * @return a different sequence for each index
+     */
+    private static String createSequence(int index){
+        StringBuilder sequence = new StringBuilder("MKT");
+        for (int i = 0; i < 20; i++){
+            sequence.append(AMINO_ACIDS.charAt((index + i * (index % 7 + 1)) % AMINO_ACIDS.length()));
+        }
+        sequence.append(AMINO_ACIDS.charAt(index % AMINO_ACIDS.length())).append(AMINO_ACIDS.charAt(index / AMINO_ACIDS.length()));
+        return sequence.toString();
+    }
+
+    private ProteinSequenceIdentificationManager createManager(AccessionStrategy strategy) throws IOException {
+        ProteinSequenceIdentificationManager manager = new ProteinSequenceIdentificationManager(this.inputFile, this.outputFile, "9606");
+        manager.setIdentificationStrategy(strategy);
+        manager.setMaxOutputFileSize(0);
+        return manager;
+    }
+
+    /**
+     * @return the fasta identifier and the accession written for each sequence, in the order of the output file
+     */
+    private List<String> readResults() throws IOException {
+        List<String> results = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(this.outputFile), "UTF-8"));
+        try {
+            Assert.assertTrue(reader.readLine().startsWith("Fasta identifier"));
+
+            String line;
+            while ((line = reader.readLine()) != null){
+                String[] columns = line.split("\t");
+                results.add(columns[0] + " " + columns[1]);
+            }
+        }
+        finally {
+            reader.close();
+        }
+        return results;
+    }
+
+    private static List<String> expectedResults(Integer... failingIndexes){
+        List<Integer> failing = Arrays.asList(failingIndexes);
+        List<String> results = new ArrayList<String>();
+        for (int i = 0; i < NUMBER_OF_SEQUENCES; i++){
+            results.add("SEQ" + i + " " + (failing.contains(i) ? "-" : "P" + (10000 + i)));
+        }
+        return results;
+    }
+
+    @Test
+    public void parallel_results_are_written_in_the_order_of_the_input_file() throws IOException {
+        ProteinSequenceIdentificationManager manager = createManager(new AccessionStrategy());
+        manager.setNumberOfThreads(4);
+
+        manager.runIdentificationJob();
+
+        Assert.assertEquals(expectedResults(), readResults());
+    }
+
+    @Test
+    public void parallel_failure_is_written_as_empty_results() throws IOException {
+        AccessionStrategy strategy = new AccessionStrategy();
+        strategy.failingSequences.add(createSequence(7));
+        ProteinSequenceIdentificationManager manager = createManager(strategy);
+        manager.setNumberOfThreads(4);
+
+        manager.runIdentificationJob();
+
+        Assert.assertEquals(expectedResults(7), readResults());
+    }
+
+    @Test
+    public void batch_results_are_written_with_their_sequence() throws IOException {
+        AccessionStrategy strategy = new AccessionStrategy();
+        strategy.failingSequences.add(createSequence(12));
+        ProteinSequenceIdentificationManager manager = createManager(strategy);
+        manager.setNumberOfThreads(1);
+        manager.setBlastBatchSize(7);
+
+        manager.runIdentificationJob();
+
+        Assert.assertEquals(expectedResults(12), readResults());
+        Assert.assertEquals(Arrays.asList(7, 7, 7, 7, 2), strategy.batchSizes);
+    }
+
+    @Test
+    public void failed_batch_is_identified_sequence_by_sequence() throws IOException {
+        AccessionStrategy strategy = new AccessionStrategy();
+        strategy.failingBatches = true;
+        strategy.failingSequences.add(createSequence(3));
+        strategy.failingSequences.add(createSequence(29));
+        ProteinSequenceIdentificationManager manager = createManager(strategy);
+        manager.setNumberOfThreads(1);
+        manager.setBlastBatchSize(10);
+
+        manager.runIdentificationJob();
+
+        Assert.assertEquals(expectedResults(3, 29), readResults());
+        Assert.assertEquals(3, strategy.batchSizes.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void strategy_is_required() throws IOException {
+        new ProteinSequenceIdentificationManager(this.inputFile, this.outputFile, "9606").setIdentificationStrategy(null);
+    }
+}
@@ -0,0 +1,104 @@
+package uk.ac.ebi.intact.protein.mapping.curation;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Unit test for ProteinSequenceResultsWriter
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+public class ProteinSequenceResultsWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private List<String> readLines(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        if (file.getName().endsWith(".gz")){
+            in = new GZIPInputStream(in);
+        }
+
+        List<String> lines = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null){
+                lines.add(line);
+            }
+        }
+        finally {
+            reader.close();
+        }
+        return lines;
+    }
+
+    @Test
+    public void write_empty_results_after_header() throws IOException {
+        File file = new File(folder.getRoot(), "results.csv");
+        ProteinSequenceResultsWriter writer = new ProteinSequenceResultsWriter(file);
+
+        writer.writeHeader();
+        writer.writeEmptyResults(new FastaSequence("P12345", "GTRASKHVFEKNLRPKALKL"));
+        writer.writeEmptyResults(new FastaSequence("P99999", "MDDDPPPLLLWWWCCCYYYH"));
+        writer.close();
+
+        // the empty results don't replace the content of the file
+        List<String> lines = readLines(file);
+        Assert.assertEquals(3, lines.size());
+        Assert.assertTrue(lines.get(0).startsWith("Fasta identifier"));
+        Assert.assertTrue(lines.get(1).startsWith("P12345\t-"));
+        Assert.assertTrue(lines.get(2).startsWith("P99999\t-"));
+        Assert.assertEquals(12, lines.get(2).split("\t").length);
+    }
+
+    @Test
+    public void rotate_files() throws IOException {
+        File file = new File(folder.getRoot(), "results.csv");
+        ProteinSequenceResultsWriter writer = new ProteinSequenceResultsWriter(file);
+        writer.setMaxFileSize(1);
+
+        writer.writeHeader();
+        writer.writeEmptyResults(new FastaSequence("P12345", "GTRASKHVFEKNLRPKALKL"));
+        writer.flush();
+        writer.writeEmptyResults(new FastaSequence("P99999", "MDDDPPPLLLWWWCCCYYYH"));
+        writer.close();
+
+        Assert.assertEquals(2, writer.getNumberOfFiles());
+        Assert.assertEquals(new File(folder.getRoot(), "results_2.csv"), writer.getCurrentFile());
+
+        List<String> lines = readLines(file);
+        Assert.assertEquals(2, lines.size());
+        Assert.assertTrue(lines.get(1).startsWith("P12345"));
+
+        // each file starts with the header
+        lines = readLines(writer.getCurrentFile());
+        Assert.assertEquals(2, lines.size());
+        Assert.assertTrue(lines.get(0).startsWith("Fasta identifier"));
+        Assert.assertTrue(lines.get(1).startsWith("P99999"));
+    }
+
+    @Test
+    public void write_compressed_results() throws IOException {
+        ProteinSequenceResultsWriter writer = new ProteinSequenceResultsWriter(new File(folder.getRoot(), "results.csv"), true);
+
+        writer.writeHeader();
+        writer.writeEmptyResults(new FastaSequence("P12345", "GTRASKHVFEKNLRPKALKL"));
+        writer.close();
+
+        File file = new File(folder.getRoot(), "results.csv.gz");
+        Assert.assertEquals(file, writer.getCurrentFile());
+
+        List<String> lines = readLines(file);
+        Assert.assertEquals(2, lines.size());
+        Assert.assertTrue(lines.get(1).startsWith("P12345"));
+    }
+}
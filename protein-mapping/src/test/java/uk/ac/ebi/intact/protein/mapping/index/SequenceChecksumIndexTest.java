@@ -0,0 +1,133 @@
+package uk.ac.ebi.intact.protein.mapping.index;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit test for SequenceChecksumIndex
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+public class SequenceChecksumIndexTest {
+
+    private static final String SEQUENCE = "GTRASKHVFEKNLRPKALKLKNAEHCSIITKETARTVLTIQSYLQSISNPEWAAAIAHK";
+    private static final String OTHER_SEQUENCE = "MDDDPPPLLLWWWCCCYYYHHHMMMDDDPPPLLLWWWCCCYYYHHH";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File write(String name, String content) throws IOException {
+        File file = folder.newFile(name);
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(content);
+        }
+        finally {
+            writer.close();
+        }
+        return file;
+    }
+
+    @Test
+    public void build_from_fasta() throws IOException {
+        File fasta = write("uniprot.fasta",
+                ">sp|P12345|TEST_HUMAN Test protein OS=Homo sapiens OX=9606 GN=TEST PE=1 SV=1\n" +
+                SEQUENCE.substring(0, 30) + "\n" + SEQUENCE.substring(30) + "\n" +
+                ">tr|Q12345|Q12345_MOUSE Test protein OS=Mus musculus OX=10090 PE=4 SV=1\n" +
+                SEQUENCE + "\n" +
+                ">sp|P99999|OTHER_HUMAN Other protein OS=Homo sapiens OX=9606 PE=1 SV=1\n" +
+                OTHER_SEQUENCE + "\n");
+        File indexFile = new File(folder.getRoot(), "uniprot.index");
+
+        SequenceChecksumIndex.build(fasta, indexFile);
+        SequenceChecksumIndex index = SequenceChecksumIndex.open(indexFile);
+
+        Assert.assertEquals(2, index.getNumberOfSequences());
+        Assert.assertEquals(3, index.getNumberOfEntries());
+
+        List<SequenceIndexEntry> entries = index.getEntries(SEQUENCE.toLowerCase());
+        Assert.assertEquals(2, entries.size());
+        Assert.assertEquals("P12345", entries.get(0).getAccession());
+        Assert.assertTrue(entries.get(0).isSwissprotEntry());
+        Assert.assertEquals("9606", entries.get(0).getTaxId());
+        Assert.assertEquals("Q12345", entries.get(1).getAccession());
+        Assert.assertFalse(entries.get(1).isSwissprotEntry());
+        Assert.assertEquals("10090", entries.get(1).getTaxId());
+
+        Assert.assertEquals(1, index.getEntries(OTHER_SEQUENCE).size());
+        Assert.assertTrue(index.getEntries(SEQUENCE.substring(1)).isEmpty());
+    }
+
+    @Test
+    public void build_from_flat_file() throws IOException {
+        File dat = write("uniprot.dat",
+                "ID   TEST_HUMAN              Reviewed;          59 AA.\n" +
+                "AC   P12345; Q00001;\n" +
+                "AC   Q00002;\n" +
+                "OS   Homo sapiens (Human).\n" +
+                "OX   NCBI_TaxID=9606 {ECO:0000313|EMBL:BAC85429.1};\n" +
+                "SQ   SEQUENCE   59 AA;  6692 MW;  1234567890ABCDEF CRC64;\n" +
+                "     " + SEQUENCE.substring(0, 10) + " " + SEQUENCE.substring(10, 20) + "\n" +
+                "     " + SEQUENCE.substring(20) + "\n" +
+                "//\n" +
+                "ID   Q12345_MOUSE            Unreviewed;        59 AA.\n" +
+                "AC   Q12345;\n" +
+                "OX   NCBI_TaxID=10090;\n" +
+                "SQ   SEQUENCE   59 AA;  6692 MW;  1234567890ABCDEF CRC64;\n" +
+                "     " + SEQUENCE + "\n" +
+                "//\n");
+        File indexFile = new File(folder.getRoot(), "uniprot.index");
+
+        SequenceChecksumIndex.build(dat, indexFile);
+        SequenceChecksumIndex index = SequenceChecksumIndex.open(indexFile);
+
+        List<SequenceIndexEntry> entries = index.getEntries(SEQUENCE);
+        Assert.assertEquals(2, entries.size());
+        Assert.assertEquals("P12345", entries.get(0).getAccession());
+        Assert.assertTrue(entries.get(0).isSwissprotEntry());
+        Assert.assertEquals("9606", entries.get(0).getTaxId());
+        Assert.assertEquals("Q12345", entries.get(1).getAccession());
+        Assert.assertFalse(entries.get(1).isSwissprotEntry());
+    }
+
+    @Test
+    public void index_bigger_than_the_limit_is_rejected() throws IOException {
+        File fasta = write("uniprot.fasta",
+                ">sp|P12345|TEST_HUMAN Test protein OS=Homo sapiens OX=9606 GN=TEST PE=1 SV=1\n" +
+                SEQUENCE + "\n" +
+                ">sp|P99999|OTHER_HUMAN Other protein OS=Homo sapiens OX=9606 PE=1 SV=1\n" +
+                OTHER_SEQUENCE + "\n");
+        File indexFile = new File(folder.getRoot(), "uniprot.index");
+
+        // the header and the 4 slots fit but not the entries
+        try {
+            SequenceChecksumIndex.build(Collections.singletonList(fasta), indexFile, 32 + 4 * 24 + 20);
+            Assert.fail("The index is bigger than the limit");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("bigger than 148 bytes"));
+        }
+        // the slots don't fit
+        try {
+            SequenceChecksumIndex.build(Collections.singletonList(fasta), indexFile, 100);
+            Assert.fail("The index is bigger than the limit");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("bigger than 100 bytes"));
+        }
+        Assert.assertFalse(indexFile.exists());
+
+        // the header, the 4 slots and the entries of the two sequences : their number, database, taxId, length and accession
+        long indexSize = 32 + 4 * 24 + 2 * (4 + 1 + 4 + 2 + 6);
+        SequenceChecksumIndex.build(Collections.singletonList(fasta), indexFile, indexSize);
+        Assert.assertEquals(indexSize, indexFile.length());
+        Assert.assertEquals(2, SequenceChecksumIndex.open(indexFile).getNumberOfSequences());
+    }
+}
@@ -0,0 +1,113 @@
+package uk.ac.ebi.intact.protein.mapping.update;
+
+import org.junit.Assert;
+import org.junit.Test;
+import uk.ac.ebi.intact.protein.mapping.model.contexts.UpdateContext;
+import uk.ac.ebi.intact.protein.mapping.results.IdentificationResults;
+import uk.ac.ebi.intact.protein.mapping.results.impl.DefaultIdentificationResults;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit test for IdentificationReportPipeline
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+public class IdentificationReportPipelineTest {
+
+    /**
+     * A pipeline reading 3 batches of 10 proteins EBI-100 to EBI-129. The identification of EBI-105 fails.
+     */
+    private static class TestPipeline extends IdentificationReportPipeline {
+        private List<String> written = new ArrayList<String>();
+        private List<String> failed = new ArrayList<String>();
+        private boolean failReading;
+
+        private TestPipeline(int numberOfThreads, int queueCapacity){
+            super(numberOfThreads, queueCapacity);
+        }
+
+        @Override
+        protected List<ProteinCandidate> readNextCandidates(String lastAc) throws ProteinUpdateException {
+            int first = lastAc == null ? 100 : Integer.parseInt(lastAc.substring(4)) + 1;
+            if (failReading && first > 100){
+                throw new ProteinUpdateException("database down");
+            }
+            if (first >= 130){
+                return Collections.emptyList();
+            }
+            List<ProteinCandidate> candidates = new ArrayList<ProteinCandidate>();
+            for (int i = first; i < first + 10; i++){
+                candidates.add(new ProteinCandidate("EBI-" + i, "prot" + i, "human", "9606"));
+            }
+            return candidates;
+        }
+
+        @Override
+        protected IdentificationResults identify(UpdateContext context) throws Exception {
+            // the first proteins take longer so they are identified after the following ones
+            Thread.sleep(context.getIntactAccession().endsWith("0") ? 20 : 1);
+            if (context.getIntactAccession().equals("EBI-105")){
+                throw new IllegalStateException("remote service unavailable");
+            }
+            IdentificationResults result = new DefaultIdentificationResults();
+            result.setFinalUniprotId("P" + context.getIntactAccession().substring(4));
+            return result;
+        }
+
+        @Override
+        protected void writeReport(ProteinCandidate candidate, IdentificationResults result) throws ProteinUpdateException, IOException {
+            written.add(candidate.getAc());
+            if (result == null){
+                failed.add(candidate.getAc());
+            }
+        }
+    }
+
+    @Test
+    public void write_reports_in_reading_order(){
+        TestPipeline pipeline = new TestPipeline(4, 5);
+
+        try {
+            pipeline.run();
+        } catch (Exception e) {
+            Assert.fail(e.getMessage());
+        }
+
+        Assert.assertEquals(30, pipeline.written.size());
+        for (int i = 0; i < 30; i++){
+            Assert.assertEquals("EBI-" + (100 + i), pipeline.written.get(i));
+        }
+        Assert.assertEquals(Collections.singletonList("EBI-105"), pipeline.failed);
+
+        ReportPipelineMetrics metrics = pipeline.getMetrics();
+        Assert.assertEquals(30, metrics.getItems(ReportPipelineMetrics.Stage.READ));
+        Assert.assertEquals(30, metrics.getItems(ReportPipelineMetrics.Stage.IDENTIFY));
+        Assert.assertEquals(30, metrics.getItems(ReportPipelineMetrics.Stage.WRITE));
+        Assert.assertEquals(0, metrics.getQueueDepth());
+        Assert.assertTrue(metrics.getMaxQueueDepth() <= 5);
+        Assert.assertEquals(5, metrics.getQueueCapacity());
+    }
+
+    @Test
+    public void stop_when_reading_fails(){
+        TestPipeline pipeline = new TestPipeline(2, 5);
+        pipeline.failReading = true;
+
+        try {
+            pipeline.run();
+            Assert.fail("The reader failure should stop the pipeline");
+        } catch (ProteinUpdateException e) {
+            Assert.assertEquals("database down", e.getMessage());
+        } catch (IOException e) {
+            Assert.fail(e.getMessage());
+        }
+
+        // the proteins read before the failure are written
+        Assert.assertEquals(10, pipeline.written.size());
+    }
+}
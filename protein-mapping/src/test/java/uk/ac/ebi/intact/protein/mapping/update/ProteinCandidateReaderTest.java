@@ -0,0 +1,56 @@
+package uk.ac.ebi.intact.protein.mapping.update;
+
+import org.junit.Assert;
+import org.junit.Test;
+import uk.ac.ebi.intact.model.CvDatabase;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Unit test for ProteinCandidateReader
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+public class ProteinCandidateReaderTest {
+
+    private Map<String, ProteinCandidate> createCandidates(){
+        return ProteinCandidateReader.createCandidates(Arrays.asList(
+                new Object[] {"EBI-1", "prot1", "human", "9606"},
+                new Object[] {"EBI-2", "prot2", null, null}));
+    }
+
+    @Test
+    public void reassemble_sequence_chunks(){
+        Map<String, ProteinCandidate> candidates = createCandidates();
+
+        ProteinCandidateReader.addSequenceChunks(candidates, Arrays.asList(
+                new Object[] {"EBI-1", "MSAIQ"},
+                new Object[] {"EBI-1", "AAWPS"},
+                new Object[] {"EBI-1", "G"},
+                new Object[] {"EBI-3", "MMMMM"}));
+
+        Assert.assertEquals(2, candidates.size());
+        Assert.assertEquals("MSAIQAAWPSG", candidates.get("EBI-1").getSequence());
+        Assert.assertNull(candidates.get("EBI-2").getSequence());
+        Assert.assertEquals("9606", candidates.get("EBI-1").getTaxId());
+        Assert.assertNull(candidates.get("EBI-2").getTaxId());
+    }
+
+    @Test
+    public void ignore_intact_cross_references(){
+        Map<String, ProteinCandidate> candidates = createCandidates();
+
+        ProteinCandidateReader.addIdentityCrossReferences(candidates, Arrays.asList(
+                new Object[] {"EBI-1", "P12345", CvDatabase.UNIPROT_MI_REF, "uniprotkb"},
+                new Object[] {"EBI-1", "EBI-1", CvDatabase.INTACT_MI_REF, CvDatabase.INTACT},
+                new Object[] {"EBI-2", "ENSG0001", null, "ensembl"},
+                new Object[] {"EBI-2", null, null, "refseq"}));
+
+        Assert.assertEquals(1, candidates.get("EBI-1").getIdentifiers().size());
+        Assert.assertEquals("P12345", candidates.get("EBI-1").getIdentifiers().get(CvDatabase.UNIPROT_MI_REF));
+        Assert.assertEquals(1, candidates.get("EBI-2").getIdentifiers().size());
+        Assert.assertEquals("ENSG0001", candidates.get("EBI-2").getIdentifiers().get("ensembl"));
+    }
+}
@@ -0,0 +1,50 @@
+package uk.ac.ebi.intact.protein.mapping.update;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Unit test for UpdateCheckpoint
+ *
+ * @version $Id$
+ * @since <pre>18/10/26</pre>
+ */
+public class UpdateCheckpointTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void no_checkpoint() throws IOException {
+        Assert.assertNull(UpdateCheckpoint.read(new File(folder.getRoot(), "update.checkpoint")));
+    }
+
+    @Test
+    public void write_and_resume() throws IOException {
+        File checkpointFile = new File(folder.getRoot(), "update.checkpoint");
+        File reportFile = new File(folder.getRoot(), "updateReport.txt");
+
+        UpdateCheckpoint checkpoint = new UpdateCheckpoint(reportFile);
+        checkpoint.addBatch("EBI-100", 100, 12, 1);
+        checkpoint.write(checkpointFile);
+        checkpoint.addBatch("EBI-200", 100, 8, 0);
+        checkpoint.setReportLength(4096);
+        checkpoint.write(checkpointFile);
+
+        UpdateCheckpoint resumed = UpdateCheckpoint.read(checkpointFile);
+        Assert.assertEquals("EBI-200", resumed.getLastAc());
+        Assert.assertEquals(200, resumed.getProcessed());
+        Assert.assertEquals(20, resumed.getUpdated());
+        Assert.assertEquals(1, resumed.getFailed());
+        Assert.assertEquals(reportFile.getAbsoluteFile(), resumed.getReportFile());
+        Assert.assertEquals(4096, resumed.getReportLength());
+
+        // the temporary file has been renamed
+        Assert.assertFalse(new File(folder.getRoot(), "update.checkpoint.tmp").exists());
+    }
+}